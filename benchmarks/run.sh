@@ -0,0 +1,33 @@
+#!/bin/sh
+# Builds the backend and the benchmarks, runs them and compares the results with
+# benchmarks/baseline.json, exiting non-zero on a regression.
+#
+#   benchmarks/run.sh                          the hot-path benchmarks with a baseline
+#   benchmarks/run.sh SocialGraphBenchmark     any JMH benchmark regex and options
+#   UPDATE_BASELINE=1 benchmarks/run.sh        record the results as the new baseline
+#   THRESHOLD=0.25 benchmarks/run.sh           allowed slowdown before failing (default 0.15)
+#
+# A slowdown past the threshold only fails when the run's confidence interval
+# clears the baseline's, so record baselines with the benchmarks' own forks and
+# iterations rather than a shortened run.
+#
+# Baselines are only comparable on the machine they were recorded on; re-record
+# after moving to new hardware or a new JDK.
+set -e
+cd "$(dirname "$0")/.."
+
+sh ./mvnw -B -q install -DskipTests
+sh ./mvnw -B -q -f benchmarks/pom.xml package
+
+mkdir -p benchmarks/results
+if [ $# -eq 0 ]; then
+    set -- 'MessageMappingBenchmark|JsonSerializationBenchmark|JwtBenchmark|FeedAssemblyBenchmark'
+fi
+java -jar benchmarks/target/benchmarks.jar -rf json -rff benchmarks/results/latest.json "$@"
+
+CHECK="java -cp benchmarks/target/benchmarks.jar com.bharat.springbootsocial.benchmarks.BaselineCheck"
+if [ -n "$UPDATE_BASELINE" ]; then
+    $CHECK benchmarks/results/latest.json benchmarks/baseline.json --update
+else
+    $CHECK benchmarks/results/latest.json benchmarks/baseline.json "${THRESHOLD:-0.15}"
+fi
@@ -0,0 +1,135 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with the recorded baseline.
+ *
+ * <pre>
+ *   BaselineCheck results.json baseline.json [threshold]   fails on a regression
+ *   BaselineCheck results.json baseline.json --update      records the results as the new baseline
+ * </pre>
+ *
+ * Results are matched by benchmark, mode and parameters. A result regresses when
+ * its score is worse than its baseline by more than the threshold (default
+ * 0.15), lower for throughput and higher for time modes, and its 99.9%
+ * confidence interval lies entirely on the worse side of the baseline's. A
+ * slowdown the two runs' own error cannot tell from noise is reported as
+ * "noisy" rather than failed. Benchmarks missing from either
+ * file are reported but never fail the check. Updating keeps baseline entries
+ * the results do not cover, so a run of a single benchmark only replaces its own.
+ */
+public final class BaselineCheck {
+
+    private static final double DEFAULT_THRESHOLD = 0.15;
+
+    private BaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineCheck <results.json> <baseline.json> [threshold | --update]");
+            System.exit(2);
+        }
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File resultsFile = new File(args[0]);
+        File baselineFile = new File(args[1]);
+        Map<String, JsonNode> results = byKey(mapper.readTree(resultsFile));
+        Map<String, JsonNode> baseline = baselineFile.exists()
+                ? byKey(mapper.readTree(baselineFile)) : new LinkedHashMap<>();
+
+        if (args.length > 2 && args[2].equals("--update")) {
+            Map<String, JsonNode> merged = new TreeMap<>(baseline);
+            merged.putAll(results);
+            ArrayNode out = mapper.createArrayNode();
+            merged.values().forEach(out::add);
+            mapper.writeValue(baselineFile, out);
+            System.out.printf("Recorded %d results in %s (%d entries)%n", results.size(), baselineFile, merged.size());
+            return;
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode current = entry.getValue();
+            JsonNode recorded = baseline.get(entry.getKey());
+            String unit = current.path("primaryMetric").path("scoreUnit").asText();
+            double score = current.path("primaryMetric").path("score").asDouble();
+            if (recorded == null) {
+                System.out.printf("  new   %-90s %12.3f %s%n", entry.getKey(), score, unit);
+                continue;
+            }
+            double base = recorded.path("primaryMetric").path("score").asDouble();
+            double error = scoreError(current);
+            double baseError = scoreError(recorded);
+            boolean throughput = current.path("mode").asText().equals("thrpt");
+            // Positive change is always a slowdown
+            double change = throughput ? (base - score) / base : (score - base) / base;
+            boolean separated = throughput
+                    ? score + error < base - baseError
+                    : score - error > base + baseError;
+            String status = "ok";
+            if (change > threshold) {
+                status = separated ? "FAIL" : "noisy";
+            }
+            if (status.equals("FAIL")) {
+                regressions++;
+            }
+            System.out.printf("  %-5s %-90s %12.3f +- %.3f %s (baseline %.3f +- %.3f, %+.1f%%)%n",
+                    status, entry.getKey(), score, error, unit, base, baseError, change * 100);
+        }
+        for (String key : baseline.keySet()) {
+            if (!results.containsKey(key)) {
+                System.out.printf("  skip  %s%n", key);
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+        System.out.printf("No regressions beyond %.0f%%%n", threshold * 100);
+    }
+
+    // Half the width of the 99.9% confidence interval; 0 for single-iteration runs, where JMH reports NaN
+    private static double scoreError(JsonNode run) {
+        double error = run.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static Map<String, JsonNode> byKey(JsonNode runs) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode run : runs) {
+            byKey.put(key(run), run);
+        }
+        return byKey;
+    }
+
+    // e.g. "benchmarks.FeedAssemblyBenchmark.anonymous avgt {pageSize=20}"
+    private static String key(JsonNode run) {
+        String benchmark = run.path("benchmark").asText()
+                .replace("com.bharat.springbootsocial.", "");
+        StringBuilder key = new StringBuilder(benchmark).append(' ').append(run.path("mode").asText());
+        JsonNode params = run.path("params");
+        if (!params.isMissingNode() && params.size() > 0) {
+            Map<String, String> sorted = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                sorted.put(field.getKey(), field.getValue().asText());
+            }
+            key.append(' ').append(sorted);
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.response.ContentResponse;
+import com.bharat.springbootsocial.services.FeedAssembler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FeedAssembler building a page of content responses from what its grouped
+ * queries return: preview likers, latest comments, authors and the viewer's
+ * likes. Repositories are stubbed, so this is the in-memory part of a feed
+ * request. Preview likers are capped at three per item by the query, so the
+ * cost of items with many likers is in SQL and shows up in the repository
+ * timers instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class FeedAssemblyBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private FeedAssembler assembler;
+    private List<Object> items;
+    private UUID viewerId;
+
+    @Setup(Level.Trial)
+    public void buildPage() throws ReflectiveOperationException {
+        Fixtures.FeedPage page = new Fixtures.FeedPage(pageSize);
+        assembler = page.assembler();
+        items = page.items;
+        viewerId = Fixtures.user(0).getId();
+    }
+
+    @Benchmark
+    public List<ContentResponse> signedIn() {
+        return assembler.toContentResponses(items, viewerId);
+    }
+
+    @Benchmark
+    public List<ContentResponse> anonymous() {
+        return assembler.toContentResponses(items, null);
+    }
+}
@@ -0,0 +1,203 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.config.JacksonConfig;
+import com.bharat.springbootsocial.entity.Comment;
+import com.bharat.springbootsocial.entity.Post;
+import com.bharat.springbootsocial.entity.Reels;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.repository.CommentRepo;
+import com.bharat.springbootsocial.repository.PostRepo;
+import com.bharat.springbootsocial.repository.ReelsRepo;
+import com.bharat.springbootsocial.repository.UserRepo;
+import com.bharat.springbootsocial.services.EngagementCounters;
+import com.bharat.springbootsocial.services.FeedAssembler;
+import com.bharat.springbootsocial.services.FeedJsonCache;
+import com.bharat.springbootsocial.services.LikedItemsCache;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Synthetic entities shared by the mapping and serialization benchmarks.
+ */
+final class Fixtures {
+
+    private static final int PREVIEW_SIZE = 3;
+
+    private Fixtures() {
+    }
+
+    static User user(int n) {
+        User user = new User();
+        user.setId(new UUID(0x5EED, n));
+        user.setFname("First" + n);
+        user.setLname("Last" + n);
+        user.setEmail("user" + n + "@example.com");
+        user.setGender(n % 2 == 0 ? "female" : "male");
+        user.setProfileImage("https://cdn.example.com/profile/" + n + ".jpg");
+        user.setUserBio("Photographer, runner, coffee person #" + n);
+        return user;
+    }
+
+    /**
+     * A feed page of alternating posts and reels from a pool of users, with the
+     * preview likers and latest comments the repositories would return for it.
+     */
+    static final class FeedPage {
+
+        final List<Object> items = new ArrayList<>();
+        final Set<UUID> likedByViewer = new HashSet<>();
+
+        private final Map<UUID, User> users = new HashMap<>();
+        private final List<Object[]> postLikers = new ArrayList<>();
+        private final List<Object[]> reelLikers = new ArrayList<>();
+        private final List<Comment> postComments = new ArrayList<>();
+        private final List<Comment> reelComments = new ArrayList<>();
+
+        FeedPage(int size) {
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < 200; i++) {
+                User user = user(i);
+                users.put(user.getId(), user);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < size; i++) {
+                UUID id = new UUID(random.nextLong(), random.nextLong());
+                User author = reference(random.nextInt(200));
+                List<Object[]> likers;
+                List<Comment> comments;
+                Comment template = new Comment();
+                if (i % 2 == 0) {
+                    Post post = new Post();
+                    post.setId(id);
+                    post.setCaption("Sunset over the harbour, day " + i);
+                    post.setImage("https://cdn.example.com/posts/" + id + ".jpg");
+                    post.setUser(author);
+                    post.setLikeCount(random.nextInt(5000));
+                    post.setCommentCount(random.nextInt(300));
+                    post.setCreatedAt(now.minusMinutes(i));
+                    items.add(post);
+                    template.setPost(post);
+                    likers = postLikers;
+                    comments = postComments;
+                } else {
+                    Reels reel = new Reels();
+                    reel.setId(id);
+                    reel.setTitle("Trail run, part " + i);
+                    reel.setVideo("https://cdn.example.com/reels/" + id + ".mp4");
+                    reel.setUser(author);
+                    reel.setLikeCount(random.nextInt(5000));
+                    reel.setCommentCount(random.nextInt(300));
+                    reel.setCreatedAt(now.minusMinutes(i));
+                    items.add(reel);
+                    template.setReel(reel);
+                    likers = reelLikers;
+                    comments = reelComments;
+                }
+                for (int j = 0; j < PREVIEW_SIZE; j++) {
+                    likers.add(new Object[]{id, user(random.nextInt(200)).getId()});
+
+                    Comment comment = new Comment();
+                    comment.setId(new UUID(random.nextLong(), random.nextLong()));
+                    comment.setContent("Looks amazing! Where was this taken?");
+                    comment.setUser(reference(random.nextInt(200)));
+                    comment.setPost(template.getPost());
+                    comment.setReel(template.getReel());
+                    comment.setLikeCount(random.nextInt(50));
+                    comment.setCreatedAt(now.minusSeconds(j));
+                    comments.add(comment);
+                    if (random.nextInt(4) == 0) {
+                        likedByViewer.add(comment.getId());
+                    }
+                }
+                if (random.nextInt(3) == 0) {
+                    likedByViewer.add(id);
+                }
+            }
+        }
+
+        /**
+         * An assembler whose repositories answer from this page and whose liked
+         * items cache answers from {@link #likedByViewer}, so only the in-memory
+         * stitching is measured.
+         */
+        FeedAssembler assembler() throws ReflectiveOperationException {
+            FeedAssembler assembler = new FeedAssembler();
+            set(assembler, "postRepo", repository(PostRepo.class));
+            set(assembler, "reelsRepo", repository(ReelsRepo.class));
+            set(assembler, "commentRepo", repository(CommentRepo.class));
+            set(assembler, "userRepo", repository(UserRepo.class));
+            set(assembler, "counters", new EngagementCounters());
+            set(assembler, "likedItemsCache", new LikedItemsCache() {
+                @Override
+                public Set<UUID> likedAmong(UUID userId, Collection<UUID> itemIds) {
+                    Set<UUID> liked = new HashSet<>();
+                    for (UUID itemId : itemIds) {
+                        if (likedByViewer.contains(itemId)) {
+                            liked.add(itemId);
+                        }
+                    }
+                    return liked;
+                }
+            });
+            set(assembler, "feedJsonCache", feedJsonCache(true));
+            return assembler;
+        }
+
+        // Only the batch lookups FeedAssembler makes are answered
+        private <T> T repository(Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "findPreviewLikers" -> type == PostRepo.class ? postLikers : reelLikers;
+                        case "findLatestByPostIds" -> postComments;
+                        case "findLatestByReelIds" -> reelComments;
+                        case "findAllById" -> {
+                            List<User> found = new ArrayList<>();
+                            for (Object id : (Iterable<?>) args[0]) {
+                                User user = users.get(id);
+                                if (user != null) {
+                                    found.add(user);
+                                }
+                            }
+                            yield found;
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> type.getSimpleName();
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }));
+        }
+
+        // Authors and comment users arrive as references holding only the id, like lazy proxies
+        private static User reference(int n) {
+            User user = new User();
+            user.setId(user(n).getId());
+            return user;
+        }
+    }
+
+    // Filled on first use, like the application's cache after its first feed reads
+    static FeedJsonCache feedJsonCache(boolean enabled) throws ReflectiveOperationException {
+        FeedJsonCache cache = new FeedJsonCache();
+        set(cache, "objectMapper", new JacksonConfig().objectMapper());
+        set(cache, "enabled", enabled);
+        set(cache, "maxFragments", 50_000);
+        return cache;
+    }
+
+    static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
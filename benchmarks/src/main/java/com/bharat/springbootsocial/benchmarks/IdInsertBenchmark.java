@@ -0,0 +1,136 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.ids.UuidV7;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rows per second inserted into a messages-like table keyed by a BINARY(16)
+ * primary key, with random version 4 ids against time-ordered version 7 ones.
+ * The table is pre-filled so the primary key index is larger than the pages
+ * that stay hot; random ids then touch a different leaf page for almost every
+ * row and split pages as they fill, while time-ordered ones append to the last
+ * page.
+ *
+ * Defaults to an H2 file database in MySQL mode so no server is needed. The
+ * effect is much larger on InnoDB, whose clustered index stores the whole row
+ * in primary key order; pass a MySQL URL to measure that:
+ *
+ * <pre>
+ *   java -jar benchmarks/target/benchmarks.jar IdInsertBenchmark \
+ *       -p url='jdbc:mysql://localhost:3306/bench?user=root&amp;password=...&amp;rewriteBatchedStatements=true'
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class IdInsertBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"v4", "v7"})
+    private String ids;
+
+    @Param({"1000000"})
+    private int prefill;
+
+    @Param({""})
+    private String url;
+
+    private HikariDataSource dataSource;
+    private Supplier<UUID> generator;
+    private byte[][] conversations;
+
+    @Setup(Level.Trial)
+    public void createTable() throws SQLException {
+        generator = ids.equals("v7") ? UuidV7::next : UUID::randomUUID;
+        dataSource = new HikariDataSource();
+        if (url.isEmpty()) {
+            dataSource.setJdbcUrl("jdbc:h2:file:" + new File(System.getProperty("java.io.tmpdir"),
+                    "id-insert-benchmark").getPath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+            dataSource.setUsername("sa");
+        } else {
+            dataSource.setJdbcUrl(url);
+        }
+        dataSource.setMaximumPoolSize(4);
+
+        conversations = new byte[256][];
+        for (int i = 0; i < conversations.length; i++) {
+            conversations[i] = BinaryUuids.toBytes(UUID.randomUUID());
+        }
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS id_insert_benchmark");
+            statement.execute("CREATE TABLE id_insert_benchmark (id BINARY(16) NOT NULL PRIMARY KEY, "
+                    + "conversation_id BINARY(16) NOT NULL, content VARCHAR(1000), created_at TIMESTAMP NOT NULL)");
+            statement.execute("CREATE INDEX idx_id_insert_benchmark_conversation "
+                    + "ON id_insert_benchmark (conversation_id, created_at)");
+        }
+        for (int done = 0; done < prefill; done += BATCH * 10) {
+            insert(BATCH * 10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void dropTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE id_insert_benchmark");
+        }
+        dataSource.close();
+    }
+
+    // One transaction per batch, as the message write pipeline commits
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertBatch() throws SQLException {
+        insert(BATCH);
+    }
+
+    private void insert(int rows) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO id_insert_benchmark "
+                     + "(id, conversation_id, content, created_at) VALUES (?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (int i = 0; i < rows; i++) {
+                insert.setBytes(1, BinaryUuids.toBytes(generator.get()));
+                insert.setBytes(2, conversations[random.nextInt(conversations.length)]);
+                insert.setString(3, "See you at the station at seven, bring the tickets");
+                insert.setTimestamp(4, now);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+}
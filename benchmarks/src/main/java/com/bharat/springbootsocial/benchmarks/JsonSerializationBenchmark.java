@@ -0,0 +1,119 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.config.JacksonConfig;
+import com.bharat.springbootsocial.entity.ConversationType;
+import com.bharat.springbootsocial.entity.GroupMessage;
+import com.bharat.springbootsocial.entity.GroupMessageReaction;
+import com.bharat.springbootsocial.entity.ReadWatermark;
+import com.bharat.springbootsocial.entity.ReadWatermarkId;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.response.ContentResponse;
+import com.bharat.springbootsocial.response.GroupMessageResponse;
+import com.bharat.springbootsocial.response.PaginatedResponse;
+import com.bharat.springbootsocial.services.FeedAssembler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization, with the application's ObjectMapper, of a feed page
+ * as returned by the feed endpoints and of a group message as broadcast to
+ * /group/{id}. The feed page is written once spliced from warm cached JSON
+ * fragments, as served, and once field by field, as with the cache off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JsonSerializationBenchmark {
+
+    @Param({"20"})
+    private int pageSize;
+
+    @Param({"10"})
+    private int reactions;
+
+    private ObjectMapper objectMapper;
+    private PaginatedResponse<ContentResponse> feedPage;
+    private PaginatedResponse<ContentResponse> feedPageWithoutFragments;
+    private GroupMessageResponse groupFrame;
+
+    @Setup(Level.Trial)
+    public void buildPayloads() throws ReflectiveOperationException {
+        objectMapper = new JacksonConfig().objectMapper();
+
+        Fixtures.FeedPage page = new Fixtures.FeedPage(pageSize);
+        List<ContentResponse> content = page.assembler().toContentResponses(page.items, Fixtures.user(0).getId());
+        feedPage = new PaginatedResponse<>(content, 0, pageSize, 10_000, 10_000 / pageSize,
+                true, false, true, false);
+        FeedAssembler withoutFragments = page.assembler();
+        Fixtures.set(withoutFragments, "feedJsonCache", Fixtures.feedJsonCache(false));
+        feedPageWithoutFragments = new PaginatedResponse<>(
+                withoutFragments.toContentResponses(page.items, Fixtures.user(0).getId()), 0, pageSize, 10_000,
+                10_000 / pageSize, true, false, true, false);
+
+        LocalDateTime now = LocalDateTime.now();
+        GroupMessage message = new GroupMessage();
+        message.setId(UUID.randomUUID());
+        message.setContent("See you at the station at seven, bring the tickets");
+        message.setMessageType(GroupMessage.MessageType.TEXT);
+        message.setSender(Fixtures.user(0));
+        message.setCreatedAt(now);
+        message.setUpdatedAt(now);
+        message.setSeq(1000L);
+        for (int i = 0; i < reactions; i++) {
+            GroupMessageReaction reaction = new GroupMessageReaction();
+            reaction.setId(UUID.randomUUID());
+            reaction.setMessage(message);
+            reaction.setUser(Fixtures.user(i + 1));
+            reaction.setEmoji(i % 2 == 0 ? "👍" : "❤️");
+            reaction.setCreatedAt(now);
+            message.getReactions().add(reaction);
+        }
+        List<ReadWatermark> readers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = Fixtures.user(i + 1);
+            ReadWatermark watermark = new ReadWatermark();
+            watermark.setId(new ReadWatermarkId(user.getId(), ConversationType.GROUP, UUID.randomUUID()));
+            watermark.setUser(user);
+            watermark.setLastReadSeq(1000);
+            watermark.setLastReadAt(now);
+            readers.add(watermark);
+        }
+        groupFrame = new GroupMessageResponse(message, readers);
+    }
+
+    @Benchmark
+    public byte[] feedPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(feedPage);
+    }
+
+    @Benchmark
+    public byte[] feedPageWithoutFragments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(feedPageWithoutFragments);
+    }
+
+    @Benchmark
+    public byte[] groupMessageFrame() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(groupFrame);
+    }
+}
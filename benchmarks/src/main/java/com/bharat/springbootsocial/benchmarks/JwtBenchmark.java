@@ -0,0 +1,44 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.config.JwtProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifying a bearer token and reading its email claim, done for every REST
+ * request that misses the principal cache and every STOMP CONNECT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtBenchmark {
+
+    private String header;
+
+    @Setup(Level.Trial)
+    public void issueToken() {
+        header = "Bearer " + JwtProvider.generateToken(
+                new UsernamePasswordAuthenticationToken("user0@example.com", null, List.of()));
+    }
+
+    @Benchmark
+    public String emailFromToken() {
+        return JwtProvider.getEmailFromJwtToken(header);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.entity.Chat;
+import com.bharat.springbootsocial.entity.ConversationType;
+import com.bharat.springbootsocial.entity.GroupMessage;
+import com.bharat.springbootsocial.entity.GroupMessageReaction;
+import com.bharat.springbootsocial.entity.Message;
+import com.bharat.springbootsocial.entity.MessageReaction;
+import com.bharat.springbootsocial.entity.ReadWatermark;
+import com.bharat.springbootsocial.entity.ReadWatermarkId;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.response.EnhancedMessageResponse;
+import com.bharat.springbootsocial.response.GroupMessageResponse;
+import com.bharat.springbootsocial.response.MessageReadResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping for one chat or group message with the given number of
+ * reactions and readers, the way message pages are built: readers come from
+ * read watermarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MessageMappingBenchmark {
+
+    private static final String[] EMOJIS = {"👍", "❤️", "😂", "😮", "😢", "🙏"};
+
+    @Param({"3", "50"})
+    private int reactions;
+
+    @Param({"10", "200"})
+    private int readers;
+
+    private GroupMessage groupMessage;
+    private Message chatMessage;
+    private List<ReadWatermark> watermarks;
+
+    @Setup(Level.Trial)
+    public void buildMessages() {
+        LocalDateTime now = LocalDateTime.now();
+        User sender = Fixtures.user(0);
+
+        groupMessage = new GroupMessage();
+        groupMessage.setId(UUID.randomUUID());
+        groupMessage.setContent("See you at the station at seven, bring the tickets");
+        groupMessage.setMessageType(GroupMessage.MessageType.TEXT);
+        groupMessage.setSender(sender);
+        groupMessage.setCreatedAt(now);
+        groupMessage.setUpdatedAt(now);
+        groupMessage.setSeq(1000L);
+
+        Chat chat = new Chat();
+        chat.setId(UUID.randomUUID());
+        chatMessage = new Message();
+        chatMessage.setId(UUID.randomUUID());
+        chatMessage.setContent(groupMessage.getContent());
+        chatMessage.setMessageType(Message.MessageType.TEXT);
+        chatMessage.setUser(sender);
+        chatMessage.setChat(chat);
+        chatMessage.setTimestamp(now);
+        chatMessage.setUpdatedAt(now);
+        chatMessage.setSeq(1000L);
+
+        for (int i = 0; i < reactions; i++) {
+            User user = Fixtures.user(i + 1);
+            GroupMessageReaction groupReaction = new GroupMessageReaction();
+            groupReaction.setId(UUID.randomUUID());
+            groupReaction.setMessage(groupMessage);
+            groupReaction.setUser(user);
+            groupReaction.setEmoji(EMOJIS[i % EMOJIS.length]);
+            groupReaction.setCreatedAt(now);
+            groupMessage.getReactions().add(groupReaction);
+
+            MessageReaction reaction = new MessageReaction();
+            reaction.setId(UUID.randomUUID());
+            reaction.setMessage(chatMessage);
+            reaction.setUser(user);
+            reaction.setEmoji(EMOJIS[i % EMOJIS.length]);
+            reaction.setCreatedAt(now);
+            chatMessage.getReactions().add(reaction);
+        }
+
+        watermarks = new ArrayList<>(readers);
+        for (int i = 0; i < readers; i++) {
+            User user = Fixtures.user(i + 1);
+            ReadWatermark watermark = new ReadWatermark();
+            watermark.setId(new ReadWatermarkId(user.getId(), ConversationType.GROUP, UUID.randomUUID()));
+            watermark.setUser(user);
+            watermark.setLastReadSeq(1000 - i);
+            watermark.setLastReadAt(now);
+            watermarks.add(watermark);
+        }
+    }
+
+    @Benchmark
+    public GroupMessageResponse groupMessageResponse() {
+        return new GroupMessageResponse(groupMessage, watermarks);
+    }
+
+    @Benchmark
+    public EnhancedMessageResponse enhancedMessageResponse() {
+        List<MessageReadResponse> readBy = new ArrayList<>(watermarks.size());
+        for (ReadWatermark watermark : watermarks) {
+            readBy.add(MessageReadResponse.fromWatermark(chatMessage.getId(), watermark));
+        }
+        return EnhancedMessageResponse.fromEntity(chatMessage, readBy);
+    }
+}
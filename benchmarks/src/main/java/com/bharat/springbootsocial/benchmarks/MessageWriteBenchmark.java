@@ -0,0 +1,219 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.entity.Chat;
+import com.bharat.springbootsocial.entity.Message;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.bharat.springbootsocial.services.MessageWritePipeline;
+import com.bharat.springbootsocial.services.ReadWatermarks;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving a chat message the old way (one transaction per message: take the
+ * next sequence number, insert, re-read the row, move the sender's watermark,
+ * commit) against MessageWritePipeline with ack=commit, from 16 concurrent
+ * senders spread over a set of chats. Validation before the write is the same
+ * for both and is left out.
+ *
+ * Runs against an H2 file database in MySQL mode so no server is needed. H2
+ * does not fsync each commit the way InnoDB does by default, so the gap on
+ * MySQL is larger than what this shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MessageWriteBenchmark {
+
+    @Param({"64"})
+    private int chats;
+
+    @Param({"2"})
+    private int writers;
+
+    private String url;
+    private HikariDataSource dataSource;
+    private MessageWritePipeline pipeline;
+    private Chat[] chatRows;
+    private User[] senders;
+
+    @Setup(Level.Trial)
+    public void createDatabase() throws Exception {
+        url = "jdbc:h2:file:" + new File(System.getProperty("java.io.tmpdir"), "message-write-benchmark").getPath()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(16);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE chats (id BINARY(16) PRIMARY KEY, message_seq BIGINT)");
+            statement.execute("CREATE TABLE messages (id BINARY(16) PRIMARY KEY, content VARCHAR(1000), "
+                    + "image_url VARCHAR(255), message_type VARCHAR(20), video_url VARCHAR(255), file_url VARCHAR(255), "
+                    + "file_name VARCHAR(255), file_size BIGINT, user_id BINARY(16), chat_id BINARY(16), "
+                    + "reply_to_id BINARY(16), is_edited BOOLEAN, is_deleted BOOLEAN, created_at TIMESTAMP, "
+                    + "updated_at TIMESTAMP, seq BIGINT)");
+            statement.execute("CREATE INDEX idx_messages_chat_seq ON messages (chat_id, seq)");
+            statement.execute("CREATE TABLE read_watermarks (user_id BINARY(16), conversation_type VARCHAR(10), "
+                    + "conversation_id BINARY(16), last_read_seq BIGINT NOT NULL, last_read_at TIMESTAMP, "
+                    + "PRIMARY KEY (user_id, conversation_type, conversation_id))");
+        }
+
+        chatRows = new Chat[chats];
+        senders = new User[chats];
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO chats (id, message_seq) VALUES (?, 0)")) {
+            for (int i = 0; i < chats; i++) {
+                chatRows[i] = new Chat();
+                chatRows[i].setId(UUID.randomUUID());
+                senders[i] = new User();
+                senders[i].setId(UUID.randomUUID());
+                insert.setBytes(1, BinaryUuids.toBytes(chatRows[i].getId()));
+                insert.executeUpdate();
+            }
+        }
+
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(url);
+        properties.setUsername("sa");
+        properties.setPassword("");
+        pipeline = new MessageWritePipeline();
+        set("dataSourceProperties", properties);
+        set("readWatermarks", new ReadWatermarks());
+        set("eventPublisher", (ApplicationEventPublisher) event -> {
+        });
+        // Normally set from app.message-pipeline.*
+        set("writerCount", writers);
+        set("queueCapacity", 10000);
+        set("maxBatch", 256);
+        set("lingerMillis", 2L);
+        set("enqueueTimeoutMillis", 1000L);
+        set("ack", "commit");
+        invoke("startWriters");
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws Exception {
+        invoke("stopWriters");
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Message transactionPerMessage() throws SQLException {
+        Message message = newMessage();
+        byte[] chatId = BinaryUuids.toBytes(message.getChat().getId());
+        byte[] senderId = BinaryUuids.toBytes(message.getUser().getId());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement increment = connection.prepareStatement(
+                        "UPDATE chats SET message_seq = COALESCE(message_seq, 0) + 1 WHERE id = ?")) {
+                    increment.setBytes(1, chatId);
+                    increment.executeUpdate();
+                }
+                try (PreparedStatement head = connection.prepareStatement("SELECT message_seq FROM chats WHERE id = ?")) {
+                    head.setBytes(1, chatId);
+                    try (ResultSet rs = head.executeQuery()) {
+                        rs.next();
+                        message.setSeq(rs.getLong(1));
+                    }
+                }
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO messages (id, content, "
+                        + "message_type, user_id, chat_id, is_edited, is_deleted, created_at, updated_at, seq) "
+                        + "VALUES (?, ?, ?, ?, ?, FALSE, FALSE, ?, ?, ?)")) {
+                    insert.setBytes(1, BinaryUuids.toBytes(message.getId()));
+                    insert.setString(2, message.getContent());
+                    insert.setString(3, Message.MessageType.TEXT.name());
+                    insert.setBytes(4, senderId);
+                    insert.setBytes(5, chatId);
+                    insert.setTimestamp(6, Timestamp.valueOf(message.getTimestamp()));
+                    insert.setTimestamp(7, Timestamp.valueOf(message.getTimestamp()));
+                    insert.setLong(8, message.getSeq());
+                    insert.executeUpdate();
+                }
+                try (PreparedStatement reread = connection.prepareStatement("SELECT * FROM messages WHERE id = ?")) {
+                    reread.setBytes(1, BinaryUuids.toBytes(message.getId()));
+                    try (ResultSet rs = reread.executeQuery()) {
+                        rs.next();
+                    }
+                }
+                try (PreparedStatement advance = connection.prepareStatement(
+                        "INSERT INTO read_watermarks (user_id, conversation_type, conversation_id, last_read_seq, "
+                        + "last_read_at) VALUES (?, 'CHAT', ?, ?, ?) ON DUPLICATE KEY UPDATE "
+                        + "last_read_seq = GREATEST(last_read_seq, VALUES(last_read_seq))")) {
+                    advance.setBytes(1, senderId);
+                    advance.setBytes(2, chatId);
+                    advance.setLong(3, message.getSeq());
+                    advance.setTimestamp(4, Timestamp.valueOf(message.getTimestamp()));
+                    advance.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        return message;
+    }
+
+    @Benchmark
+    public Message groupCommitPipeline() {
+        return MessageWritePipeline.await(pipeline.submit(newMessage()));
+    }
+
+    private Message newMessage() {
+        int i = ThreadLocalRandom.current().nextInt(chats);
+        Message message = new Message();
+        message.setId(UUID.randomUUID());
+        message.setChat(chatRows[i]);
+        message.setUser(senders[i]);
+        message.setContent("benchmark message " + i);
+        message.setTimestamp(LocalDateTime.now());
+        return message;
+    }
+
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = MessageWritePipeline.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(pipeline, value);
+    }
+
+    private void invoke(String name) throws ReflectiveOperationException {
+        Method method = MessageWritePipeline.class.getDeclaredMethod(name);
+        method.setAccessible(true);
+        method.invoke(pipeline);
+    }
+}
@@ -0,0 +1,111 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.services.SocialGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend suggestion queries on a synthetic graph, by default 1M users
+ * following 50 others each (50M edges). Followees are skewed towards low
+ * node numbers so a few users have very large follower lists, as in real
+ * graphs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class SocialGraphBenchmark {
+
+    private static final String[] GENDERS = {"male", "female", null};
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"50"})
+    private int followingPerUser;
+
+    private SocialGraph graph;
+    private UUID[] ids;
+    private UUID[] queryUsers;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildGraph() {
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new UUID[users];
+        List<SocialGraph.Profile> profiles = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+            profiles.add(new SocialGraph.Profile(ids[i], GENDERS[random.nextInt(GENDERS.length)],
+                    String.valueOf((char) ('a' + random.nextInt(26))), "last" + random.nextInt(5000),
+                    random.nextInt(3) > 0, random.nextBoolean()));
+        }
+
+        int edges = users * followingPerUser;
+        int[] sources = new int[edges];
+        int[] targets = new int[edges];
+        for (int i = 0; i < edges; i++) {
+            double r = random.nextDouble();
+            sources[i] = i / followingPerUser;
+            targets[i] = (int) (users * r * r);
+        }
+
+        graph = new SocialGraph();
+        graph.rebuild(profiles, sources, targets, edges);
+
+        queryUsers = new UUID[1024];
+        for (int i = 0; i < queryUsers.length; i++) {
+            queryUsers[i] = ids[random.nextInt(users)];
+        }
+    }
+
+    private UUID nextUser() {
+        return queryUsers[next++ & (queryUsers.length - 1)];
+    }
+
+    @Benchmark
+    public List<SocialGraph.Candidate> topCandidates() {
+        return graph.topCandidates(nextUser(), 20, (mutual, features) -> mutual * 50 + Integer.bitCount(features) * 10 + 1);
+    }
+
+    @Benchmark
+    public List<SocialGraph.Candidate> friendsOfFriends() {
+        return graph.friendsOfFriends(nextUser(), 20, 50);
+    }
+
+    @Benchmark
+    public int mutualFollowingCount() {
+        return graph.mutualFollowingCount(nextUser(), nextUser());
+    }
+
+    @Benchmark
+    public List<UUID> sameGender() {
+        return graph.sameGender(nextUser(), 20);
+    }
+
+    @Benchmark
+    public void followAndUnfollow() {
+        UUID follower = nextUser();
+        UUID followee = nextUser();
+        graph.follow(follower, followee);
+        graph.unfollow(follower, followee);
+    }
+}
@@ -0,0 +1,95 @@
+package com.bharat.springbootsocial.benchmarks;
+
+import com.bharat.springbootsocial.response.UserSummary;
+import com.bharat.springbootsocial.services.UserSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Anonymous user searches (no follow-graph boost) over users with names
+ * built from common syllables, so prefixes are shared by many users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class UserSearchIndexBenchmark {
+
+    private static final String[] SYLLABLES = {"an", "ja", "jo", "ma", "ri", "el", "na", "ka", "li", "sa", "ro",
+            "mi", "ta", "ne", "va", "de", "la", "ni", "ha", "ra"};
+
+    @Param({"1000000"})
+    private int users;
+
+    private UserSearchIndex index;
+    private String[] fnames;
+    private String[] lnames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildIndex() throws ReflectiveOperationException {
+        index = new UserSearchIndex();
+        // Normally set from app.user-search.max-candidates
+        Field maxCandidates = UserSearchIndex.class.getDeclaredField("maxCandidates");
+        maxCandidates.setAccessible(true);
+        maxCandidates.setInt(index, 500);
+
+        SplittableRandom random = new SplittableRandom(42);
+        fnames = new String[users];
+        lnames = new String[users];
+        for (int i = 0; i < users; i++) {
+            fnames[i] = name(random, 2 + random.nextInt(2));
+            lnames[i] = name(random, 2 + random.nextInt(3));
+            index.put(new UserSummary(new UUID(random.nextLong(), random.nextLong()), fnames[i], lnames[i],
+                    fnames[i] + "." + lnames[i] + random.nextInt(100) + "@example.com", null));
+        }
+    }
+
+    private static String name(SplittableRandom random, int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    private int nextUser() {
+        return (next++ * 7919) % users;
+    }
+
+    @Benchmark
+    public List<UserSummary> shortPrefix() {
+        return index.search(fnames[nextUser()].substring(0, 3), null, 20);
+    }
+
+    @Benchmark
+    public List<UserSummary> typoPrefix() {
+        // Second and third characters swapped
+        String name = fnames[nextUser()];
+        return index.search(name.charAt(0) + "" + name.charAt(2) + name.charAt(1) + name.substring(3), null, 20);
+    }
+
+    @Benchmark
+    public List<UserSummary> fullName() {
+        int user = nextUser();
+        return index.search(fnames[user] + " " + lnames[user].substring(0, 3), null, 20);
+    }
+}
@@ -0,0 +1,13 @@
+#!/bin/sh
+# Builds the backend and the load generator, then runs it; options are passed on,
+# see Options.USAGE or --help. Exits non-zero when a scenario misses its limits.
+#
+#   loadtest/run.sh                                   default load against the app on H2
+#   loadtest/run.sh --users=500 --duration=30         smaller run
+#   loadtest/run.sh --target=https://staging.example.com --max-p99-ms=250
+set -e
+cd "$(dirname "$0")/.."
+
+sh ./mvnw -B -q install -DskipTests
+sh ./mvnw -B -q -f loadtest/pom.xml package
+exec java -jar loadtest/target/loadtest.jar "$@"
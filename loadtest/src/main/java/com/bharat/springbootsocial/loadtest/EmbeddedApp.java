@@ -0,0 +1,50 @@
+package com.bharat.springbootsocial.loadtest;
+
+import com.bharat.springbootsocial.SpringbootSocialApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The backend started in this JVM on a random port, against an in-memory H2
+ * database in MySQL mode with the schema created by Hibernate.
+ */
+final class EmbeddedApp implements AutoCloseable {
+
+    private static final String H2_URL = "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+            + "INIT=CREATE ALIAS IF NOT EXISTS UNHEX FOR \"" + H2Functions.class.getName() + ".unhex\"";
+
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedApp(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static EmbeddedApp start() throws IOException {
+        Path searchIndex = Files.createTempDirectory("loadtest-message-index");
+        ConfigurableApplicationContext context = SpringApplication.run(SpringbootSocialApplication.class,
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=" + H2_URL,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--app.message-search.dir=" + searchIndex);
+        return new EmbeddedApp(context);
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,22 @@
+package com.bharat.springbootsocial.loadtest;
+
+/**
+ * MySQL functions the backend's native SQL uses that H2 does not have,
+ * registered as aliases when the database is created.
+ */
+public final class H2Functions {
+
+    private H2Functions() {
+    }
+
+    public static byte[] unhex(String hex) {
+        if (hex == null) {
+            return null;
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex, 2 * i, 2 * i + 2, 16);
+        }
+        return bytes;
+    }
+}
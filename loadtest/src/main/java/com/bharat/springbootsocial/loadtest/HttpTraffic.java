@@ -0,0 +1,65 @@
+package com.bharat.springbootsocial.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP clients, each reading the feed or the story tray of a
+ * random user as fast as the server answers.
+ */
+final class HttpTraffic {
+
+    final Scenario feed = new Scenario("http posts feed");
+    final Scenario stories = new Scenario("http stories following");
+
+    private final Api api;
+    private final Seeder.World world;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    HttpTraffic(Api api, Seeder.World world) {
+        this.api = api;
+        this.world = world;
+    }
+
+    List<Scenario> scenarios() {
+        return List.of(feed, stories);
+    }
+
+    void start(int count) {
+        running = true;
+        for (int i = 0; i < count; i++) {
+            Thread worker = new Thread(this::run, "http-load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            Seeder.User user = world.users().get(random.nextInt(world.users().size()));
+            boolean readFeed = random.nextBoolean();
+            Scenario scenario = readFeed ? feed : stories;
+            String path = readFeed ? "/api/posts/optimized/feed?page=0&size=10" : "/api/stories/following";
+            long startedAt = System.nanoTime();
+            try {
+                scenario.completed(startedAt, api.status(path, user.token()) == 200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                scenario.completed(startedAt, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.bharat.springbootsocial.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: starts the app on H2 (or uses --target), seeds users,
+ * chats, groups, call rooms, posts and stories over REST, connects one STOMP
+ * session per user and then drives chat, group, typing, ICE and group call
+ * setup traffic at fixed rates while HTTP workers read the feed and story tray.
+ * After a warmup it measures for the configured duration and reports per
+ * scenario the send and delivery rates, p50/p99 latency, the share of errors
+ * and lost deliveries, and the STOMP bytes received per delivery and
+ * deliveries per frame, printed and written as JSON.
+ *
+ * Exits 0 when every scenario stays within --max-error-rate (and --max-p99-ms
+ * when set), 1 when one does not, and 2 on bad arguments, so it can gate a
+ * release from a script.
+ */
+public final class LoadTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            Progress.CONSOLE.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(run(options));
+    }
+
+    static int run(Options options) throws Exception {
+        EmbeddedApp app = null;
+        String baseUrl = options.target();
+        if (baseUrl == null) {
+            Path appLog = options.appLog().toAbsolutePath();
+            Files.createDirectories(appLog.getParent());
+            Progress.print("Starting the app on H2, its output goes to %s", appLog);
+            PrintStream log = new PrintStream(new FileOutputStream(appLog.toFile()), true);
+            System.setOut(log);
+            System.setErr(log);
+            app = EmbeddedApp.start();
+            baseUrl = app.baseUrl();
+        }
+        Progress.print("Target %s", baseUrl);
+
+        StompTraffic stomp = null;
+        try {
+            Api api = new Api(baseUrl);
+            Seeder.World world = new Seeder(api, options).seed();
+
+            stomp = new StompTraffic(options, world, baseUrl);
+            int failedConnects = stomp.connect();
+            Progress.print("Connected %d STOMP sessions, %d failed",
+                    world.users().size() - failedConnects, failedConnects);
+            HttpTraffic http = new HttpTraffic(api, world);
+
+            List<Scenario> scenarios = new ArrayList<>(stomp.scenarios());
+            scenarios.addAll(http.scenarios());
+            long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(options.timeoutMillis());
+
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+            StompTraffic sender = stomp;
+            long[] lastTick = {System.nanoTime()};
+            ticker.scheduleAtFixedRate(() -> {
+                long now = System.nanoTime();
+                try {
+                    sender.tick((now - lastTick[0]) / 1e9);
+                } catch (RuntimeException e) {
+                    Progress.print("Sending failed: %s", e);
+                }
+                lastTick[0] = now;
+            }, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+            ticker.scheduleAtFixedRate(() -> scenarios.forEach(scenario -> scenario.expire(timeoutNanos)),
+                    1, 1, TimeUnit.SECONDS);
+            http.start(options.httpWorkers());
+
+            Progress.print("Warming up for %ds", options.warmupSeconds());
+            Thread.sleep(TimeUnit.SECONDS.toMillis(options.warmupSeconds()));
+            scenarios.forEach(Scenario::reset);
+            long measuringSince = System.nanoTime();
+            Progress.print("Measuring for %ds", options.durationSeconds());
+            Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSeconds()));
+
+            ticker.shutdownNow();
+            http.stop();
+            double seconds = (System.nanoTime() - measuringSince) / 1e9;
+            // Late deliveries still count, up to the timeout
+            Thread.sleep(options.timeoutMillis());
+            scenarios.forEach(scenario -> scenario.expire(0));
+
+            List<Scenario.Result> results = scenarios.stream().map(scenario -> scenario.result(seconds)).toList();
+            List<String> failures = verdict(options, results, failedConnects, world.users().size());
+            print(results);
+            write(options, baseUrl, world, failedConnects, results, failures);
+            if (failures.isEmpty()) {
+                Progress.print("PASSED");
+                return 0;
+            }
+            failures.forEach(failure -> Progress.print("FAILED %s", failure));
+            return 1;
+        } finally {
+            if (stomp != null) {
+                stomp.disconnect();
+            }
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    private static List<String> verdict(Options options, List<Scenario.Result> results, int failedConnects,
+                                        int users) {
+        List<String> failures = new ArrayList<>();
+        if (failedConnects > users * options.maxErrorRate()) {
+            failures.add(String.format("%d of %d STOMP sessions could not connect", failedConnects, users));
+        }
+        for (Scenario.Result result : results) {
+            if (result.errorRate() > options.maxErrorRate()) {
+                failures.add(String.format("%s: error rate %.2f%% above %.2f%%",
+                        result.scenario(), result.errorRate() * 100, options.maxErrorRate() * 100));
+            }
+            if (options.maxP99Millis() > 0 && result.p99Millis() > options.maxP99Millis()) {
+                failures.add(String.format("%s: p99 %.1f ms above %.1f ms",
+                        result.scenario(), result.p99Millis(), options.maxP99Millis()));
+            }
+        }
+        return failures;
+    }
+
+    private static void print(List<Scenario.Result> results) {
+        PrintStream out = Progress.CONSOLE;
+        out.println();
+        out.printf("%-24s %9s %11s %11s %8s %8s %8s %10s %10s %10s %10s %12s%n", "scenario", "sent/s", "delivered",
+                "deliver/s", "errors", "lost", "err %", "p50 ms", "p99 ms", "max ms", "B/deliv", "deliv/frame");
+        for (Scenario.Result r : results) {
+            out.printf("%-24s %9.1f %11d %11.1f %8d %8d %8.2f %10.2f %10.2f %10.2f %10.0f %12.2f%n", r.scenario(),
+                    r.sentPerSecond(), r.delivered(), r.deliveredPerSecond(), r.errors(), r.lost(),
+                    r.errorRate() * 100, r.p50Millis(), r.p99Millis(), r.maxMillis(), r.bytesPerDelivery(),
+                    r.deliveriesPerFrame());
+        }
+        out.println();
+    }
+
+    private static void write(Options options, String baseUrl, Seeder.World world, int failedConnects,
+                              List<Scenario.Result> results, List<String> failures) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target", baseUrl);
+        report.put("users", world.users().size());
+        report.put("groups", world.groups().size());
+        report.put("failedConnects", failedConnects);
+        report.put("options", options);
+        report.put("scenarios", results);
+        report.put("passed", failures.isEmpty());
+        report.put("failures", failures);
+        Path path = options.report().toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        Progress.print("Report written to %s", path);
+    }
+}
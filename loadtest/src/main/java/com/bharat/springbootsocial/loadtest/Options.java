@@ -0,0 +1,112 @@
+package com.bharat.springbootsocial.loadtest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as --name=value. Rates are totals per second
+ * across all virtual users.
+ */
+record Options(
+        String target,
+        int users,
+        int groupSize,
+        int follows,
+        int warmupSeconds,
+        int durationSeconds,
+        double chatRate,
+        double groupRate,
+        double typingRate,
+        double iceRate,
+        double callSetupRate,
+        int callCandidates,
+        int httpWorkers,
+        long timeoutMillis,
+        String frames,
+        double maxErrorRate,
+        double maxP99Millis,
+        Path report,
+        Path appLog) {
+
+    static final String USAGE = """
+            usage: java -jar loadtest.jar [--name=value ...]
+              --target=URL           run against a running server instead of starting one on H2
+              --users=2000           virtual users, each with one STOMP session
+              --group-size=20        members per group; every user is in one group
+              --follows=20           users each user follows, for the feed and story tray
+              --warmup=15            seconds of load before measuring
+              --duration=60          seconds measured
+              --chat-rate=200        direct messages sent per second
+              --group-rate=100       group messages sent per second
+              --typing-rate=200      group typing indicators sent per second
+              --ice-rate=200         ICE candidates sent per second
+              --call-setup-rate=0    group call setups per second: every member of a group sends
+                                     --call-candidates ICE candidates to every other member at once
+              --call-candidates=5    candidates each member sends each peer in a call setup
+              --http-workers=16      concurrent clients reading the feed and story tray
+              --timeout-ms=5000      deliveries not seen by then count as lost
+              --frames=legacy        group frames to subscribe to: legacy (full profiles) or slim
+              --max-error-rate=0.01  fail when a scenario's errors and losses exceed this share
+              --max-p99-ms=0         fail when a scenario's p99 exceeds this, 0 for no limit
+              --report=loadtest/target/report.json
+              --app-log=loadtest/target/app.log   server output when started in-process
+            """;
+
+    static Options parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (arg.equals("--help") || arg.equals("-h")) {
+                throw new IllegalArgumentException(USAGE);
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Unrecognized argument " + arg + "\n" + USAGE);
+            }
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        Options options = new Options(
+                values.remove("target"),
+                integer(values, "users", 2000),
+                integer(values, "group-size", 20),
+                integer(values, "follows", 20),
+                integer(values, "warmup", 15),
+                integer(values, "duration", 60),
+                decimal(values, "chat-rate", 200),
+                decimal(values, "group-rate", 100),
+                decimal(values, "typing-rate", 200),
+                decimal(values, "ice-rate", 200),
+                decimal(values, "call-setup-rate", 0),
+                integer(values, "call-candidates", 5),
+                integer(values, "http-workers", 16),
+                integer(values, "timeout-ms", 5000),
+                values.getOrDefault("frames", "legacy"),
+                decimal(values, "max-error-rate", 0.01),
+                decimal(values, "max-p99-ms", 0),
+                Path.of(values.getOrDefault("report", "loadtest/target/report.json")),
+                Path.of(values.getOrDefault("app-log", "loadtest/target/app.log")));
+        values.remove("frames");
+        values.remove("report");
+        values.remove("app-log");
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet() + "\n" + USAGE);
+        }
+        if (options.users() < 2 || options.groupSize() < 2) {
+            throw new IllegalArgumentException("Need at least two users and two members per group");
+        }
+        if (!options.frames().equals("legacy") && !options.frames().equals("slim")) {
+            throw new IllegalArgumentException("--frames must be legacy or slim");
+        }
+        return options;
+    }
+
+    private static int integer(Map<String, String> values, String name, int defaultValue) {
+        String value = values.remove(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static double decimal(Map<String, String> values, String name, double defaultValue) {
+        String value = values.remove(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bharat.springbootsocial.loadtest;
+
+import java.io.PrintStream;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Progress and report output. It keeps the stdout the load test started with,
+ * since the in-process server's output is redirected to its log file.
+ */
+final class Progress {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    static final PrintStream CONSOLE = System.out;
+
+    private Progress() {
+    }
+
+    static void print(String format, Object... args) {
+        CONSOLE.println(LocalTime.now().format(TIME) + "  " + String.format(format, args));
+    }
+}
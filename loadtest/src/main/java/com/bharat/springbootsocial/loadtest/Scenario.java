@@ -0,0 +1,147 @@
+package com.bharat.springbootsocial.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies for one kind of traffic. STOMP operations are
+ * registered under a key carried in the payload with the number of deliveries
+ * expected, and each delivery seen by a virtual user records its latency from
+ * the send. Deliveries still missing after the timeout count as lost. HTTP
+ * calls record their latency directly, or an error for a failed response.
+ */
+final class Scenario {
+
+    private final String name;
+
+    // Microseconds, up to a minute, 3 significant digits
+    private final ConcurrentHistogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder receivedFrames = new LongAdder();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private volatile long measuringSince = System.nanoTime();
+
+    private record Pending(long sentAt, AtomicInteger remaining) {
+    }
+
+    record Result(String scenario, double seconds, long sent, long delivered, long errors, long lost,
+                  double sentPerSecond, double deliveredPerSecond, double errorRate,
+                  double p50Millis, double p99Millis, double maxMillis, long receivedBytes,
+                  double bytesPerDelivery, long receivedFrames, double deliveriesPerFrame) {
+    }
+
+    Scenario(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * Registers a send, unless one under the same key is still waiting for deliveries.
+     */
+    boolean sent(String key, int deliveries) {
+        if (deliveries > 0 && pending.putIfAbsent(key, new Pending(System.nanoTime(), new AtomicInteger(deliveries))) != null) {
+            return false;
+        }
+        sent.increment();
+        return true;
+    }
+
+    void delivered(String key) {
+        Pending entry = pending.get(key);
+        if (entry == null) {
+            return;
+        }
+        record(System.nanoTime() - entry.sentAt());
+        if (entry.remaining().decrementAndGet() <= 0) {
+            pending.remove(key, entry);
+        }
+    }
+
+    void completed(long startedAt, boolean ok) {
+        sent.increment();
+        if (ok) {
+            record(System.nanoTime() - startedAt);
+        } else {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Counts the size of a frame received for this scenario, including frames
+     * that only support it, such as profile pushes.
+     */
+    void received(long bytes) {
+        receivedBytes.add(bytes);
+        receivedFrames.increment();
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    /**
+     * Counts deliveries older than the timeout as lost and forgets them.
+     */
+    void expire(long timeoutNanos) {
+        long now = System.nanoTime();
+        Iterator<Pending> entries = pending.values().iterator();
+        while (entries.hasNext()) {
+            Pending entry = entries.next();
+            if (now - entry.sentAt() > timeoutNanos) {
+                entries.remove();
+                // Sends from before the window are not counted, so neither are their losses
+                if (entry.sentAt() - measuringSince >= 0) {
+                    lost.add(Math.max(0, entry.remaining().get()));
+                }
+            }
+        }
+    }
+
+    // Drops what was recorded during warmup
+    void reset() {
+        measuringSince = System.nanoTime();
+        latency.reset();
+        sent.reset();
+        delivered.reset();
+        errors.reset();
+        lost.reset();
+        receivedBytes.reset();
+        receivedFrames.reset();
+    }
+
+    // Rates are over the measured sending window, not the time spent waiting for stragglers
+    Result result(double seconds) {
+        long sentCount = sent.sum();
+        long failures = errors.sum() + lost.sum();
+        // Share of outcomes, deliveries for STOMP and responses for HTTP, that failed
+        long outcomes = delivered.sum() + failures;
+        return new Result(name, seconds, sentCount, delivered.sum(), errors.sum(), lost.sum(),
+                sentCount / seconds, delivered.sum() / seconds,
+                outcomes == 0 ? 0 : (double) failures / outcomes,
+                latency.getValueAtPercentile(50) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0,
+                latency.getMaxValue() / 1000.0,
+                receivedBytes.sum(),
+                delivered.sum() == 0 ? 0 : (double) receivedBytes.sum() / delivered.sum(),
+                receivedFrames.sum(),
+                receivedFrames.sum() == 0 ? 0 : (double) delivered.sum() / receivedFrames.sum());
+    }
+
+    private void record(long nanos) {
+        delivered.increment();
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), latency.getHighestTrackableValue()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.bharat.springbootsocial.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates the data the scenarios need through the REST API, so the same
+ * seeding works against an external server: users, follows, a post and a
+ * story per user, a direct chat and a call room per pair of users, and groups
+ * of consecutive users, each with a group call room all members joined. Emails carry a run id so repeated runs against one
+ * database do not collide.
+ */
+final class Seeder {
+
+    record User(int index, UUID id, String token) {
+    }
+
+    record Pair(UUID chatId, String roomId, User first, User second) {
+    }
+
+    record Group(UUID id, String callRoomId, List<User> members) {
+    }
+
+    record World(List<User> users, List<Pair> pairs, List<Group> groups) {
+    }
+
+    private final Api api;
+    private final Options options;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    Seeder(Api api, Options options) {
+        this.api = api;
+        this.options = options;
+    }
+
+    World seed() throws Exception {
+        // Sign-up hashes passwords, so this is the slow part
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<User> users = parallel(pool, options.users(), this::signUp);
+            Progress.print("Signed up %d users", users.size());
+
+            int follows = Math.min(options.follows(), users.size() - 1);
+            parallel(pool, users.size(), i -> {
+                User user = users.get(i);
+                for (int j = 1; j <= follows; j++) {
+                    api.put("/api/users/follow/" + users.get((i + j) % users.size()).id(), user.token());
+                }
+                api.post("/api/posts", user.token(), Map.of(
+                        "caption", "Load test post " + i,
+                        "image", "https://cdn.example.com/loadtest/" + i + ".jpg"));
+                api.post("/api/stories", user.token(), Map.of(
+                        "imageUrl", "https://cdn.example.com/loadtest/story-" + i + ".jpg",
+                        "caption", "Load test story " + i));
+                return null;
+            });
+            Progress.print("Each user follows %d others and has a post and a story", follows);
+
+            List<Pair> pairs = parallel(pool, users.size() / 2, i -> {
+                User first = users.get(2 * i);
+                User second = users.get(2 * i + 1);
+                JsonNode chat = api.post("/api/chats", first.token(), Map.of("userId", second.id()));
+                JsonNode room = api.post("/api/calls/create", first.token(), Map.of(
+                        "roomName", "Load test call " + i,
+                        "callType", "VIDEO_CALL"));
+                return new Pair(UUID.fromString(chat.path("id").asText()),
+                        room.path("data").path("roomId").asText(), first, second);
+            });
+            Progress.print("Created %d direct chats and call rooms", pairs.size());
+
+            int groupSize = Math.min(options.groupSize(), users.size());
+            List<Group> groups = parallel(pool, (users.size() + groupSize - 1) / groupSize, i -> {
+                List<User> members = users.subList(i * groupSize, Math.min(users.size(), (i + 1) * groupSize));
+                JsonNode group = api.post("/api/groups", members.get(0).token(), Map.of(
+                        "name", "Load test group " + i,
+                        "description", "Created by the load test",
+                        "groupType", "GENERAL",
+                        "isPublic", true,
+                        "memberIds", members.subList(1, members.size()).stream().map(User::id).toList()));
+                UUID groupId = UUID.fromString(group.path("data").path("id").asText());
+                JsonNode room = api.post("/api/group-calls/create", members.get(0).token(), Map.of(
+                        "groupId", groupId,
+                        "callType", "VIDEO_CALL",
+                        "roomName", "Load test group call " + i));
+                String callRoomId = room.path("data").path("roomId").asText();
+                for (User member : members.subList(1, members.size())) {
+                    api.post("/api/group-calls/join/" + callRoomId, member.token(), Map.of());
+                }
+                return new Group(groupId, callRoomId, members);
+            });
+            Progress.print("Created %d groups of up to %d members and their call rooms", groups.size(), groupSize);
+
+            return new World(users, pairs, groups.stream().filter(group -> group.members().size() > 1).toList());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private User signUp(int index) throws IOException, InterruptedException {
+        String email = "load" + index + "-" + runId + "@loadtest.local";
+        String token = api.post("/auth/signup", null, Map.of(
+                "fname", "Load",
+                "lname", "User" + index,
+                "email", email,
+                "password", "loadtest",
+                "gender", index % 2 == 0 ? "female" : "male")).path("token").asText();
+        UUID id = UUID.fromString(api.get("/api/users/profile", token).path("id").asText());
+        return new User(index, id, token);
+    }
+
+    private interface Task<T> {
+        T run(int index) throws Exception;
+    }
+
+    // Runs task for 0..count-1 on the pool, keeping the order of the results
+    private static <T> List<T> parallel(ExecutorService pool, int count, Task<T> task) throws Exception {
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(pool.submit(() -> task.run(index)));
+        }
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+}
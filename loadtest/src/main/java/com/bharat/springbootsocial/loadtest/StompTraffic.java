@@ -0,0 +1,322 @@
+package com.bharat.springbootsocial.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * One STOMP session per virtual user on the raw WebSocket transport of /ws,
+ * and the open-loop senders for the chat, group, typing, ICE and call setup
+ * scenarios.
+ * Every session subscribes to the user queues the app delivers to, with group
+ * traffic on the legacy or the slim frame queue per --frames; each payload
+ * carries the key its send was registered under, so whichever user receives it
+ * records the latency. Frame sizes come from the content-length header and are
+ * counted against the scenario they belong to.
+ */
+final class StompTraffic {
+
+    private static final int CONNECTS_IN_FLIGHT = 64;
+
+    final Scenario chat = new Scenario("stomp chat send");
+    final Scenario group = new Scenario("stomp group send");
+    final Scenario typing = new Scenario("stomp group typing");
+    final Scenario ice = new Scenario("stomp ice candidate");
+    final Scenario callSetup = new Scenario("stomp call setup");
+
+    private final Options options;
+    private final Seeder.World world;
+    private final WebSocketStompClient client;
+    private final String url;
+    private final Map<UUID, StompSession> sessions = new HashMap<>();
+    private final AtomicLong nextKey = new AtomicLong();
+
+    // Sends owed to each scenario, carried between ticks
+    private double chatCredit;
+    private double groupCredit;
+    private double typingCredit;
+    private double iceCredit;
+    private double callSetupCredit;
+
+    StompTraffic(Options options, Seeder.World world, String baseUrl) {
+        this.options = options;
+        this.world = world;
+        this.url = baseUrl.replaceFirst("^http", "ws") + "/ws/websocket";
+        this.client = new WebSocketStompClient(new StandardWebSocketClient());
+        this.client.setMessageConverter(new MappingJackson2MessageConverter());
+        this.client.setInboundMessageSizeLimit(1024 * 1024);
+    }
+
+    List<Scenario> scenarios() {
+        return options.callSetupRate() > 0 ? List.of(chat, group, typing, ice, callSetup)
+                : List.of(chat, group, typing, ice);
+    }
+
+    /**
+     * Connects every user, a bounded number at a time, and returns how many
+     * sessions could not be opened.
+     */
+    int connect() throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONNECTS_IN_FLIGHT);
+        List<CompletableFuture<StompSession>> connects = new ArrayList<>();
+        for (Seeder.User user : world.users()) {
+            inFlight.acquire();
+            StompHeaders headers = new StompHeaders();
+            headers.add("Authorization", "Bearer " + user.token());
+            CompletableFuture<StompSession> connect = client.connectAsync(url, new WebSocketHttpHeaders(), headers,
+                    new SessionHandler(user));
+            connect.whenComplete((session, error) -> inFlight.release());
+            connects.add(connect);
+        }
+        int failed = 0;
+        for (int i = 0; i < connects.size(); i++) {
+            try {
+                StompSession session = connects.get(i).get(30, TimeUnit.SECONDS);
+                synchronized (sessions) {
+                    sessions.put(world.users().get(i).id(), session);
+                }
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Sends what the configured rates call for since the last tick.
+     */
+    void tick(double seconds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        chatCredit += options.chatRate() * seconds;
+        for (; chatCredit >= 1; chatCredit--) {
+            Seeder.Pair pair = world.pairs().get(random.nextInt(world.pairs().size()));
+            boolean firstSends = random.nextBoolean();
+            Seeder.User sender = firstSends ? pair.first() : pair.second();
+            String key = "lc" + nextKey.incrementAndGet();
+            chat.sent(key, 1);
+            send(chat, sender, "/app/chat/" + pair.chatId() + "/send",
+                    Map.of("action", "send", "content", key, "messageType", "TEXT"));
+        }
+
+        groupCredit += options.groupRate() * seconds;
+        for (; groupCredit >= 1; groupCredit--) {
+            Seeder.Group target = world.groups().get(random.nextInt(world.groups().size()));
+            Seeder.User sender = target.members().get(random.nextInt(target.members().size()));
+            String key = "lg" + nextKey.incrementAndGet();
+            group.sent(key, target.members().size() - 1);
+            send(group, sender, "/app/group/" + target.id() + "/send",
+                    Map.of("action", "send", "content", key, "messageType", "TEXT"));
+        }
+
+        typingCredit += options.typingRate() * seconds;
+        for (; typingCredit >= 1; typingCredit--) {
+            Seeder.Group target = world.groups().get(random.nextInt(world.groups().size()));
+            Seeder.User sender = target.members().get(random.nextInt(target.members().size()));
+            // Typing frames carry no key of their own, so a user has one in flight per group at a time
+            if (typing.sent(typingKey(target.id(), sender.id()), target.members().size() - 1)) {
+                send(typing, sender, "/app/group/" + target.id() + "/typing", Map.of("action", "typing"));
+            }
+        }
+
+        iceCredit += options.iceRate() * seconds;
+        for (; iceCredit >= 1; iceCredit--) {
+            Seeder.Pair pair = world.pairs().get(random.nextInt(world.pairs().size()));
+            boolean firstSends = random.nextBoolean();
+            Seeder.User sender = firstSends ? pair.first() : pair.second();
+            Seeder.User recipient = firstSends ? pair.second() : pair.first();
+            String key = "li" + nextKey.incrementAndGet();
+            ice.sent(key, 1);
+            send(ice, sender, "/app/calls/ice-candidate", Map.of(
+                    "roomId", pair.roomId(),
+                    "toUserId", recipient.id().toString(),
+                    "candidate", Map.of("candidate", key, "sdpMid", "0", "sdpMLineIndex", 0)));
+        }
+
+        callSetupCredit += options.callSetupRate() * seconds;
+        for (; callSetupCredit >= 1; callSetupCredit--) {
+            setUpCall(world.groups().get(random.nextInt(world.groups().size())));
+        }
+    }
+
+    // Full mesh: each member trickles its candidates for every peer connection back to back
+    private void setUpCall(Seeder.Group target) {
+        for (Seeder.User sender : target.members()) {
+            for (Seeder.User peer : target.members()) {
+                if (peer == sender) {
+                    continue;
+                }
+                for (int i = 0; i < options.callCandidates(); i++) {
+                    String key = "ls" + nextKey.incrementAndGet();
+                    callSetup.sent(key, 1);
+                    send(callSetup, sender, "/app/group-calls/ice-candidate", Map.of(
+                            "roomId", target.callRoomId(),
+                            "toUserId", peer.id().toString(),
+                            "candidate", Map.of("candidate", key, "sdpMid", "0", "sdpMLineIndex", 0)));
+                }
+            }
+        }
+    }
+
+    void disconnect() {
+        synchronized (sessions) {
+            for (StompSession session : sessions.values()) {
+                try {
+                    session.disconnect();
+                } catch (Exception ignored) {
+                    // Already closed by the server
+                }
+            }
+        }
+        client.stop();
+    }
+
+    private void send(Scenario scenario, Seeder.User sender, String destination, Object payload) {
+        StompSession session;
+        synchronized (sessions) {
+            session = sessions.get(sender.id());
+        }
+        if (session == null || !session.isConnected()) {
+            scenario.error();
+            return;
+        }
+        // Sends on one session must not interleave
+        synchronized (session) {
+            try {
+                session.send(destination, payload);
+            } catch (Exception e) {
+                scenario.error();
+            }
+        }
+    }
+
+    private static String typingKey(UUID groupId, Object senderId) {
+        return groupId + "/" + senderId;
+    }
+
+    private void onChatMessage(Seeder.User receiver, JsonNode message, long bytes) {
+        chat.received(bytes);
+        // The sender gets its own copy back as confirmation; only the other side counts
+        if (!receiver.id().toString().equals(message.path("userId").asText())) {
+            chat.delivered(message.path("content").asText());
+        }
+    }
+
+    private void onGroupMessage(JsonNode message, long bytes) {
+        if ("typing".equals(message.path("action").asText())) {
+            typing.received(bytes);
+            typing.delivered(typingKey(UUID.fromString(message.path("groupId").asText()),
+                    message.path("sender").path("id").asText()));
+        } else {
+            group.received(bytes);
+            group.delivered(message.path("content").asText());
+        }
+    }
+
+    private void onGroupFrame(JsonNode frame, long bytes) {
+        if ("typing".equals(frame.path("action").asText())) {
+            typing.received(bytes);
+            typing.delivered(typingKey(UUID.fromString(frame.path("groupId").asText()),
+                    frame.path("senderId").asText()));
+        } else {
+            group.received(bytes);
+            group.delivered(frame.path("content").asText());
+        }
+    }
+
+    // Candidates coalesced by the server arrive together in one "ice-candidates" frame
+    private void onSignal(JsonNode message, long bytes) {
+        List<JsonNode> candidates = new ArrayList<>();
+        switch (message.path("type").asText()) {
+            case "ice-candidate" -> candidates.add(message.path("candidate"));
+            case "ice-candidates" -> message.path("candidates").forEach(candidates::add);
+            default -> {
+            }
+        }
+        Scenario scenario = ice;
+        for (JsonNode candidate : candidates) {
+            String key = candidate.path("candidate").asText();
+            scenario = key.startsWith("ls") ? callSetup : ice;
+            scenario.delivered(key);
+        }
+        scenario.received(bytes);
+    }
+
+    // Group errors carry the group id; the signaling ones do not
+    private void onError(JsonNode message) {
+        (message.hasNonNull("groupId") ? group : ice).error();
+    }
+
+    private final class SessionHandler extends StompSessionHandlerAdapter {
+
+        private final Seeder.User user;
+
+        SessionHandler(Seeder.User user) {
+            this.user = user;
+        }
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            subscribe(session, "/user/queue/chat-messages", (message, bytes) -> onChatMessage(user, message, bytes));
+            if (options.frames().equals("slim")) {
+                subscribe(session, "/user/queue/group-frames", StompTraffic.this::onGroupFrame);
+                // Profiles are only pushed for what group frames mention, so they are part of their cost
+                subscribe(session, "/user/queue/profiles", (profiles, bytes) -> group.received(bytes));
+            } else {
+                subscribe(session, "/user/queue/group-messages", StompTraffic.this::onGroupMessage);
+            }
+            // onSignal reads both candidate frames, so it takes batches
+            StompHeaders signaling = new StompHeaders();
+            signaling.setDestination("/user/queue/call-signaling");
+            signaling.set("ice-batching", "true");
+            subscribe(session, signaling, StompTraffic.this::onSignal);
+            subscribe(session, "/user/queue/chat-errors", (message, bytes) -> chat.error());
+            subscribe(session, "/user/queue/errors", (message, bytes) -> onError(message));
+        }
+
+        @Override
+        public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                    byte[] payload, Throwable exception) {
+            Progress.print("STOMP error for user %d: %s", user.index(), exception.getMessage());
+        }
+
+        private void subscribe(StompSession session, String destination, BiConsumer<JsonNode, Long> handler) {
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination(destination);
+            subscribe(session, headers, handler);
+        }
+
+        private void subscribe(StompSession session, StompHeaders subscribeHeaders, BiConsumer<JsonNode, Long> handler) {
+            session.subscribe(subscribeHeaders, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return JsonNode.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    handler.accept((JsonNode) payload, Math.max(0, headers.getContentLength()));
+                }
+            });
+        }
+    }
+}
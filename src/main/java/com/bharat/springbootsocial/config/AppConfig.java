@@ -14,6 +14,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 
@@ -26,8 +27,9 @@ public class AppConfig {
     @Bean
     SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.sessionManagement(sessionManagement -> sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authorizeHttpRequests(authorize -> authorize.requestMatchers(HttpMethod.POST, "/api/users").permitAll()
-                        .requestMatchers("/api/**").authenticated()
+                // Plain path matchers: the actuator's own dispatcher servlet on the management port makes servlet-aware ones ambiguous
+                .authorizeHttpRequests(authorize -> authorize.requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/users")).permitAll()
+                        .requestMatchers(AntPathRequestMatcher.antMatcher("/api/**")).authenticated()
                         .anyRequest().permitAll())
                 .addFilterBefore(new jwValidator(), BasicAuthenticationFilter.class)
                 .csrf(AbstractHttpConfigurer::disable)
@@ -27,6 +27,11 @@ public class JwtProvider {
     }
 
     public static String getEmailFromJwtToken(String jwt) {
+        return (String) getClaimsFromJwtToken(jwt).get("email");
+    }
+
+    // Verified claims of a "Bearer ..." token; the email claim is always present
+    public static Claims getClaimsFromJwtToken(String jwt) {
         if (jwt == null || !jwt.startsWith("Bearer ")) {
             throw new IllegalArgumentException("Invalid JWT token format");
         }
@@ -38,7 +43,7 @@ public class JwtProvider {
             if (email == null) {
                 throw new IllegalArgumentException("Email not found in JWT token");
             }
-            return email;
+            return claims;
         } catch (Exception e) {
             throw new IllegalArgumentException("Failed to parse JWT token: " + e.getMessage());
         }
@@ -0,0 +1,113 @@
+package com.bharat.springbootsocial.config;
+
+import com.bharat.springbootsocial.response.UserSummary;
+import com.bharat.springbootsocial.services.PrincipalCache;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Authenticates a STOMP session once, from the Authorization header of its
+ * CONNECT frame. The session's principal is named after the user id, so user
+ * destinations resolve to it, and the id is kept in the session attributes for
+ * handlers to read instead of verifying a token on every frame. Clients that
+ * connect without a token still work; their handlers fall back to per-frame
+ * tokens.
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private static final String USER_ID_ATTRIBUTE = "userId";
+    private static final String EXPIRES_AT_ATTRIBUTE = "tokenExpiresAt";
+    private static final String USER_QUEUE_PREFIX = "/user/queue/";
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            return translateUserSubscription(message, accessor);
+        }
+        if (accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String jwt = accessor.getFirstNativeHeader(JwtConstants.JWT_HEADER);
+        if (jwt == null || jwt.isBlank()) {
+            return message;
+        }
+        if (!jwt.startsWith("Bearer ")) {
+            jwt = "Bearer " + jwt;
+        }
+
+        // A bad token fails the CONNECT rather than leaving an anonymous session behind
+        UserSummary user;
+        Claims claims;
+        try {
+            user = principalCache.resolve(jwt);
+            claims = JwtProvider.getClaimsFromJwtToken(jwt);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid JWT token: " + e.getMessage());
+        }
+        accessor.setUser(new UsernamePasswordAuthenticationToken(user.getId().toString(), null, List.of()));
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null) {
+            attributes.put(USER_ID_ATTRIBUTE, user.getId());
+            if (claims.getExpiration() != null) {
+                attributes.put(EXPIRES_AT_ATTRIBUTE, claims.getExpiration().getTime());
+            }
+        }
+        return message;
+    }
+
+    /**
+     * "/user" is also a simple broker prefix, because clients subscribe to
+     * "/user/{id}/queue/..." literally. That makes the broker register a
+     * "/user/queue/..." subscription as-is under the same subscription id as
+     * its per-session translation, which is then ignored. Translating it here,
+     * the way the user destination resolver does, registers it once, so
+     * messages sent to the user's destinations reach it.
+     */
+    private static Message<?> translateUserSubscription(Message<?> message, StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (accessor.getUser() == null || destination == null || !destination.startsWith(USER_QUEUE_PREFIX)) {
+            return message;
+        }
+        StompHeaderAccessor translated = StompHeaderAccessor.wrap(message);
+        translated.setDestination(destination.substring("/user".length()) + "-user" + accessor.getSessionId());
+        return MessageBuilder.createMessage(message.getPayload(), translated.getMessageHeaders());
+    }
+
+    /**
+     * The user this frame's session authenticated as at CONNECT, or null if it
+     * did not or its token has since expired.
+     */
+    public static UUID sessionUserId(SimpMessageHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor != null ? accessor.getSessionAttributes() : null;
+        if (attributes == null) {
+            return null;
+        }
+        Long expiresAt = (Long) attributes.get(EXPIRES_AT_ATTRIBUTE);
+        if (expiresAt != null && expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return (UUID) attributes.get(USER_ID_ATTRIBUTE);
+    }
+}
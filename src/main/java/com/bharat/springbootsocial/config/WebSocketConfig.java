@@ -1,6 +1,9 @@
 package com.bharat.springbootsocial.config;
 
+import com.bharat.springbootsocial.metrics.StompTrafficInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -10,6 +13,12 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    @Autowired
+    private StompAuthInterceptor stompAuthInterceptor;
+    
+    @Autowired
+    private StompTrafficInterceptor stompTrafficInterceptor;
+    
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
@@ -19,6 +28,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setDisconnectDelay(5000);
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authenticates each session once at CONNECT
+        registration.interceptors(stompAuthInterceptor, stompTrafficInterceptor.inbound());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompTrafficInterceptor.outbound());
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Set application destination prefix for @MessageMapping endpoints
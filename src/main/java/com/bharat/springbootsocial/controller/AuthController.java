@@ -51,7 +51,7 @@ public class AuthController {
         newUser.setPassword(passwordEncoder.encode(user.getPassword()));
         newUser.setGender(user.getGender());
 
-        User savedUser = userRepo.save(newUser);
+        User savedUser = userServices.createUser(newUser);
 
         Authentication authentication = new UsernamePasswordAuthenticationToken(newUser.getEmail(),newUser.getPassword());
 
@@ -12,6 +12,7 @@ import com.bharat.springbootsocial.request.MessageReadRequest;
 import com.bharat.springbootsocial.response.EnhancedMessageResponse;
 import com.bharat.springbootsocial.response.MessageReactionResponse;
 import com.bharat.springbootsocial.response.MessageReadResponse;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.services.ChatService;
 import com.bharat.springbootsocial.services.ServiceInt;
 import lombok.AllArgsConstructor;
@@ -97,6 +98,31 @@ public class ChatController {
         return ResponseEntity.ok(messages);
     }
     
+    // Keyset paging; start without a cursor and follow nextCursor for older messages
+    @GetMapping("/{chatId}/messages/cursor")
+    public ResponseEntity<PaginatedResponse<EnhancedMessageResponse>> getChatMessagesByCursor(
+            @RequestHeader("Authorization") String token,
+            @PathVariable UUID chatId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) throws ChatException {
+        User user = userService.getUserFromToken(token);
+        PaginatedResponse<EnhancedMessageResponse> messages = chatService.getChatMessagesByCursor(chatId, user, cursor, size);
+        return ResponseEntity.ok(messages);
+    }
+    
+    // Messages containing every word of the query, newest first; quote words to match them as a phrase
+    @GetMapping("/{chatId}/messages/search")
+    public ResponseEntity<PaginatedResponse<EnhancedMessageResponse>> searchMessages(
+            @RequestHeader("Authorization") String token,
+            @PathVariable UUID chatId,
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) throws ChatException {
+        User user = userService.getUserFromToken(token);
+        PaginatedResponse<EnhancedMessageResponse> messages = chatService.searchMessages(chatId, user, query, cursor, size);
+        return ResponseEntity.ok(messages);
+    }
+    
     // Message reaction endpoints
     @PostMapping("/messages/reactions")
     public ResponseEntity<MessageReactionResponse> addReaction(
@@ -1,12 +1,13 @@
 package com.bharat.springbootsocial.controller;
 
-import com.bharat.springbootsocial.entity.Chat;
 import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.request.EnhancedMessageRequest;
 import com.bharat.springbootsocial.response.EnhancedMessageResponse;
 import com.bharat.springbootsocial.services.ChatService;
-import com.bharat.springbootsocial.services.ServiceInt;
+import com.bharat.springbootsocial.services.SocketUserResolver;
 import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -22,6 +23,8 @@ import java.util.UUID;
 @AllArgsConstructor
 public class ChatMessageWebSocketController {
     
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessageWebSocketController.class);
+    
     @Autowired
     private SimpMessagingTemplate simpMessagingTemplate;
     
@@ -29,7 +32,7 @@ public class ChatMessageWebSocketController {
     private ChatService chatService;
     
     @Autowired
-    private ServiceInt userService;
+    private SocketUserResolver socketUserResolver;
     
     /**
      * Handle direct chat message sending via WebSocket
@@ -47,18 +50,8 @@ public class ChatMessageWebSocketController {
         System.out.println("HeaderAccessor: " + (headerAccessor != null ? "NOT NULL" : "NULL"));
         
         try {
-            // Extract JWT token from headers
-            System.out.println("Extracting JWT token from headers...");
-            String jwt = getJwtFromHeaders(headerAccessor);
-            if (jwt == null || jwt.isEmpty()) {
-                System.err.println("❌ JWT token is null or empty");
-                throw new IllegalArgumentException("JWT token is required");
-            }
-            System.out.println("✓ JWT token extracted successfully");
-            
-            // Get sender from token
-            System.out.println("Getting user from token...");
-            User sender = userService.getUserFromToken(jwt);
+            // Sender from the session, or from the JWT token in headers
+            User sender = socketUserResolver.user(headerAccessor, null);
             if (sender == null) {
                 System.err.println("❌ User is null after token validation");
                 throw new IllegalArgumentException("Invalid user token");
@@ -85,47 +78,27 @@ public class ChatMessageWebSocketController {
             System.out.println("Processing action: " + action);
             
             if (action == null || action.isEmpty() || action.equals("send")) {
-                // CREATE NEW MESSAGE - Save to database
-                System.out.println("=== CREATING AND SAVING MESSAGE TO DATABASE ===");
-                
                 // Validate content
                 if (request.getContent() == null || request.getContent().trim().isEmpty()) {
                     System.err.println("❌ Message content is null or empty");
                     throw new IllegalArgumentException("Message content cannot be empty");
                 }
                 
-                System.out.println("Message content validated: " + request.getContent());
-                System.out.println("Calling chatService.sendMessage() to save to database...");
+                // Participants are loaded here so the broadcast does not query from the pipeline's ack thread
+                List<User> participants = chatService.getChatByIdWithUsers(chatId).getUsers();
+                UUID senderId = sender.getId();
                 
-                // Save message via service (this saves to database)
-                try {
-                    response = chatService.sendMessage(request, sender);
-                    
-                    if (response == null) {
-                        System.err.println("❌ Response is NULL after chatService.sendMessage()");
-                        throw new RuntimeException("Failed to save message to database: response is null");
-                    }
-                    
-                    if (response.getId() == null) {
-                        System.err.println("❌ Response ID is NULL after chatService.sendMessage()");
-                        throw new RuntimeException("Failed to save message to database: message ID is null");
+                // Queued for the batched writer; broadcast once it is acknowledged
+                chatService.submitMessage(request, sender).whenComplete((saved, error) -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        logger.warn("Failed to save chat message in chat {}: {}", chatId, cause.getMessage());
+                        sendError(senderId, chatId, cause.getMessage());
+                    } else {
+                        broadcastToChatParticipants(chatId, participants, saved, senderId);
                     }
-                    
-                    System.out.println("✓✓✓ MESSAGE SAVED TO DATABASE SUCCESSFULLY ✓✓✓");
-                    System.out.println("  Message ID: " + response.getId());
-                    System.out.println("  Message content: " + response.getContent());
-                    System.out.println("  Message chatId: " + response.getChatId());
-                    System.out.println("  Message userId: " + response.getUserId());
-                    System.out.println("  Message timestamp: " + response.getTimestamp());
-                    
-                } catch (Exception e) {
-                    System.err.println("❌❌❌ ERROR DURING DATABASE SAVE ❌❌❌");
-                    System.err.println("Exception type: " + e.getClass().getName());
-                    System.err.println("Exception message: " + e.getMessage());
-                    System.err.println("Stack trace:");
-                    e.printStackTrace();
-                    throw e;
-                }
+                });
+                return;
                 
             } else if (action.equals("edit")) {
                 // EDIT EXISTING MESSAGE
@@ -159,7 +132,7 @@ public class ChatMessageWebSocketController {
             
             // Broadcast to all chat participants (including sender for confirmation)
             System.out.println("Broadcasting message to participants...");
-            broadcastToChatParticipants(chatId, response, sender.getId());
+            broadcastToChatParticipants(chatId, chatService.getChatByIdWithUsers(chatId).getUsers(), response, sender.getId());
             System.out.println("✓ Message broadcast completed");
             
         } catch (Exception e) {
@@ -167,42 +140,38 @@ public class ChatMessageWebSocketController {
             e.printStackTrace();
             
             // Send error to sender only
-            try {
-                UUID userId = getUserIdFromHeaders(headerAccessor);
-                if (userId != null) {
-                    EnhancedMessageResponse errorResponse = new EnhancedMessageResponse();
-                    errorResponse.setChatId(chatId);
-                    errorResponse.setContent("Error: " + e.getMessage());
-                    
-                    String errorDestination = "/user/" + userId + "/queue/chat-errors";
-                    simpMessagingTemplate.convertAndSend(errorDestination, errorResponse);
-                    System.out.println("Error sent to user: " + userId);
-                }
-            } catch (Exception ex) {
-                System.err.println("Failed to send error response: " + ex.getMessage());
+            UUID userId = getUserIdFromHeaders(headerAccessor);
+            if (userId != null) {
+                sendError(userId, chatId, e.getMessage());
             }
         }
     }
     
+    private void sendError(UUID userId, UUID chatId, String message) {
+        try {
+            EnhancedMessageResponse errorResponse = new EnhancedMessageResponse();
+            errorResponse.setChatId(chatId);
+            errorResponse.setContent("Error: " + message);
+            
+            String errorDestination = "/user/" + userId + "/queue/chat-errors";
+            simpMessagingTemplate.convertAndSend(errorDestination, errorResponse);
+            System.out.println("Error sent to user: " + userId);
+        } catch (Exception ex) {
+            System.err.println("Failed to send error response: " + ex.getMessage());
+        }
+    }
+    
     /**
      * Broadcast message to all chat participants
      * Uses topic-based broadcast (like group chat) for reliable delivery
      */
-    @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    private void broadcastToChatParticipants(UUID chatId, EnhancedMessageResponse message, UUID senderId) {
+    private void broadcastToChatParticipants(UUID chatId, List<User> participants, EnhancedMessageResponse message, UUID senderId) {
         try {
             System.out.println("=== BROADCASTING CHAT MESSAGE ===");
             System.out.println("Chat ID: " + chatId);
             System.out.println("Sender ID: " + senderId);
             System.out.println("Message ID: " + message.getId());
             
-            // Get chat with users eagerly loaded to avoid LazyInitializationException
-            Chat chat = chatService.getChatByIdWithUsers(chatId);
-            if (chat == null) {
-                throw new RuntimeException("Chat not found: " + chatId);
-            }
-            
-            List<User> participants = chat.getUsers();
             if (participants == null || participants.isEmpty()) {
                 throw new RuntimeException("No participants found in chat: " + chatId);
             }
@@ -249,31 +218,11 @@ public class ChatMessageWebSocketController {
     }
     
     /**
-     * Extract JWT token from WebSocket headers
-     */
-    private String getJwtFromHeaders(SimpMessageHeaderAccessor headerAccessor) {
-        if (headerAccessor == null) {
-            throw new IllegalArgumentException("HeaderAccessor is null");
-        }
-        
-        List<String> authHeaders = headerAccessor.getNativeHeader("Authorization");
-        if (authHeaders != null && !authHeaders.isEmpty()) {
-            String authHeader = authHeaders.get(0);
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                return authHeader;
-            }
-        }
-        throw new IllegalArgumentException("JWT token not found in headers");
-    }
-    
-    /**
-     * Get user ID from headers (for error responses)
+     * Sender's user ID (for error responses)
      */
     private UUID getUserIdFromHeaders(SimpMessageHeaderAccessor headerAccessor) {
         try {
-            String jwt = getJwtFromHeaders(headerAccessor);
-            User user = userService.getUserFromToken(jwt);
-            return user != null ? user.getId() : null;
+            return socketUserResolver.userId(headerAccessor, null);
         } catch (Exception e) {
             return null;
         }
@@ -4,7 +4,9 @@ import com.bharat.springbootsocial.entity.Comment;
 import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.response.ApiResponse;
 import com.bharat.springbootsocial.response.CommentResponse;
+import com.bharat.springbootsocial.response.LikeResponse;
 import com.bharat.springbootsocial.services.CommentServices;
+import com.bharat.springbootsocial.services.LikeService;
 import com.bharat.springbootsocial.services.ServiceInt;
 import lombok.AllArgsConstructor;
 
@@ -25,6 +27,8 @@ public class CommentController {
     private CommentServices commentServices;
     @Autowired
     private ServiceInt userService;
+    @Autowired
+    private LikeService likeService;
 
     @PostMapping("post/{postId}")
     public ResponseEntity<CommentResponse> createComment(
@@ -96,15 +100,27 @@ public class CommentController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    // Toggles the like; answers with the new state and count, like the endpoints below
     @PutMapping("like/{commentId}")
-    public ResponseEntity<CommentResponse> likeComment(@RequestHeader("Authorization") String jwt,
+    public ResponseEntity<LikeResponse> likeComment(@RequestHeader("Authorization") String jwt,
             @PathVariable("commentId") UUID commentId) throws Exception {
         User user = userService.getUserFromToken(jwt);
-        Comment comment = commentServices.likeComment(commentId, user.getId());
-        
-        // Convert to CommentResponse with totalLikes and isLiked
-        CommentResponse commentResponse = convertToCommentResponse(comment, user.getId());
-        return new ResponseEntity<>(commentResponse, HttpStatus.OK);
+        return new ResponseEntity<>(commentServices.likeComment(commentId, user.getId()), HttpStatus.OK);
+    }
+
+    // Idempotent like / unlike returning the new state and count
+    @PutMapping("{commentId}/like")
+    public ResponseEntity<LikeResponse> addCommentLike(@RequestHeader("Authorization") String jwt,
+            @PathVariable("commentId") UUID commentId) throws Exception {
+        User user = userService.getUserFromToken(jwt);
+        return new ResponseEntity<>(likeService.like(LikeService.Target.COMMENT, commentId, user.getId()), HttpStatus.OK);
+    }
+
+    @DeleteMapping("{commentId}/like")
+    public ResponseEntity<LikeResponse> removeCommentLike(@RequestHeader("Authorization") String jwt,
+            @PathVariable("commentId") UUID commentId) throws Exception {
+        User user = userService.getUserFromToken(jwt);
+        return new ResponseEntity<>(likeService.unlike(LikeService.Target.COMMENT, commentId, user.getId()), HttpStatus.OK);
     }
 
     @GetMapping("user/{userId}")
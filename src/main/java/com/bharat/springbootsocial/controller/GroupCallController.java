@@ -13,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -54,7 +55,8 @@ public class GroupCallController {
                 currentUser,
                 request.getGroupId(),
                 request.getCallType(),
-                request.getRoomName()
+                request.getRoomName(),
+                request.getScheduledAt()
             );
             
             return new ResponseEntity<>(
@@ -280,6 +282,8 @@ public class GroupCallController {
         private UUID groupId;
         private String roomName;
         private GroupCallRoom.CallType callType;
+        // Optional; a time in the future schedules the call instead of starting it
+        private LocalDateTime scheduledAt;
         
         // Constructors
         public CreateGroupCallRoomRequest() {}
@@ -299,6 +303,9 @@ public class GroupCallController {
         
         public GroupCallRoom.CallType getCallType() { return callType; }
         public void setCallType(GroupCallRoom.CallType callType) { this.callType = callType; }
+        
+        public LocalDateTime getScheduledAt() { return scheduledAt; }
+        public void setScheduledAt(LocalDateTime scheduledAt) { this.scheduledAt = scheduledAt; }
     }
     
     // Get room participants
@@ -1,8 +1,11 @@
 package com.bharat.springbootsocial.controller;
 
+import com.bharat.springbootsocial.config.StompAuthInterceptor;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.response.UserSummary;
 import com.bharat.springbootsocial.services.GroupCallService;
 import com.bharat.springbootsocial.services.ServiceInt;
+import com.bharat.springbootsocial.services.SocketUserResolver;
 import com.bharat.springbootsocial.services.WebRTCSignalingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -24,20 +27,15 @@ public class GroupCallWebSocketController {
     @Autowired
     private ServiceInt userService;
     
+    @Autowired
+    private SocketUserResolver socketUserResolver;
+    
     @Autowired
     private WebRTCSignalingService signalingService;
     
     @Autowired
     private GroupCallService groupCallService;
     
-    // Helper method to ensure JWT token has Bearer prefix
-    private String ensureBearerPrefix(String jwt) {
-        if (jwt != null && !jwt.startsWith("Bearer ")) {
-            return "Bearer " + jwt;
-        }
-        return jwt;
-    }
-    
     // Handle group call invitation (NEW ENDPOINT)
     @MessageMapping("/group-calls/invite")
     public void handleGroupCallInvite(@Payload Map<String, Object> payload, SimpMessageHeaderAccessor headerAccessor) {
@@ -46,12 +44,12 @@ public class GroupCallWebSocketController {
             System.out.println("📥 Received group call invite: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for group call invite");
                 return;
             }
             
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            User fromUser = socketUserResolver.user(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             UUID toUserId = UUID.fromString(payload.get("toUserId").toString());
             String callType = (String) payload.get("callType");
@@ -121,12 +119,12 @@ public class GroupCallWebSocketController {
             System.out.println("📥 Received group call subscription: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for group call subscription");
                 return;
             }
             
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            User user = socketUserResolver.user(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             UUID groupId = payload.get("groupId") != null ? UUID.fromString(payload.get("groupId").toString()) : null;
             
@@ -170,12 +168,12 @@ public class GroupCallWebSocketController {
             System.out.println("📥 Received group call offer: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for group call offer");
                 return;
             }
             
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             UUID toUserId = UUID.fromString(payload.get("toUserId").toString());
             Map<String, Object> offer = (Map<String, Object>) payload.get("offer");
@@ -184,7 +182,7 @@ public class GroupCallWebSocketController {
             System.out.println("👤 To User ID: " + toUserId);
             System.out.println("🏠 Room ID: " + roomId);
             
-            User toUser = userService.getUserById(toUserId);
+            UserSummary toUser = userService.getUserSummary(toUserId);
             if (toUser == null) {
                 System.err.println("❌ Target user not found: " + toUserId);
                 return;
@@ -210,12 +208,12 @@ public class GroupCallWebSocketController {
             System.out.println("📥 Received group call answer: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for group call answer");
                 return;
             }
             
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             UUID toUserId = UUID.fromString(payload.get("toUserId").toString());
             Map<String, Object> answer = (Map<String, Object>) payload.get("answer");
@@ -224,7 +222,7 @@ public class GroupCallWebSocketController {
             System.out.println("👤 To User ID: " + toUserId);
             System.out.println("🏠 Room ID: " + roomId);
             
-            User toUser = userService.getUserById(toUserId);
+            UserSummary toUser = userService.getUserSummary(toUserId);
             if (toUser == null) {
                 System.err.println("❌ Target user not found: " + toUserId);
                 return;
@@ -250,12 +248,12 @@ public class GroupCallWebSocketController {
             System.out.println("📥 Received group call ICE candidate: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for group call ICE candidate");
                 return;
             }
             
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             UUID toUserId = UUID.fromString(payload.get("toUserId").toString());
             Map<String, Object> candidate = (Map<String, Object>) payload.get("candidate");
@@ -264,7 +262,7 @@ public class GroupCallWebSocketController {
             System.out.println("👤 To User ID: " + toUserId);
             System.out.println("🏠 Room ID: " + roomId);
             
-            User toUser = userService.getUserById(toUserId);
+            UserSummary toUser = userService.getUserSummary(toUserId);
             if (toUser == null) {
                 System.err.println("❌ Target user not found: " + toUserId);
                 return;
@@ -290,12 +288,12 @@ public class GroupCallWebSocketController {
             System.out.println("📥 Received group call room event: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for group call room events");
                 return;
             }
             
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            User user = socketUserResolver.user(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             String eventType = (String) payload.get("eventType");
             
@@ -334,12 +332,12 @@ public class GroupCallWebSocketController {
             System.out.println("📥 Received group call session state: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for group call session state");
                 return;
             }
             
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            User user = socketUserResolver.user(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             String connectionState = (String) payload.get("connectionState");
             String iceConnectionState = (String) payload.get("iceConnectionState");
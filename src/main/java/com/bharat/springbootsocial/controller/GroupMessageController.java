@@ -1,6 +1,7 @@
 package com.bharat.springbootsocial.controller;
 
 import com.bharat.springbootsocial.entity.GroupMessage;
+import com.bharat.springbootsocial.entity.ReadWatermark;
 import com.bharat.springbootsocial.entity.User;
 import java.util.UUID;
 import com.bharat.springbootsocial.response.ApiResponse;
@@ -13,6 +14,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -120,25 +122,24 @@ public class GroupMessageController {
             @RequestHeader("Authorization") String jwt,
             @PathVariable UUID groupId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
         try {
             User user = userService.getUserFromToken(jwt);
             
-            PaginatedResponse<GroupMessage> messages = groupMessageService.getGroupMessagesPaginated(groupId, page, size);
+            // Keyset paging when a cursor is passed (empty for the newest page)
+            PaginatedResponse<GroupMessage> messages = cursor != null
+                ? groupMessageService.getGroupMessagesByCursor(groupId, cursor, size)
+                : groupMessageService.getGroupMessagesPaginated(groupId, page, size);
             
             // Convert to GroupMessageResponse with detailed reactions and read receipts
-            PaginatedResponse<GroupMessageResponse> responseMessages = new PaginatedResponse<>(
+            Map<UUID, List<ReadWatermark>> seenBy = groupMessageService.getSeenBy(groupId, messages.getContent());
+            PaginatedResponse<GroupMessageResponse> responseMessages = messages.withContent(
                 messages.getContent().stream()
-                    .map(GroupMessageResponse::new)
-                    .collect(java.util.stream.Collectors.toList()),
-                messages.getPage(),
-                messages.getSize(),
-                messages.getTotalElements(),
-                messages.getTotalPages(),
-                messages.isHasNext(),
-                messages.isHasPrevious(),
-                messages.isFirst(),
-                messages.isLast()
+                    .map(message -> seenBy.containsKey(message.getId())
+                        ? new GroupMessageResponse(message, seenBy.get(message.getId()))
+                        : new GroupMessageResponse(message))
+                    .collect(java.util.stream.Collectors.toList())
             );
             
             return new ResponseEntity<>(
@@ -186,11 +187,15 @@ public class GroupMessageController {
             @PathVariable UUID groupId,
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
         try {
             User user = userService.getUserFromToken(jwt);
             
-            PaginatedResponse<GroupMessage> messages = groupMessageService.searchMessagesInGroupPaginated(groupId, query, page, size);
+            // Keyset paging when a cursor is passed (empty for the newest matches)
+            PaginatedResponse<GroupMessage> messages = cursor != null
+                ? groupMessageService.searchMessagesInGroupByCursor(groupId, query, cursor, size)
+                : groupMessageService.searchMessagesInGroupPaginated(groupId, query, page, size);
             
             return new ResponseEntity<>(
                 new ApiResponse("Search completed successfully", true, messages),
@@ -1,14 +1,15 @@
 package com.bharat.springbootsocial.controller;
 
 import com.bharat.springbootsocial.entity.GroupMessage;
-import com.bharat.springbootsocial.entity.GroupMember;
 import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.request.GroupMessageWebSocketRequest;
+import com.bharat.springbootsocial.response.GroupFrame;
 import com.bharat.springbootsocial.response.GroupMessageResponse;
 import com.bharat.springbootsocial.response.GroupMessageWebSocketResponse;
+import com.bharat.springbootsocial.response.UserSummary;
 import com.bharat.springbootsocial.services.GroupMessageService;
-import com.bharat.springbootsocial.services.GroupService;
-import com.bharat.springbootsocial.services.ServiceInt;
+import com.bharat.springbootsocial.services.ProfileSync;
+import com.bharat.springbootsocial.services.SocketUserResolver;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -18,8 +19,8 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
-import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @AllArgsConstructor
@@ -32,10 +33,10 @@ public class GroupMessageWebSocketController {
     private GroupMessageService groupMessageService;
     
     @Autowired
-    private ServiceInt userService;
+    private ProfileSync profileSync;
     
     @Autowired
-    private GroupService groupService;
+    private SocketUserResolver socketUserResolver;
     
     // Send message to group
     @MessageMapping("/group/{groupId}/send")
@@ -43,36 +44,44 @@ public class GroupMessageWebSocketController {
                            @Payload GroupMessageWebSocketRequest request,
                            SimpMessageHeaderAccessor headerAccessor) {
         try {
-            // Get user from JWT token in headers
-            String jwt = getJwtFromHeaders(headerAccessor);
-            User sender = userService.getUserFromToken(jwt);
+            // Sender from the session, or from the JWT token in headers
+            User sender = socketUserResolver.user(headerAccessor, null);
             
             GroupMessage message;
             
             if (request.getAction().equals("send")) {
+                CompletableFuture<GroupMessage> saved;
                 if (request.getMediaUrl() != null) {
                     // Send media message
-                    message = groupMessageService.sendMessageWithMedia(
+                    saved = groupMessageService.submitMessageWithMedia(
                         groupId, sender, request.getContent(), 
                         request.getMediaUrl(), request.getMessageType()
                     );
                 } else if (request.getReplyToMessageId() != null) {
                     // Send reply message
-                    message = groupMessageService.sendReplyMessage(
+                    saved = groupMessageService.submitReplyMessage(
                         groupId, sender, request.getContent(), 
                         request.getReplyToMessageId()
                     );
                 } else {
                     // Send text message
-                    message = groupMessageService.sendMessage(
+                    saved = groupMessageService.submitMessage(
                         groupId, sender, request.getContent(), 
                         request.getMessageType()
                     );
                 }
                 
-                // Convert to response and broadcast to all group members except sender
-                GroupMessageResponse response = new GroupMessageResponse(message);
-                broadcastToGroupExceptSender(groupId, response, sender.getId());
+                // Queued for the batched writer; broadcast to all group members except
+                // the sender once it is acknowledged
+                UUID senderId = sender.getId();
+                saved.whenComplete((sent, error) -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        sendError(groupId, senderId, cause.getMessage());
+                    } else {
+                        broadcastToGroupExceptSender(groupId, new GroupMessageResponse(sent), senderId);
+                    }
+                });
                 
             } else if (request.getAction().equals("edit")) {
                 // Edit message
@@ -99,15 +108,19 @@ public class GroupMessageWebSocketController {
             
         } catch (Exception e) {
             // Send error response
-            GroupMessageWebSocketResponse errorResponse = new GroupMessageWebSocketResponse();
-            errorResponse.setGroupId(groupId);
-            errorResponse.setAction("error");
-            errorResponse.setContent("Error: " + e.getMessage());
-            
-            simpMessagingTemplate.convertAndSend("/user/" + getUserIdFromHeaders(headerAccessor) + "/queue/errors", errorResponse);
+            sendError(groupId, getUserIdFromHeaders(headerAccessor), e.getMessage());
         }
     }
     
+    private void sendError(UUID groupId, UUID userId, String message) {
+        GroupMessageWebSocketResponse errorResponse = new GroupMessageWebSocketResponse();
+        errorResponse.setGroupId(groupId);
+        errorResponse.setAction("error");
+        errorResponse.setContent("Error: " + message);
+        
+        simpMessagingTemplate.convertAndSend("/user/" + userId + "/queue/errors", errorResponse);
+    }
+    
     // Handle message reactions
     @MessageMapping("/group/{groupId}/react")
     public void handleReaction(@DestinationVariable UUID groupId,
@@ -121,8 +134,7 @@ public class GroupMessageWebSocketController {
             System.out.println("Message ID: " + request.getMessageId());
             System.out.println("Reaction: " + request.getReaction());
             
-            String jwt = getJwtFromHeaders(headerAccessor);
-            User user = userService.getUserFromToken(jwt);
+            User user = socketUserResolver.user(headerAccessor, null);
             System.out.println("User: " + user.getFname() + " " + user.getLname() + " (ID: " + user.getId() + ")");
             
             if (request.getAction().equals("react")) {
@@ -186,8 +198,8 @@ public class GroupMessageWebSocketController {
                             @Payload GroupMessageWebSocketRequest request,
                             SimpMessageHeaderAccessor headerAccessor) {
         try {
-            String jwt = getJwtFromHeaders(headerAccessor);
-            User user = userService.getUserFromToken(jwt);
+            // Typing frames only need the sender's id and name
+            UserSummary user = socketUserResolver.summary(headerAccessor, null);
             
             GroupMessageWebSocketResponse response = new GroupMessageWebSocketResponse();
             response.setGroupId(groupId);
@@ -213,8 +225,7 @@ public class GroupMessageWebSocketController {
                                  @Payload GroupMessageWebSocketRequest request,
                                  SimpMessageHeaderAccessor headerAccessor) {
         try {
-            String jwt = getJwtFromHeaders(headerAccessor);
-            User user = userService.getUserFromToken(jwt);
+            User user = socketUserResolver.user(headerAccessor, null);
             
             // Mark message as read
             groupMessageService.markMessageAsRead(request.getMessageId(), user);
@@ -233,22 +244,9 @@ public class GroupMessageWebSocketController {
     }
     
     // Helper methods
-    private String getJwtFromHeaders(SimpMessageHeaderAccessor headerAccessor) {
-        List<String> authHeaders = headerAccessor.getNativeHeader("Authorization");
-        if (authHeaders != null && !authHeaders.isEmpty()) {
-            String authHeader = authHeaders.get(0);
-            if (authHeader.startsWith("Bearer ")) {
-                return authHeader;
-            }
-        }
-        throw new IllegalArgumentException("JWT token not found in headers");
-    }
-    
     private UUID getUserIdFromHeaders(SimpMessageHeaderAccessor headerAccessor) {
         try {
-            String jwt = getJwtFromHeaders(headerAccessor);
-            User user = userService.getUserFromToken(jwt);
-            return user.getId();
+            return socketUserResolver.userId(headerAccessor, null);
         } catch (Exception e) {
             return null;
         }
@@ -265,31 +263,31 @@ public class GroupMessageWebSocketController {
         return userResponse;
     }
     
+    private GroupMessageWebSocketResponse.UserResponse convertToUserResponse(UserSummary user) {
+        GroupMessageWebSocketResponse.UserResponse userResponse = new GroupMessageWebSocketResponse.UserResponse();
+        userResponse.setId(user.getId());
+        userResponse.setFirstName(user.getFname());
+        userResponse.setLastName(user.getLname());
+        userResponse.setEmail(user.getEmail());
+        userResponse.setProfileImage(user.getProfileImage());
+        return userResponse;
+    }
+    
     /**
      * Broadcast message to all group members except the sender
      */
-    private void broadcastToGroupExceptSender(UUID groupId, Object message, UUID senderId) {
+    private void broadcastToGroupExceptSender(UUID groupId, GroupMessageResponse message, UUID senderId) {
+        broadcastToGroupExceptSender(groupId, message, GroupFrame.of(groupId, message), senderId);
+    }
+    
+    private void broadcastToGroupExceptSender(UUID groupId, GroupMessageWebSocketResponse message, UUID senderId) {
+        broadcastToGroupExceptSender(groupId, message, GroupFrame.of(message), senderId);
+    }
+    
+    private void broadcastToGroupExceptSender(UUID groupId, Object message, GroupFrame frame, UUID senderId) {
         try {
-            // Get all group members
-            List<GroupMember> groupMembers = groupService.getGroupMembers(groupId);
-            
-            System.out.println("DEBUG: Broadcasting to group " + groupId + " (excluding sender " + senderId + ")");
-            System.out.println("DEBUG: Total group members: " + groupMembers.size());
-            
-            // Send to each member except sender
-            for (GroupMember groupMember : groupMembers) {
-                User member = groupMember.getUser();
-                if (!member.getId().equals(senderId)) {
-                    String destination = "/user/" + member.getId() + "/queue/group-messages";
-                    simpMessagingTemplate.convertAndSend(destination, message);
-                    System.out.println("DEBUG: Sent to user " + member.getId() + " (" + member.getFname() + " " + member.getLname() + ")");
-                } else {
-                    System.out.println("DEBUG: Excluded sender " + member.getId() + " (" + member.getFname() + " " + member.getLname() + ")");
-                }
-            }
-            
-            System.out.println("DEBUG: Broadcast completed successfully");
-            
+            // Member ids are cached and each form of the frame is serialized once for all of its recipients
+            profileSync.sendToGroup(groupId, senderId, message, frame);
         } catch (Exception e) {
             System.err.println("DEBUG: Error in broadcastToGroupExceptSender: " + e.getMessage());
             e.printStackTrace();
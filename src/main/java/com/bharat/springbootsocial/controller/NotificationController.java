@@ -4,6 +4,7 @@ import com.bharat.springbootsocial.entity.Notification;
 import com.bharat.springbootsocial.entity.User;
 import java.util.UUID;
 import com.bharat.springbootsocial.response.ApiResponse;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.services.NotificationService;
 import com.bharat.springbootsocial.services.ServiceInt;
 import lombok.AllArgsConstructor;
@@ -58,6 +59,23 @@ public class NotificationController {
         }
     }
     
+    // Get notifications for current user by keyset cursor; follow nextCursor for older ones
+    @GetMapping("/cursor")
+    public ResponseEntity<PaginatedResponse<Notification>> getNotificationsByCursor(
+            @RequestHeader("Authorization") String jwt,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            User reqUser = userService.getUserFromToken(jwt);
+            PaginatedResponse<Notification> notifications = notificationService.getNotificationsByUserIdCursor(reqUser.getId(), cursor, size);
+            return new ResponseEntity<>(notifications, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+    }
+    
     // Get unread notifications for current user
     @GetMapping("/unread")
     public ResponseEntity<List<Notification>> getUnreadNotifications(
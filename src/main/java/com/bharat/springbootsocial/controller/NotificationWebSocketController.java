@@ -1,8 +1,10 @@
 package com.bharat.springbootsocial.controller;
 
+import com.bharat.springbootsocial.config.StompAuthInterceptor;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.response.UserSummary;
 import com.bharat.springbootsocial.services.NotificationService;
-import com.bharat.springbootsocial.services.ServiceInt;
+import com.bharat.springbootsocial.services.SocketUserResolver;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -21,15 +23,7 @@ public class NotificationWebSocketController {
     private NotificationService notificationService;
     
     @Autowired
-    private ServiceInt userService;
-    
-    // Helper method to ensure JWT token has Bearer prefix
-    private String ensureBearerPrefix(String jwt) {
-        if (jwt != null && !jwt.startsWith("Bearer ")) {
-            return "Bearer " + jwt;
-        }
-        return jwt;
-    }
+    private SocketUserResolver socketUserResolver;
     
     // Handle notification subscription
     @MessageMapping("/notifications/subscribe")
@@ -37,8 +31,8 @@ public class NotificationWebSocketController {
         try {
             String jwt = (String) payload.get("token");
             System.out.println("Received subscription request with token: " + (jwt != null ? "Present" : "Missing"));
-            if (jwt != null) {
-                User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            if (jwt != null || StompAuthInterceptor.sessionUserId(headerAccessor) != null) {
+                UserSummary user = socketUserResolver.summary(headerAccessor, jwt);
                 // User is now subscribed to their notification channel
                 // The subscription is handled automatically by Spring WebSocket
                 System.out.println("User " + user.getId() + " (" + user.getFname() + " " + user.getLname() + ") subscribed to notifications");
@@ -57,8 +51,8 @@ public class NotificationWebSocketController {
             String jwt = (String) payload.get("token");
             UUID notificationId = UUID.fromString(payload.get("notificationId").toString());
             
-            if (jwt != null && notificationId != null) {
-                User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            if ((jwt != null || StompAuthInterceptor.sessionUserId(headerAccessor) != null) && notificationId != null) {
+                User user = socketUserResolver.user(headerAccessor, jwt);
                 notificationService.markNotificationAsRead(notificationId, user);
             }
         } catch (Exception e) {
@@ -72,8 +66,8 @@ public class NotificationWebSocketController {
         try {
             String jwt = (String) payload.get("token");
             
-            if (jwt != null) {
-                User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            if (jwt != null || StompAuthInterceptor.sessionUserId(headerAccessor) != null) {
+                UserSummary user = socketUserResolver.summary(headerAccessor, jwt);
                 notificationService.markAllNotificationsAsRead(user.getId());
             }
         } catch (Exception e) {
@@ -8,6 +8,8 @@ import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.PostResponse;
 import com.bharat.springbootsocial.response.CommentResponse;
 import com.bharat.springbootsocial.response.ContentResponse;
+import com.bharat.springbootsocial.response.LikeResponse;
+import com.bharat.springbootsocial.services.LikeService;
 import com.bharat.springbootsocial.services.PostService;
 import com.bharat.springbootsocial.services.ServiceInt;
 import lombok.AllArgsConstructor;
@@ -28,6 +30,8 @@ public class PostController {
     private PostService postService;
     @Autowired
     private ServiceInt userServices;
+    @Autowired
+    private LikeService likeService;
 
     @PostMapping()
     public ResponseEntity<Post> createPost(@RequestHeader("Authorization") String jwt, @RequestBody Post post)
@@ -84,12 +88,27 @@ public class PostController {
         return new ResponseEntity<>(post, HttpStatus.OK);
     }
 
+    // Toggles the like; answers with the new state and count, like the endpoints below
     @PutMapping("like/{postId}")
-    public ResponseEntity<Post> likePost(@RequestHeader("Authorization") String jwt, @PathVariable UUID postId)
+    public ResponseEntity<LikeResponse> likePost(@RequestHeader("Authorization") String jwt, @PathVariable UUID postId)
             throws Exception {
         User reqUser = userServices.getUserFromToken(jwt);
-        Post post = postService.likedPost(postId, reqUser.getId());
-        return new ResponseEntity<>(post, HttpStatus.OK);
+        return new ResponseEntity<>(postService.likedPost(postId, reqUser.getId()), HttpStatus.OK);
+    }
+
+    // Idempotent like / unlike returning the new state and count
+    @PutMapping("{postId}/like")
+    public ResponseEntity<LikeResponse> addPostLike(@RequestHeader("Authorization") String jwt, @PathVariable UUID postId)
+            throws Exception {
+        User reqUser = userServices.getUserFromToken(jwt);
+        return new ResponseEntity<>(likeService.like(LikeService.Target.POST, postId, reqUser.getId()), HttpStatus.OK);
+    }
+
+    @DeleteMapping("{postId}/like")
+    public ResponseEntity<LikeResponse> removePostLike(@RequestHeader("Authorization") String jwt, @PathVariable UUID postId)
+            throws Exception {
+        User reqUser = userServices.getUserFromToken(jwt);
+        return new ResponseEntity<>(likeService.unlike(LikeService.Target.POST, postId, reqUser.getId()), HttpStatus.OK);
     }
 
     @GetMapping("saved/{userId}")
@@ -132,11 +151,15 @@ public class PostController {
     }
     
     // Infinite scroll endpoints
+    // Pass cursor (empty for the first page) for keyset paging; page is the compatibility mode
     @GetMapping("/feed")
     public ResponseEntity<PaginatedResponse<Post>> getPostsFeed(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) throws Exception {
-        PaginatedResponse<Post> posts = postService.findAllPostsPaginated(page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) throws Exception {
+        PaginatedResponse<Post> posts = cursor != null
+                ? postService.findAllPostsByCursor(cursor, size)
+                : postService.findAllPostsPaginated(page, size);
         return new ResponseEntity<>(posts, HttpStatus.OK);
     }
     
@@ -179,12 +202,40 @@ public class PostController {
     public ResponseEntity<PaginatedResponse<PostResponse>> getPostsFeedOptimized(
             @RequestHeader("Authorization") String jwt,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) throws Exception {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) throws Exception {
         User reqUser = userServices.getUserFromToken(jwt);
-        PaginatedResponse<PostResponse> posts = postService.findAllPostsOptimizedPaginated(reqUser.getId(), page, size);
+        PaginatedResponse<PostResponse> posts = cursor != null
+                ? postService.findAllPostsOptimizedByCursor(reqUser.getId(), cursor, size)
+                : postService.findAllPostsOptimizedPaginated(reqUser.getId(), page, size);
         return new ResponseEntity<>(posts, HttpStatus.OK);
     }
     
+    // Posts and reels together, newest first; cursor as in /optimized/feed
+    @GetMapping("/combined/feed")
+    public ResponseEntity<PaginatedResponse<ContentResponse>> getCombinedFeed(
+            @RequestHeader("Authorization") String jwt,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) throws Exception {
+        User reqUser = userServices.getUserFromToken(jwt);
+        PaginatedResponse<ContentResponse> content = cursor != null
+                ? postService.findAllPostsAndReelsOptimizedByCursor(reqUser.getId(), cursor, size)
+                : postService.findAllPostsAndReelsOptimizedPaginated(reqUser.getId(), page, size);
+        return new ResponseEntity<>(content, HttpStatus.OK);
+    }
+    
+    // Personalized home timeline with cursor pagination
+    @GetMapping("/timeline")
+    public ResponseEntity<PaginatedResponse<ContentResponse>> getTimeline(
+            @RequestHeader("Authorization") String jwt,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) throws Exception {
+        User reqUser = userServices.getUserFromToken(jwt);
+        PaginatedResponse<ContentResponse> timeline = postService.findTimeline(reqUser.getId(), cursor, size);
+        return new ResponseEntity<>(timeline, HttpStatus.OK);
+    }
+    
     @GetMapping("/user/{userId}/optimized")
     public ResponseEntity<List<PostResponse>> findPostsByUserIdOptimized(
             @PathVariable UUID userId,
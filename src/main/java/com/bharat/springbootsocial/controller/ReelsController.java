@@ -7,8 +7,10 @@ import java.util.UUID;
 import com.bharat.springbootsocial.request.CommentRequest;
 import com.bharat.springbootsocial.response.ApiResponse;
 import com.bharat.springbootsocial.response.CommentResponse;
+import com.bharat.springbootsocial.response.LikeResponse;
 import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.ReelsResponse;
+import com.bharat.springbootsocial.services.LikeService;
 import com.bharat.springbootsocial.services.ReelsService;
 import com.bharat.springbootsocial.services.ServiceInt;
 import lombok.AllArgsConstructor;
@@ -29,6 +31,8 @@ public class ReelsController {
     private ReelsService reelsService;
     @Autowired
     private ServiceInt userService;
+    @Autowired
+    private LikeService likeService;
 
     @PostMapping()
     public Reels createReels(@RequestHeader("Authorization") String jwt, @RequestBody Reels reels) {
@@ -56,11 +60,15 @@ public class ReelsController {
     }
     
     // Infinite scroll endpoints
+    // Pass cursor (empty for the first page) for keyset paging; page is the compatibility mode
     @GetMapping("/feed")
     public ResponseEntity<PaginatedResponse<ReelsResponse>> getAllReelsFeed(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        PaginatedResponse<ReelsResponse> reels = reelsService.getAllReelsPaginatedWithCounts(page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        PaginatedResponse<ReelsResponse> reels = cursor != null
+                ? reelsService.getAllReelsByCursorWithCounts(cursor, size)
+                : reelsService.getAllReelsPaginatedWithCounts(page, size);
         return new ResponseEntity<>(reels, HttpStatus.OK);
     }
     
@@ -80,12 +88,26 @@ public class ReelsController {
         return new ResponseEntity<>(reel, HttpStatus.OK);
     }
     
+    // Toggles the like; answers with the new state and count, like the endpoints below
     @PutMapping("/like/{reelId}")
-    public ResponseEntity<ReelsResponse> likeReel(@RequestHeader("Authorization") String jwt, @PathVariable UUID reelId) throws Exception {
+    public ResponseEntity<LikeResponse> likeReel(@RequestHeader("Authorization") String jwt, @PathVariable UUID reelId) throws Exception {
         User reqUser = userService.getUserFromToken(jwt);
-        Reels reel = reelsService.likeReel(reelId, reqUser.getId());
-        ReelsResponse reelResponse = new ReelsResponse(reel);
-        return new ResponseEntity<>(reelResponse, HttpStatus.OK);
+        return new ResponseEntity<>(reelsService.likeReel(reelId, reqUser.getId()), HttpStatus.OK);
+    }
+    
+    // Idempotent like / unlike returning the new state and count
+    @PutMapping("/{reelId}/like")
+    public ResponseEntity<LikeResponse> addReelLike(@RequestHeader("Authorization") String jwt, @PathVariable UUID reelId)
+            throws Exception {
+        User reqUser = userService.getUserFromToken(jwt);
+        return new ResponseEntity<>(likeService.like(LikeService.Target.REEL, reelId, reqUser.getId()), HttpStatus.OK);
+    }
+    
+    @DeleteMapping("/{reelId}/like")
+    public ResponseEntity<LikeResponse> removeReelLike(@RequestHeader("Authorization") String jwt, @PathVariable UUID reelId)
+            throws Exception {
+        User reqUser = userService.getUserFromToken(jwt);
+        return new ResponseEntity<>(likeService.unlike(LikeService.Target.REEL, reelId, reqUser.getId()), HttpStatus.OK);
     }
     
     // Comment endpoints
@@ -210,22 +232,20 @@ public class ReelsController {
     }
     
     @PutMapping("/{reelId}/comments/like/{commentId}")
-    public ResponseEntity<Comment> likeCommentOnReel(
+    public ResponseEntity<LikeResponse> likeCommentOnReel(
             @RequestHeader("Authorization") String jwt, 
             @PathVariable UUID reelId,
             @PathVariable UUID commentId) throws Exception {
         User reqUser = userService.getUserFromToken(jwt);
-        Comment comment = reelsService.likeCommentOnReel(reelId, commentId, reqUser.getId());
-        return new ResponseEntity<>(comment, HttpStatus.OK);
+        return new ResponseEntity<>(reelsService.likeCommentOnReel(reelId, commentId, reqUser.getId()), HttpStatus.OK);
     }
     
     @PutMapping("/comments/like/{commentId}")
-    public ResponseEntity<Comment> likeCommentOnReelById(
+    public ResponseEntity<LikeResponse> likeCommentOnReelById(
             @RequestHeader("Authorization") String jwt, 
             @PathVariable UUID commentId) throws Exception {
         User reqUser = userService.getUserFromToken(jwt);
-        Comment comment = reelsService.likeCommentOnReelById(commentId, reqUser.getId());
-        return new ResponseEntity<>(comment, HttpStatus.OK);
+        return new ResponseEntity<>(reelsService.likeCommentOnReelById(commentId, reqUser.getId()), HttpStatus.OK);
     }
     
     @GetMapping("/saved/{userId}")
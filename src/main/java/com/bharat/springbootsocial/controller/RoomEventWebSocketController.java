@@ -1,7 +1,8 @@
 package com.bharat.springbootsocial.controller;
 
-import com.bharat.springbootsocial.entity.User;
-import com.bharat.springbootsocial.services.ServiceInt;
+import com.bharat.springbootsocial.config.StompAuthInterceptor;
+import com.bharat.springbootsocial.response.UserSummary;
+import com.bharat.springbootsocial.services.SocketUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -14,15 +15,7 @@ import java.util.Map;
 public class RoomEventWebSocketController {
     
     @Autowired
-    private ServiceInt userService;
-    
-    // Helper method to ensure JWT token has Bearer prefix
-    private String ensureBearerPrefix(String jwt) {
-        if (jwt != null && !jwt.startsWith("Bearer ")) {
-            return "Bearer " + jwt;
-        }
-        return jwt;
-    }
+    private SocketUserResolver socketUserResolver;
     
     // Subscribe to room events
     @MessageMapping("/room-events/subscribe")
@@ -32,12 +25,12 @@ public class RoomEventWebSocketController {
             System.out.println("📥 Received room events subscription: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for room events subscription");
                 return;
             }
             
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary user = socketUserResolver.summary(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             
             System.out.println("👤 User: " + user.getId() + " (" + user.getFname() + " " + user.getLname() + ")");
@@ -59,12 +52,12 @@ public class RoomEventWebSocketController {
             System.out.println("📥 Received room events unsubscription: " + payload);
             
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 System.err.println("❌ No JWT token provided for room events unsubscription");
                 return;
             }
             
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary user = socketUserResolver.summary(headerAccessor, jwt);
             String roomId = (String) payload.get("roomId");
             
             System.out.println("👤 User: " + user.getId() + " (" + user.getFname() + " " + user.getLname() + ")");
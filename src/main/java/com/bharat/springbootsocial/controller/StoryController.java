@@ -7,6 +7,7 @@ import com.bharat.springbootsocial.request.StoryReplyRequest;
 import com.bharat.springbootsocial.response.ApiResponse;
 import com.bharat.springbootsocial.response.PaginatedStoryResponse;
 import com.bharat.springbootsocial.response.StoryResponse;
+import com.bharat.springbootsocial.response.StoryRingResponse;
 import com.bharat.springbootsocial.response.UserStoryResponse;
 import com.bharat.springbootsocial.services.ServiceInt;
 import com.bharat.springbootsocial.services.StoryService;
@@ -75,6 +76,16 @@ public class StoryController {
         return new ResponseEntity<>(stories, HttpStatus.OK);
     }
     
+    // Story tray: a ring per followed author with thumbnails and seen state;
+    // open a story through GET /{storyId} or POST /{storyId}/view for its details
+    @GetMapping("/tray")
+    public ResponseEntity<List<StoryRingResponse>> getStoryTray(
+            @RequestHeader("Authorization") String jwt) {
+        User reqUser = userService.getUserFromToken(jwt);
+        List<StoryRingResponse> tray = storyService.getStoryTray(reqUser);
+        return new ResponseEntity<>(tray, HttpStatus.OK);
+    }
+    
     // Get paginated stories from users that the current user follows
     @GetMapping("/following/paginated")
     public ResponseEntity<PaginatedStoryResponse> getStoriesFromFollowingPaginated(
@@ -3,7 +3,9 @@ package com.bharat.springbootsocial.controller;
 import com.bharat.springbootsocial.entity.User;
 import java.util.UUID;
 import com.bharat.springbootsocial.exception.UserException;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.ProfileResponse;
+import com.bharat.springbootsocial.response.UserSummary;
 import com.bharat.springbootsocial.services.ServiceInt;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -92,9 +94,29 @@ public class UserController {
         return userServices.getFollowing(userId);
     }
 
+    @GetMapping("/followers/{userId}/paginated")
+    public PaginatedResponse<User> getFollowersPaginated(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return userServices.getFollowersPaginated(userId, page, size);
+    }
+
+    @GetMapping("/following/{userId}/paginated")
+    public PaginatedResponse<User> getFollowingPaginated(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return userServices.getFollowingPaginated(userId, page, size);
+    }
+
     @GetMapping("/search")
-    public List<User> searchUser(@RequestParam("query") String query) {
-        return userServices.searchUser(query);
+    public List<UserSummary> searchUser(@RequestHeader(value = "Authorization", required = false) String jwt,
+                                        @RequestParam("query") String query,
+                                        @RequestParam(defaultValue = "20") int limit) {
+        // The searcher's follow graph boosts people they know
+        UUID searcherId = jwt != null ? userServices.getUserIdFromToken(jwt) : null;
+        return userServices.searchUser(query, searcherId, Math.min(limit, 50));
     }
 
     @GetMapping("/profile") // access the token from the frontend request authorization header
@@ -1,7 +1,10 @@
 package com.bharat.springbootsocial.controller;
 
+import com.bharat.springbootsocial.config.StompAuthInterceptor;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.response.UserSummary;
 import com.bharat.springbootsocial.services.ServiceInt;
+import com.bharat.springbootsocial.services.SocketUserResolver;
 import com.bharat.springbootsocial.services.WebRTCSignalingService;
 import com.bharat.springbootsocial.services.NotificationService;
 import org.slf4j.Logger;
@@ -28,20 +31,15 @@ public class WebRTCSignalingController {
     @Autowired
     private ServiceInt userService;
     
+    @Autowired
+    private SocketUserResolver socketUserResolver;
+    
     @Autowired
     private NotificationService notificationService;
     
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
     
-    // Helper method to ensure JWT token has Bearer prefix
-    private String ensureBearerPrefix(String jwt) {
-        if (jwt != null && !jwt.startsWith("Bearer ")) {
-            return "Bearer " + jwt;
-        }
-        return jwt;
-    }
-    
     // Helper method to send error responses
     private void sendErrorResponse(SimpMessageHeaderAccessor headerAccessor, String errorMessage) {
         try {
@@ -68,7 +66,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for offer");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -109,7 +107,7 @@ public class WebRTCSignalingController {
             Map<String, Object> offer = (Map<String, Object>) offerObj;
             
             // Authenticate user
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             if (fromUser == null) {
                 logger.error("❌ Invalid JWT token for offer");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -117,7 +115,7 @@ public class WebRTCSignalingController {
             }
             
             UUID toUserId = UUID.fromString(toUserIdObj.toString());
-            User toUser = userService.getUserById(toUserId);
+            UserSummary toUser = userService.getUserSummary(toUserId);
             if (toUser == null) {
                 logger.error("❌ Target user not found: {}", toUserId);
                 sendErrorResponse(headerAccessor, "Target user not found");
@@ -150,7 +148,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for answer");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -180,7 +178,7 @@ public class WebRTCSignalingController {
             Map<String, Object> answer = (Map<String, Object>) answerObj;
             
             // Authenticate user
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             if (fromUser == null) {
                 logger.error("❌ Invalid JWT token for answer");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -197,7 +195,7 @@ public class WebRTCSignalingController {
                 // Send to specific user
                 try {
                     UUID toUserId = UUID.fromString(toUserIdObj.toString());
-                    User toUser = userService.getUserById(toUserId);
+                    UserSummary toUser = userService.getUserSummary(toUserId);
                     if (toUser == null) {
                         logger.error("❌ Target user not found: {}", toUserId);
                         sendErrorResponse(headerAccessor, "Target user not found");
@@ -232,7 +230,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for ICE candidate");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -266,7 +264,7 @@ public class WebRTCSignalingController {
             Map<String, Object> candidate = (Map<String, Object>) candidateObj;
             
             // Authenticate user
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             if (fromUser == null) {
                 logger.error("❌ Invalid JWT token for ICE candidate");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -283,7 +281,7 @@ public class WebRTCSignalingController {
                 // Send to specific user
                 try {
                     UUID toUserId = UUID.fromString(toUserIdObj.toString());
-                    User toUser = userService.getUserById(toUserId);
+                    UserSummary toUser = userService.getUserSummary(toUserId);
                     if (toUser == null) {
                         logger.error("❌ Target user not found: {}", toUserId);
                         sendErrorResponse(headerAccessor, "Target user not found");
@@ -318,7 +316,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for join room");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -332,7 +330,7 @@ public class WebRTCSignalingController {
             }
             
             // Authenticate user
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary user = socketUserResolver.summary(headerAccessor, jwt);
             if (user == null) {
                 logger.error("❌ Invalid JWT token for join room");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -370,7 +368,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for leave room");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -384,7 +382,7 @@ public class WebRTCSignalingController {
             }
             
             // Authenticate user
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary user = socketUserResolver.summary(headerAccessor, jwt);
             if (user == null) {
                 logger.error("❌ Invalid JWT token for leave room");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -422,7 +420,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for call invitation");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -450,7 +448,7 @@ public class WebRTCSignalingController {
             }
             
             // Authenticate user
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             if (fromUser == null) {
                 logger.error("❌ Invalid JWT token for call invitation");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -458,7 +456,7 @@ public class WebRTCSignalingController {
             }
             
             UUID toUserId = UUID.fromString(toUserIdObj.toString());
-            User toUser = userService.getUserById(toUserId);
+            UserSummary toUser = userService.getUserSummary(toUserId);
             if (toUser == null) {
                 logger.error("❌ Target user not found: {}", toUserId);
                 sendErrorResponse(headerAccessor, "Target user not found");
@@ -505,7 +503,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for call response");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -533,7 +531,7 @@ public class WebRTCSignalingController {
             }
             
             // Authenticate user
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             if (fromUser == null) {
                 logger.error("❌ Invalid JWT token for call response");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -541,7 +539,7 @@ public class WebRTCSignalingController {
             }
             
             UUID toUserId = UUID.fromString(toUserIdObj.toString());
-            User toUser = userService.getUserById(toUserId);
+            UserSummary toUser = userService.getUserSummary(toUserId);
             if (toUser == null) {
                 logger.error("❌ Target user not found: {}", toUserId);
                 sendErrorResponse(headerAccessor, "Target user not found");
@@ -579,7 +577,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for connection state update");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -596,7 +594,7 @@ public class WebRTCSignalingController {
             String iceConnectionState = (String) payload.get("iceConnectionState");
             
             // Authenticate user
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            User user = socketUserResolver.user(headerAccessor, jwt);
             if (user == null) {
                 logger.error("❌ Invalid JWT token for connection state update");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -626,7 +624,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for broadcast");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -655,7 +653,7 @@ public class WebRTCSignalingController {
             }
             
             // Authenticate user
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            User fromUser = socketUserResolver.user(headerAccessor, jwt);
             if (fromUser == null) {
                 logger.error("❌ Invalid JWT token for broadcast");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -684,14 +682,14 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for call subscription");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
             }
             
             // Authenticate user
-            User user = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary user = socketUserResolver.summary(headerAccessor, jwt);
             if (user == null) {
                 logger.error("❌ Invalid JWT token for call subscription");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -738,7 +736,7 @@ public class WebRTCSignalingController {
             
             // Validate required fields
             String jwt = (String) payload.get("token");
-            if (jwt == null) {
+            if (jwt == null && StompAuthInterceptor.sessionUserId(headerAccessor) == null) {
                 logger.error("❌ No JWT token provided for call end");
                 sendErrorResponse(headerAccessor, "No JWT token provided");
                 return;
@@ -759,7 +757,7 @@ public class WebRTCSignalingController {
             }
             
             // Authenticate user
-            User fromUser = userService.getUserFromToken(ensureBearerPrefix(jwt));
+            UserSummary fromUser = socketUserResolver.summary(headerAccessor, jwt);
             if (fromUser == null) {
                 logger.error("❌ Invalid JWT token for call end");
                 sendErrorResponse(headerAccessor, "Invalid JWT token");
@@ -1,5 +1,6 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -20,7 +21,7 @@ import java.util.UUID;
 public class CallRoom {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     
@@ -1,5 +1,7 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,7 +19,7 @@ import java.util.List;
 @NoArgsConstructor
 public class Chat {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     private String chat_name;
@@ -33,4 +35,9 @@ public class Chat {
     @OneToMany(mappedBy = "chat")
     private List<Message> messages = new ArrayList<>();
     private LocalDateTime timestamp;
+    // Sequence of the newest message. Only ReadWatermarks writes it, in SQL,
+    // so entity saves never overwrite a concurrent increment.
+    @JsonIgnore
+    @Column(name = "message_seq", insertable = false, updatable = false)
+    private Long messageSeq;
 }
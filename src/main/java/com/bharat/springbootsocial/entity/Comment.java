@@ -1,5 +1,7 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -15,10 +17,14 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "comments")
+@Table(name = "comments",
+       indexes = {
+           @Index(name = "idx_comments_post_created", columnList = "post_id, created_at"),
+           @Index(name = "idx_comments_reel_created", columnList = "reel_id, created_at")
+       })
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     private String content;
@@ -42,10 +48,27 @@ public class Comment {
     @JoinTable(
         name = "comments_liked_by", 
         joinColumns = @JoinColumn(name = "comments_id", columnDefinition = "BINARY(16)"), 
-        inverseJoinColumns = @JoinColumn(name = "liked_by_id", columnDefinition = "BINARY(16)")
+        inverseJoinColumns = @JoinColumn(name = "liked_by_id", columnDefinition = "BINARY(16)"),
+        // One row per (item, user); backs the like existence check and INSERT IGNORE
+        uniqueConstraints = @UniqueConstraint(name = "uk_comments_liked_by", columnNames = {"comments_id", "liked_by_id"}),
+        // Everything one user liked, for the liked-items cache
+        indexes = @Index(name = "idx_comments_liked_by_user", columnList = "liked_by_id, comments_id")
     )
     @JsonIgnoreProperties({"savedPosts", "following", "followers", "likedPosts"})
     private List<User> likedBy = new ArrayList<>();
 
+    // Maintained by EngagementCounters with batched increments, never by entity updates
+    @Column(name = "like_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer likeCount = 0;
+    // When the counter columns were read, so deltas flushed after that still count
+    @Transient
+    @JsonIgnore
+    private long countersLoadedAt;
+
     private LocalDateTime createdAt;
+
+    @PostLoad
+    void markCountersLoaded() {
+        countersLoadedAt = System.nanoTime();
+    }
 }
@@ -0,0 +1,7 @@
+package com.bharat.springbootsocial.entity;
+
+// The two kinds of message thread: group conversations and direct chats
+public enum ConversationType {
+    GROUP,
+    CHAT
+}
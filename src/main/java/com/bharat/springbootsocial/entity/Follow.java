@@ -0,0 +1,32 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per follow edge. The primary key (follower_id, followee_id) answers
+ * "who does X follow" and existence checks; the followee index answers
+ * "who follows X". Both secondary indexes carry created_at so paged lists
+ * can be read newest-first straight off the index.
+ */
+@Entity
+@Table(name = "follows",
+       indexes = {
+           @Index(name = "idx_follows_follower_created", columnList = "follower_id, created_at"),
+           @Index(name = "idx_follows_followee_created", columnList = "followee_id, created_at")
+       })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Follow {
+
+    @EmbeddedId
+    private FollowId id;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
@@ -21,7 +22,7 @@ import java.util.UUID;
 public class Group {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     
@@ -73,6 +74,12 @@ public class Group {
     @Column(name = "last_activity")
     private LocalDateTime lastActivity;
     
+    // Sequence of the newest message. Only ReadWatermarks writes it, in SQL,
+    // so entity saves never overwrite a concurrent increment.
+    @JsonIgnore
+    @Column(name = "message_seq", insertable = false, updatable = false)
+    private Long messageSeq;
+    
     // Group members (many-to-many with additional info)
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
@@ -1,5 +1,6 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
@@ -13,7 +14,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "user_group_messages")
+@Table(name = "user_group_messages",
+       indexes = {
+           @Index(name = "idx_group_messages_group_created", columnList = "group_id, created_at, id"),
+           @Index(name = "idx_group_messages_updated", columnList = "updated_at"),
+           @Index(name = "idx_group_messages_group_seq", columnList = "group_id, seq")
+       })
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -21,7 +27,7 @@ import java.util.List;
 public class GroupMessage {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     
@@ -80,6 +86,10 @@ public class GroupMessage {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Position in the group, 1-based; read watermarks and unread counts are expressed in it
+    @Column(name = "seq")
+    private Long seq;
+    
     // Message reactions
     @OneToMany(mappedBy = "message", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
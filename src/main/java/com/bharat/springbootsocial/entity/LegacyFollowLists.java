@@ -0,0 +1,30 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only view of the serialized following/followers columns that used to
+ * live on {@link User}. Only used by the one-shot follow graph migration;
+ * nothing writes these columns any more.
+ */
+@Entity
+@Immutable
+@Table(name = "users")
+@Data
+@NoArgsConstructor
+public class LegacyFollowLists {
+
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    private List<String> following;
+
+    private List<String> followers;
+}
@@ -0,0 +1,24 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeId implements Serializable {
+
+    // Mapped to the liked item's column by each like entity
+    @Column(nullable = false, columnDefinition = "BINARY(16)")
+    private UUID itemId;
+
+    @Column(name = "liked_by_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID userId;
+}
@@ -1,5 +1,6 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
@@ -14,7 +15,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages",
+       indexes = {
+           @Index(name = "idx_messages_chat_created", columnList = "chat_id, created_at, id"),
+           @Index(name = "idx_messages_updated", columnList = "updated_at"),
+           @Index(name = "idx_messages_chat_seq", columnList = "chat_id, seq")
+       })
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -22,7 +28,7 @@ import java.util.List;
 public class Message {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     
@@ -81,6 +87,10 @@ public class Message {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Position in the chat, 1-based; read watermarks and unread counts are expressed in it
+    @Column(name = "seq")
+    private Long seq;
+    
     // Message reactions
     @OneToMany(mappedBy = "message", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
@@ -0,0 +1,29 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a row of the {@link Post#getLikedBy()} join table, adding
+ * the time of the like. Rows are written by PostRepo.insertLike; liked_at is
+ * filled in by the database.
+ */
+@Entity
+@Immutable
+@Table(name = "posts_liked_by")
+@Data
+@NoArgsConstructor
+public class PostLike {
+
+    @EmbeddedId
+    @AttributeOverride(name = "itemId", column = @Column(name = "posts_id", nullable = false, columnDefinition = "BINARY(16)"))
+    private LikeId id;
+
+    @Column(name = "liked_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime likedAt;
+}
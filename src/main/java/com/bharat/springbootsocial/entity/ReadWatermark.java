@@ -0,0 +1,39 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far a user has read in a group or chat: every message with a sequence
+ * number up to last_read_seq counts as read. Unread counts are the
+ * conversation's message_seq minus this, and "seen by" for a message is every
+ * watermark at or past its sequence, read straight off the conversation index.
+ */
+@Entity
+@Table(name = "read_watermarks",
+       indexes = {
+           @Index(name = "idx_read_watermarks_conversation_seq", columnList = "conversation_type, conversation_id, last_read_seq")
+       })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadWatermark {
+
+    @EmbeddedId
+    private ReadWatermarkId id;
+
+    @Column(name = "last_read_seq", nullable = false)
+    private long lastReadSeq;
+
+    // When the watermark last moved forward
+    @Column(name = "last_read_at", nullable = false)
+    private LocalDateTime lastReadAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+}
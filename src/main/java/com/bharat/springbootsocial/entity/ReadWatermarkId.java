@@ -0,0 +1,29 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadWatermarkId implements Serializable {
+
+    @Column(name = "user_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "conversation_type", nullable = false, length = 10)
+    private ConversationType conversationType;
+
+    @Column(name = "conversation_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID conversationId;
+}
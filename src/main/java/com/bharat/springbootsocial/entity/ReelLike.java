@@ -0,0 +1,29 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a row of the {@link Reels#getLikedBy()} join table, adding
+ * the time of the like. Rows are written by ReelsRepo.insertLike; liked_at is
+ * filled in by the database.
+ */
+@Entity
+@Immutable
+@Table(name = "reels_liked_by")
+@Data
+@NoArgsConstructor
+public class ReelLike {
+
+    @EmbeddedId
+    @AttributeOverride(name = "itemId", column = @Column(name = "reels_id", nullable = false, columnDefinition = "BINARY(16)"))
+    private LikeId id;
+
+    @Column(name = "liked_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime likedAt;
+}
@@ -1,5 +1,7 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -15,10 +17,14 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "reels")
+@Table(name = "reels",
+       indexes = {
+           @Index(name = "idx_reels_created", columnList = "created_at, id"),
+           @Index(name = "idx_reels_user_created", columnList = "user_id, created_at")
+       })
 public class Reels {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     private String title;
@@ -31,12 +37,31 @@ public class Reels {
     @JoinTable(
         name = "reels_liked_by", 
         joinColumns = @JoinColumn(name = "reels_id", columnDefinition = "BINARY(16)"), 
-        inverseJoinColumns = @JoinColumn(name = "liked_by_id", columnDefinition = "BINARY(16)")
+        inverseJoinColumns = @JoinColumn(name = "liked_by_id", columnDefinition = "BINARY(16)"),
+        // One row per (item, user); backs the like existence check and INSERT IGNORE
+        uniqueConstraints = @UniqueConstraint(name = "uk_reels_liked_by", columnNames = {"reels_id", "liked_by_id"}),
+        // Everything one user liked, for the liked-items cache
+        indexes = @Index(name = "idx_reels_liked_by_user", columnList = "liked_by_id, reels_id")
     )
     @JsonIgnoreProperties({"savedPosts", "following", "followers", "likedPosts"})
     private List<User> likedBy = new ArrayList<>();
     @OneToMany(mappedBy = "reel", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"user", "post", "reel"})
     private List<Comment> comments = new ArrayList<>();
+    // Engagement counters are maintained by EngagementCounters with batched increments,
+    // never by entity updates
+    @Column(name = "like_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer likeCount = 0;
+    @Column(name = "comment_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer commentCount = 0;
+    // When the counter columns were read, so deltas flushed after that still count
+    @Transient
+    @JsonIgnore
+    private long countersLoadedAt;
     private LocalDateTime createdAt;
+
+    @PostLoad
+    void markCountersLoaded() {
+        countersLoadedAt = System.nanoTime();
+    }
 }
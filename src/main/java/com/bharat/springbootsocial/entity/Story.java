@@ -1,5 +1,6 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
@@ -20,7 +21,7 @@ import java.util.List;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Story {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     
@@ -50,9 +51,19 @@ public class Story {
     @Enumerated(EnumType.STRING)
     private StoryType storyType = StoryType.IMAGE;
     
-    @Column(name = "view_count")
+    // View and like counters are maintained by EngagementCounters with batched
+    // increments, never by entity updates
+    @Column(name = "view_count", updatable = false)
     private Integer viewCount = 0;
     
+    @Column(name = "like_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer likeCount = 0;
+    
+    // When the counter columns were read, so deltas flushed after that still count
+    @Transient
+    @JsonIgnore
+    private long countersLoadedAt;
+    
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "story_views",
@@ -75,6 +86,11 @@ public class Story {
     @JsonIgnore
     private List<StoryReply> replies = new ArrayList<>();
     
+    @PostLoad
+    void markCountersLoaded() {
+        countersLoadedAt = System.nanoTime();
+    }
+    
     public enum StoryType {
         IMAGE, VIDEO
     }
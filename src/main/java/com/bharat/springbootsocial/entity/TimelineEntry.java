@@ -0,0 +1,48 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A post or reel pushed into a user's home timeline. Rows are written by the
+ * fan-out worker when content is published and trimmed to a bounded size per
+ * owner, so reading a page is a range scan on (owner_id, created_at).
+ */
+@Entity
+@Table(name = "timeline_entries",
+       indexes = {
+           @Index(name = "idx_timeline_owner_created", columnList = "owner_id, created_at, item_id"),
+           @Index(name = "idx_timeline_item", columnList = "item_id")
+       })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimelineEntry {
+
+    @EmbeddedId
+    private TimelineEntryId id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "item_type", nullable = false, length = 10)
+    private ItemType itemType;
+
+    @Column(name = "author_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum ItemType {
+        POST,
+        REEL
+    }
+
+    public UUID getItemId() {
+        return id.getItemId();
+    }
+}
@@ -0,0 +1,23 @@
+package com.bharat.springbootsocial.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimelineEntryId implements Serializable {
+
+    @Column(name = "owner_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID ownerId;
+
+    @Column(name = "item_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID itemId;
+}
@@ -1,5 +1,6 @@
 package com.bharat.springbootsocial.entity;
 
+import com.bharat.springbootsocial.ids.TimeOrderedId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -16,11 +17,11 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_email", columnList = "email"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
     @Column(name = "first_name")
@@ -38,8 +39,7 @@ public class User {
     @Column(name = "user_bio", length = 500)
     private String userBio;
 
-    private List<String> following = new ArrayList<>();
-    private List<String> followers = new ArrayList<>();
+    // Follow relationships live in the follows table, see Follow / FollowRepo
     @ManyToMany // Many users can save many posts
     @JoinTable(
         name = "users_saved_posts",
@@ -0,0 +1,20 @@
+package com.bharat.springbootsocial.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Published when a user is invited to a call room (ringing is true), and when
+ * the invitee answers, declines or joins (ringing is false; callerId may be
+ * null then).
+ */
+@Data
+@AllArgsConstructor
+public class CallRingEvent {
+    private String roomId;
+    private UUID callerId;
+    private UUID inviteeId;
+    private boolean ringing;
+}
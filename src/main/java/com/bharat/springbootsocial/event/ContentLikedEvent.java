@@ -0,0 +1,19 @@
+package com.bharat.springbootsocial.event;
+
+import com.bharat.springbootsocial.services.LikeService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Published when a user newly likes a post, reel or comment.
+ */
+@Data
+@AllArgsConstructor
+public class ContentLikedEvent {
+    private LikeService.Target target;
+    private UUID targetId;
+    private UUID authorId;
+    private UUID likerId;
+}
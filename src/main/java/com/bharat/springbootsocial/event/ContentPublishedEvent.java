@@ -0,0 +1,20 @@
+package com.bharat.springbootsocial.event;
+
+import com.bharat.springbootsocial.entity.TimelineEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published when a post or reel has been created, so followers' timelines can be updated.
+ */
+@Data
+@AllArgsConstructor
+public class ContentPublishedEvent {
+    private UUID itemId;
+    private TimelineEntry.ItemType itemType;
+    private UUID authorId;
+    private LocalDateTime createdAt;
+}
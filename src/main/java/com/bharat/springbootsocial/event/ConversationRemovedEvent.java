@@ -0,0 +1,18 @@
+package com.bharat.springbootsocial.event;
+
+import com.bharat.springbootsocial.entity.ConversationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Published when a direct chat or a group is deleted along with its messages.
+ */
+@Data
+@AllArgsConstructor
+public class ConversationRemovedEvent {
+
+    private ConversationType conversationType;
+    private UUID conversationId;
+}
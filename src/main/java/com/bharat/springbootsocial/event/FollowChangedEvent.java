@@ -0,0 +1,17 @@
+package com.bharat.springbootsocial.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Published when a follow edge is created or removed.
+ */
+@Data
+@AllArgsConstructor
+public class FollowChangedEvent {
+    private UUID followerId;
+    private UUID followeeId;
+    private boolean following;
+}
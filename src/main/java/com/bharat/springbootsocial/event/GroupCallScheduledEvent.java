@@ -0,0 +1,16 @@
+package com.bharat.springbootsocial.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a group call room is created to start at a later time.
+ */
+@Data
+@AllArgsConstructor
+public class GroupCallScheduledEvent {
+    private String roomId;
+    private LocalDateTime scheduledAt;
+}
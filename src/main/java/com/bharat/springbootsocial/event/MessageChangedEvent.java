@@ -0,0 +1,23 @@
+package com.bharat.springbootsocial.event;
+
+import com.bharat.springbootsocial.entity.ConversationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published when a group or direct message is sent, edited or deleted.
+ * content is null for a deletion.
+ */
+@Data
+@AllArgsConstructor
+public class MessageChangedEvent {
+
+    private ConversationType conversationType;
+    private UUID conversationId;
+    private UUID messageId;
+    private LocalDateTime createdAt;
+    private String content;
+}
@@ -0,0 +1,17 @@
+package com.bharat.springbootsocial.event;
+
+import com.bharat.springbootsocial.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Published when a user is created, edited or deleted. user is null for a deletion.
+ */
+@Data
+@AllArgsConstructor
+public class UserChangedEvent {
+    private UUID userId;
+    private User user;
+}
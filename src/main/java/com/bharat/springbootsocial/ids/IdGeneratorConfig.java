@@ -0,0 +1,27 @@
+package com.bharat.springbootsocial.ids;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * Applies app.ids.generator: v7 (default) for time-ordered ids, v4 for random
+ * ones. Existing rows keep their ids either way.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Value("${app.ids.generator:v7}")
+    private String generator;
+
+    @PostConstruct
+    void apply() {
+        switch (generator) {
+            case "v7" -> Ids.use(UuidV7::next);
+            case "v4" -> Ids.use(UUID::randomUUID);
+            default -> throw new IllegalArgumentException("app.ids.generator must be v7 or v4, not " + generator);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bharat.springbootsocial.ids;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Source of new entity ids, for Hibernate through {@link TimeOrderedId} and for
+ * rows inserted with plain JDBC. Time-ordered version 7 UUIDs by default;
+ * app.ids.generator=v4 switches back to random ones.
+ */
+public final class Ids {
+
+    private static volatile Supplier<UUID> generator = UuidV7::next;
+
+    private Ids() {
+    }
+
+    public static UUID next() {
+        return generator.get();
+    }
+
+    public static void use(Supplier<UUID> generator) {
+        Ids.generator = generator;
+    }
+}
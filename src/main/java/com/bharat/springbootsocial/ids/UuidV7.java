@@ -0,0 +1,55 @@
+package com.bharat.springbootsocial.ids;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs as specified for version 7 in RFC 9562: 48 bits of Unix
+ * epoch milliseconds, then a 12 bit counter, then 62 random bits. Stored as
+ * BINARY(16) they sort by creation time, so inserts append to the end of the
+ * primary key index instead of landing on random pages.
+ *
+ * Ids from one JVM are strictly increasing: the counter starts at a random
+ * value below 2048 each millisecond and is incremented within it, and when it
+ * runs out, or the clock goes backwards, the timestamp is advanced past the
+ * last one used. Across nodes ids are ordered by millisecond only, and the
+ * random bits keep them unique.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Last millisecond << 12 | counter
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis();
+        long prev;
+        long next;
+        do {
+            prev = LAST.get();
+            next = (prev >>> 12) < now
+                    ? now << 12 | RANDOM.nextInt(2048)
+                    // Counter overflow carries into the timestamp
+                    : prev + 1;
+        } while (!LAST.compareAndSet(prev, next));
+
+        long msb = (next >>> 12) << 16 | 0x7000L | (next & 0xFFFL);
+        long lsb = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Milliseconds since the epoch at which a version 7 id was generated.
+     */
+    public static long timestamp(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id);
+        }
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,164 @@
+package com.bharat.springbootsocial.metrics;
+
+import com.bharat.springbootsocial.services.CallLifecycle;
+import com.bharat.springbootsocial.services.CallRoomRegistry;
+import com.bharat.springbootsocial.services.FanoutEngine;
+import com.bharat.springbootsocial.services.FeedJsonCache;
+import com.bharat.springbootsocial.services.LikedItemsCache;
+import com.bharat.springbootsocial.services.MessageWritePipeline;
+import com.bharat.springbootsocial.services.PrincipalCache;
+import com.bharat.springbootsocial.services.ProfileSync;
+import com.bharat.springbootsocial.services.SignalingRelay;
+import com.bharat.springbootsocial.services.StoryTray;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the stats() of the in-process components: STOMP fan-out, the
+ * message write pipeline, the ICE relay, the call timers, the story tray and
+ * the caches. Caches report cache.gets by result and cache.size, like
+ * Micrometer's own cache binders, so one hit-ratio query covers all of them.
+ */
+@Component
+public class ComponentMetrics implements MeterBinder {
+
+    @Autowired
+    private FanoutEngine fanoutEngine;
+
+    @Autowired
+    private MessageWritePipeline messageWritePipeline;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private LikedItemsCache likedItemsCache;
+
+    @Autowired
+    private StoryTray storyTray;
+
+    @Autowired
+    private ProfileSync profileSync;
+
+    @Autowired
+    private FeedJsonCache feedJsonCache;
+
+    @Autowired
+    private CallRoomRegistry callRoomRegistry;
+
+    @Autowired
+    private SignalingRelay signalingRelay;
+
+    @Autowired
+    private CallLifecycle callLifecycle;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "fanout.fanouts", "Group and user-list broadcasts",
+                fanoutEngine, FanoutEngine::stats, FanoutEngine.Stats::fanouts);
+        counter(registry, "fanout.deliveries", "Messages handed to the outbound channel",
+                fanoutEngine, FanoutEngine::stats, FanoutEngine.Stats::deliveries);
+        counter(registry, "fanout.failures", "Deliveries that failed",
+                fanoutEngine, FanoutEngine::stats, FanoutEngine.Stats::failures);
+        gauge(registry, "fanout.queued.tasks", "Deliveries waiting in the fan-out lanes",
+                fanoutEngine, FanoutEngine::stats, FanoutEngine.Stats::queuedTasks);
+
+        counter(registry, "message.pipeline.submitted", "Messages queued for writing",
+                messageWritePipeline, MessageWritePipeline::stats, MessageWritePipeline.Stats::submitted);
+        counter(registry, "message.pipeline.written", "Messages committed",
+                messageWritePipeline, MessageWritePipeline::stats, MessageWritePipeline.Stats::written);
+        counter(registry, "message.pipeline.failed", "Messages that could not be written",
+                messageWritePipeline, MessageWritePipeline::stats, MessageWritePipeline.Stats::failed);
+        counter(registry, "message.pipeline.rejected", "Messages refused because the queue was full",
+                messageWritePipeline, MessageWritePipeline::stats, MessageWritePipeline.Stats::rejected);
+        counter(registry, "message.pipeline.batches", "Commits",
+                messageWritePipeline, MessageWritePipeline::stats, MessageWritePipeline.Stats::batches);
+        gauge(registry, "message.pipeline.queued", "Messages waiting to be written",
+                messageWritePipeline, MessageWritePipeline::stats, MessageWritePipeline.Stats::queued);
+
+        counter(registry, "group.frames.slim", "Group frames delivered in the slim form",
+                profileSync, ProfileSync::stats, ProfileSync.Stats::slimFrames);
+        counter(registry, "group.frames.legacy", "Group frames delivered in the full legacy form",
+                profileSync, ProfileSync::stats, ProfileSync.Stats::legacyFrames);
+        counter(registry, "group.frames.profiles.pushed", "Profiles pushed to slim-frame sessions",
+                profileSync, ProfileSync::stats, ProfileSync.Stats::profilesPushed);
+        gauge(registry, "group.frames.slim.users", "Users with a slim-frame subscription",
+                profileSync, ProfileSync::stats, ProfileSync.Stats::slimUsers);
+
+        counter(registry, "signaling.ice.candidates", "ICE candidates relayed",
+                signalingRelay, SignalingRelay::stats, SignalingRelay.Stats::candidates);
+        counter(registry, "signaling.ice.frames", "Frames the relayed ICE candidates were sent in",
+                signalingRelay, SignalingRelay::stats, SignalingRelay.Stats::frames);
+        gauge(registry, "signaling.ice.pending.batches", "ICE candidate batches waiting for their window to close",
+                signalingRelay, SignalingRelay::stats, SignalingRelay.Stats::pendingBatches);
+
+        gauge(registry, "calls.timers.pending", "Call lifecycle timers waiting on the timer wheel",
+                callLifecycle, CallLifecycle::stats, CallLifecycle.Stats::pendingTimers);
+        counter(registry, "calls.missed", "Call invitations that rang out unanswered",
+                callLifecycle, CallLifecycle::stats, CallLifecycle.Stats::missedCalls);
+        counter(registry, "calls.users.dropped", "Users removed from a call after their connection did not come back",
+                callLifecycle, CallLifecycle::stats, CallLifecycle.Stats::droppedUsers);
+        counter(registry, "calls.rooms.ended.empty", "Call rooms ended after staying empty",
+                callLifecycle, CallLifecycle::stats, CallLifecycle.Stats::emptyRoomsEnded);
+        counter(registry, "calls.scheduled.started", "Scheduled group calls started",
+                callLifecycle, CallLifecycle::stats, CallLifecycle.Stats::scheduledCallsStarted);
+
+        counter(registry, "story.tray.served", "Story trays built",
+                storyTray, StoryTray::stats, StoryTray.Stats::traysServed);
+        gauge(registry, "story.tray.active.stories", "Active stories held by the story tray",
+                storyTray, StoryTray::stats, StoryTray.Stats::activeStories);
+        gauge(registry, "story.tray.viewers", "Viewers with seen state in the story tray",
+                storyTray, StoryTray::stats, StoryTray.Stats::viewers);
+
+        cache(registry, "principal.tokens", principalCache, PrincipalCache::stats,
+                PrincipalCache.Stats::tokenHits, PrincipalCache.Stats::tokenMisses, PrincipalCache.Stats::cachedTokens);
+        cache(registry, "principal.users", principalCache, PrincipalCache::stats,
+                PrincipalCache.Stats::userHits, PrincipalCache.Stats::userMisses, PrincipalCache.Stats::cachedUsers);
+        cache(registry, "liked.items", likedItemsCache, LikedItemsCache::stats,
+                LikedItemsCache.Stats::itemHits, LikedItemsCache.Stats::itemMisses, LikedItemsCache.Stats::cachedUsers);
+        cache(registry, "group.members", fanoutEngine, FanoutEngine::stats,
+                FanoutEngine.Stats::memberCacheHits, FanoutEngine.Stats::memberCacheMisses,
+                FanoutEngine.Stats::cachedGroups);
+        cache(registry, "feed.json", feedJsonCache, FeedJsonCache::stats,
+                FeedJsonCache.Stats::hits, FeedJsonCache.Stats::misses, FeedJsonCache.Stats::cached);
+        cache(registry, "call.rooms", callRoomRegistry, CallRoomRegistry::stats,
+                CallRoomRegistry.Stats::hits, CallRoomRegistry.Stats::misses, CallRoomRegistry.Stats::rooms);
+    }
+
+    // Meters keep only a weak reference to their state, so it is the component bean itself
+    private static <T, S> void counter(MeterRegistry registry, String name, String description, T component,
+                                       Function<T, S> stats, ToDoubleFunction<S> value) {
+        FunctionCounter.builder(name, component, c -> value.applyAsDouble(stats.apply(c)))
+                .description(description)
+                .register(registry);
+    }
+
+    private static <T, S> void gauge(MeterRegistry registry, String name, String description, T component,
+                                     Function<T, S> stats, ToDoubleFunction<S> value) {
+        Gauge.builder(name, component, c -> value.applyAsDouble(stats.apply(c)))
+                .description(description)
+                .register(registry);
+    }
+
+    private static <T, S> void cache(MeterRegistry registry, String cache, T component, Function<T, S> stats,
+                                     ToDoubleFunction<S> hits, ToDoubleFunction<S> misses, ToDoubleFunction<S> size) {
+        FunctionCounter.builder("cache.gets", component, c -> hits.applyAsDouble(stats.apply(c)))
+                .tag("cache", cache)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", component, c -> misses.applyAsDouble(stats.apply(c)))
+                .tag("cache", cache)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", component, c -> size.applyAsDouble(stats.apply(c)))
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bharat.springbootsocial.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every public method of the *ServiceImpl classes as app.service, tagged
+ * with the class, the method and the exception it threw, if any. Runs outside
+ * the transaction advice so the time includes the commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceTimingAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record Key(Class<?> type, String method, String exception) {
+    }
+
+    // Looked up per call; registering goes through the registry's own lock and tag sorting
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    // PostServiceImp is the one implementation without the trailing l
+    @Around("execution(public * com.bharat.springbootsocial.services.*ServiceImp*.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(timers.computeIfAbsent(new Key(joinPoint.getSignature().getDeclaringType(),
+                    joinPoint.getSignature().getName(), exception), this::register));
+        }
+    }
+
+    private Timer register(Key key) {
+        return Timer.builder("app.service")
+                .description("Service method calls")
+                .tag("class", key.type().getSimpleName())
+                .tag("method", key.method())
+                .tag("exception", key.exception())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.bharat.springbootsocial.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Load on the WebSocket tier: queued and running tasks of the inbound,
+ * outbound and broker channel executors, and open sessions per transport.
+ * The STOMP message counts come from {@link StompTrafficInterceptor}.
+ */
+@Component
+public class StompMetrics implements MeterBinder {
+
+    @Autowired
+    @Qualifier("clientInboundChannelExecutor")
+    private ThreadPoolTaskExecutor inboundExecutor;
+
+    @Autowired
+    @Qualifier("clientOutboundChannelExecutor")
+    private ThreadPoolTaskExecutor outboundExecutor;
+
+    @Autowired
+    @Qualifier("brokerChannelExecutor")
+    private ThreadPoolTaskExecutor brokerExecutor;
+
+    @Autowired
+    @Qualifier("subProtocolWebSocketHandler")
+    private WebSocketHandler webSocketHandler;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map.of("inbound", inboundExecutor, "outbound", outboundExecutor, "broker", brokerExecutor)
+                .forEach((channel, executor) -> {
+                    Gauge.builder("stomp.channel.queue.size", executor,
+                                    e -> e.getThreadPoolExecutor().getQueue().size())
+                            .description("Messages waiting for a channel thread")
+                            .tag("channel", channel)
+                            .register(registry);
+                    Gauge.builder("stomp.channel.active.threads", executor, ThreadPoolTaskExecutor::getActiveCount)
+                            .description("Channel threads handling a message")
+                            .tag("channel", channel)
+                            .register(registry);
+                    Gauge.builder("stomp.channel.pool.size", executor, ThreadPoolTaskExecutor::getPoolSize)
+                            .tag("channel", channel)
+                            .register(registry);
+                    FunctionCounter.builder("stomp.channel.completed", executor,
+                                    e -> e.getThreadPoolExecutor().getCompletedTaskCount())
+                            .description("Messages handled by the channel")
+                            .tag("channel", channel)
+                            .register(registry);
+                });
+
+        if (WebSocketHandlerDecorator.unwrap(webSocketHandler) instanceof SubProtocolWebSocketHandler handler) {
+            Map<String, ToIntFunction<SubProtocolWebSocketHandler.Stats>> transports = Map.of(
+                    "websocket", SubProtocolWebSocketHandler.Stats::getWebSocketSessions,
+                    "http-streaming", SubProtocolWebSocketHandler.Stats::getHttpStreamingSessions,
+                    "http-polling", SubProtocolWebSocketHandler.Stats::getHttpPollingSessions);
+            transports.forEach((transport, sessions) ->
+                    Gauge.builder("stomp.sessions", handler, h -> sessions.applyAsInt(h.getStats()))
+                            .description("Open WebSocket and SockJS sessions")
+                            .tag("transport", transport)
+                            .register(registry));
+        }
+    }
+}
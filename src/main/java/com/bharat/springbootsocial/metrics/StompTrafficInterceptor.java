@@ -0,0 +1,101 @@
+package com.bharat.springbootsocial.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts STOMP messages per destination prefix as stomp.messages: frames
+ * clients SEND on the inbound channel and MESSAGE frames delivered on the
+ * outbound one. The prefix drops /app, /user and the user id and keeps the
+ * first segment (/group, /chat, /call-signaling, ...), or two for /queue and
+ * /topic, so per-group and per-user destinations do not become separate series.
+ */
+@Component
+public class StompTrafficInterceptor {
+
+    // Resolved on first use; the registry is not always ready when the channels are built
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final ChannelInterceptor inbound = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            count("inbound", message);
+            return message;
+        }
+    };
+
+    private final ChannelInterceptor outbound = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            count("outbound", message);
+            return message;
+        }
+    };
+
+    public ChannelInterceptor inbound() {
+        return inbound;
+    }
+
+    public ChannelInterceptor outbound() {
+        return outbound;
+    }
+
+    // SEND frames from clients and MESSAGE frames to them are both of type MESSAGE
+    private void count(String direction, Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        // User destinations reach the outbound channel as /queue/x-user{session}, with the subscribed one kept aside
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        String original = accessor != null
+                ? accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION) : null;
+        String prefix = prefix(original != null
+                ? original : SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        counters.computeIfAbsent(direction + prefix, key -> Counter.builder("stomp.messages")
+                        .description("STOMP messages by direction and destination prefix")
+                        .tag("direction", direction)
+                        .tag("prefix", prefix)
+                        .register(meterRegistry.getObject()))
+                .increment();
+    }
+
+    static String prefix(String destination) {
+        if (destination == null) {
+            return "none";
+        }
+        String[] parts = destination.split("/");
+        int i = 1;
+        if (i < parts.length && parts[i].equals("app")) {
+            i++;
+        }
+        if (i < parts.length && parts[i].equals("user")) {
+            i++;
+            // /user/{id}/queue/... as sent by the server, /user/queue/... as subscribed to
+            if (i < parts.length && !parts[i].equals("queue") && !parts[i].equals("topic")) {
+                i++;
+            }
+        }
+        if (i >= parts.length) {
+            return "/";
+        }
+        if ((parts[i].equals("queue") || parts[i].equals("topic")) && i + 1 < parts.length) {
+            return "/" + parts[i] + "/" + parts[i + 1];
+        }
+        return "/" + parts[i];
+    }
+}
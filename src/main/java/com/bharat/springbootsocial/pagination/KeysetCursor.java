@@ -0,0 +1,105 @@
+package com.bharat.springbootsocial.pagination;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Position in a newest-first (createdAt, id) ordered listing. Clients only ever
+ * see the encoded form, an opaque URL-safe token; the next page is everything
+ * strictly older than the cursor, or strictly newer for cursors created with
+ * {@link #newerThan}.
+ */
+@Getter
+@EqualsAndHashCode
+public final class KeysetCursor {
+
+    // MySQL DATETIME tops out at year 9999, so this sorts after every real row
+    private static final LocalDateTime MAX_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+    private static final KeysetCursor FIRST = new KeysetCursor(MAX_CREATED_AT, MAX_ID, false);
+    private static final String NEWER_MARKER = "newer";
+
+    private final LocalDateTime createdAt;
+    private final UUID id;
+    // Walks towards newer rows (the previous page) instead of older ones
+    private final boolean newer;
+
+    private KeysetCursor(LocalDateTime createdAt, UUID id, boolean newer) {
+        this.createdAt = createdAt;
+        this.id = id;
+        this.newer = newer;
+    }
+
+    public static KeysetCursor first() {
+        return FIRST;
+    }
+
+    public static KeysetCursor of(LocalDateTime createdAt, UUID id) {
+        return create(createdAt, id, false);
+    }
+
+    public static KeysetCursor newerThan(LocalDateTime createdAt, UUID id) {
+        return create(createdAt, id, true);
+    }
+
+    private static KeysetCursor create(LocalDateTime createdAt, UUID id, boolean newer) {
+        if (createdAt == null || id == null) {
+            throw new IllegalArgumentException("Cursor needs both createdAt and id");
+        }
+        return new KeysetCursor(createdAt, id, newer);
+    }
+
+    public boolean isFirst() {
+        return FIRST.equals(this);
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id + (newer ? "|" + NEWER_MARKER : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}. A missing token means the first page.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length < 2 || parts.length > 3 || (parts.length == 3 && !NEWER_MARKER.equals(parts[2]))) {
+                throw new IllegalArgumentException(raw);
+            }
+            return create(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]), parts.length == 3);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * Compares ids the way MySQL compares BINARY(16) columns (unsigned, byte by byte),
+     * which differs from {@link UUID#compareTo} for ids with the high bit set.
+     */
+    public static int compareIds(UUID a, UUID b) {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    /**
+     * Newest-first ordering matching ORDER BY created_at DESC, id DESC.
+     */
+    public static <T> Comparator<T> newestFirst(Function<T, LocalDateTime> createdAt, Function<T, UUID> id) {
+        return (a, b) -> {
+            int result = createdAt.apply(b).compareTo(createdAt.apply(a));
+            return result != 0 ? result : compareIds(id.apply(b), id.apply(a));
+        };
+    }
+}
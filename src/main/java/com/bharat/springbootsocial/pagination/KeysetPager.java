@@ -0,0 +1,90 @@
+package com.bharat.springbootsocial.pagination;
+
+import com.bharat.springbootsocial.response.PaginatedResponse;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination over newest-first (createdAt, id) listings. Each page
+ * is one indexed range query for size + 1 rows and never issues a count query;
+ * the extra row only tells whether there is another page, like a {@code Slice}.
+ */
+public final class KeysetPager {
+
+    /**
+     * Reads rows on one side of a (createdAt, id) position: strictly older rows
+     * newest first, or strictly newer rows oldest first.
+     */
+    @FunctionalInterface
+    public interface KeysetQuery<E> {
+        List<E> fetch(LocalDateTime createdAt, UUID id, Pageable limit);
+    }
+
+    private KeysetPager() {
+    }
+
+    /**
+     * Reads the page the token points at. A missing token means the newest page.
+     */
+    public static <E> PaginatedResponse<E> page(String token, int size,
+                                                KeysetQuery<E> older, KeysetQuery<E> newer,
+                                                Function<E, LocalDateTime> createdAt, Function<E, UUID> id) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        KeysetCursor cursor = KeysetCursor.decode(token);
+        KeysetQuery<E> query = cursor.isNewer() ? newer : older;
+        List<E> rows = query.fetch(cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1));
+        return toResponse(rows, cursor, size, createdAt, id);
+    }
+
+    /**
+     * Builds the response for up to size + 1 rows read from the given cursor, in
+     * the order the cursor's query returns them.
+     */
+    public static <E> PaginatedResponse<E> toResponse(List<E> rows, KeysetCursor cursor, int size,
+                                                      Function<E, LocalDateTime> createdAt, Function<E, UUID> id) {
+        boolean more = rows.size() > size;
+        List<E> content = new ArrayList<>(more ? rows.subList(0, size) : rows);
+
+        boolean hasNext;
+        boolean hasPrevious;
+        if (cursor.isNewer()) {
+            // Newer rows come back oldest first
+            Collections.reverse(content);
+            hasNext = !content.isEmpty();
+            hasPrevious = more;
+        } else {
+            hasNext = more;
+            hasPrevious = !cursor.isFirst();
+        }
+
+        PaginatedResponse<E> response = new PaginatedResponse<>();
+        response.setContent(content);
+        response.setPage(0);
+        response.setSize(size);
+        response.setTotalElements(-1);
+        response.setTotalPages(-1);
+        response.setHasNext(hasNext);
+        response.setHasPrevious(hasPrevious);
+        response.setFirst(!hasPrevious);
+        response.setLast(!hasNext);
+        if (!content.isEmpty()) {
+            E first = content.get(0);
+            E last = content.get(content.size() - 1);
+            if (hasNext) {
+                response.setNextCursor(KeysetCursor.of(createdAt.apply(last), id.apply(last)).encode());
+            }
+            // Also set on the newest page so clients can poll for items added since
+            response.setPrevCursor(KeysetCursor.newerThan(createdAt.apply(first), id.apply(first)).encode());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,26 @@
+package com.bharat.springbootsocial.repository;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Conversions for plain JDBC access to BINARY(16) UUID columns, using the same
+ * byte layout Hibernate uses for them.
+ */
+public final class BinaryUuids {
+
+    private BinaryUuids() {
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
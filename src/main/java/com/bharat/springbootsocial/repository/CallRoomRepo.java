@@ -46,10 +46,6 @@ public interface CallRoomRepo extends JpaRepository<CallRoom, UUID> {
     // Count active rooms
     long countByIsActiveTrue();
     
-    // Find rooms that need cleanup (ended more than 1 hour ago)
-    @Query("SELECT cr FROM CallRoom cr WHERE cr.status = 'ENDED' AND cr.endedAt < :cutoffTime")
-    List<CallRoom> findRoomsForCleanup(@Param("cutoffTime") LocalDateTime cutoffTime);
-    
     // Find rooms by participant count
     @Query("SELECT cr FROM CallRoom cr WHERE SIZE(cr.participants) = :count")
     List<CallRoom> findByParticipantCount(@Param("count") int count);
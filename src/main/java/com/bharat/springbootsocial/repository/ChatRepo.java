@@ -18,4 +18,8 @@ public interface ChatRepo extends JpaRepository<Chat,UUID> {
     // Fetch chat with users eagerly to avoid LazyInitializationException
     @Query("SELECT DISTINCT c FROM Chat c LEFT JOIN FETCH c.users WHERE c.id = :chatId")
     Optional<Chat> findByIdWithUsers(@Param("chatId") UUID chatId);
+    
+    // Sequence of the newest message, 0 for an empty chat
+    @Query(value = "SELECT COALESCE(message_seq, 0) FROM chats WHERE id = :chatId", nativeQuery = true)
+    Optional<Long> findMessageSeq(@Param("chatId") UUID chatId);
 }
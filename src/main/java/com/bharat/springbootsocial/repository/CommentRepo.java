@@ -4,9 +4,11 @@ import com.bharat.springbootsocial.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,4 +25,37 @@ public interface CommentRepo extends JpaRepository<Comment, UUID> {
     // For Reels (non-paginated)
     @Query("SELECT c FROM Comment c WHERE c.reel.id = :reelId ORDER BY c.createdAt DESC")
     List<Comment> findAllByReelId(@Param("reelId") UUID reelId);
+    
+    // Feed hydration: the latest :limit comments of each post / reel, newest first
+    @Query("SELECT c FROM Comment c WHERE c.id IN (" +
+           "SELECT r.id FROM (SELECT c2.id AS id, ROW_NUMBER() OVER (PARTITION BY c2.post.id " +
+           "ORDER BY c2.createdAt DESC, c2.id DESC) AS rn FROM Comment c2 WHERE c2.post.id IN :postIds) r " +
+           "WHERE r.rn <= :limit) ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findLatestByPostIds(@Param("postIds") Collection<UUID> postIds, @Param("limit") int limit);
+    
+    @Query("SELECT c FROM Comment c WHERE c.id IN (" +
+           "SELECT r.id FROM (SELECT c2.id AS id, ROW_NUMBER() OVER (PARTITION BY c2.reel.id " +
+           "ORDER BY c2.createdAt DESC, c2.id DESC) AS rn FROM Comment c2 WHERE c2.reel.id IN :reelIds) r " +
+           "WHERE r.rn <= :limit) ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findLatestByReelIds(@Param("reelIds") Collection<UUID> reelIds, @Param("limit") int limit);
+    
+    // Like edges: single-row insert/delete on comments_liked_by, answered by its unique key.
+    // INSERT IGNORE returns 0 when the user already likes the comment
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO comments_liked_by (comments_id, liked_by_id) VALUES (:commentId, :userId)", nativeQuery = true)
+    int insertLike(@Param("commentId") UUID commentId, @Param("userId") UUID userId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM comments_liked_by WHERE comments_id = :commentId AND liked_by_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("commentId") UUID commentId, @Param("userId") UUID userId);
+    
+    @Query("SELECT COUNT(l) > 0 FROM Comment c JOIN c.likedBy l WHERE c.id = :commentId AND l.id = :userId")
+    boolean existsLike(@Param("commentId") UUID commentId, @Param("userId") UUID userId);
+    
+    // Persisted like counter and author, without loading the comment
+    @Query("SELECT c.likeCount FROM Comment c WHERE c.id = :commentId")
+    Integer findLikeCount(@Param("commentId") UUID commentId);
+    
+    @Query("SELECT c.user.id FROM Comment c WHERE c.id = :commentId")
+    UUID findAuthorId(@Param("commentId") UUID commentId);
 }
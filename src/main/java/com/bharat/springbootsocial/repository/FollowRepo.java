@@ -0,0 +1,97 @@
+package com.bharat.springbootsocial.repository;
+
+import com.bharat.springbootsocial.entity.Follow;
+import com.bharat.springbootsocial.entity.FollowId;
+import com.bharat.springbootsocial.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FollowRepo extends JpaRepository<Follow, FollowId> {
+
+    // insertIfAbsent for JdbcTemplate batches, with ids bound as BinaryUuids bytes
+    String INSERT_IF_ABSENT_SQL = "INSERT IGNORE INTO follows (follower_id, followee_id, created_at) VALUES (?, ?, ?)";
+
+    // Insert a follow edge; returns 0 when the edge already exists
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO follows (follower_id, followee_id, created_at) VALUES (:followerId, :followeeId, :createdAt)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("followerId") UUID followerId,
+                       @Param("followeeId") UUID followeeId,
+                       @Param("createdAt") LocalDateTime createdAt);
+
+    // Remove a follow edge; returns 0 when there was nothing to remove
+    @Modifying
+    @Query("DELETE FROM Follow f WHERE f.id.followerId = :followerId AND f.id.followeeId = :followeeId")
+    int deleteEdge(@Param("followerId") UUID followerId, @Param("followeeId") UUID followeeId);
+
+    // Remove every edge touching a user (used when the user is deleted)
+    @Modifying
+    @Query("DELETE FROM Follow f WHERE f.id.followerId = :userId OR f.id.followeeId = :userId")
+    int deleteAllEdgesOfUser(@Param("userId") UUID userId);
+
+    // Check if follower follows followee
+    @Query("SELECT COUNT(f) > 0 FROM Follow f WHERE f.id.followerId = :followerId AND f.id.followeeId = :followeeId")
+    boolean existsEdge(@Param("followerId") UUID followerId, @Param("followeeId") UUID followeeId);
+
+    // Count followers of a user
+    @Query("SELECT COUNT(f) FROM Follow f WHERE f.id.followeeId = :userId")
+    long countFollowers(@Param("userId") UUID userId);
+
+    // Count users a user follows
+    @Query("SELECT COUNT(f) FROM Follow f WHERE f.id.followerId = :userId")
+    long countFollowing(@Param("userId") UUID userId);
+
+    // Ids of users a user follows
+    @Query("SELECT f.id.followeeId FROM Follow f WHERE f.id.followerId = :userId")
+    List<UUID> findFollowingIds(@Param("userId") UUID userId);
+
+    // Ids of users following a user
+    @Query("SELECT f.id.followerId FROM Follow f WHERE f.id.followeeId = :userId")
+    List<UUID> findFollowerIds(@Param("userId") UUID userId);
+
+    // Follower ids of a user in stable batches, without a count query
+    @Query("SELECT f.id.followerId FROM Follow f WHERE f.id.followeeId = :userId ORDER BY f.id.followerId")
+    Slice<UUID> findFollowerIdsSlice(@Param("userId") UUID userId, Pageable pageable);
+
+    // Users with at least minFollowers followers
+    @Query("SELECT f.id.followeeId FROM Follow f GROUP BY f.id.followeeId HAVING COUNT(f) >= :minFollowers")
+    List<UUID> findUsersWithFollowersAtLeast(@Param("minFollowers") long minFollowers);
+
+    // Subset of candidateIds that the user follows
+    @Query("SELECT f.id.followeeId FROM Follow f WHERE f.id.followerId = :userId AND f.id.followeeId IN :candidateIds")
+    List<UUID> findFollowingAmong(@Param("userId") UUID userId, @Param("candidateIds") Collection<UUID> candidateIds);
+
+    // Subset of candidateIds that follow the user
+    @Query("SELECT f.id.followerId FROM Follow f WHERE f.id.followeeId = :userId AND f.id.followerId IN :candidateIds")
+    List<UUID> findFollowersAmong(@Param("userId") UUID userId, @Param("candidateIds") Collection<UUID> candidateIds);
+
+    // Followers of a user, newest first
+    @Query("SELECT u FROM Follow f JOIN User u ON u.id = f.id.followerId WHERE f.id.followeeId = :userId ORDER BY f.createdAt DESC")
+    List<User> findFollowers(@Param("userId") UUID userId);
+
+    // Users a user follows, newest first
+    @Query("SELECT u FROM Follow f JOIN User u ON u.id = f.id.followeeId WHERE f.id.followerId = :userId ORDER BY f.createdAt DESC")
+    List<User> findFollowing(@Param("userId") UUID userId);
+
+    // Paginated followers of a user, newest first
+    @Query(value = "SELECT u FROM Follow f JOIN User u ON u.id = f.id.followerId WHERE f.id.followeeId = :userId ORDER BY f.createdAt DESC",
+           countQuery = "SELECT COUNT(f) FROM Follow f WHERE f.id.followeeId = :userId")
+    Page<User> findFollowersPaginated(@Param("userId") UUID userId, Pageable pageable);
+
+    // Paginated users a user follows, newest first
+    @Query(value = "SELECT u FROM Follow f JOIN User u ON u.id = f.id.followeeId WHERE f.id.followerId = :userId ORDER BY f.createdAt DESC",
+           countQuery = "SELECT COUNT(f) FROM Follow f WHERE f.id.followerId = :userId")
+    Page<User> findFollowingPaginated(@Param("userId") UUID userId, Pageable pageable);
+}
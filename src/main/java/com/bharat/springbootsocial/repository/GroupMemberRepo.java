@@ -17,6 +17,10 @@ public interface GroupMemberRepo extends JpaRepository<GroupMember, UUID> {
     @Query("SELECT gm FROM GroupMember gm WHERE gm.group.id = :groupId AND gm.status = 'ACTIVE'")
     List<GroupMember> findActiveMembersByGroupId(@Param("groupId") UUID groupId);
     
+    // Ids of active members, for message fan-out
+    @Query("SELECT gm.user.id FROM GroupMember gm WHERE gm.group.id = :groupId AND gm.status = 'ACTIVE'")
+    List<UUID> findActiveMemberIdsByGroupId(@Param("groupId") UUID groupId);
+    
     // Find group members by group ID with role
     @Query("SELECT gm FROM GroupMember gm WHERE gm.group.id = :groupId AND gm.role = :role AND gm.status = 'ACTIVE'")
     List<GroupMember> findActiveMembersByGroupIdAndRole(@Param("groupId") UUID groupId, @Param("role") GroupMember.MemberRole role);
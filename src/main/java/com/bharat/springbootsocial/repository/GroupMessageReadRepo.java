@@ -34,17 +34,6 @@ public interface GroupMessageReadRepo extends JpaRepository<GroupMessageRead, UU
     @Query("SELECT COUNT(gmr) > 0 FROM GroupMessageRead gmr WHERE gmr.message.id = :messageId AND gmr.user.id = :userId")
     boolean hasUserReadMessage(@Param("messageId") UUID messageId, @Param("userId") UUID userId);
     
-    // Find unread messages for user in group
-    @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.isDeleted = false AND gm.id NOT IN " +
-           "(SELECT gmr.message.id FROM GroupMessageRead gmr WHERE gmr.user.id = :userId) " +
-           "ORDER BY gm.createdAt DESC")
-    List<com.bharat.springbootsocial.entity.GroupMessage> findUnreadMessagesForUserInGroup(@Param("groupId") UUID groupId, @Param("userId") UUID userId);
-    
-    // Count unread messages for user in group
-    @Query("SELECT COUNT(gm) FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.isDeleted = false AND gm.id NOT IN " +
-           "(SELECT gmr.message.id FROM GroupMessageRead gmr WHERE gmr.user.id = :userId)")
-    Long countUnreadMessagesForUserInGroup(@Param("groupId") UUID groupId, @Param("userId") UUID userId);
-    
     // Find last read message for user in group
     @Query("SELECT gmr FROM GroupMessageRead gmr WHERE gmr.user.id = :userId AND gmr.message.group.id = :groupId " +
            "ORDER BY gmr.readAt DESC")
@@ -24,6 +24,24 @@ public interface GroupMessageRepo extends JpaRepository<GroupMessage, UUID> {
     @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.isDeleted = false ORDER BY gm.createdAt DESC")
     Page<GroupMessage> findMessagesByGroupIdPaginated(@Param("groupId") UUID groupId, Pageable pageable);
     
+    // Keyset pages of a group: strictly older than (createdAt, id) newest first,
+    // or strictly newer oldest first
+    @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.isDeleted = false " +
+           "AND (gm.createdAt < :createdAt OR (gm.createdAt = :createdAt AND gm.id < :id)) " +
+           "ORDER BY gm.createdAt DESC, gm.id DESC")
+    List<GroupMessage> findGroupPageBefore(@Param("groupId") UUID groupId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") UUID id,
+                                           Pageable pageable);
+    
+    @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.isDeleted = false " +
+           "AND (gm.createdAt > :createdAt OR (gm.createdAt = :createdAt AND gm.id > :id)) " +
+           "ORDER BY gm.createdAt ASC, gm.id ASC")
+    List<GroupMessage> findGroupPageAfter(@Param("groupId") UUID groupId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") UUID id,
+                                          Pageable pageable);
+    
     // Find messages by group ID and message type
     @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.messageType = :messageType AND gm.isDeleted = false ORDER BY gm.createdAt DESC")
     List<GroupMessage> findMessagesByGroupIdAndType(@Param("groupId") UUID groupId, @Param("messageType") GroupMessage.MessageType messageType);
@@ -84,12 +102,8 @@ public interface GroupMessageRepo extends JpaRepository<GroupMessage, UUID> {
     @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.createdAt > :afterDate AND gm.isDeleted = false ORDER BY gm.createdAt ASC")
     List<GroupMessage> findMessagesAfterDate(@Param("groupId") UUID groupId, @Param("afterDate") LocalDateTime afterDate);
     
-    // Search messages by content
-    @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.content LIKE %:query% AND gm.isDeleted = false ORDER BY gm.createdAt DESC")
-    List<GroupMessage> searchMessagesByContent(@Param("groupId") UUID groupId, @Param("query") String query);
-    
-    // Search messages by content with pagination
-    @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.content LIKE %:query% AND gm.isDeleted = false ORDER BY gm.createdAt DESC")
-    Page<GroupMessage> searchMessagesByContentPaginated(@Param("groupId") UUID groupId, @Param("query") String query, Pageable pageable);
+    // Find messages after a read watermark, newest first
+    @Query("SELECT gm FROM GroupMessage gm WHERE gm.group.id = :groupId AND gm.seq > :seq AND gm.isDeleted = false ORDER BY gm.seq DESC")
+    List<GroupMessage> findMessagesAfterSeq(@Param("groupId") UUID groupId, @Param("seq") long seq);
 }
 
@@ -75,4 +75,8 @@ public interface GroupRepo extends JpaRepository<Group, UUID> {
     @Query("SELECT g FROM Group g WHERE g.isPublic = true AND g.status = 'ACTIVE' AND g.id NOT IN " +
            "(SELECT gm.group.id FROM GroupMember gm WHERE gm.user.id = :userId AND gm.status = 'ACTIVE')")
     Page<Group> findJoinableGroupsForUserPaginated(@Param("userId") UUID userId, Pageable pageable);
+    
+    // Sequence of the newest message, 0 for an empty group
+    @Query(value = "SELECT COALESCE(message_seq, 0) FROM user_groups WHERE id = :groupId", nativeQuery = true)
+    Optional<Long> findMessageSeq(@Param("groupId") UUID groupId);
 }
@@ -0,0 +1,23 @@
+package com.bharat.springbootsocial.repository;
+
+import com.bharat.springbootsocial.entity.LegacyFollowLists;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LegacyFollowListsRepo extends JpaRepository<LegacyFollowLists, UUID> {
+
+    // Keyset page: the users after the given id; pass a Pageable sorted by id
+    List<LegacyFollowLists> findByIdGreaterThan(UUID id, Pageable pageable);
+
+    // Which of the ids still belong to a user
+    @Query("SELECT u.id FROM LegacyFollowLists u WHERE u.id IN :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+}
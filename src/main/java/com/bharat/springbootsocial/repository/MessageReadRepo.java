@@ -45,21 +45,6 @@ public interface MessageReadRepo extends JpaRepository<MessageRead, UUID> {
      */
     long countByMessageId(UUID messageId);
     
-    /**
-     * Find all unread messages for a user in a specific chat
-     */
-    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId AND m.id NOT IN " +
-           "(SELECT mr.message.id FROM MessageRead mr WHERE mr.user.id = :userId AND mr.message.chat.id = :chatId) " +
-           "ORDER BY m.timestamp ASC")
-    List<Message> findUnreadMessagesForUserInChat(@Param("userId") UUID userId, @Param("chatId") UUID chatId);
-    
-    /**
-     * Count unread messages for a user in a specific chat
-     */
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.chat.id = :chatId AND m.id NOT IN " +
-           "(SELECT mr.message.id FROM MessageRead mr WHERE mr.user.id = :userId AND mr.message.chat.id = :chatId)")
-    long countUnreadMessagesForUserInChat(@Param("userId") UUID userId, @Param("chatId") UUID chatId);
-    
     /**
      * Find last read message for a user in a chat
      */
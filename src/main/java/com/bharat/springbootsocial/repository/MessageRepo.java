@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,6 +23,28 @@ public interface MessageRepo extends JpaRepository<Message,UUID> {
      */
     Page<Message> findByChatIdOrderByTimestampDesc(UUID chatId, Pageable pageable);
     
+    /**
+     * Keyset page of a chat: messages strictly older than (timestamp, id), newest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId " +
+           "AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id)) " +
+           "ORDER BY m.timestamp DESC, m.id DESC")
+    List<Message> findChatPageBefore(@Param("chatId") UUID chatId,
+                                     @Param("timestamp") LocalDateTime timestamp,
+                                     @Param("id") UUID id,
+                                     Pageable pageable);
+    
+    /**
+     * Keyset page of a chat: messages strictly newer than (timestamp, id), oldest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId " +
+           "AND (m.timestamp > :timestamp OR (m.timestamp = :timestamp AND m.id > :id)) " +
+           "ORDER BY m.timestamp ASC, m.id ASC")
+    List<Message> findChatPageAfter(@Param("chatId") UUID chatId,
+                                    @Param("timestamp") LocalDateTime timestamp,
+                                    @Param("id") UUID id,
+                                    Pageable pageable);
+    
     /**
      * Find messages for a specific chat with pagination, ordered by timestamp ascending
      */
@@ -90,6 +113,12 @@ public interface MessageRepo extends JpaRepository<Message,UUID> {
     @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId AND m.timestamp > :timestamp ORDER BY m.timestamp ASC")
     List<Message> findMessagesAfterTimestamp(@Param("chatId") UUID chatId, @Param("timestamp") java.time.LocalDateTime timestamp);
     
+    /**
+     * Find messages after a read watermark, oldest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId AND m.seq > :seq ORDER BY m.seq ASC")
+    List<Message> findChatMessagesAfterSeq(@Param("chatId") UUID chatId, @Param("seq") long seq);
+    
     /**
      * Find messages before a specific timestamp
      */
@@ -19,6 +19,24 @@ public interface NotificationRepo extends JpaRepository<Notification, UUID> {
     // Find paginated notifications by recipient
     Page<Notification> findByRecipientIdOrderByCreatedAtDesc(UUID recipientId, Pageable pageable);
     
+    // Keyset pages by recipient: strictly older than (createdAt, id) newest first,
+    // or strictly newer oldest first
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :recipientId " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findRecipientPageBefore(@Param("recipientId") UUID recipientId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") UUID id,
+                                               Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :recipientId " +
+           "AND (n.createdAt > :createdAt OR (n.createdAt = :createdAt AND n.id > :id)) " +
+           "ORDER BY n.createdAt ASC, n.id ASC")
+    List<Notification> findRecipientPageAfter(@Param("recipientId") UUID recipientId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") UUID id,
+                                              Pageable pageable);
+    
     // Find unread notifications by recipient
     List<Notification> findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(UUID recipientId);
     
@@ -4,8 +4,12 @@ import com.bharat.springbootsocial.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,12 +30,81 @@ public interface PostRepo extends JpaRepository<Post,UUID> {
     @Query(value = "SELECT p FROM Post p ORDER BY p.createdAt DESC")
     Page<Post> findAllPostsPaginated(Pageable pageable);
     
+    // Keyset pages of all posts: strictly older than (createdAt, id) newest first,
+    // or strictly newer oldest first. No count query, unlike the Page variants
+    @Query("SELECT p FROM Post p " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findAllBefore(@Param("createdAt") LocalDateTime createdAt,
+                             @Param("id") UUID id,
+                             Pageable pageable);
+    
+    @Query("SELECT p FROM Post p " +
+           "WHERE p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id) " +
+           "ORDER BY p.createdAt ASC, p.id ASC")
+    List<Post> findAllAfter(@Param("createdAt") LocalDateTime createdAt,
+                            @Param("id") UUID id,
+                            Pageable pageable);
+    
     @Query(value = "SELECT p FROM Post p WHERE p.user.id = :userId ORDER BY p.createdAt DESC")
     Page<Post> findPostsByUserIdPaginated(UUID userId, Pageable pageable);
     
     // Note: For saved posts pagination, we'll handle it in the service layer
     // due to the complexity of the many-to-many relationship with pagination
     
+    // Posts by any of the given authors strictly older than (createdAt, id), newest first
+    @Query("SELECT p FROM Post p WHERE p.user.id IN :authorIds " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findByAuthorsBefore(@Param("authorIds") Collection<UUID> authorIds,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") UUID id,
+                                   Pageable pageable);
+    
+    // Posts by any of the given authors strictly newer than (createdAt, id), oldest first
+    @Query("SELECT p FROM Post p WHERE p.user.id IN :authorIds " +
+           "AND (p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id)) " +
+           "ORDER BY p.createdAt ASC, p.id ASC")
+    List<Post> findByAuthorsAfter(@Param("authorIds") Collection<UUID> authorIds,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") UUID id,
+                                  Pageable pageable);
+    
+    // Feed hydration: up to :limit preview likers per post as (post id, user id) rows. The viewer
+    // comes first, then people they follow or are followed by, then anyone else; latest likes
+    // first within each group
+    @Query("SELECT r.itemId, r.userId FROM (" +
+           "SELECT l.id.itemId AS itemId, l.id.userId AS userId, ROW_NUMBER() OVER (PARTITION BY l.id.itemId ORDER BY " +
+           "CASE WHEN l.id.userId = :viewerId THEN 0 " +
+           "WHEN EXISTS (SELECT 1 FROM Follow f WHERE (f.id.followerId = :viewerId AND f.id.followeeId = l.id.userId) " +
+           "OR (f.id.followeeId = :viewerId AND f.id.followerId = l.id.userId)) THEN 1 " +
+           "ELSE 2 END, l.likedAt DESC, l.id.userId) AS rn " +
+           "FROM PostLike l WHERE l.id.itemId IN :postIds) r " +
+           "WHERE r.rn <= :limit ORDER BY r.itemId, r.rn")
+    List<Object[]> findPreviewLikers(@Param("postIds") Collection<UUID> postIds,
+                                     @Param("viewerId") UUID viewerId,
+                                     @Param("limit") int limit);
+    
+    // Like edges: single-row insert/delete on posts_liked_by, answered by its unique key.
+    // INSERT IGNORE returns 0 when the user already likes the post
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO posts_liked_by (posts_id, liked_by_id) VALUES (:postId, :userId)", nativeQuery = true)
+    int insertLike(@Param("postId") UUID postId, @Param("userId") UUID userId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM posts_liked_by WHERE posts_id = :postId AND liked_by_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("postId") UUID postId, @Param("userId") UUID userId);
+    
+    @Query("SELECT COUNT(l) > 0 FROM Post p JOIN p.likedBy l WHERE p.id = :postId AND l.id = :userId")
+    boolean existsLike(@Param("postId") UUID postId, @Param("userId") UUID userId);
+    
+    // Persisted like counter and author, without loading the post
+    @Query("SELECT p.likeCount FROM Post p WHERE p.id = :postId")
+    Integer findLikeCount(@Param("postId") UUID postId);
+    
+    @Query("SELECT p.user.id FROM Post p WHERE p.id = :postId")
+    UUID findAuthorId(@Param("postId") UUID postId);
+    
     // Count posts by user ID
     @Query("SELECT COUNT(p) FROM Post p WHERE p.user.id = :userId")
     Long countPostsByUserId(UUID userId);
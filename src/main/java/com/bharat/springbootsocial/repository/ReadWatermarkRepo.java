@@ -0,0 +1,63 @@
+package com.bharat.springbootsocial.repository;
+
+import com.bharat.springbootsocial.entity.ConversationType;
+import com.bharat.springbootsocial.entity.ReadWatermark;
+import com.bharat.springbootsocial.entity.ReadWatermarkId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ReadWatermarkRepo extends JpaRepository<ReadWatermark, ReadWatermarkId> {
+
+    // Move a watermark forward, creating it if needed; never moves it back.
+    // last_read_at is assigned first so it still compares against the old sequence.
+    String ADVANCE_SQL = "INSERT INTO read_watermarks (user_id, conversation_type, conversation_id, last_read_seq, last_read_at) " +
+            "VALUES (:userId, :conversationType, :conversationId, :seq, :readAt) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "last_read_at = CASE WHEN VALUES(last_read_seq) > last_read_seq THEN VALUES(last_read_at) ELSE last_read_at END, " +
+            "last_read_seq = GREATEST(last_read_seq, VALUES(last_read_seq))";
+
+    @Modifying
+    @Query(value = ADVANCE_SQL, nativeQuery = true)
+    int advance(@Param("userId") UUID userId,
+                @Param("conversationType") String conversationType,
+                @Param("conversationId") UUID conversationId,
+                @Param("seq") long seq,
+                @Param("readAt") LocalDateTime readAt);
+
+    // Sequence a user has read up to in a conversation
+    @Query("SELECT w.lastReadSeq FROM ReadWatermark w WHERE w.id.userId = :userId " +
+           "AND w.id.conversationType = :conversationType AND w.id.conversationId = :conversationId")
+    Optional<Long> findLastReadSeq(@Param("userId") UUID userId,
+                                   @Param("conversationType") ConversationType conversationType,
+                                   @Param("conversationId") UUID conversationId);
+
+    // Watermarks at or past a sequence, with their users, furthest first
+    @Query("SELECT w FROM ReadWatermark w JOIN FETCH w.user WHERE w.id.conversationType = :conversationType " +
+           "AND w.id.conversationId = :conversationId AND w.lastReadSeq >= :minSeq ORDER BY w.lastReadSeq DESC")
+    List<ReadWatermark> findReadersFrom(@Param("conversationType") ConversationType conversationType,
+                                        @Param("conversationId") UUID conversationId,
+                                        @Param("minSeq") long minSeq);
+
+    // Unread messages in a chat: the chat's head sequence minus the user's watermark
+    @Query(value = "SELECT COALESCE(c.message_seq, 0) - COALESCE((SELECT w.last_read_seq FROM read_watermarks w " +
+                   "WHERE w.user_id = :userId AND w.conversation_type = 'CHAT' AND w.conversation_id = c.id), 0) " +
+                   "FROM chats c WHERE c.id = :chatId",
+           nativeQuery = true)
+    Optional<Long> countUnreadInChat(@Param("userId") UUID userId, @Param("chatId") UUID chatId);
+
+    // Unread messages in a group: the group's head sequence minus the user's watermark
+    @Query(value = "SELECT COALESCE(g.message_seq, 0) - COALESCE((SELECT w.last_read_seq FROM read_watermarks w " +
+                   "WHERE w.user_id = :userId AND w.conversation_type = 'GROUP' AND w.conversation_id = g.id), 0) " +
+                   "FROM user_groups g WHERE g.id = :groupId",
+           nativeQuery = true)
+    Optional<Long> countUnreadInGroup(@Param("userId") UUID userId, @Param("groupId") UUID groupId);
+}
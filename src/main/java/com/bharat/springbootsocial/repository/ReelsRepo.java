@@ -4,8 +4,12 @@ import com.bharat.springbootsocial.entity.Reels;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,10 +17,26 @@ public interface ReelsRepo extends JpaRepository<Reels, UUID> {
     List<Reels> findByUserId(UUID userId);
     
     // Paginated queries for infinite scroll
-    @Query(value = "SELECT r FROM Reels r ORDER BY r.id DESC")
+    @Query(value = "SELECT r FROM Reels r ORDER BY r.createdAt DESC, r.id DESC")
     Page<Reels> findAllReelsPaginated(Pageable pageable);
     
-    @Query(value = "SELECT r FROM Reels r WHERE r.user.id = :userId ORDER BY r.id DESC")
+    // Keyset pages of all reels: strictly older than (createdAt, id) newest first,
+    // or strictly newer oldest first. No count query, unlike the Page variants
+    @Query("SELECT r FROM Reels r " +
+           "WHERE r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Reels> findAllBefore(@Param("createdAt") LocalDateTime createdAt,
+                              @Param("id") UUID id,
+                              Pageable pageable);
+    
+    @Query("SELECT r FROM Reels r " +
+           "WHERE r.createdAt > :createdAt OR (r.createdAt = :createdAt AND r.id > :id) " +
+           "ORDER BY r.createdAt ASC, r.id ASC")
+    List<Reels> findAllAfter(@Param("createdAt") LocalDateTime createdAt,
+                             @Param("id") UUID id,
+                             Pageable pageable);
+    
+    @Query(value = "SELECT r FROM Reels r WHERE r.user.id = :userId ORDER BY r.createdAt DESC, r.id DESC")
     Page<Reels> findReelsByUserIdPaginated(UUID userId, Pageable pageable);
     
     // Like-related queries
@@ -33,6 +53,63 @@ public interface ReelsRepo extends JpaRepository<Reels, UUID> {
     @Query("SELECT DISTINCT r FROM Reels r LEFT JOIN FETCH r.comments WHERE r.user.id = :userId")
     List<Reels> findByUserIdWithComments(UUID userId);
     
+    // Reels by any of the given authors strictly older than (createdAt, id), newest first
+    @Query("SELECT r FROM Reels r WHERE r.user.id IN :authorIds " +
+           "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Reels> findByAuthorsBefore(@Param("authorIds") Collection<UUID> authorIds,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Pageable pageable);
+
+    // Reels by any of the given authors strictly newer than (createdAt, id), oldest first
+    @Query("SELECT r FROM Reels r WHERE r.user.id IN :authorIds " +
+           "AND (r.createdAt > :createdAt OR (r.createdAt = :createdAt AND r.id > :id)) " +
+           "ORDER BY r.createdAt ASC, r.id ASC")
+    List<Reels> findByAuthorsAfter(@Param("authorIds") Collection<UUID> authorIds,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") UUID id,
+                                   Pageable pageable);
+
+    // Feed hydration: up to :limit preview likers per reel as (reel id, user id) rows. The viewer
+    // comes first, then people they follow or are followed by, then anyone else; latest likes
+    // first within each group
+    @Query("SELECT r.itemId, r.userId FROM (" +
+           "SELECT l.id.itemId AS itemId, l.id.userId AS userId, ROW_NUMBER() OVER (PARTITION BY l.id.itemId ORDER BY " +
+           "CASE WHEN l.id.userId = :viewerId THEN 0 " +
+           "WHEN EXISTS (SELECT 1 FROM Follow f WHERE (f.id.followerId = :viewerId AND f.id.followeeId = l.id.userId) " +
+           "OR (f.id.followeeId = :viewerId AND f.id.followerId = l.id.userId)) THEN 1 " +
+           "ELSE 2 END, l.likedAt DESC, l.id.userId) AS rn " +
+           "FROM ReelLike l WHERE l.id.itemId IN :reelIds) r " +
+           "WHERE r.rn <= :limit ORDER BY r.itemId, r.rn")
+    List<Object[]> findPreviewLikers(@Param("reelIds") Collection<UUID> reelIds,
+                                     @Param("viewerId") UUID viewerId,
+                                     @Param("limit") int limit);
+    
+    // Feed hydration: every liker id of a page of reels as (reel id, user id) rows
+    @Query("SELECT r.id, l.id FROM Reels r JOIN r.likedBy l WHERE r.id IN :reelIds")
+    List<Object[]> findLikerIdsByReelIds(@Param("reelIds") Collection<UUID> reelIds);
+    
+    // Like edges: single-row insert/delete on reels_liked_by, answered by its unique key.
+    // INSERT IGNORE returns 0 when the user already likes the reel
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO reels_liked_by (reels_id, liked_by_id) VALUES (:reelId, :userId)", nativeQuery = true)
+    int insertLike(@Param("reelId") UUID reelId, @Param("userId") UUID userId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM reels_liked_by WHERE reels_id = :reelId AND liked_by_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("reelId") UUID reelId, @Param("userId") UUID userId);
+    
+    @Query("SELECT COUNT(l) > 0 FROM Reels r JOIN r.likedBy l WHERE r.id = :reelId AND l.id = :userId")
+    boolean existsLike(@Param("reelId") UUID reelId, @Param("userId") UUID userId);
+    
+    // Persisted like counter and author, without loading the reel
+    @Query("SELECT r.likeCount FROM Reels r WHERE r.id = :reelId")
+    Integer findLikeCount(@Param("reelId") UUID reelId);
+    
+    @Query("SELECT r.user.id FROM Reels r WHERE r.id = :reelId")
+    UUID findAuthorId(@Param("reelId") UUID reelId);
+    
     // Count reels by user ID
     @Query("SELECT COUNT(r) FROM Reels r WHERE r.user.id = :userId")
     Long countReelsByUserId(UUID userId);
@@ -0,0 +1,58 @@
+package com.bharat.springbootsocial.repository;
+
+import com.bharat.springbootsocial.entity.TimelineEntry;
+import com.bharat.springbootsocial.entity.TimelineEntryId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TimelineEntryRepo extends JpaRepository<TimelineEntry, TimelineEntryId> {
+
+    // Timeline entries strictly older than (createdAt, itemId), newest first
+    @Query("SELECT t FROM TimelineEntry t WHERE t.id.ownerId = :ownerId " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id.itemId < :itemId)) " +
+           "ORDER BY t.createdAt DESC, t.id.itemId DESC")
+    List<TimelineEntry> findPageBefore(@Param("ownerId") UUID ownerId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("itemId") UUID itemId,
+                                       Pageable pageable);
+
+    // Timeline entries strictly newer than (createdAt, itemId), oldest first
+    @Query("SELECT t FROM TimelineEntry t WHERE t.id.ownerId = :ownerId " +
+           "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id.itemId > :itemId)) " +
+           "ORDER BY t.createdAt ASC, t.id.itemId ASC")
+    List<TimelineEntry> findPageAfter(@Param("ownerId") UUID ownerId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("itemId") UUID itemId,
+                                      Pageable pageable);
+
+    // An owner's entries newest first (used to find the trim boundary)
+    @Query("SELECT t FROM TimelineEntry t WHERE t.id.ownerId = :ownerId ORDER BY t.createdAt DESC, t.id.itemId DESC")
+    List<TimelineEntry> findNewestFirst(@Param("ownerId") UUID ownerId, Pageable pageable);
+
+    // Drop an owner's entries strictly older than (createdAt, itemId)
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.id.ownerId = :ownerId " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id.itemId < :itemId))")
+    int deleteBefore(@Param("ownerId") UUID ownerId,
+                     @Param("createdAt") LocalDateTime createdAt,
+                     @Param("itemId") UUID itemId);
+
+    // Remove an item from every timeline (post/reel deleted)
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.id.itemId = :itemId")
+    int deleteByItemId(@Param("itemId") UUID itemId);
+
+    // Remove an author's items from one timeline (unfollow)
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.id.ownerId = :ownerId AND t.authorId = :authorId")
+    int deleteByOwnerAndAuthor(@Param("ownerId") UUID ownerId, @Param("authorId") UUID authorId);
+}
@@ -1,6 +1,7 @@
 package com.bharat.springbootsocial.repository;
 
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.response.UserSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,9 +13,14 @@ import java.util.UUID;
 public interface UserRepo extends JpaRepository<User, UUID> {
     Optional<User> findUserByEmail(String email);
 
-    @Query("select u from User u where u.fname LIKE %:query% OR u.lname LIKE %:query% OR u.email LIKE %:query%")
-    List<User> searchUser(@Param("query") String query);
-    
+    @Query("select new com.bharat.springbootsocial.response.UserSummary(u.id, u.fname, u.lname, u.email, u.profileImage) " +
+           "from User u where u.email = :email")
+    Optional<UserSummary> findSummaryByEmail(@Param("email") String email);
+
+    @Query("select new com.bharat.springbootsocial.response.UserSummary(u.id, u.fname, u.lname, u.email, u.profileImage) " +
+           "from User u where u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") UUID id);
+
     // Find users by gender (case insensitive)
     List<User> findByGenderIgnoreCase(String gender);
     
@@ -3,7 +3,9 @@ package com.bharat.springbootsocial.response;
 import com.bharat.springbootsocial.entity.Post;
 import com.bharat.springbootsocial.entity.Reels;
 import com.bharat.springbootsocial.entity.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +18,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@JsonSerialize(using = FeedItemJson.ContentSerializer.class)
 public class ContentResponse {
     private UUID id;
     private String type; // "post" or "reel"
@@ -35,8 +38,15 @@ public class ContentResponse {
     private Integer totalLikes;
     private Integer totalComments;
     
+    // Whether the requesting user likes this item
+    private Boolean isLiked;
+    
     private LocalDateTime createdAt;
     
+    // Cached JSON fragments set by FeedAssembler; not part of the payload
+    @JsonIgnore
+    private transient FeedItemJson json;
+    
     // Constructor for Post
     public ContentResponse(Post post, List<User> recentLikedBy, List<CommentResponse> recentComments) {
         this.id = post.getId();
@@ -45,6 +45,13 @@ public class EnhancedMessageResponse {
     private int readCount;
     
     public static EnhancedMessageResponse fromEntity(Message message) {
+        return fromEntity(message, message.getReadBy().stream()
+                .map(MessageReadResponse::fromEntity)
+                .collect(Collectors.toList()));
+    }
+    
+    // With read receipts worked out by the caller, e.g. from read watermarks
+    public static EnhancedMessageResponse fromEntity(Message message, List<MessageReadResponse> readBy) {
         EnhancedMessageResponse response = new EnhancedMessageResponse();
         response.setId(message.getId());
         response.setContent(message.getContent());
@@ -73,11 +80,9 @@ public class EnhancedMessageResponse {
         response.setReactions(message.getReactions().stream()
                 .map(MessageReactionResponse::fromEntity)
                 .collect(Collectors.toList()));
-        response.setReadBy(message.getReadBy().stream()
-                .map(MessageReadResponse::fromEntity)
-                .collect(Collectors.toList()));
+        response.setReadBy(readBy);
         response.setReactionCount(message.getReactionCount());
-        response.setReadCount(message.getReadCount());
+        response.setReadCount(readBy.size());
         
         return response;
     }
@@ -0,0 +1,236 @@
+package com.bharat.springbootsocial.response;
+
+import com.bharat.springbootsocial.entity.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanSerializerFactory;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Pre-serialized JSON of a feed item, attached to {@link PostResponse} and
+ * {@link ContentResponse} by the feed assembler. The parts every viewer sees
+ * alike (the item's own fields, comment text, user profiles) come from the
+ * shared fragment cache; the serializers below splice them with what differs
+ * per viewer or per request (counts, isLiked, which likers and comments are
+ * previewed). The output is the same JSON the bean serializer writes, which
+ * still writes responses without fragments or mentioning a user or comment the
+ * page has no fragment for.
+ */
+public final class FeedItemJson {
+
+    private static final SerializedString USER = new SerializedString(",\"user\":");
+    private static final SerializedString RECENT_LIKED_BY = new SerializedString(",\"recentLikedBy\":");
+    private static final SerializedString RECENT_COMMENTS = new SerializedString(",\"recentComments\":");
+    private static final SerializedString TOTAL_LIKES = new SerializedString(",\"totalLikes\":");
+    private static final SerializedString TOTAL_COMMENTS = new SerializedString(",\"totalComments\":");
+    private static final SerializedString IS_LIKED = new SerializedString(",\"isLiked\":");
+
+    /**
+     * An object's JSON cut around the overlaid fields: head is the opening
+     * brace and the leading fields, tail the trailing fields and the closing
+     * brace. Whole values, like a user, are all head with an empty tail.
+     */
+    public record Fragment(SerializedString head, SerializedString tail) {
+    }
+
+    private final Fragment item;
+    // Shared by every item of the page
+    private final Map<UUID, Fragment> comments;
+    private final Map<UUID, Fragment> users;
+
+    public FeedItemJson(Fragment item, Map<UUID, Fragment> comments, Map<UUID, Fragment> users) {
+        this.item = item;
+        this.comments = comments;
+        this.users = users;
+    }
+
+    public static class PostSerializer extends SplicingSerializer<PostResponse> {
+
+        public PostSerializer() {
+            super(PostResponse.class);
+        }
+
+        @Override
+        public void serialize(PostResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            FeedItemJson json = value.getJson();
+            if (json == null || !json.covers(value.getUser(), value.getRecentLikedBy())
+                    || !json.coversComments(value.getRecentComments(), PostResponse.CommentResponse::getId,
+                    PostResponse.CommentResponse::getUser)) {
+                writeFields(value, gen, provider);
+                return;
+            }
+            json.writeHead(gen, value.getUser(), value.getRecentLikedBy());
+            if (value.getRecentComments() == null) {
+                gen.writeRaw("null");
+            } else {
+                gen.writeRaw('[');
+                for (int i = 0; i < value.getRecentComments().size(); i++) {
+                    PostResponse.CommentResponse comment = value.getRecentComments().get(i);
+                    if (i > 0) {
+                        gen.writeRaw(',');
+                    }
+                    json.writeComment(gen, comment.getId(), comment.getUser(), comment.getTotalLikes(),
+                            comment.getIsLiked());
+                }
+                gen.writeRaw(']');
+            }
+            json.writeTail(gen, value.getTotalLikes(), value.getTotalComments(), value.getIsLiked());
+        }
+
+    }
+
+    public static class ContentSerializer extends SplicingSerializer<ContentResponse> {
+
+        public ContentSerializer() {
+            super(ContentResponse.class);
+        }
+
+        @Override
+        public void serialize(ContentResponse value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            FeedItemJson json = value.getJson();
+            if (json == null || !json.covers(value.getUser(), value.getRecentLikedBy())
+                    || !json.coversComments(value.getRecentComments(), ContentResponse.CommentResponse::getId,
+                    ContentResponse.CommentResponse::getUser)) {
+                writeFields(value, gen, provider);
+                return;
+            }
+            json.writeHead(gen, value.getUser(), value.getRecentLikedBy());
+            if (value.getRecentComments() == null) {
+                gen.writeRaw("null");
+            } else {
+                gen.writeRaw('[');
+                for (int i = 0; i < value.getRecentComments().size(); i++) {
+                    ContentResponse.CommentResponse comment = value.getRecentComments().get(i);
+                    if (i > 0) {
+                        gen.writeRaw(',');
+                    }
+                    json.writeComment(gen, comment.getId(), comment.getUser(), comment.getTotalLikes(),
+                            comment.getIsLiked());
+                }
+                gen.writeRaw(']');
+            }
+            json.writeTail(gen, value.getTotalLikes(), value.getTotalComments(), value.getIsLiked());
+        }
+
+    }
+
+    // Falls back to the bean serializer Jackson would otherwise have used for the class
+    abstract static class SplicingSerializer<T> extends StdSerializer<T> implements ResolvableSerializer {
+
+        private JsonSerializer<Object> fields;
+
+        SplicingSerializer(Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            JavaType type = provider.constructType(handledType());
+            fields = BeanSerializerFactory.instance.findBeanOrAddOnSerializer(provider, type,
+                    provider.getConfig().introspect(type), false);
+            if (fields instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+
+        void writeFields(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            fields.serialize(value, gen, provider);
+        }
+    }
+
+    // Everything written raw must have a fragment, since raw and field-by-field output cannot be mixed
+    private boolean covers(User user, List<User> likers) {
+        if (item == null || !coversUser(user)) {
+            return false;
+        }
+        if (likers != null) {
+            for (User liker : likers) {
+                if (!coversUser(liker)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private <C> boolean coversComments(List<C> recentComments, Function<C, UUID> id, Function<C, User> user) {
+        if (recentComments != null) {
+            for (C comment : recentComments) {
+                if (!comments.containsKey(id.apply(comment)) || !coversUser(user.apply(comment))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean coversUser(User user) {
+        return user == null || users.containsKey(user.getId());
+    }
+
+    // The item's head, user and likers, up to the recentComments value
+    private void writeHead(JsonGenerator gen, User user, List<User> likers) throws IOException {
+        // Raw value, so the generator still adds the separator between array elements
+        gen.writeRawValue(item.head());
+        gen.writeRaw(USER);
+        writeUser(gen, user);
+        gen.writeRaw(RECENT_LIKED_BY);
+        if (likers == null) {
+            gen.writeRaw("null");
+        } else {
+            gen.writeRaw('[');
+            for (int i = 0; i < likers.size(); i++) {
+                if (i > 0) {
+                    gen.writeRaw(',');
+                }
+                writeUser(gen, likers.get(i));
+            }
+            gen.writeRaw(']');
+        }
+        gen.writeRaw(RECENT_COMMENTS);
+    }
+
+    private void writeComment(JsonGenerator gen, UUID id, User user, Integer totalLikes, Boolean isLiked)
+            throws IOException {
+        Fragment comment = comments.get(id);
+        gen.writeRaw(comment.head());
+        gen.writeRaw(USER);
+        writeUser(gen, user);
+        gen.writeRaw(TOTAL_LIKES);
+        gen.writeRaw(String.valueOf(totalLikes));
+        gen.writeRaw(IS_LIKED);
+        gen.writeRaw(String.valueOf(isLiked));
+        gen.writeRaw(comment.tail());
+    }
+
+    private void writeTail(JsonGenerator gen, Integer totalLikes, Integer totalComments, Boolean isLiked)
+            throws IOException {
+        gen.writeRaw(TOTAL_LIKES);
+        gen.writeRaw(String.valueOf(totalLikes));
+        gen.writeRaw(TOTAL_COMMENTS);
+        gen.writeRaw(String.valueOf(totalComments));
+        gen.writeRaw(IS_LIKED);
+        gen.writeRaw(String.valueOf(isLiked));
+        gen.writeRaw(item.tail());
+    }
+
+    private void writeUser(JsonGenerator gen, User user) throws IOException {
+        if (user == null) {
+            gen.writeRaw("null");
+        } else {
+            gen.writeRaw(users.get(user.getId()).head());
+        }
+    }
+}
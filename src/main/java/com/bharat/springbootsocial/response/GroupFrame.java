@@ -0,0 +1,151 @@
+package com.bharat.springbootsocial.response;
+
+import com.bharat.springbootsocial.entity.GroupMessage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Slim wire form of the group frames on /user/queue/group-frames. Users are
+ * referenced by id only; their profiles arrive separately on
+ * /user/queue/profiles, before the first frame that mentions them and again
+ * whenever they change. senderVersion is the version of the sender's profile
+ * the frame was sent against. Unset fields are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GroupFrame {
+    // "message" for a new, edited, deleted or re-reacted message; otherwise the
+    // action of the indicator: "typing", "stop_typing", "message_read"
+    private String action;
+    private UUID groupId;
+    private UUID id;
+    private String content;
+    private GroupMessage.MessageType messageType;
+    private String imageUrl;
+    private String videoUrl;
+    private String fileUrl;
+    private String fileName;
+    private Long fileSize;
+    private UUID senderId;
+    private Long senderVersion;
+    private GroupFrame replyTo;
+    private Boolean isEdited;
+    private LocalDateTime editedAt;
+    private Boolean isDeleted;
+    private LocalDateTime deletedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private List<Reaction> reactions;
+    private List<Read> readBy;
+    private Boolean systemMessage;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Reaction {
+        private UUID id;
+        private String emoji;
+        private UUID userId;
+        private LocalDateTime createdAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Read {
+        private UUID userId;
+        private LocalDateTime readAt;
+    }
+
+    public static GroupFrame of(UUID groupId, GroupMessageResponse message) {
+        GroupFrame frame = message(message);
+        frame.setAction("message");
+        frame.setGroupId(groupId);
+        return frame;
+    }
+
+    public static GroupFrame of(GroupMessageWebSocketResponse indicator) {
+        GroupFrame frame = new GroupFrame();
+        frame.setAction(indicator.getAction());
+        frame.setGroupId(indicator.getGroupId());
+        frame.setId(indicator.getMessageId());
+        frame.setSenderId(indicator.getSender() != null ? indicator.getSender().getId() : null);
+        return frame;
+    }
+
+    /**
+     * Every user the frame refers to, sender first.
+     */
+    public Set<UUID> userIds() {
+        Set<UUID> ids = new LinkedHashSet<>();
+        collectUserIds(ids);
+        return ids;
+    }
+
+    private void collectUserIds(Collection<UUID> ids) {
+        if (senderId != null) {
+            ids.add(senderId);
+        }
+        if (reactions != null) {
+            reactions.stream().map(Reaction::getUserId).filter(Objects::nonNull).forEach(ids::add);
+        }
+        if (readBy != null) {
+            readBy.stream().map(Read::getUserId).filter(Objects::nonNull).forEach(ids::add);
+        }
+        if (replyTo != null) {
+            replyTo.collectUserIds(ids);
+        }
+    }
+
+    private static GroupFrame message(GroupMessageResponse message) {
+        GroupFrame frame = new GroupFrame();
+        frame.setId(message.getId());
+        frame.setContent(message.getContent());
+        frame.setMessageType(message.getMessageType());
+        frame.setImageUrl(message.getImageUrl());
+        frame.setVideoUrl(message.getVideoUrl());
+        frame.setFileUrl(message.getFileUrl());
+        frame.setFileName(message.getFileName());
+        frame.setFileSize(message.getFileSize());
+        frame.setSenderId(message.getSender() != null ? message.getSender().getId() : null);
+        frame.setReplyTo(message.getReplyTo() != null ? message(message.getReplyTo()) : null);
+        frame.setIsEdited(message.getIsEdited());
+        frame.setEditedAt(message.getEditedAt());
+        frame.setIsDeleted(message.getIsDeleted());
+        frame.setDeletedAt(message.getDeletedAt());
+        frame.setCreatedAt(message.getCreatedAt());
+        frame.setUpdatedAt(message.getUpdatedAt());
+        frame.setSystemMessage(message.getSystemMessage());
+        if (message.getReactions() != null) {
+            List<Reaction> reactions = new ArrayList<>(message.getReactions().size());
+            for (GroupMessageResponse.ReactionResponse reaction : message.getReactions()) {
+                reactions.add(new Reaction(reaction.getId(), reaction.getEmoji(),
+                        reaction.getUser() != null ? reaction.getUser().getId() : null, reaction.getCreatedAt()));
+            }
+            frame.setReactions(reactions);
+        }
+        if (message.getReadBy() != null) {
+            List<Read> readBy = new ArrayList<>(message.getReadBy().size());
+            for (GroupMessageResponse.ReadResponse read : message.getReadBy()) {
+                readBy.add(new Read(read.getUser() != null ? read.getUser().getId() : null, read.getReadAt()));
+            }
+            frame.setReadBy(readBy);
+        }
+        return frame;
+    }
+}
@@ -1,6 +1,7 @@
 package com.bharat.springbootsocial.response;
 
 import com.bharat.springbootsocial.entity.GroupMessage;
+import com.bharat.springbootsocial.entity.ReadWatermark;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -47,8 +48,6 @@ public class GroupMessageResponse {
         private String profileImage;
         private String coverImage;
         private String userBio;
-        private List<String> following;
-        private List<String> followers;
     }
     
     @Data
@@ -116,6 +115,18 @@ public class GroupMessageResponse {
         }
     }
     
+    // With "seen by" taken from read watermarks instead of per-message read rows
+    public GroupMessageResponse(GroupMessage message, List<ReadWatermark> readers) {
+        this(message);
+        this.readBy = readers.stream()
+            .map(reader -> new ReadResponse(
+                null,
+                convertToUserResponse(reader.getUser()),
+                reader.getLastReadAt()
+            ))
+            .collect(Collectors.toList());
+    }
+    
     private UserResponse convertToUserResponse(com.bharat.springbootsocial.entity.User user) {
         if (user == null) return null;
         
@@ -128,8 +139,6 @@ public class GroupMessageResponse {
         userResponse.setProfileImage(user.getProfileImage());
         userResponse.setCoverImage(user.getCoverImage());
         userResponse.setUserBio(user.getUserBio());
-        userResponse.setFollowing(user.getFollowing());
-        userResponse.setFollowers(user.getFollowers());
         return userResponse;
     }
     
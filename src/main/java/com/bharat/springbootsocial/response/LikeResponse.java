@@ -0,0 +1,16 @@
+package com.bharat.springbootsocial.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeResponse {
+    private UUID id;
+    private boolean liked;
+    private int totalLikes;
+}
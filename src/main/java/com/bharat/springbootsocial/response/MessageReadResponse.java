@@ -1,6 +1,7 @@
 package com.bharat.springbootsocial.response;
 
 import com.bharat.springbootsocial.entity.MessageRead;
+import com.bharat.springbootsocial.entity.ReadWatermark;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -30,4 +31,15 @@ public class MessageReadResponse {
         response.setReadAt(messageRead.getReadAt());
         return response;
     }
+    
+    // A receipt derived from a read watermark; there is no per-message row, so no id
+    public static MessageReadResponse fromWatermark(UUID messageId, ReadWatermark watermark) {
+        MessageReadResponse response = new MessageReadResponse();
+        response.setMessageId(messageId);
+        response.setUserId(watermark.getId().getUserId());
+        response.setUserName(watermark.getUser().getFname() + " " + watermark.getUser().getLname());
+        response.setUserProfileImage(watermark.getUser().getProfileImage());
+        response.setReadAt(watermark.getLastReadAt());
+        return response;
+    }
 }
@@ -19,4 +19,20 @@ public class PaginatedResponse<T> {
     private boolean hasPrevious;
     private boolean isFirst;
     private boolean isLast;
+    // Opaque token for the next page in cursor mode; totalElements/totalPages are -1 there
+    private String nextCursor;
+    // Token for the newer neighbouring page in cursor mode
+    private String prevCursor;
+
+    // Page-number mode
+    public PaginatedResponse(List<T> content, int page, int size, long totalElements, int totalPages,
+                             boolean hasNext, boolean hasPrevious, boolean isFirst, boolean isLast) {
+        this(content, page, size, totalElements, totalPages, hasNext, hasPrevious, isFirst, isLast, null, null);
+    }
+
+    // Same paging metadata around converted content
+    public <R> PaginatedResponse<R> withContent(List<R> content) {
+        return new PaginatedResponse<>(content, page, size, totalElements, totalPages,
+                hasNext, hasPrevious, isFirst, isLast, nextCursor, prevCursor);
+    }
 }
@@ -1,7 +1,9 @@
 package com.bharat.springbootsocial.response;
 
 import com.bharat.springbootsocial.entity.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +16,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@JsonSerialize(using = FeedItemJson.PostSerializer.class)
 public class PostResponse {
     private UUID id;
     private String caption;
@@ -31,8 +34,15 @@ public class PostResponse {
     private Integer totalLikes;
     private Integer totalComments;
     
+    // Whether the requesting user likes this item
+    private Boolean isLiked;
+    
     private LocalDateTime createdAt;
     
+    // Cached JSON fragments set by FeedAssembler; not part of the payload
+    @JsonIgnore
+    private transient FeedItemJson json;
+    
     // Nested CommentResponse class for optimized comment structure
     @Data
     @AllArgsConstructor
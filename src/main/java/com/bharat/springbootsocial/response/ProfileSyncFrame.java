@@ -0,0 +1,23 @@
+package com.bharat.springbootsocial.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Profiles pushed on /user/queue/profiles for the ids slim group frames refer to
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProfileSyncFrame {
+    private List<SyncedProfile> profiles;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SyncedProfile {
+        private UserSummary user;
+        private Long version;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bharat.springbootsocial.response;
+
+import com.bharat.springbootsocial.entity.Story;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// One author in the story tray: thumbnails and seen state only; a story's
+// counts and replies are loaded when it is opened
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoryRingResponse {
+    private UserSummary user;
+    private List<StoryThumbnail> stories;
+    private Boolean hasUnviewedStories;
+    private Integer totalStories;
+    private LocalDateTime latestStoryAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class StoryThumbnail {
+        private UUID id;
+        private String imageUrl;
+        private String videoUrl;
+        private Story.StoryType storyType;
+        private LocalDateTime createdAt;
+        private LocalDateTime expiresAt;
+        private Boolean isViewed;
+    }
+}
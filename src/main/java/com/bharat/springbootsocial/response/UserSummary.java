@@ -0,0 +1,19 @@
+package com.bharat.springbootsocial.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// The few user columns hot paths need, without loading the User entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummary {
+    private UUID id;
+    private String fname;
+    private String lname;
+    private String email;
+    private String profileImage;
+}
@@ -0,0 +1,143 @@
+package com.bharat.springbootsocial.services;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A concurrent map holding at most about maxSize entries, for caches read on
+ * every request. Reads take no lock: they only mark the entry as recently
+ * used. The insert that takes the map past its bound sweeps it with the clock
+ * (second chance) algorithm, evicting the first entries not used since the
+ * previous sweep; inserts racing with a sweep skip it, so the map may briefly
+ * hold a few entries more.
+ *
+ * Values loaded while the key may be invalidated are stored with
+ * {@link #putIfUnchanged}, given the {@link #stamp} taken before loading. An
+ * invalidation of the same key (or one sharing its stripe) in between makes
+ * the store a no-op, so an old row read just before a change is not cached.
+ */
+final class BoundedCache<K, V> {
+
+    private static final int STRIPES = 4096;
+
+    private final ConcurrentHashMap<K, Node<V>> map = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final BiConsumer<K, V> onEvict;
+
+    // Invalidation counts per key stripe
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    // Where the last sweep stopped; only used under sweepLock
+    private Iterator<Map.Entry<K, Node<V>>> hand;
+
+    private static final class Node<V> {
+        private final V value;
+        private volatile boolean used;
+
+        private Node(V value) {
+            this.value = value;
+        }
+    }
+
+    BoundedCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * onEvict is called with the entries the bound pushes out, not with those
+     * removed or invalidated.
+     */
+    BoundedCache(int maxSize, BiConsumer<K, V> onEvict) {
+        this.maxSize = Math.max(1, maxSize);
+        this.onEvict = onEvict;
+    }
+
+    V get(K key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        // Skips the write when already set, so hot entries do not bounce their cache line between cores
+        if (!node.used) {
+            node.used = true;
+        }
+        return node.value;
+    }
+
+    void put(K key, V value) {
+        map.put(key, new Node<>(value));
+        sweepIfFull();
+    }
+
+    long stamp(K key) {
+        return stamps.get(stripe(key));
+    }
+
+    /**
+     * Stores the value unless the key was invalidated since stamp was taken.
+     */
+    boolean putIfUnchanged(K key, V value, long stamp) {
+        Node<V> node = new Node<>(value);
+        map.put(key, node);
+        // invalidate bumps the stamp before removing, so one of the two sees the other
+        if (stamps.get(stripe(key)) != stamp) {
+            map.remove(key, node);
+            return false;
+        }
+        sweepIfFull();
+        return true;
+    }
+
+    V remove(K key) {
+        Node<V> node = map.remove(key);
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * Removes the key and fails stores of values loaded before now.
+     */
+    void invalidate(K key) {
+        stamps.incrementAndGet(stripe(key));
+        map.remove(key);
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    private void sweepIfFull() {
+        if (map.size() <= maxSize || !sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            // Ends within two laps, since the first clears every used mark it passes
+            while (map.size() > maxSize) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = map.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<K, Node<V>> entry = hand.next();
+                Node<V> node = entry.getValue();
+                if (node.used) {
+                    node.used = false;
+                } else if (map.remove(entry.getKey(), node) && onEvict != null) {
+                    onEvict.accept(entry.getKey(), node.value);
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,372 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.CallRoom;
+import com.bharat.springbootsocial.entity.GroupCallRoom;
+import com.bharat.springbootsocial.entity.Notification;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.CallRingEvent;
+import com.bharat.springbootsocial.event.GroupCallScheduledEvent;
+import com.bharat.springbootsocial.exception.UserException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call timeouts on one timing wheel, armed and cancelled by the events that
+ * start and stop them instead of found by scanning the room tables: an
+ * invitation left ringing for app.calls.ring-timeout-seconds becomes a missed
+ * call, and cancels the room if nobody else is still being rung; a user whose
+ * last STOMP session closed and who has not reconnected within
+ * app.calls.reconnect-grace-seconds leaves their calls; an active room left
+ * empty for app.calls.empty-room-timeout-seconds is ended; a scheduled group
+ * call starts, notifying the group, at its time. Timers live in memory, so
+ * rings and reconnect grace periods do not survive a restart; scheduled starts
+ * and empty rooms are armed again at startup. The wheel's thread only decides
+ * when; the work runs on a thread of its own.
+ */
+@Component
+public class CallLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallLifecycle.class);
+
+    private static final String INVITATIONS_QUEUE = "/queue/call-invitations";
+
+    @Autowired
+    private CallRoomRegistry callRoomRegistry;
+
+    @Autowired
+    private CallRoomService callRoomService;
+
+    @Autowired
+    private GroupCallService groupCallService;
+
+    @Autowired
+    private ServiceInt userService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.calls.timer-tick-ms:100}")
+    private long tickMillis;
+
+    @Value("${app.calls.ring-timeout-seconds:45}")
+    private long ringTimeoutSeconds;
+
+    @Value("${app.calls.reconnect-grace-seconds:30}")
+    private long reconnectGraceSeconds;
+
+    @Value("${app.calls.empty-room-timeout-seconds:300}")
+    private long emptyRoomTimeoutSeconds;
+
+    private enum Kind { RING, DROP, EMPTY, SCHEDULED }
+
+    // userId is null for the timers of a room, roomId for the timers of a user
+    private record Key(Kind kind, String roomId, UUID userId) {
+    }
+
+    public record Stats(long pendingTimers, long missedCalls, long droppedUsers, long emptyRoomsEnded,
+                        long scheduledCallsStarted) {
+    }
+
+    private interface Action {
+        void run() throws UserException;
+    }
+
+    // Invitees still ringing, by room
+    private final Map<String, Set<UUID>> ringing = new ConcurrentHashMap<>();
+
+    // Open STOMP sessions, by user
+    private final Map<UUID, Set<String>> sessions = new ConcurrentHashMap<>();
+
+    private TimerWheel<Key> wheel;
+    private ExecutorService worker;
+
+    private final LongAdder missedCalls = new LongAdder();
+    private final LongAdder droppedUsers = new LongAdder();
+    private final LongAdder emptyRoomsEnded = new LongAdder();
+    private final LongAdder scheduledCallsStarted = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        wheel = new TimerWheel<>("call-timers", tickMillis, TimeUnit.MILLISECONDS, 512);
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "call-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Before the registry loads, so the rooms it loads arm their empty-room timers
+        callRoomRegistry.addListener(this::onRoom);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        wheel.stop();
+        worker.shutdown();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScheduledCalls() {
+        jdbcTemplate.query("SELECT room_id, scheduled_at FROM user_group_call_rooms"
+                        + " WHERE is_active = TRUE AND status = ? AND scheduled_at IS NOT NULL",
+                rs -> {
+                    Timestamp scheduledAt = rs.getTimestamp(2);
+                    scheduleStart(rs.getString(1), scheduledAt.toLocalDateTime());
+                }, GroupCallRoom.CallStatus.SCHEDULED.name());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRing(CallRingEvent event) {
+        // Signaling may address a call room by its id; timers go by roomId
+        CallRoomRegistry.Room room = callRoomRegistry.find(event.getRoomId());
+        if (room == null || room.group()) {
+            return;
+        }
+        String roomId = room.roomId();
+        UUID inviteeId = event.getInviteeId();
+        if (!event.isRinging()) {
+            stopRinging(roomId, inviteeId);
+            return;
+        }
+        if (!room.active()) {
+            return;
+        }
+        ringing.compute(roomId, (id, invitees) -> {
+            Set<UUID> rung = invitees != null ? invitees : new HashSet<>();
+            rung.add(inviteeId);
+            return rung;
+        });
+        UUID callerId = event.getCallerId();
+        arm(new Key(Kind.RING, roomId, inviteeId), ringTimeoutSeconds, TimeUnit.SECONDS,
+                () -> ringTimedOut(roomId, callerId, inviteeId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupCallScheduled(GroupCallScheduledEvent event) {
+        scheduleStart(event.getRoomId(), event.getScheduledAt());
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        UUID userId = userId(event);
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (userId == null || sessionId == null) {
+            return;
+        }
+        sessions.compute(userId, (id, open) -> {
+            Set<String> connected = open != null ? open : new HashSet<>();
+            connected.add(sessionId);
+            return connected;
+        });
+        wheel.cancel(new Key(Kind.DROP, null, userId));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        UUID userId = userId(event);
+        if (userId == null) {
+            return;
+        }
+        Set<String> open = sessions.computeIfPresent(userId, (id, connected) -> {
+            connected.remove(event.getSessionId());
+            return connected.isEmpty() ? null : connected;
+        });
+        if (open == null) {
+            arm(new Key(Kind.DROP, null, userId), reconnectGraceSeconds, TimeUnit.SECONDS,
+                    () -> dropUser(userId));
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(wheel.size(), missedCalls.sum(), droppedUsers.sum(), emptyRoomsEnded.sum(),
+                scheduledCallsStarted.sum());
+    }
+
+    // Called by the registry with every room it registers or forgets
+    private void onRoom(CallRoomRegistry.Room room) {
+        Key empty = new Key(Kind.EMPTY, room.roomId(), null);
+        if (!room.active()) {
+            wheel.cancel(empty);
+            wheel.cancel(new Key(Kind.SCHEDULED, room.roomId(), null));
+            Set<UUID> invitees = ringing.remove(room.roomId());
+            if (invitees != null) {
+                for (UUID inviteeId : invitees) {
+                    wheel.cancel(new Key(Kind.RING, room.roomId(), inviteeId));
+                }
+            }
+            return;
+        }
+        // A scheduled room is empty until it starts
+        if (room.participants().isEmpty() && !GroupCallRoom.CallStatus.SCHEDULED.name().equals(room.status())) {
+            // Counted from when the room emptied, not from its latest update
+            if (!wheel.isScheduled(empty)) {
+                arm(empty, emptyRoomTimeoutSeconds, TimeUnit.SECONDS, () -> endEmptyRoom(room.roomId()));
+            }
+        } else {
+            wheel.cancel(empty);
+        }
+    }
+
+    private void scheduleStart(String roomId, LocalDateTime scheduledAt) {
+        long delay = Duration.between(LocalDateTime.now(), scheduledAt).toMillis();
+        arm(new Key(Kind.SCHEDULED, roomId, null), delay, TimeUnit.MILLISECONDS, () -> {
+            groupCallService.startScheduledGroupCallRoom(roomId);
+            scheduledCallsStarted.increment();
+        });
+    }
+
+    private void ringTimedOut(String roomId, UUID callerId, UUID inviteeId) throws UserException {
+        boolean lastRinging = stopRinging(roomId, inviteeId);
+        CallRoomRegistry.Room room = callRoomRegistry.find(roomId);
+        if (room == null || !room.active()) {
+            return;
+        }
+        sendMissedCall(room, callerId, inviteeId);
+        missedCalls.increment();
+        if (lastRinging && CallRoom.CallStatus.WAITING.name().equals(room.status())) {
+            callRoomService.closeRoom(roomId, CallRoom.CallStatus.CANCELLED);
+        }
+    }
+
+    // Returns whether nobody else in the room is still ringing
+    private boolean stopRinging(String roomId, UUID inviteeId) {
+        wheel.cancel(new Key(Kind.RING, roomId, inviteeId));
+        Set<UUID> left = ringing.computeIfPresent(roomId, (id, invitees) -> {
+            invitees.remove(inviteeId);
+            return invitees.isEmpty() ? null : invitees;
+        });
+        return left == null;
+    }
+
+    private void sendMissedCall(CallRoomRegistry.Room room, UUID callerId, UUID inviteeId) {
+        User invitee = userService.getUserById(inviteeId);
+        User caller = callerId != null ? userService.getUserById(callerId) : null;
+        if (invitee == null) {
+            return;
+        }
+
+        // Stops the invitee's ringtone
+        messagingTemplate.convertAndSend("/user/" + inviteeId + INVITATIONS_QUEUE, Map.of(
+                "type", "call-missed",
+                "data", Map.of("roomId", room.roomId()),
+                "timestamp", System.currentTimeMillis()
+        ));
+
+        if (caller != null) {
+            // Same as a decline, so the caller's client stops waiting
+            messagingTemplate.convertAndSend("/user/" + callerId + INVITATIONS_QUEUE, Map.of(
+                    "type", "call-response",
+                    "data", Map.of(
+                            "roomId", room.roomId(),
+                            "accepted", false,
+                            "missed", true,
+                            "from", inviteeId,
+                            "fromName", invitee.getFname() + " " + invitee.getLname()
+                    ),
+                    "timestamp", System.currentTimeMillis()
+            ));
+        }
+
+        String message = caller != null
+                ? "You missed a call from " + caller.getFname() + " " + caller.getLname()
+                : "You missed a call";
+        notificationService.createAndSendNotification(invitee, caller, Notification.NotificationType.SYSTEM,
+                "Missed Call", message, "CALL", room.id());
+    }
+
+    private void dropUser(UUID userId) {
+        if (sessions.containsKey(userId)) {
+            return;
+        }
+        // The registry holds active rooms only, so this is every call the user is still in
+        for (CallRoomRegistry.Room room : callRoomRegistry.roomsOf(userId)) {
+            // One transaction, so the user is the instance the room's participants hold; they are matched by equals
+            transactionTemplate.executeWithoutResult(status -> {
+                User user = userService.getUserById(userId);
+                try {
+                    if (room.group()) {
+                        groupCallService.leaveGroupCallRoom(room.roomId(), user);
+                    } else {
+                        callRoomService.leaveCallRoom(room.roomId(), user);
+                    }
+                    droppedUsers.increment();
+                } catch (UserException e) {
+                    logger.warn("Could not drop user {} from call room {}: {}", userId, room.roomId(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void endEmptyRoom(String roomId) throws UserException {
+        CallRoomRegistry.Room room = callRoomRegistry.find(roomId);
+        if (room == null || !room.active() || !room.participants().isEmpty()) {
+            return;
+        }
+        if (room.group()) {
+            groupCallService.closeGroupCallRoom(roomId);
+        } else {
+            callRoomService.closeRoom(roomId, CallRoom.CallStatus.ENDED);
+        }
+        emptyRoomsEnded.increment();
+    }
+
+    // The wheel's thread only hands the action over
+    private void arm(Key key, long delay, TimeUnit unit, Action action) {
+        wheel.schedule(key, delay, unit, () -> worker.execute(() -> {
+            try {
+                action.run();
+            } catch (UserException | RuntimeException e) {
+                logger.warn("Call timer {} failed: {}", key, e.getMessage(), e);
+            }
+        }));
+    }
+
+    private static UUID userId(AbstractSubProtocolEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(user.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
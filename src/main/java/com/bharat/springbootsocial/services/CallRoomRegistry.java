@@ -0,0 +1,285 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.CallRoom;
+import com.bharat.springbootsocial.entity.GroupCallRoom;
+import com.bharat.springbootsocial.exception.UserException;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Status, capacity and participants of every active call and group call room,
+ * so signaling frames are checked against memory instead of loading the room
+ * entity. Each room is an immutable snapshot; after the call services commit a
+ * change, the room is read again from the database and replaced whole, so
+ * concurrent joins and leaves each see the others' commits. Reads are a plain
+ * map lookup. Ended rooms leave the registry; they and unknown room ids are
+ * remembered for app.call-rooms.miss-ttl-ms, so frames naming them do not
+ * reach the database each time. Rooms held are only refreshed by changes
+ * made through this instance.
+ * Loaded from the database at startup.
+ */
+@Component
+public class CallRoomRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallRoomRegistry.class);
+
+    private static final String GROUP_PREFIX = "group_call_";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.call-rooms.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    @Value("${app.call-rooms.miss-ttl-ms:10000}")
+    private long missTtlMillis;
+
+    @Value("${app.call-rooms.max-misses:10000}")
+    private int maxMisses;
+
+    /**
+     * A room as signaling sees it. status is the name of the room entity's
+     * CallStatus.
+     */
+    public record Room(String roomId, UUID id, boolean group, String status, boolean active, int capacity,
+                       Set<UUID> participants) {
+
+        public boolean isParticipant(UUID userId) {
+            return participants.contains(userId);
+        }
+    }
+
+    public record Stats(long hits, long misses, long rooms) {
+    }
+
+    // Keyed by roomId and, for call rooms, which may also be addressed by it, by the id as a string
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    // room is the ended room, or null for a room id that does not exist
+    private record Miss(Room room, long expiresAt) {
+    }
+
+    // By the id the room was asked for
+    private final Map<String, Miss> absent = new ConcurrentHashMap<>();
+
+    // Refreshes of the same room are serialized, so the one that reads last also registers last
+    private final Object[] refreshLocks = new Object[64];
+
+    private final List<Consumer<Room>> listeners = new CopyOnWriteArrayList<>();
+
+    {
+        Arrays.setAll(refreshLocks, i -> new Object());
+    }
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (loadOnStartup) {
+            load();
+        }
+    }
+
+    /**
+     * Registers every active room in the database. Rooms changed while it runs
+     * are registered again by their service after commit.
+     */
+    public void load() {
+        long started = System.currentTimeMillis();
+        List<Room> loaded = query(false, "r.is_active = TRUE");
+        loaded.addAll(query(true, "r.is_active = TRUE"));
+        loaded.forEach(this::register);
+        logger.info("Call room registry loaded: {} active rooms in {} ms",
+                loaded.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * The room, or null if there is no such room.
+     */
+    public Room find(String roomId) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            hits.increment();
+            return room;
+        }
+        Miss miss = absent.get(roomId);
+        if (miss != null && miss.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return miss.room();
+        }
+        misses.increment();
+        return refresh(roomId);
+    }
+
+    /**
+     * The room; throws the same not-found exceptions as the call services.
+     */
+    public Room require(String roomId) throws UserException {
+        Room room = find(roomId);
+        if (room == null) {
+            throw new UserException(isGroupRoom(roomId)
+                    ? "Group call room not found with id: " + roomId : "Call room not found");
+        }
+        return room;
+    }
+
+    /**
+     * Call after changing a call room's status or participants; inside a
+     * transaction the room is read again once it commits.
+     */
+    public void update(CallRoom room) {
+        String roomId = room.getRoomId();
+        AfterCommit.run(() -> refresh(roomId));
+    }
+
+    public void update(GroupCallRoom room) {
+        String roomId = room.getRoomId();
+        AfterCommit.run(() -> refresh(roomId));
+    }
+
+    /**
+     * Active rooms the user is a participant of. Scans the registry, so not
+     * for the signaling path.
+     */
+    public List<Room> roomsOf(UUID userId) {
+        List<Room> found = new ArrayList<>();
+        for (Map.Entry<String, Room> entry : rooms.entrySet()) {
+            Room room = entry.getValue();
+            if (entry.getKey().equals(room.roomId()) && room.isParticipant(userId)) {
+                found.add(room);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Calls listener with every snapshot registered from now on, including
+     * ended rooms as they leave the registry.
+     */
+    public void addListener(Consumer<Room> listener) {
+        listeners.add(listener);
+    }
+
+    public Stats stats() {
+        // Call rooms are in the map twice
+        long count = rooms.entrySet().stream()
+                .filter(entry -> entry.getKey().equals(entry.getValue().roomId()))
+                .count();
+        return new Stats(hits.sum(), misses.sum(), count);
+    }
+
+    private Room refresh(String roomId) {
+        synchronized (refreshLocks[Math.floorMod(roomId.hashCode(), refreshLocks.length)]) {
+            Room room = read(roomId);
+            if (room != null) {
+                register(room);
+            } else {
+                rooms.remove(roomId);
+                remember(roomId, null);
+            }
+            return room;
+        }
+    }
+
+    private void register(Room room) {
+        if (room.active()) {
+            rooms.put(room.roomId(), room);
+            absent.remove(room.roomId());
+            if (!room.group() && room.id() != null) {
+                rooms.put(room.id().toString(), room);
+                absent.remove(room.id().toString());
+            }
+        } else {
+            forget(room.roomId(), room.id());
+            remember(room.roomId(), room);
+            if (!room.group() && room.id() != null) {
+                remember(room.id().toString(), room);
+            }
+        }
+        for (Consumer<Room> listener : listeners) {
+            listener.accept(room);
+        }
+    }
+
+    // Bounded by dropping every miss when full; they are cheap to read again
+    private void remember(String roomId, Room room) {
+        if (absent.size() >= maxMisses) {
+            absent.clear();
+        }
+        absent.put(roomId, new Miss(room, System.currentTimeMillis() + missTtlMillis));
+    }
+
+    private void forget(String roomId, UUID id) {
+        rooms.remove(roomId);
+        if (id != null) {
+            rooms.remove(id.toString());
+        }
+    }
+
+    // Same lookup as getCallRoomById / getGroupCallRoomById: call rooms also by id
+    private Room read(String roomId) {
+        if (isGroupRoom(roomId)) {
+            return first(query(true, "r.room_id = ?", roomId));
+        }
+        Room room = first(query(false, "r.room_id = ?", roomId));
+        if (room == null) {
+            try {
+                room = first(query(false, "r.id = ?", (Object) BinaryUuids.toBytes(UUID.fromString(roomId))));
+            } catch (IllegalArgumentException ignored) {
+                // Not an id either
+            }
+        }
+        return room;
+    }
+
+    private List<Room> query(boolean group, String where, Object... args) {
+        String table = group ? "user_group_call_rooms" : "call_rooms";
+        String participantsTable = group ? "user_group_call_participants" : "call_room_participants";
+        String roomColumn = group ? "call_room_id" : "room_id";
+
+        Map<UUID, Set<UUID>> participants = new HashMap<>();
+        jdbcTemplate.query("SELECT p." + roomColumn + ", p.user_id FROM " + participantsTable + " p JOIN " + table
+                        + " r ON r.id = p." + roomColumn + " WHERE " + where,
+                rs -> {
+                    participants.computeIfAbsent(BinaryUuids.fromBytes(rs.getBytes(1)), id -> new HashSet<>())
+                            .add(BinaryUuids.fromBytes(rs.getBytes(2)));
+                }, args);
+        return jdbcTemplate.query("SELECT r.id, r.room_id, r.status, r.is_active, r.max_participants FROM " + table
+                        + " r WHERE " + where,
+                (rs, row) -> {
+                    UUID id = BinaryUuids.fromBytes(rs.getBytes(1));
+                    return new Room(rs.getString(2), id, group, rs.getString(3), rs.getBoolean(4), rs.getInt(5),
+                            Set.copyOf(participants.getOrDefault(id, Set.of())));
+                }, args);
+    }
+
+    private static Room first(List<Room> found) {
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private static boolean isGroupRoom(String roomId) {
+        return roomId != null && roomId.startsWith(GROUP_PREFIX);
+    }
+
+}
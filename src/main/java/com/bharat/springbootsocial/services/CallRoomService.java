@@ -45,8 +45,8 @@ public interface CallRoomService {
     // Get room participants
     List<User> getRoomParticipants(String roomId) throws UserException;
     
-    // Cleanup old rooms
-    void cleanupOldRooms();
+    // End a room without a user, e.g. when nobody answered or everyone left
+    void closeRoom(String roomId, CallRoom.CallStatus status) throws UserException;
     
     // Get room statistics
     CallRoomStats getRoomStatistics(String roomId) throws UserException;
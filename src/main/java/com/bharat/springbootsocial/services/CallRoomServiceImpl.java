@@ -3,11 +3,12 @@ package com.bharat.springbootsocial.services;
 import com.bharat.springbootsocial.entity.CallRoom;
 import com.bharat.springbootsocial.entity.CallSession;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.CallRingEvent;
 import com.bharat.springbootsocial.exception.UserException;
 import com.bharat.springbootsocial.repository.CallRoomRepo;
 import com.bharat.springbootsocial.repository.CallSessionRepo;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +37,12 @@ public class CallRoomServiceImpl implements CallRoomService {
     @Autowired
     private RoomEventService roomEventService;
 
+    @Autowired
+    private CallRoomRegistry callRoomRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public CallRoom createCallRoom(User creator, String roomName, CallRoom.CallType callType, List<UUID> participantIds) throws UserException {
         try {
@@ -65,6 +72,7 @@ public class CallRoomServiceImpl implements CallRoomService {
             }
 
             CallRoom savedRoom = callRoomRepo.save(room);
+            callRoomRegistry.update(savedRoom);
 
             try {
                 createCallSession(savedRoom, creator);
@@ -78,6 +86,8 @@ public class CallRoomServiceImpl implements CallRoomService {
                         User participant = userService.getUserById(participantId);
                         if (participant != null) {
                             notificationService.sendCallInvitationNotification(participant, creator, savedRoom);
+                            eventPublisher.publishEvent(new CallRingEvent(savedRoom.getRoomId(), creator.getId(),
+                                    participant.getId(), true));
                         }
                     }
                 }
@@ -126,6 +136,7 @@ public class CallRoomServiceImpl implements CallRoomService {
             }
 
             createOrUpdateCallSession(room, user);
+            eventPublisher.publishEvent(new CallRingEvent(room.getRoomId(), null, user.getId(), false));
 
             if (room.getStatus() == CallRoom.CallStatus.WAITING && room.getParticipants().size() >= 2) {
                 room.setStatus(CallRoom.CallStatus.ACTIVE);
@@ -139,6 +150,7 @@ public class CallRoomServiceImpl implements CallRoomService {
                 ));
             }
 
+            callRoomRegistry.update(room);
             roomEventService.sendUserJoinedEvent(room, user);
             roomEventService.sendParticipantListUpdate(room);
 
@@ -171,6 +183,7 @@ public class CallRoomServiceImpl implements CallRoomService {
             }
 
             callRoomRepo.save(room);
+            callRoomRegistry.update(room);
             roomEventService.sendParticipantListUpdate(room);
         } catch (Exception e) {
             throw new UserException("Failed to leave call room: " + e.getMessage());
@@ -193,6 +206,7 @@ public class CallRoomServiceImpl implements CallRoomService {
 
             room.endCall();
             callRoomRepo.save(room);
+            callRoomRegistry.update(room);
             roomEventService.sendRoomEndedEvent(room, user);
         } catch (Exception e) {
             throw new UserException("Failed to end call room: " + e.getMessage());
@@ -242,7 +256,9 @@ public class CallRoomServiceImpl implements CallRoomService {
         }
 
         room.addParticipant(participant);
-        return callRoomRepo.save(room);
+        CallRoom savedRoom = callRoomRepo.save(room);
+        callRoomRegistry.update(savedRoom);
+        return savedRoom;
     }
 
     @Override
@@ -265,14 +281,18 @@ public class CallRoomServiceImpl implements CallRoomService {
             callSessionRepo.save(session);
         });
 
-        return callRoomRepo.save(room);
+        CallRoom savedRoom = callRoomRepo.save(room);
+        callRoomRegistry.update(savedRoom);
+        return savedRoom;
     }
 
     @Override
     public CallRoom updateRoomStatus(String roomId, CallRoom.CallStatus status) throws UserException {
         CallRoom room = getCallRoomById(roomId);
         room.setStatus(status);
-        return callRoomRepo.save(room);
+        CallRoom savedRoom = callRoomRepo.save(room);
+        callRoomRegistry.update(savedRoom);
+        return savedRoom;
     }
 
     @Override
@@ -288,23 +308,23 @@ public class CallRoomServiceImpl implements CallRoomService {
     }
 
     @Override
-    @Scheduled(fixedRate = 300000)
-    public void cleanupOldRooms() {
-        try {
-            LocalDateTime cutoffTime = LocalDateTime.now().minusHours(1);
-            List<CallRoom> oldRooms = callRoomRepo.findRoomsForCleanup(cutoffTime);
+    public void closeRoom(String roomId, CallRoom.CallStatus status) throws UserException {
+        CallRoom room = getCallRoomById(roomId);
+        if (!room.getIsActive()) {
+            return;
+        }
 
-            for (CallRoom room : oldRooms) {
-                List<CallSession> sessions = callSessionRepo.findByRoom(room);
-                for (CallSession session : sessions) {
-                    session.leaveSession();
-                    callSessionRepo.save(session);
-                }
-                room.endCall();
-                callRoomRepo.save(room);
-            }
-        } catch (Exception ignored) {
+        List<CallSession> activeSessions = callSessionRepo.findActiveSessionsByRoom(room);
+        for (CallSession session : activeSessions) {
+            session.leaveSession();
+            callSessionRepo.save(session);
         }
+
+        room.endCall();
+        room.setStatus(status);
+        callRoomRepo.save(room);
+        callRoomRegistry.update(room);
+        roomEventService.sendRoomEndedEvent(room, room.getCreatedBy());
     }
 
     @Override
@@ -12,9 +12,11 @@ import com.bharat.springbootsocial.request.MessageReadRequest;
 import com.bharat.springbootsocial.response.EnhancedMessageResponse;
 import com.bharat.springbootsocial.response.MessageReactionResponse;
 import com.bharat.springbootsocial.response.MessageReadResponse;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface ChatService {
     Chat createChat(User reqUser, User user2);
@@ -25,9 +27,13 @@ public interface ChatService {
     
     // Enhanced message operations
     EnhancedMessageResponse sendMessage(EnhancedMessageRequest request, User user) throws ChatException;
+    // Validates and queues the message; completes once it is saved (or queued, with app.message-pipeline.ack=enqueue)
+    CompletableFuture<EnhancedMessageResponse> submitMessage(EnhancedMessageRequest request, User user) throws ChatException;
     EnhancedMessageResponse editMessage(UUID messageId, String newContent, User user) throws ChatException;
     void deleteMessage(UUID messageId, User user) throws ChatException;
     List<EnhancedMessageResponse> getChatMessages(UUID chatId, User user, int page, int size) throws ChatException;
+    PaginatedResponse<EnhancedMessageResponse> getChatMessagesByCursor(UUID chatId, User user, String cursor, int size) throws ChatException;
+    PaginatedResponse<EnhancedMessageResponse> searchMessages(UUID chatId, User user, String query, String cursor, int size) throws ChatException;
     
     // Message reactions
     MessageReactionResponse addReaction(MessageReactionRequest request, User user) throws ChatException;
@@ -1,11 +1,17 @@
 package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.entity.Chat;
+import com.bharat.springbootsocial.entity.ConversationType;
 import com.bharat.springbootsocial.entity.Message;
 import com.bharat.springbootsocial.entity.MessageReaction;
 import com.bharat.springbootsocial.entity.MessageRead;
+import com.bharat.springbootsocial.entity.ReadWatermark;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.ConversationRemovedEvent;
+import com.bharat.springbootsocial.event.MessageChangedEvent;
 import com.bharat.springbootsocial.exception.ChatException;
+import com.bharat.springbootsocial.pagination.KeysetCursor;
+import com.bharat.springbootsocial.pagination.KeysetPager;
 import com.bharat.springbootsocial.repository.ChatRepo;
 import com.bharat.springbootsocial.repository.MessageReactionRepo;
 import com.bharat.springbootsocial.repository.MessageReadRepo;
@@ -17,8 +23,10 @@ import com.bharat.springbootsocial.request.MessageReadRequest;
 import com.bharat.springbootsocial.response.EnhancedMessageResponse;
 import com.bharat.springbootsocial.response.MessageReactionResponse;
 import com.bharat.springbootsocial.response.MessageReadResponse;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,9 +35,15 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -51,6 +65,18 @@ public class ChatServiceImpl implements ChatService{
     @Autowired
     private UserRepo userRepo;
     
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ReadWatermarks readWatermarks;
+    
+    @Autowired
+    private MessageWritePipeline messageWritePipeline;
+    
     @Override
     public Chat createChat(User reqUser, User user2) {
         Chat isExisting = chatRepo.findChatByUsersId(reqUser, user2);
@@ -112,40 +138,27 @@ public class ChatServiceImpl implements ChatService{
         
         // Delete the chat
         chatRepo.delete(chat);
+        eventPublisher.publishEvent(new ConversationRemovedEvent(ConversationType.CHAT, chatId));
     }
     
     // Enhanced message operations
     @Override
-    @Transactional
     public EnhancedMessageResponse sendMessage(EnhancedMessageRequest request, User user) throws ChatException {
-        System.out.println("=== ChatServiceImpl.sendMessage() CALLED ===");
-        System.out.println("  Request chatId: " + request.getChatId());
-        System.out.println("  Request content: " + request.getContent());
-        System.out.println("  User ID: " + user.getId());
-        
-        Chat chat = getChatById(request.getChatId());
-        System.out.println("  Chat found: " + chat.getId());
-        System.out.println("  Chat users count: " + chat.getUsers().size());
+        return MessageWritePipeline.await(submitMessage(request, user));
+    }
+    
+    @Override
+    public CompletableFuture<EnhancedMessageResponse> submitMessage(EnhancedMessageRequest request, User user) throws ChatException {
+        Chat chat = getChatByIdWithUsers(request.getChatId());
         
         // Check if user is part of the chat by comparing IDs (more reliable than contains())
         UUID userId = user.getId();
         boolean userIsInChat = chat.getUsers().stream()
                 .anyMatch(chatUser -> chatUser.getId().equals(userId));
-        
-        System.out.println("  Checking user membership:");
-        System.out.println("    Current user ID: " + userId);
-        System.out.println("    Chat user IDs: " + chat.getUsers().stream()
-                .map(u -> u.getId().toString())
-                .collect(java.util.stream.Collectors.joining(", ")));
-        System.out.println("    User is in chat: " + userIsInChat);
-        
         if (!userIsInChat) {
-            System.err.println("❌ User is not part of this chat");
             throw new ChatException("User is not part of this chat");
         }
-        System.out.println("  ✓ User is part of the chat");
         
-        System.out.println("Creating Message entity...");
         Message message = new Message();
         message.setContent(request.getContent());
         message.setImage(request.getImageUrl());
@@ -157,59 +170,13 @@ public class ChatServiceImpl implements ChatService{
         message.setUser(user);
         message.setChat(chat);
         
-        System.out.println("  Message content set: " + message.getContent());
-        System.out.println("  Message user set: " + message.getUser().getId());
-        System.out.println("  Message chat set: " + message.getChat().getId());
-        
         // Handle reply to message
         if (request.getReplyToId() != null) {
-            Optional<Message> replyToMessage = messageRepo.findById(request.getReplyToId());
-            if (replyToMessage.isPresent()) {
-                message.setReplyTo(replyToMessage.get());
-            }
+            messageRepo.findById(request.getReplyToId()).ifPresent(message::setReplyTo);
         }
         
-        System.out.println("Saving message to database using messageRepo.saveAndFlush()...");
-        try {
-            // Use saveAndFlush to ensure immediate database write
-            Message savedMessage = messageRepo.saveAndFlush(message);
-            System.out.println("✓ Message entity saved and flushed, ID: " + (savedMessage.getId() != null ? savedMessage.getId() : "NULL"));
-            
-            // Verify the message was saved by checking it exists
-            if (savedMessage.getId() != null) {
-                Optional<Message> verifyMessage = messageRepo.findById(savedMessage.getId());
-                if (verifyMessage.isPresent()) {
-                    System.out.println("✓✓✓ VERIFIED: Message exists in database ✓✓✓");
-                    Message verified = verifyMessage.get();
-                    System.out.println("  Verified message content: " + verified.getContent());
-                    System.out.println("  Verified message chat ID: " + verified.getChat().getId());
-                    System.out.println("  Verified message user ID: " + verified.getUser().getId());
-                } else {
-                    System.err.println("❌ WARNING: Message saved but not found when verifying!");
-                }
-            } else {
-                System.err.println("❌ ERROR: Saved message has NULL ID!");
-            }
-            
-            System.out.println("✓✓✓ MESSAGE SAVED TO DATABASE IN REPOSITORY ✓✓✓");
-            System.out.println("  Saved message ID: " + savedMessage.getId());
-            System.out.println("  Saved message content: " + savedMessage.getContent());
-            System.out.println("  Saved message timestamp: " + savedMessage.getTimestamp());
-            System.out.println("  Saved message chat ID: " + savedMessage.getChat().getId());
-            System.out.println("  Saved message user ID: " + savedMessage.getUser().getId());
-            
-            EnhancedMessageResponse response = EnhancedMessageResponse.fromEntity(savedMessage);
-            System.out.println("  Response created with ID: " + response.getId());
-            
-            return response;
-        } catch (Exception e) {
-            System.err.println("❌❌❌ EXCEPTION DURING messageRepo.saveAndFlush() ❌❌❌");
-            System.err.println("Exception type: " + e.getClass().getName());
-            System.err.println("Exception message: " + e.getMessage());
-            System.err.println("Stack trace:");
-            e.printStackTrace();
-            throw e;
-        }
+        // Saved in a batch with other senders' messages; see MessageWritePipeline
+        return messageWritePipeline.submit(message).thenApply(EnhancedMessageResponse::fromEntity);
     }
     
     @Override
@@ -234,6 +201,7 @@ public class ChatServiceImpl implements ChatService{
         
         message.editMessage(newContent);
         Message savedMessage = messageRepo.save(message);
+        publishChange(savedMessage);
         return EnhancedMessageResponse.fromEntity(savedMessage);
     }
     
@@ -253,7 +221,7 @@ public class ChatServiceImpl implements ChatService{
         }
         
         message.deleteMessage();
-        messageRepo.save(message);
+        publishChange(messageRepo.save(message));
     }
     
     @Override
@@ -268,11 +236,95 @@ public class ChatServiceImpl implements ChatService{
         Pageable pageable = PageRequest.of(page, size);
         Page<Message> messagePage = messageRepo.findByChatIdOrderByTimestampDesc(chatId, pageable);
         
-        return messagePage.getContent().stream()
-                .map(EnhancedMessageResponse::fromEntity)
+        return toResponses(chatId, messagePage.getContent());
+    }
+    
+    @Override
+    public PaginatedResponse<EnhancedMessageResponse> getChatMessagesByCursor(UUID chatId, User user, String cursor, int size) throws ChatException {
+        Chat chat = getChatById(chatId);
+        
+        // Check if user is part of the chat
+        if (!chat.getUsers().contains(user)) {
+            throw new ChatException("User is not part of this chat");
+        }
+        
+        PaginatedResponse<Message> messagePage = KeysetPager.page(cursor, size,
+                (timestamp, id, limit) -> messageRepo.findChatPageBefore(chatId, timestamp, id, limit),
+                (timestamp, id, limit) -> messageRepo.findChatPageAfter(chatId, timestamp, id, limit),
+                Message::getTimestamp, Message::getId);
+        
+        return messagePage.withContent(toResponses(chatId, messagePage.getContent()));
+    }
+    
+    @Override
+    public PaginatedResponse<EnhancedMessageResponse> searchMessages(UUID chatId, User user, String query, String cursor, int size) throws ChatException {
+        Chat chat = getChatById(chatId);
+        
+        // Check if user is part of the chat
+        if (!chat.getUsers().contains(user)) {
+            throw new ChatException("User is not part of this chat");
+        }
+        if (size < 1) {
+            throw new ChatException("Page size must be at least 1");
+        }
+        
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        MessageSearchIndex.Result result = messageSearchIndex.search(ConversationType.CHAT,
+                chatId, query, position, size + 1);
+        PaginatedResponse<MessageSearchIndex.Hit> hits = KeysetPager.toResponse(result.hits(), position, size,
+                MessageSearchIndex.Hit::createdAt, MessageSearchIndex.Hit::messageId);
+        
+        Map<UUID, Message> byId = messageRepo.findAllById(hits.getContent().stream()
+                        .map(MessageSearchIndex.Hit::messageId).toList())
+                .stream()
+                .collect(Collectors.toMap(Message::getId, Function.identity()));
+        List<Message> messages = new ArrayList<>(hits.getContent().size());
+        for (MessageSearchIndex.Hit hit : hits.getContent()) {
+            Message message = byId.get(hit.messageId());
+            // Deleted since it was indexed
+            if (message != null && !Boolean.TRUE.equals(message.getIsDeleted())) {
+                messages.add(message);
+            }
+        }
+        return hits.withContent(toResponses(chatId, messages));
+    }
+    
+    // Responses for a page of messages. Unless detailed receipts are on, "seen by"
+    // comes from the chat's read watermarks, loaded once for the whole page.
+    private List<EnhancedMessageResponse> toResponses(UUID chatId, List<Message> messages) {
+        if (readWatermarks.isDetailed()) {
+            return messages.stream()
+                    .map(EnhancedMessageResponse::fromEntity)
+                    .collect(Collectors.toList());
+        }
+        OptionalLong minSeq = messages.stream()
+                .map(Message::getSeq)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .min();
+        List<ReadWatermark> readers = minSeq.isPresent()
+                ? readWatermarks.readersFrom(ConversationType.CHAT, chatId, minSeq.getAsLong())
+                : List.of();
+        List<EnhancedMessageResponse> responses = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            responses.add(EnhancedMessageResponse.fromEntity(message, seenBy(message, readers)));
+        }
+        return responses;
+    }
+    
+    private List<MessageReadResponse> seenBy(Message message, List<ReadWatermark> readers) {
+        return ReadWatermarks.seenBy(readers, message.getSeq(), message.getUser().getId()).stream()
+                .map(reader -> MessageReadResponse.fromWatermark(message.getId(), reader))
                 .collect(Collectors.toList());
     }
     
+    // Keeps message search up to date once the change commits
+    private void publishChange(Message message) {
+        eventPublisher.publishEvent(new MessageChangedEvent(ConversationType.CHAT,
+                message.getChat().getId(), message.getId(), message.getTimestamp(),
+                Boolean.TRUE.equals(message.getIsDeleted()) ? null : message.getContent()));
+    }
+    
     // Message reactions
     @Override
     @Transactional
@@ -349,6 +401,20 @@ public class ChatServiceImpl implements ChatService{
             throw new ChatException("User is not part of this chat");
         }
         
+        // Reading a message reads everything before it
+        UUID chatId = message.getChat().getId();
+        readWatermarks.advance(user.getId(), ConversationType.CHAT, chatId, message.getSeq());
+        
+        if (!readWatermarks.isDetailed()) {
+            MessageReadResponse response = new MessageReadResponse();
+            response.setMessageId(message.getId());
+            response.setUserId(user.getId());
+            response.setUserName(user.getFname() + " " + user.getLname());
+            response.setUserProfileImage(user.getProfileImage());
+            response.setReadAt(LocalDateTime.now());
+            return response;
+        }
+        
         // Check if already read
         Optional<MessageRead> existingRead = messageReadRepo.findByMessageAndUser(message, user);
         if (existingRead.isPresent()) {
@@ -370,6 +436,15 @@ public class ChatServiceImpl implements ChatService{
             throw new ChatException("Message not found with id: " + messageId);
         }
         
+        Message message = messageOptional.get();
+        if (!readWatermarks.isDetailed()) {
+            if (message.getSeq() == null) {
+                return List.of();
+            }
+            return seenBy(message, readWatermarks.readersFrom(ConversationType.CHAT,
+                    message.getChat().getId(), message.getSeq()));
+        }
+        
         List<MessageRead> reads = messageReadRepo.findByMessageId(messageId);
         return reads.stream()
                 .map(MessageReadResponse::fromEntity)
@@ -385,7 +460,7 @@ public class ChatServiceImpl implements ChatService{
             throw new ChatException("User is not part of this chat");
         }
         
-        return messageReadRepo.countUnreadMessagesForUserInChat(user.getId(), chatId);
+        return readWatermarks.unreadCount(user.getId(), ConversationType.CHAT, chatId);
     }
     
     @Override
@@ -397,6 +472,7 @@ public class ChatServiceImpl implements ChatService{
             throw new ChatException("User is not part of this chat");
         }
         
-        return messageReadRepo.findUnreadMessagesForUserInChat(user.getId(), chatId);
+        long lastReadSeq = readWatermarks.lastReadSequence(user.getId(), ConversationType.CHAT, chatId);
+        return messageRepo.findChatMessagesAfterSeq(chatId, lastReadSeq);
     }
 }
@@ -8,6 +8,7 @@ import com.bharat.springbootsocial.repository.CommentRepo;
 import com.bharat.springbootsocial.repository.PostRepo;
 import com.bharat.springbootsocial.repository.ReelsRepo;
 import com.bharat.springbootsocial.repository.UserRepo;
+import com.bharat.springbootsocial.response.LikeResponse;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +35,15 @@ public class CommentServiceImpl implements CommentServices {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private EngagementCounters engagementCounters;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private FeedJsonCache feedJsonCache;
+
     @Override
     @Transactional
     public Comment createComment(Comment comment, UUID postId, UUID userId, UUID reelId) throws Exception {
@@ -81,6 +91,7 @@ public class CommentServiceImpl implements CommentServices {
             );
             // Reload to get updated relationship
             savedComment = commentRepo.findById(savedComment.getId()).orElse(savedComment);
+            engagementCounters.increment(EngagementCounters.Counter.POST_COMMENTS, postId);
         }
         
         if (reelId != null) {
@@ -92,6 +103,7 @@ public class CommentServiceImpl implements CommentServices {
             );
             // Reload to get updated relationship
             savedComment = commentRepo.findById(savedComment.getId()).orElse(savedComment);
+            engagementCounters.increment(EngagementCounters.Counter.REEL_COMMENTS, reelId);
         }
         
         // Send notification if comment is for a post
@@ -127,6 +139,7 @@ public class CommentServiceImpl implements CommentServices {
             throw new Exception("You can only edit your own comments");
         }
         comment.setContent(content);
+        feedJsonCache.invalidate(commentId);
         return commentRepo.save(comment);
     }
 
@@ -138,24 +151,19 @@ public class CommentServiceImpl implements CommentServices {
             throw new Exception("You can only delete your own comments");
         }
         commentRepo.delete(comment);
+        feedJsonCache.invalidate(commentId);
+        if (comment.getPost() != null) {
+            engagementCounters.decrement(EngagementCounters.Counter.POST_COMMENTS, comment.getPost().getId());
+        } else if (comment.getReel() != null) {
+            engagementCounters.decrement(EngagementCounters.Counter.REEL_COMMENTS, comment.getReel().getId());
+        }
         return "Comment deleted successfully";
     }
 
     @Override
     @Transactional
-    public Comment likeComment(UUID commentId, UUID userId) throws Exception {
-        Comment comment = findCommentById(commentId);
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new Exception("User not found"));
-
-        if (comment.getLikedBy().contains(user)) {
-            comment.getLikedBy().remove(user);
-        } else {
-            comment.getLikedBy().add(user);
-            // Send like notification
-            notificationService.sendLikeNotification(comment.getUser(), user, "COMMENT", comment.getId());
-            }
-
-        return commentRepo.save(comment);
+    public LikeResponse likeComment(UUID commentId, UUID userId) throws Exception {
+        // Single-row toggle on the like table; the likers list is not loaded or rewritten
+        return likeService.toggle(LikeService.Target.COMMENT, commentId, userId);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.entity.Comment;
+import com.bharat.springbootsocial.response.LikeResponse;
 
 import java.util.List;
 import java.util.UUID;
@@ -18,5 +19,5 @@ public interface CommentServices {
 
     String deleteComment(UUID commentId, UUID userId) throws Exception;
 
-    Comment likeComment(UUID commentId, UUID userId) throws Exception;
+    LikeResponse likeComment(UUID commentId, UUID userId) throws Exception;
 }
@@ -0,0 +1,450 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.pagination.KeysetCursor;
+import com.bharat.springbootsocial.services.MessageSearchIndex.Hit;
+import com.bharat.springbootsocial.services.MessageSearchIndex.Result;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Inverted index over the messages of one group or direct chat. Messages are
+ * numbered in the order they are indexed (ordinals), and every term maps to a
+ * posting list of the ordinals containing it together with the term's
+ * positions there, delta and varint encoded. An edit tombstones the old
+ * ordinal and indexes the new text under a new one; tombstones are dropped
+ * once they make up half the index. Not thread-safe, callers lock.
+ */
+class ConversationIndex {
+
+    private static final int NO_MORE = Integer.MAX_VALUE;
+    private static final int MIN_COMPACT_DELETED = 256;
+
+    private int size;
+    // Epoch microseconds of the message's createdAt, read as UTC
+    private long[] createdAt = new long[16];
+    private long[] idHigh = new long[16];
+    private long[] idLow = new long[16];
+    // Hash of the indexed terms, so replaying an unchanged message is a no-op
+    private int[] termHashes = new int[16];
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    int liveCount() {
+        return ordinals.size();
+    }
+
+    /**
+     * Indexes the message's terms, replacing an earlier version. Returns false
+     * when the same terms are already indexed for it.
+     */
+    boolean put(UUID messageId, LocalDateTime messageCreatedAt, List<String> terms) {
+        int termHash = terms.hashCode();
+        Integer existing = ordinals.get(messageId);
+        if (existing != null) {
+            if (termHashes[existing] == termHash) {
+                return false;
+            }
+            tombstone(existing);
+        }
+        if (size == createdAt.length) {
+            int capacity = size * 2;
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            idHigh = Arrays.copyOf(idHigh, capacity);
+            idLow = Arrays.copyOf(idLow, capacity);
+            termHashes = Arrays.copyOf(termHashes, capacity);
+        }
+        int ordinal = size++;
+        createdAt[ordinal] = toMicros(messageCreatedAt);
+        idHigh[ordinal] = messageId.getMostSignificantBits();
+        idLow[ordinal] = messageId.getLeastSignificantBits();
+        termHashes[ordinal] = termHash;
+        ordinals.put(messageId, ordinal);
+
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            positions.computeIfAbsent(terms.get(i), term -> new ArrayList<>()).add(i);
+        }
+        positions.forEach((term, at) -> postings.computeIfAbsent(term, t -> new PostingList()).add(ordinal, at));
+        return true;
+    }
+
+    boolean remove(UUID messageId) {
+        Integer ordinal = ordinals.remove(messageId);
+        if (ordinal == null) {
+            return false;
+        }
+        tombstone(ordinal);
+        return true;
+    }
+
+    private void tombstone(int ordinal) {
+        deleted.set(ordinal);
+        deletedCount++;
+        if (deletedCount >= MIN_COMPACT_DELETED && deletedCount * 2 >= size) {
+            compact();
+        }
+    }
+
+    /**
+     * Messages containing every term, and each phrase as consecutive terms, on
+     * the cursor's side of it: older ones newest first, or for a newer-than
+     * cursor newer ones oldest first, as KeysetPager expects.
+     */
+    Result search(List<String> terms, List<List<String>> phrases, KeysetCursor cursor, int limit) {
+        Map<String, PostingList.Reader> readers = new HashMap<>();
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return new Result(List.of(), 0);
+            }
+            readers.computeIfAbsent(term, t -> list.reader());
+        }
+        if (readers.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        // Rarest term leads, the others only skip forward to its matches
+        PostingList.Reader[] order = readers.values().toArray(new PostingList.Reader[0]);
+        Arrays.sort(order, Comparator.comparingInt(PostingList.Reader::docCount));
+
+        long cursorAt = toMicros(cursor.getCreatedAt());
+        long cursorHigh = cursor.getId().getMostSignificantBits();
+        long cursorLow = cursor.getId().getLeastSignificantBits();
+        boolean newer = cursor.isNewer();
+
+        int[] matches = new int[64];
+        int total = 0;
+        PostingList.Reader lead = order[0];
+        int doc = lead.next();
+        candidates:
+        while (doc != NO_MORE) {
+            for (int i = 1; i < order.length; i++) {
+                int at = order[i].advance(doc);
+                if (at != doc) {
+                    doc = at == NO_MORE ? NO_MORE : lead.advance(at);
+                    continue candidates;
+                }
+            }
+            if (!deleted.get(doc) && phrasesMatch(phrases, readers)) {
+                int side = compare(doc, cursorAt, cursorHigh, cursorLow);
+                if (newer ? side > 0 : side < 0) {
+                    if (total == matches.length) {
+                        matches = Arrays.copyOf(matches, total * 2);
+                    }
+                    matches[total++] = doc;
+                }
+            }
+            doc = lead.next();
+        }
+
+        // Ordinals mostly follow time, so walking towards the wanted end first
+        // fills the heap with the final page early and later matches are
+        // rejected after one comparison
+        Comparator<Integer> oldestFirst = this::compareOrdinals;
+        Comparator<Integer> keepOrder = newer ? oldestFirst : oldestFirst.reversed();
+        // Root is the kept hit that would be dropped first
+        PriorityQueue<Integer> kept = new PriorityQueue<>(keepOrder.reversed());
+        for (int i = 0; i < total; i++) {
+            int ordinal = matches[newer ? i : total - 1 - i];
+            if (kept.size() < limit) {
+                kept.add(ordinal);
+            } else if (keepOrder.compare(ordinal, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(ordinal);
+            }
+        }
+
+        List<Integer> page = new ArrayList<>(kept);
+        page.sort(keepOrder);
+        List<Hit> hits = new ArrayList<>(page.size());
+        for (int ordinal : page) {
+            hits.add(new Hit(new UUID(idHigh[ordinal], idLow[ordinal]), fromMicros(createdAt[ordinal])));
+        }
+        return new Result(hits, total);
+    }
+
+    // Every reader is positioned on the same document
+    private static boolean phrasesMatch(List<List<String>> phrases, Map<String, PostingList.Reader> readers) {
+        for (List<String> phrase : phrases) {
+            int[][] positions = new int[phrase.size()][];
+            for (int i = 0; i < phrase.size(); i++) {
+                positions[i] = readers.get(phrase.get(i)).positions();
+            }
+            boolean found = false;
+            for (int start : positions[0]) {
+                int i = 1;
+                while (i < phrase.size() && Arrays.binarySearch(positions[i], start + i) >= 0) {
+                    i++;
+                }
+                if (i == phrase.size()) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // (createdAt, id) order, ids compared unsigned like KeysetCursor does
+    private int compareOrdinals(int a, int b) {
+        return compare(a, createdAt[b], idHigh[b], idLow[b]);
+    }
+
+    private int compare(int ordinal, long at, long high, long low) {
+        int result = Long.compare(createdAt[ordinal], at);
+        if (result == 0) {
+            result = Long.compareUnsigned(idHigh[ordinal], high);
+        }
+        return result != 0 ? result : Long.compareUnsigned(idLow[ordinal], low);
+    }
+
+    // Renumbers live messages densely and drops tombstoned ones from every posting list
+    private void compact() {
+        int[] remap = new int[size];
+        int live = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (deleted.get(ordinal)) {
+                remap[ordinal] = -1;
+                continue;
+            }
+            remap[ordinal] = live;
+            createdAt[live] = createdAt[ordinal];
+            idHigh[live] = idHigh[ordinal];
+            idLow[live] = idLow[ordinal];
+            termHashes[live] = termHashes[ordinal];
+            live++;
+        }
+        postings.replaceAll((term, list) -> list.remap(remap));
+        postings.values().removeIf(list -> list.docCount == 0);
+        ordinals.replaceAll((id, ordinal) -> remap[ordinal]);
+        size = live;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            out.writeLong(createdAt[ordinal]);
+            out.writeLong(idHigh[ordinal]);
+            out.writeLong(idLow[ordinal]);
+            out.writeInt(termHashes[ordinal]);
+        }
+        long[] deletedWords = deleted.toLongArray();
+        out.writeInt(deletedWords.length);
+        for (long word : deletedWords) {
+            out.writeLong(word);
+        }
+        out.writeInt(postings.size());
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            PostingList list = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(list.docCount);
+            out.writeInt(list.lastDoc);
+            out.writeInt(list.length);
+            out.write(list.bytes, 0, list.length);
+        }
+    }
+
+    static ConversationIndex readFrom(DataInput in) throws IOException {
+        ConversationIndex index = new ConversationIndex();
+        int size = in.readInt();
+        int capacity = Math.max(16, size);
+        index.size = size;
+        index.createdAt = new long[capacity];
+        index.idHigh = new long[capacity];
+        index.idLow = new long[capacity];
+        index.termHashes = new int[capacity];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            index.createdAt[ordinal] = in.readLong();
+            index.idHigh[ordinal] = in.readLong();
+            index.idLow[ordinal] = in.readLong();
+            index.termHashes[ordinal] = in.readInt();
+        }
+        long[] deletedWords = new long[in.readInt()];
+        for (int i = 0; i < deletedWords.length; i++) {
+            deletedWords[i] = in.readLong();
+        }
+        index.deleted.or(BitSet.valueOf(deletedWords));
+        index.deletedCount = index.deleted.cardinality();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (!index.deleted.get(ordinal)) {
+                index.ordinals.put(new UUID(index.idHigh[ordinal], index.idLow[ordinal]), ordinal);
+            }
+        }
+        int terms = in.readInt();
+        for (int i = 0; i < terms; i++) {
+            String term = in.readUTF();
+            PostingList list = new PostingList();
+            list.docCount = in.readInt();
+            list.lastDoc = in.readInt();
+            list.length = in.readInt();
+            list.bytes = new byte[Math.max(8, list.length)];
+            in.readFully(list.bytes, 0, list.length);
+            index.postings.put(term, list);
+        }
+        return index;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Ascending ordinals, each written as: varint ordinal delta, varint term
+     * count, varint byte length of the positions, then the varint position
+     * deltas. The length lets readers skip positions they do not need.
+     */
+    static final class PostingList {
+        private byte[] bytes = new byte[8];
+        private int length;
+        private int lastDoc = -1;
+        private int docCount;
+
+        void add(int doc, List<Integer> positions) {
+            int positionBytes = 0;
+            int previous = 0;
+            for (int position : positions) {
+                positionBytes += varIntSize(position - previous);
+                previous = position;
+            }
+            writeVarInt(doc - lastDoc);
+            writeVarInt(positions.size());
+            writeVarInt(positionBytes);
+            previous = 0;
+            for (int position : positions) {
+                writeVarInt(position - previous);
+                previous = position;
+            }
+            lastDoc = doc;
+            docCount++;
+        }
+
+        PostingList remap(int[] remap) {
+            PostingList compacted = new PostingList();
+            Reader reader = reader();
+            for (int doc = reader.next(); doc != NO_MORE; doc = reader.next()) {
+                if (remap[doc] >= 0) {
+                    List<Integer> positions = new ArrayList<>();
+                    for (int position : reader.positions()) {
+                        positions.add(position);
+                    }
+                    compacted.add(remap[doc], positions);
+                }
+            }
+            return compacted;
+        }
+
+        Reader reader() {
+            return new Reader(bytes, length, docCount);
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private static int varIntSize(int value) {
+            int size = 1;
+            while ((value & ~0x7F) != 0) {
+                value >>>= 7;
+                size++;
+            }
+            return size;
+        }
+
+        static final class Reader {
+            private final byte[] bytes;
+            private final int length;
+            private final int docCount;
+            private int offset;
+            private int doc = -1;
+            private int freq;
+            private int positionsAt;
+
+            private Reader(byte[] bytes, int length, int docCount) {
+                this.bytes = bytes;
+                this.length = length;
+                this.docCount = docCount;
+            }
+
+            int docCount() {
+                return docCount;
+            }
+
+            int next() {
+                if (doc == NO_MORE || offset >= length) {
+                    return doc = NO_MORE;
+                }
+                doc += readVarInt();
+                freq = readVarInt();
+                int positionBytes = readVarInt();
+                positionsAt = offset;
+                offset += positionBytes;
+                return doc;
+            }
+
+            // First document at or after target
+            int advance(int target) {
+                while (doc < target) {
+                    next();
+                }
+                return doc;
+            }
+
+            int[] positions() {
+                int[] positions = new int[freq];
+                int saved = offset;
+                offset = positionsAt;
+                int position = 0;
+                for (int i = 0; i < freq; i++) {
+                    position += readVarInt();
+                    positions[i] = position;
+                }
+                offset = saved;
+                return positions;
+            }
+
+            private int readVarInt() {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[offset++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return value;
+            }
+        }
+    }
+}
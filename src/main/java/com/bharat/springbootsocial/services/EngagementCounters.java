@@ -0,0 +1,428 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Denormalized like/comment/view counters. Changes are buffered in memory, one
+ * LongAdder per entity, and written in batched {@code SET c = c + ?} updates by
+ * a scheduled flush, so bursts of likes on a hot post do not queue on its row
+ * lock. A reconciliation job recounts from the join tables to fix any drift.
+ *
+ * Neither buffering nor reading takes a lock. The flush publishes immutable
+ * {@link State}s, each moving deltas from one place to the next in a single
+ * volatile write, so a reader sees every delta exactly once; writers only
+ * register on a per-thread slot of the buffer they add to, which the flush
+ * waits to empty after swapping in a new buffer.
+ */
+@Service
+public class EngagementCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(EngagementCounters.class);
+
+    public enum Counter {
+        POST_LIKES("posts", "like_count", "posts_liked_by", "posts_id"),
+        POST_COMMENTS("posts", "comment_count", "comments", "post_id"),
+        REEL_LIKES("reels", "like_count", "reels_liked_by", "reels_id"),
+        REEL_COMMENTS("reels", "comment_count", "comments", "reel_id"),
+        COMMENT_LIKES("comments", "like_count", "comments_liked_by", "comments_id"),
+        STORY_LIKES("stories", "like_count", "story_likes", "story_id"),
+        STORY_VIEWS("stories", "view_count", "story_views", "story_id");
+
+        private final String table;
+        private final String column;
+        // Rows of this table/column are the source of truth for the counter
+        private final String sourceTable;
+        private final String sourceColumn;
+
+        Counter(String table, String column, String sourceTable, String sourceColumn) {
+            this.table = table;
+            this.column = column;
+            this.sourceTable = sourceTable;
+            this.sourceColumn = sourceColumn;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.counters.reconcile-batch-size:1000}")
+    private int reconcileBatchSize;
+
+    @Value("${app.counters.reconcile-on-startup:false}")
+    private boolean reconcileOnStartup;
+
+    // Flushed deltas are kept this long for readers holding counter values read before the flush
+    private static final long FLUSHED_RETENTION_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // Writer slots per buffer, each on its own cache line
+    private static final int WRITER_SLOTS = 64;
+    private static final int SLOT_STRIDE = 16;
+
+    private static final int COMMIT_STRIPES = 1024;
+
+    // Held by a flush from swap to write, and by reconcile while it fixes a page, so neither overlaps a flush
+    private final Object flushLock = new Object();
+    // Replaced only by the flush, under flushLock
+    private volatile State state = new State(new Buffer(), null, Map.of(), null);
+
+    // Changes that reached beforeCommit, and those buffered or rolled back since, per stripe of (counter, id).
+    // While the two differ a committed change may be in the source table but not yet in the buffer.
+    private final LongAdder[] commitsStarted = newAdders(COMMIT_STRIPES);
+    private final LongAdder[] commitsSettled = newAdders(COMMIT_STRIPES);
+
+    /**
+     * Where every unwritten delta is at one moment: the buffer taking new
+     * changes, the buffer being drained (only while the flush swaps), the
+     * deltas being written and the recently written ones, newest first.
+     */
+    private record State(Buffer pending, Buffer draining, Map<Counter, Map<UUID, Long>> inFlight,
+                         FlushedBatch flushed) {
+    }
+
+    private record FlushedBatch(Counter counter, long committedAt, Map<UUID, Long> deltas, FlushedBatch older) {
+    }
+
+    private static final class Buffer {
+        private final Map<Counter, ConcurrentHashMap<UUID, LongAdder>> adders = new EnumMap<>(Counter.class);
+        // Writers adding to this buffer right now, per slot
+        private final AtomicLongArray writers = new AtomicLongArray(WRITER_SLOTS * SLOT_STRIDE);
+
+        private Buffer() {
+            for (Counter counter : Counter.values()) {
+                adders.put(counter, new ConcurrentHashMap<>());
+            }
+        }
+
+        private long sum(Counter counter, UUID id) {
+            LongAdder adder = adders.get(counter).get(id);
+            return adder != null ? adder.sum() : 0;
+        }
+
+        private void awaitWriters() {
+            for (int slot = 0; slot < WRITER_SLOTS * SLOT_STRIDE; slot += SLOT_STRIDE) {
+                while (writers.get(slot) != 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds delta to a counter. Inside a transaction the change is buffered only
+     * once it commits, so rolled back likes are never counted.
+     */
+    public void add(Counter counter, UUID id, int delta) {
+        int stripe = commitStripe(counter, id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitsStarted[stripe].increment();
+            buffer(counter, id, delta);
+            commitsSettled[stripe].increment();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                commitsStarted[stripe].increment();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!committing) {
+                    return;
+                }
+                if (status == STATUS_COMMITTED) {
+                    buffer(counter, id, delta);
+                }
+                commitsSettled[stripe].increment();
+            }
+        });
+    }
+
+    public void increment(Counter counter, UUID id) {
+        add(counter, id, 1);
+    }
+
+    public void decrement(Counter counter, UUID id) {
+        add(counter, id, -1);
+    }
+
+    /**
+     * Persisted value plus every change it does not include yet: buffered ones,
+     * ones being written, and ones written after the value was read at
+     * {@code readAt} ({@link System#nanoTime()}).
+     */
+    public int current(Counter counter, UUID id, Integer persisted, long readAt) {
+        State state = this.state;
+        long value = persisted != null ? persisted : 0;
+        value += state.pending().sum(counter, id);
+        if (state.draining() != null) {
+            value += state.draining().sum(counter, id);
+        }
+        Map<UUID, Long> writing = state.inFlight().get(counter);
+        if (writing != null) {
+            value += writing.getOrDefault(id, 0L);
+        }
+        for (FlushedBatch batch = state.flushed(); batch != null && batch.committedAt() - readAt > 0;
+             batch = batch.older()) {
+            if (batch.counter() == counter) {
+                value += batch.deltas().getOrDefault(id, 0L);
+            }
+        }
+        return (int) Math.max(0, value);
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        synchronized (flushLock) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+        // Readers sum both buffers until the old one's deltas are published as in flight
+        Buffer drained = state.pending();
+        state = new State(new Buffer(), drained, state.inFlight(), state.flushed());
+        drained.awaitWriters();
+
+        // Deltas of a failed write are still in flight and go out again with the new ones
+        Map<Counter, Map<UUID, Long>> inFlight = new EnumMap<>(Counter.class);
+        state.inFlight().forEach((counter, deltas) -> inFlight.put(counter, new HashMap<>(deltas)));
+        drained.adders.forEach((counter, adders) -> adders.forEach((id, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                inFlight.computeIfAbsent(counter, key -> new HashMap<>()).merge(id, delta, Long::sum);
+            }
+        }));
+        inFlight.values().removeIf(deltas -> {
+            deltas.values().removeIf(delta -> delta == 0);
+            return deltas.isEmpty();
+        });
+        state = new State(state.pending(), null, inFlight, state.flushed());
+
+        for (Counter counter : Counter.values()) {
+            Map<UUID, Long> deltas = state.inFlight().get(counter);
+            if (deltas == null) {
+                continue;
+            }
+            List<Object[]> rows = new ArrayList<>();
+            deltas.forEach((id, delta) -> rows.add(new Object[]{delta, BinaryUuids.toBytes(id)}));
+            try {
+                // One transaction, so a failed batch wrote none of its rows and all of them are retried
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate("UPDATE "
+                        + counter.table + " SET " + counter.column + " = COALESCE(" + counter.column
+                        + ", 0) + ? WHERE id = ?", rows));
+            } catch (RuntimeException e) {
+                // Left in flight for the next flush rather than lost
+                logger.warn("Flushing {} {} counters failed, retrying later: {}", rows.size(), counter, e.getMessage());
+                continue;
+            }
+            // Moves the batch from in flight to flushed in one step
+            Map<Counter, Map<UUID, Long>> stillWriting = new EnumMap<>(Counter.class);
+            stillWriting.putAll(state.inFlight());
+            stillWriting.remove(counter);
+            state = new State(state.pending(), null, stillWriting,
+                    new FlushedBatch(counter, System.nanoTime(), deltas, state.flushed()));
+        }
+
+        state = new State(state.pending(), null, state.inFlight(), retained(state.flushed(), System.nanoTime()));
+    }
+
+    // The batches written within the retention period, rebuilt so older ones can be collected
+    private static FlushedBatch retained(FlushedBatch newest, long now) {
+        List<FlushedBatch> kept = new ArrayList<>();
+        for (FlushedBatch batch = newest; batch != null && now - batch.committedAt() <= FLUSHED_RETENTION_NANOS;
+             batch = batch.older()) {
+            kept.add(batch);
+        }
+        if (kept.isEmpty() || kept.get(kept.size() - 1).older() == null) {
+            return kept.isEmpty() ? null : newest;
+        }
+        FlushedBatch rebuilt = null;
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            FlushedBatch batch = kept.get(i);
+            rebuilt = new FlushedBatch(batch.counter(), batch.committedAt(), batch.deltas(), rebuilt);
+        }
+        return rebuilt;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Recounts every counter from its source table, in id-ordered batches, and
+     * rewrites the ones that drifted.
+     */
+    @Scheduled(cron = "${app.counters.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        for (Counter counter : Counter.values()) {
+            try {
+                int fixed = reconcile(counter);
+                if (fixed > 0) {
+                    logger.info("Reconciled {} drifted {} counters", fixed, counter);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Reconciling {} counters failed", counter, e);
+            }
+        }
+    }
+
+    // A counter to rewrite, with the commits started on its stripe when its unwritten deltas were read
+    private record Fix(UUID id, byte[] rowId, long unwritten, long commitsStarted) {
+    }
+
+    private int reconcile(Counter counter) {
+        String pageSql = "SELECT id, " + counter.column + " FROM " + counter.table
+                + " WHERE id > ? ORDER BY id LIMIT ?";
+        String truthSql = "SELECT " + counter.sourceColumn + ", COUNT(*) FROM " + counter.sourceTable
+                + " WHERE " + counter.sourceColumn + " IN (:ids) GROUP BY " + counter.sourceColumn;
+        // Counts again as it writes, so rows added since the page was checked are included
+        String fixSql = "UPDATE " + counter.table + " t SET " + counter.column + " = (SELECT COUNT(*) FROM "
+                + counter.sourceTable + " s WHERE s." + counter.sourceColumn + " = t.id) - ? WHERE t.id = ?";
+
+        int fixed = 0;
+        byte[] after = new byte[16];
+        while (true) {
+            List<Object[]> page = jdbcTemplate.query(pageSql,
+                    (rs, rowNum) -> new Object[]{rs.getBytes(1), rs.getObject(2) != null ? rs.getLong(2) : null},
+                    after, reconcileBatchSize);
+            if (page.isEmpty()) {
+                return fixed;
+            }
+
+            List<byte[]> ids = page.stream().map(row -> (byte[]) row[0]).toList();
+            Map<UUID, Long> truth = new HashMap<>();
+            namedJdbcTemplate.query(truthSql, Map.of("ids", ids),
+                    rs -> {
+                        truth.put(BinaryUuids.fromBytes(rs.getBytes(1)), rs.getLong(2));
+                    });
+
+            // No flush may write between reading the unwritten deltas and the fix that subtracts them
+            synchronized (flushLock) {
+                // Counters with a change between commit and buffer are left for the next run
+                Set<UUID> unsettled = new HashSet<>();
+                while (true) {
+                    List<Fix> fixes = new ArrayList<>();
+                    for (Object[] row : page) {
+                        UUID id = BinaryUuids.fromBytes((byte[]) row[0]);
+                        int stripe = commitStripe(counter, id);
+                        long started = commitsStarted[stripe].sum();
+                        if (unsettled.contains(id) || commitsSettled[stripe].sum() != started) {
+                            unsettled.add(id);
+                            continue;
+                        }
+                        // Every committed change is in the buffer now, and so counted in unwritten
+                        long unwritten = unwritten(counter, id);
+                        long expected = truth.getOrDefault(id, 0L) - unwritten;
+                        if (row[1] == null || (Long) row[1] != expected) {
+                            fixes.add(new Fix(id, (byte[]) row[0], unwritten, started));
+                        }
+                    }
+                    if (fixes.isEmpty()) {
+                        break;
+                    }
+                    // A change that started committing since may already be in the recount; such fixes are undone
+                    List<UUID> raced = transactionTemplate.execute(status -> {
+                        jdbcTemplate.batchUpdate(fixSql, fixes.stream()
+                                .map(fix -> new Object[]{fix.unwritten(), fix.rowId()}).toList());
+                        List<UUID> changed = fixes.stream()
+                                .filter(fix -> commitsStarted[commitStripe(counter, fix.id())].sum() != fix.commitsStarted())
+                                .map(Fix::id)
+                                .toList();
+                        if (!changed.isEmpty()) {
+                            status.setRollbackOnly();
+                        }
+                        return changed;
+                    });
+                    if (raced.isEmpty()) {
+                        fixed += fixes.size();
+                        break;
+                    }
+                    unsettled.addAll(raced);
+                }
+            }
+
+            after = (byte[]) page.get(page.size() - 1)[0];
+            if (page.size() < reconcileBatchSize) {
+                return fixed;
+            }
+        }
+    }
+
+    // Only called under flushLock, when nothing is being drained
+    private long unwritten(Counter counter, UUID id) {
+        State state = this.state;
+        Map<UUID, Long> writing = state.inFlight().get(counter);
+        return state.pending().sum(counter, id) + (writing != null ? writing.getOrDefault(id, 0L) : 0);
+    }
+
+    private void buffer(Counter counter, UUID id, long delta) {
+        int slot = (int) (Thread.currentThread().getId() & (WRITER_SLOTS - 1)) * SLOT_STRIDE;
+        while (true) {
+            Buffer buffer = state.pending();
+            buffer.writers.incrementAndGet(slot);
+            try {
+                // Checked after registering: a flush that swapped first does not wait for this writer, so retry
+                if (state.pending() == buffer) {
+                    buffer.adders.get(counter).computeIfAbsent(id, key -> new LongAdder()).add(delta);
+                    return;
+                }
+            } finally {
+                buffer.writers.decrementAndGet(slot);
+            }
+        }
+    }
+
+    private static int commitStripe(Counter counter, UUID id) {
+        int h = id.hashCode() * 31 + counter.ordinal();
+        return (h ^ (h >>> 16)) & (COMMIT_STRIPES - 1);
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,242 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.repository.GroupMemberRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends one payload to many users' queues. The payload is serialized once and
+ * the same bytes go to every recipient. Delivery runs on a fixed set of
+ * single-threaded lanes, and a user always maps to the same lane, so fan-outs
+ * run in parallel while each user still gets their messages in send order.
+ * Active member ids of groups are cached until membership changes.
+ */
+@Component
+public class FanoutEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanoutEngine.class);
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GroupMemberRepo groupMemberRepo;
+
+    @Value("${app.fanout.lanes:4}")
+    private int laneCount;
+
+    @Value("${app.fanout.lane-queue-capacity:10000}")
+    private int laneQueueCapacity;
+
+    @Value("${app.fanout.max-cached-groups:10000}")
+    private int maxCachedGroups;
+
+    private ThreadPoolExecutor[] lanes;
+
+    private final Map<UUID, Set<UUID>> groupMembers = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Set<UUID>> eldest) {
+            return size() > maxCachedGroups;
+        }
+    };
+
+    // Bumped by every invalidation, so a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder fanouts = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder memberCacheHits = new LongAdder();
+    private final LongAdder memberCacheMisses = new LongAdder();
+
+    public record Stats(long fanouts, long deliveries, long failures, long queuedTasks,
+                        long memberCacheHits, long memberCacheMisses, long cachedGroups) {
+    }
+
+    @PostConstruct
+    void startLanes() {
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "fanout-" + i;
+            // When a lane is full the sender waits for room rather than dropping or reordering messages
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneQueueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (task, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException(name + " is shut down");
+                        }
+                        try {
+                            executor.getQueue().put(task);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    });
+        }
+    }
+
+    @PreDestroy
+    void stopLanes() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Sends payload to "/user/{id}{queue}" of every active member of the group
+     * except exceptUserId (which may be null).
+     */
+    public void sendToGroup(UUID groupId, UUID exceptUserId, String queue, Object payload) {
+        Set<UUID> members = activeMemberIds(groupId);
+        List<UUID> recipients = new ArrayList<>(members.size());
+        for (UUID memberId : members) {
+            if (!memberId.equals(exceptUserId)) {
+                recipients.add(memberId);
+            }
+        }
+        sendToUsers(recipients, queue, payload);
+    }
+
+    /**
+     * Sends payload to "/user/{id}{queue}" of each user. Returns once the
+     * deliveries are queued; they happen on the fan-out lanes.
+     */
+    public void sendToUsers(Collection<UUID> userIds, String queue, Object payload) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Message<byte[]> message = serialize(payload);
+        fanouts.increment();
+
+        List<List<UUID>> byLane = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            byLane.add(new ArrayList<>());
+        }
+        for (UUID userId : userIds) {
+            byLane.get(Math.floorMod(userId.hashCode(), laneCount)).add(userId);
+        }
+        for (int i = 0; i < laneCount; i++) {
+            List<UUID> recipients = byLane.get(i);
+            if (!recipients.isEmpty()) {
+                lanes[i].execute(() -> deliver(recipients, queue, message));
+            }
+        }
+    }
+
+    public Set<UUID> activeMemberIds(UUID groupId) {
+        synchronized (groupMembers) {
+            Set<UUID> members = groupMembers.get(groupId);
+            if (members != null) {
+                memberCacheHits.increment();
+                return members;
+            }
+        }
+        memberCacheMisses.increment();
+        long loadedAt = generation.get();
+        Set<UUID> members = Set.copyOf(groupMemberRepo.findActiveMemberIdsByGroupId(groupId));
+        synchronized (groupMembers) {
+            if (generation.get() == loadedAt) {
+                groupMembers.put(groupId, members);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Forgets the group's cached member ids. Call after a membership change;
+     * inside a transaction it is repeated after commit.
+     */
+    public void invalidateMembers(UUID groupId) {
+        AfterCommit.nowAndAfterCommit(() -> evictMembers(groupId));
+    }
+
+    public Stats stats() {
+        long queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        int cachedGroups;
+        synchronized (groupMembers) {
+            cachedGroups = groupMembers.size();
+        }
+        return new Stats(fanouts.sum(), deliveries.sum(), failures.sum(), queued,
+                memberCacheHits.sum(), memberCacheMisses.sum(), cachedGroups);
+    }
+
+    private void evictMembers(UUID groupId) {
+        synchronized (groupMembers) {
+            generation.incrementAndGet();
+            groupMembers.remove(groupId);
+        }
+    }
+
+    // Same JSON the template's converter would produce, built once for all recipients
+    private Message<byte[]> serialize(Object payload) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Could not serialize fan-out payload: " + e.getMessage(), e);
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    private void deliver(List<UUID> recipients, String queue, Message<byte[]> message) {
+        int failed = 0;
+        for (UUID userId : recipients) {
+            try {
+                messagingTemplate.send("/user/" + userId + queue, message);
+            } catch (RuntimeException e) {
+                failed++;
+                logger.debug("Fan-out to {}{} failed: {}", userId, queue, e.getMessage());
+            }
+        }
+        deliveries.add(recipients.size() - failed);
+        if (failed > 0) {
+            failures.add(failed);
+            logger.warn("Fan-out to {} failed for {} of {} recipients", queue, failed, recipients.size());
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.Comment;
+import com.bharat.springbootsocial.entity.Post;
+import com.bharat.springbootsocial.entity.Reels;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.repository.CommentRepo;
+import com.bharat.springbootsocial.repository.PostRepo;
+import com.bharat.springbootsocial.repository.ReelsRepo;
+import com.bharat.springbootsocial.repository.UserRepo;
+import com.bharat.springbootsocial.response.ContentResponse;
+import com.bharat.springbootsocial.response.FeedItemJson;
+import com.bharat.springbootsocial.response.PostResponse;
+import com.bharat.springbootsocial.response.ReelsResponse;
+import com.bharat.springbootsocial.services.EngagementCounters.Counter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds feed responses for a page of posts and reels. Preview likers and latest
+ * comments are answered for the whole page by a fixed number of grouped queries
+ * and stitched together in memory, instead of walking each item's lazy
+ * collections. Totals come from the denormalized counter columns and the
+ * viewer's likes from {@link LikedItemsCache}. Responses carry the shared
+ * JSON fragments of their item, comments and users from {@link FeedJsonCache}.
+ */
+@Component
+public class FeedAssembler {
+
+    private static final int PREVIEW_SIZE = 3;
+
+    // Matches no user, so viewer-specific ordering has no effect for anonymous reads
+    private static final UUID NO_VIEWER = new UUID(0L, 0L);
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private ReelsRepo reelsRepo;
+
+    @Autowired
+    private CommentRepo commentRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private EngagementCounters counters;
+
+    @Autowired
+    private LikedItemsCache likedItemsCache;
+
+    @Autowired
+    private FeedJsonCache feedJsonCache;
+
+    public List<PostResponse> toPostResponses(List<Post> posts, UUID viewerId) {
+        PageData data = load(posts, List.of(), viewerId);
+        return posts.stream().map(post -> {
+            PostResponse response = new PostResponse();
+            response.setId(post.getId());
+            response.setCaption(post.getCaption());
+            response.setImage(post.getImage());
+            response.setVideo(post.getVideo());
+            response.setUser(data.user(post.getUser()));
+            response.setCreatedAt(post.getCreatedAt());
+            response.setTotalLikes(postLikes(post));
+            response.setTotalComments(postComments(post));
+            response.setIsLiked(data.likedByViewer(post.getId()));
+            response.setRecentLikedBy(data.previewLikers(post.getId()));
+            response.setRecentComments(data.latestComments(post.getId()).stream()
+                    .map(comment -> new PostResponse.CommentResponse(comment.getId(), comment.getContent(),
+                            data.user(comment.getUser()), commentLikes(comment),
+                            data.likedByViewer(comment.getId()), comment.getCreatedAt()))
+                    .collect(Collectors.toList()));
+            response.setJson(data.json(feedJsonCache::post, post));
+            return response;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Converts a mixed list of {@link Post} and {@link Reels} entities, keeping its order.
+     */
+    public List<ContentResponse> toContentResponses(List<?> items, UUID viewerId) {
+        List<Post> posts = new ArrayList<>();
+        List<Reels> reels = new ArrayList<>();
+        for (Object item : items) {
+            if (item instanceof Post post) {
+                posts.add(post);
+            } else if (item instanceof Reels reel) {
+                reels.add(reel);
+            }
+        }
+        PageData data = load(posts, reels, viewerId);
+
+        List<ContentResponse> responses = new ArrayList<>(items.size());
+        for (Object item : items) {
+            ContentResponse response = new ContentResponse();
+            if (item instanceof Post post) {
+                response.setId(post.getId());
+                response.setType("post");
+                response.setCaption(post.getCaption());
+                response.setImage(post.getImage());
+                response.setVideo(post.getVideo());
+                response.setUser(data.user(post.getUser()));
+                response.setCreatedAt(post.getCreatedAt());
+                response.setTotalLikes(postLikes(post));
+                response.setTotalComments(postComments(post));
+                response.setJson(data.json(feedJsonCache::content, post));
+            } else if (item instanceof Reels reel) {
+                response.setId(reel.getId());
+                response.setType("reel");
+                response.setTitle(reel.getTitle());
+                response.setVideo(reel.getVideo());
+                response.setUser(data.user(reel.getUser()));
+                response.setCreatedAt(reel.getCreatedAt());
+                response.setTotalLikes(reelLikes(reel));
+                response.setTotalComments(reelComments(reel));
+                response.setJson(data.json(feedJsonCache::content, reel));
+            } else {
+                continue;
+            }
+            UUID id = response.getId();
+            response.setIsLiked(data.likedByViewer(id));
+            response.setRecentLikedBy(data.previewLikers(id));
+            response.setRecentComments(data.latestComments(id).stream()
+                    .map(comment -> new ContentResponse.CommentResponse(comment.getId(), comment.getContent(),
+                            data.user(comment.getUser()), commentLikes(comment),
+                            data.likedByViewer(comment.getId()), comment.getCreatedAt()))
+                    .collect(Collectors.toList()));
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * Reel cards carry every liker id rather than previews, so only authors and
+     * liker ids are loaded.
+     */
+    public List<ReelsResponse> toReelsResponses(List<Reels> reels) {
+        if (reels.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<UUID> reelIds = reels.stream().map(Reels::getId).toList();
+
+        Map<UUID, List<UUID>> likerIds = new HashMap<>();
+        for (Object[] row : reelsRepo.findLikerIdsByReelIds(reelIds)) {
+            likerIds.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((UUID) row[1]);
+        }
+        Map<UUID, User> users = loadUsers(reels.stream().map(reel -> reel.getUser().getId()).collect(Collectors.toSet()));
+
+        return reels.stream().map(reel -> {
+            List<UUID> likedBy = likerIds.getOrDefault(reel.getId(), List.of());
+            return new ReelsResponse(reel.getId(), reel.getTitle(), reel.getVideo(),
+                    users.getOrDefault(reel.getUser().getId(), reel.getUser()), likedBy, reel.getCreatedAt(),
+                    likedBy.size(), reelComments(reel));
+        }).collect(Collectors.toList());
+    }
+
+    private PageData load(List<Post> posts, List<Reels> reels, UUID viewerId) {
+        UUID viewer = viewerId != null ? viewerId : NO_VIEWER;
+        PageData data = new PageData();
+        List<Comment> comments = new ArrayList<>();
+        Set<UUID> userIds = new HashSet<>();
+
+        if (!posts.isEmpty()) {
+            List<UUID> postIds = posts.stream().map(Post::getId).toList();
+            addPairs(data.previewLikerIds, postRepo.findPreviewLikers(postIds, viewer, PREVIEW_SIZE));
+            comments.addAll(commentRepo.findLatestByPostIds(postIds, PREVIEW_SIZE));
+            posts.forEach(post -> userIds.add(post.getUser().getId()));
+        }
+        if (!reels.isEmpty()) {
+            List<UUID> reelIds = reels.stream().map(Reels::getId).toList();
+            addPairs(data.previewLikerIds, reelsRepo.findPreviewLikers(reelIds, viewer, PREVIEW_SIZE));
+            comments.addAll(commentRepo.findLatestByReelIds(reelIds, PREVIEW_SIZE));
+            reels.forEach(reel -> userIds.add(reel.getUser().getId()));
+        }
+
+        if (!comments.isEmpty()) {
+            for (Comment comment : comments) {
+                UUID parentId = comment.getPost() != null ? comment.getPost().getId() : comment.getReel().getId();
+                data.latestComments.computeIfAbsent(parentId, id -> new ArrayList<>()).add(comment);
+                userIds.add(comment.getUser().getId());
+            }
+        }
+
+        // The viewer's likes across items and preview comments, usually answered from memory
+        if (viewerId != null) {
+            List<UUID> itemIds = new ArrayList<>();
+            posts.forEach(post -> itemIds.add(post.getId()));
+            reels.forEach(reel -> itemIds.add(reel.getId()));
+            comments.forEach(comment -> itemIds.add(comment.getId()));
+            data.likedByViewer.addAll(likedItemsCache.likedAmong(viewerId, itemIds));
+        }
+
+        data.previewLikerIds.values().forEach(userIds::addAll);
+        data.users.putAll(loadUsers(userIds));
+
+        if (feedJsonCache.enabled()) {
+            data.userJson = feedJsonCache.users(data.users.values());
+            data.commentJson = feedJsonCache.comments(comments);
+        }
+        return data;
+    }
+
+    private int postLikes(Post post) {
+        return counters.current(Counter.POST_LIKES, post.getId(), post.getLikeCount(), post.getCountersLoadedAt());
+    }
+
+    private int postComments(Post post) {
+        return counters.current(Counter.POST_COMMENTS, post.getId(), post.getCommentCount(), post.getCountersLoadedAt());
+    }
+
+    private int reelLikes(Reels reel) {
+        return counters.current(Counter.REEL_LIKES, reel.getId(), reel.getLikeCount(), reel.getCountersLoadedAt());
+    }
+
+    private int reelComments(Reels reel) {
+        return counters.current(Counter.REEL_COMMENTS, reel.getId(), reel.getCommentCount(), reel.getCountersLoadedAt());
+    }
+
+    private int commentLikes(Comment comment) {
+        return counters.current(Counter.COMMENT_LIKES, comment.getId(), comment.getLikeCount(),
+                comment.getCountersLoadedAt());
+    }
+
+    private Map<UUID, User> loadUsers(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return userRepo.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+    }
+
+    private static void addPairs(Map<UUID, List<UUID>> target, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            target.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((UUID) row[1]);
+        }
+    }
+
+    // Everything loaded for one page, keyed by post / reel / comment id
+    private static class PageData {
+        private final Map<UUID, List<UUID>> previewLikerIds = new HashMap<>();
+        private final Map<UUID, List<Comment>> latestComments = new HashMap<>();
+        private final Set<UUID> likedByViewer = new HashSet<>();
+        private final Map<UUID, User> users = new HashMap<>();
+        // Null when the JSON cache is off
+        private Map<UUID, FeedItemJson.Fragment> userJson;
+        private Map<UUID, FeedItemJson.Fragment> commentJson;
+
+        private List<User> previewLikers(UUID id) {
+            return previewLikerIds.getOrDefault(id, List.of()).stream()
+                    .map(users::get)
+                    .filter(user -> user != null)
+                    .collect(Collectors.toList());
+        }
+
+        private List<Comment> latestComments(UUID id) {
+            return latestComments.getOrDefault(id, List.of());
+        }
+
+        private boolean likedByViewer(UUID id) {
+            return likedByViewer.contains(id);
+        }
+
+        private User user(User reference) {
+            return reference == null ? null : users.getOrDefault(reference.getId(), reference);
+        }
+
+        private <T> FeedItemJson json(Function<T, FeedItemJson.Fragment> fragment, T item) {
+            return userJson == null ? null : new FeedItemJson(fragment.apply(item), commentJson, userJson);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.Comment;
+import com.bharat.springbootsocial.entity.Post;
+import com.bharat.springbootsocial.entity.Reels;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.UserChangedEvent;
+import com.bharat.springbootsocial.response.FeedItemJson.Fragment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * JSON fragments of feed items, comments and users, serialized once with the
+ * application's ObjectMapper and shared by every viewer's feed. Only fields
+ * that change on an edit are cached; counts, likes and the preview lists are
+ * written per response around them (see FeedItemJson), so likes and new
+ * comments never invalidate anything. A fragment is dropped when its comment
+ * is edited or deleted, its item deleted or its user changed. Fragments live
+ * in a {@link BoundedCache}, so lookups take no lock, and an invalidation only
+ * keeps fragments of its own id that were being built meanwhile out of it.
+ */
+@Component
+public class FeedJsonCache {
+
+    private static final SerializedString EMPTY = new SerializedString("");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.feed-json.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.feed-json.max-fragments:50000}")
+    private int maxFragments;
+
+    // The same post is cut differently for the post and the mixed content feeds
+    private enum Kind { POST, POST_CONTENT, REEL_CONTENT, COMMENT, USER }
+
+    private record Key(Kind kind, UUID id) {
+    }
+
+    public record Stats(long hits, long misses, long cached) {
+    }
+
+    private BoundedCache<Key, Fragment> fragments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    void createCache() {
+        fragments = new BoundedCache<>(maxFragments);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * id, caption, image and video of a post as a PostResponse, and its createdAt.
+     */
+    public Fragment post(Post post) {
+        return fragment(Kind.POST, post.getId(), () -> {
+            Map<String, Object> head = new LinkedHashMap<>();
+            head.put("id", post.getId());
+            head.put("caption", post.getCaption());
+            head.put("image", post.getImage());
+            head.put("video", post.getVideo());
+            return cut(head, post.getCreatedAt());
+        });
+    }
+
+    /**
+     * The leading fields of a post as a ContentResponse, and its createdAt.
+     */
+    public Fragment content(Post post) {
+        return fragment(Kind.POST_CONTENT, post.getId(), () -> {
+            Map<String, Object> head = new LinkedHashMap<>();
+            head.put("id", post.getId());
+            head.put("type", "post");
+            head.put("caption", post.getCaption());
+            head.put("title", null);
+            head.put("image", post.getImage());
+            head.put("video", post.getVideo());
+            return cut(head, post.getCreatedAt());
+        });
+    }
+
+    /**
+     * The leading fields of a reel as a ContentResponse, and its createdAt.
+     */
+    public Fragment content(Reels reel) {
+        return fragment(Kind.REEL_CONTENT, reel.getId(), () -> {
+            Map<String, Object> head = new LinkedHashMap<>();
+            head.put("id", reel.getId());
+            head.put("type", "reel");
+            head.put("caption", null);
+            head.put("title", reel.getTitle());
+            head.put("image", null);
+            head.put("video", reel.getVideo());
+            return cut(head, reel.getCreatedAt());
+        });
+    }
+
+    /**
+     * id and content of each preview comment, and its createdAt, by comment id.
+     */
+    public Map<UUID, Fragment> comments(Collection<Comment> comments) {
+        return fragments(Kind.COMMENT, comments, Comment::getId, comment -> {
+            Map<String, Object> head = new LinkedHashMap<>();
+            head.put("id", comment.getId());
+            head.put("content", comment.getContent());
+            return cut(head, comment.getCreatedAt());
+        });
+    }
+
+    /**
+     * Each whole user as it appears in feed items, by user id. Pass loaded
+     * users only, not lazy references.
+     */
+    public Map<UUID, Fragment> users(Collection<User> users) {
+        return fragments(Kind.USER, users, User::getId, user -> new Fragment(serialized(write(user)), EMPTY));
+    }
+
+    /**
+     * Forgets every fragment of the post, reel, comment or user with this id.
+     * Call after editing or deleting one; inside a transaction it is repeated
+     * after commit so reads made meanwhile do not bring back the old row.
+     */
+    public void invalidate(UUID id) {
+        AfterCommit.nowAndAfterCommit(() -> evict(id));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getUserId());
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), fragments.size());
+    }
+
+    private Fragment fragment(Kind kind, UUID id, Supplier<Fragment> build) {
+        Key key = new Key(kind, id);
+        Fragment fragment = fragments.get(key);
+        if (fragment != null) {
+            hits.increment();
+            return fragment;
+        }
+        misses.increment();
+        // Taken before building, so a fragment of a row that changed meanwhile is not cached
+        long stamp = fragments.stamp(key);
+        fragment = build.get();
+        fragments.putIfUnchanged(key, fragment, stamp);
+        return fragment;
+    }
+
+    private <T> Map<UUID, Fragment> fragments(Kind kind, Collection<T> values, Function<T, UUID> id,
+                                              Function<T, Fragment> build) {
+        Map<UUID, Fragment> found = new HashMap<>(values.size() * 2);
+        int missing = 0;
+        for (T value : values) {
+            Key key = new Key(kind, id.apply(value));
+            Fragment fragment = fragments.get(key);
+            if (fragment == null) {
+                missing++;
+                long stamp = fragments.stamp(key);
+                fragment = build.apply(value);
+                fragments.putIfUnchanged(key, fragment, stamp);
+            }
+            found.put(key.id(), fragment);
+        }
+        hits.add(values.size() - missing);
+        misses.add(missing);
+        return found;
+    }
+
+    private void evict(UUID id) {
+        for (Kind kind : Kind.values()) {
+            fragments.invalidate(new Key(kind, id));
+        }
+    }
+
+    // Serializes head and createdAt as two objects and drops the braces between them
+    private Fragment cut(Map<String, Object> head, LocalDateTime createdAt) {
+        String open = write(head);
+        String close = write(Collections.singletonMap("createdAt", createdAt));
+        return new Fragment(serialized(open.substring(0, open.length() - 1)), serialized("," + close.substring(1)));
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize feed fragment: " + e.getMessage(), e);
+        }
+    }
+
+    // Encoded to UTF-8 once here rather than by the first response that writes it
+    private static SerializedString serialized(String json) {
+        SerializedString string = new SerializedString(json);
+        string.asUnquotedUTF8();
+        return string;
+    }
+}
@@ -0,0 +1,158 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.LegacyFollowLists;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.bharat.springbootsocial.repository.FollowRepo;
+import com.bharat.springbootsocial.repository.LegacyFollowListsRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Copies the legacy serialized users.following / users.followers lists into the
+ * follows table. Enable with app.follow-graph.migrate-legacy=true for one start,
+ * then switch it off again. Users are read in id-keyset pages; each page's
+ * edges are checked against the users table with a few IN queries and written
+ * as one JDBC batch of INSERT IGNORE, so a re-run is harmless.
+ */
+@Component
+public class FollowGraphMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowGraphMigrator.class);
+
+    // Ids per existence query
+    private static final int EXISTS_CHUNK = 1000;
+
+    @Autowired
+    private LegacyFollowListsRepo legacyFollowListsRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.follow-graph.migrate-legacy:false}")
+    private boolean migrateLegacy;
+
+    @Value("${app.follow-graph.migration-batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!migrateLegacy) {
+            return;
+        }
+        logger.info("Migrating legacy follow lists into the follows table");
+        long inserted = migrate();
+        logger.info("Follow graph migration finished, {} edges inserted", inserted);
+    }
+
+    public long migrate() {
+        long inserted = 0;
+        UUID after = new UUID(0, 0);
+        while (true) {
+            final UUID pageAfter = after;
+            Page page = transactionTemplate.execute(status -> migratePage(pageAfter));
+            if (page == null) {
+                break;
+            }
+            inserted += page.inserted();
+            if (page.lastId() == null) {
+                break;
+            }
+            after = page.lastId();
+        }
+        return inserted;
+    }
+
+    // lastId is null once there are no more users
+    private record Page(UUID lastId, long inserted) {
+    }
+
+    private record Edge(UUID followerId, UUID followeeId) {
+    }
+
+    private Page migratePage(UUID after) {
+        List<LegacyFollowLists> users = legacyFollowListsRepo.findByIdGreaterThan(after,
+                PageRequest.of(0, batchSize, Sort.by("id")));
+        // Both ends of an edge usually list it, so it is only inserted once
+        Set<Edge> edges = new LinkedHashSet<>();
+        for (LegacyFollowLists user : users) {
+            collectEdges(user.getId(), user.getFollowing(), true, edges);
+            collectEdges(user.getId(), user.getFollowers(), false, edges);
+        }
+
+        Set<UUID> others = new HashSet<>();
+        for (Edge edge : edges) {
+            others.add(edge.followerId());
+            others.add(edge.followeeId());
+        }
+        Set<UUID> existing = new HashSet<>(others.size() * 2);
+        List<UUID> chunk = new ArrayList<>(EXISTS_CHUNK);
+        for (UUID id : others) {
+            chunk.add(id);
+            if (chunk.size() == EXISTS_CHUNK) {
+                existing.addAll(legacyFollowListsRepo.findExistingIds(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            existing.addAll(legacyFollowListsRepo.findExistingIds(chunk));
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(edges.size());
+        for (Edge edge : edges) {
+            if (existing.contains(edge.followerId()) && existing.contains(edge.followeeId())) {
+                rows.add(new Object[]{BinaryUuids.toBytes(edge.followerId()), BinaryUuids.toBytes(edge.followeeId()), now});
+            }
+        }
+        long inserted = 0;
+        if (!rows.isEmpty()) {
+            // Rows the driver reports as SUCCESS_NO_INFO are inserted but not counted
+            for (int count : jdbcTemplate.batchUpdate(FollowRepo.INSERT_IF_ABSENT_SQL, rows)) {
+                if (count > 0) {
+                    inserted += count;
+                }
+            }
+        }
+        UUID lastId = users.size() < batchSize ? null : users.get(users.size() - 1).getId();
+        return new Page(lastId, inserted);
+    }
+
+    private void collectEdges(UUID userId, List<String> otherIds, boolean outgoing, Set<Edge> into) {
+        if (otherIds == null || otherIds.isEmpty()) {
+            return;
+        }
+        for (String rawId : otherIds) {
+            UUID otherId;
+            try {
+                otherId = UUID.fromString(rawId);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                logger.warn("Skipping malformed follow id '{}' on user {}", rawId, userId);
+                continue;
+            }
+            if (!otherId.equals(userId)) {
+                into.add(outgoing ? new Edge(userId, otherId) : new Edge(otherId, userId));
+            }
+        }
+    }
+}
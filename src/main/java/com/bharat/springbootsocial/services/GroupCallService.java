@@ -6,12 +6,14 @@ import com.bharat.springbootsocial.entity.User;
 import java.util.UUID;
 import com.bharat.springbootsocial.exception.UserException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface GroupCallService {
     
     // Group call room management
     GroupCallRoom createGroupCallRoom(User creator, UUID groupId, GroupCallRoom.CallType callType, String roomName) throws UserException;
+    GroupCallRoom createGroupCallRoom(User creator, UUID groupId, GroupCallRoom.CallType callType, String roomName, LocalDateTime scheduledAt) throws UserException;
     GroupCallRoom joinGroupCallRoom(String roomId, User user) throws UserException;
     void leaveGroupCallRoom(String roomId, User user) throws UserException;
     void endGroupCallRoom(String roomId, User user) throws UserException;
@@ -37,6 +39,10 @@ public interface GroupCallService {
     GroupCallRoom pauseGroupCall(String roomId, User user) throws UserException;
     GroupCallRoom resumeGroupCall(String roomId, User user) throws UserException;
     
+    // Call lifecycle: no permission checks, for timers rather than users
+    GroupCallRoom startScheduledGroupCallRoom(String roomId) throws UserException;
+    void closeGroupCallRoom(String roomId) throws UserException;
+    
     // Group call room statistics
     int getGroupCallRoomParticipantCount(String roomId) throws UserException;
     long getGroupCallRoomDuration(String roomId) throws UserException;
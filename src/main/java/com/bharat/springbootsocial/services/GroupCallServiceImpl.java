@@ -3,17 +3,19 @@ package com.bharat.springbootsocial.services;
 import com.bharat.springbootsocial.entity.Group;
 import com.bharat.springbootsocial.entity.GroupCallRoom;
 import com.bharat.springbootsocial.entity.GroupCallSession;
-import com.bharat.springbootsocial.entity.GroupMember;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.GroupCallScheduledEvent;
 import com.bharat.springbootsocial.exception.UserException;
 import com.bharat.springbootsocial.repository.GroupCallRoomRepo;
 import com.bharat.springbootsocial.repository.GroupCallSessionRepo;
 import com.bharat.springbootsocial.repository.GroupMemberRepo;
 import com.bharat.springbootsocial.repository.GroupRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.UUID;
 import java.util.HashMap;
@@ -38,8 +40,22 @@ public class GroupCallServiceImpl implements GroupCallService {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
     
+    @Autowired
+    private FanoutEngine fanoutEngine;
+    
+    @Autowired
+    private CallRoomRegistry callRoomRegistry;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public GroupCallRoom createGroupCallRoom(User creator, UUID groupId, GroupCallRoom.CallType callType, String roomName) throws UserException {
+        return createGroupCallRoom(creator, groupId, callType, roomName, null);
+    }
+    
+    @Override
+    public GroupCallRoom createGroupCallRoom(User creator, UUID groupId, GroupCallRoom.CallType callType, String roomName, LocalDateTime scheduledAt) throws UserException {
         try {
             System.out.println("=== DEBUG: Creating group call room ===");
             System.out.println("Creator ID: " + creator.getId() + " (" + creator.getFname() + " " + creator.getLname() + ")");
@@ -71,12 +87,26 @@ public class GroupCallServiceImpl implements GroupCallService {
             room.setIsActive(true);
             room.setMaxParticipants(50); // Default for group calls
             
+            // Members are notified when a scheduled call starts rather than now
+            boolean scheduled = scheduledAt != null && scheduledAt.isAfter(LocalDateTime.now());
+            if (scheduled) {
+                room.setStatus(GroupCallRoom.CallStatus.SCHEDULED);
+                room.setIsScheduled(true);
+                room.setScheduledAt(scheduledAt);
+            }
+            
             // Add creator as first participant
             room.addParticipant(creator);
             
             GroupCallRoom savedRoom = groupCallRoomRepo.save(room);
+            callRoomRegistry.update(savedRoom);
             System.out.println("Group call room saved successfully with ID: " + savedRoom.getId() + ", Room ID: " + savedRoom.getRoomId());
             
+            if (scheduled) {
+                eventPublisher.publishEvent(new GroupCallScheduledEvent(savedRoom.getRoomId(), scheduledAt));
+                return savedRoom;
+            }
+            
             // Notify group members about the new call room
             System.out.println("🔔 About to call notifyGroupCallRoomCreated...");
             notifyGroupCallRoomCreated(savedRoom);
@@ -104,6 +134,7 @@ public class GroupCallServiceImpl implements GroupCallService {
             if (!room.isParticipant(user)) {
                 room.addParticipant(user);
                 groupCallRoomRepo.save(room);
+                callRoomRegistry.update(room);
                 
                 // Create or update call session
                 createOrUpdateGroupCallSession(room, user);
@@ -127,6 +158,7 @@ public class GroupCallServiceImpl implements GroupCallService {
             if (room.isParticipant(user)) {
                 room.removeParticipant(user);
                 groupCallRoomRepo.save(room);
+                callRoomRegistry.update(room);
                 
                 // Update call session
                 updateGroupCallSessionOnLeave(room, user);
@@ -157,6 +189,7 @@ public class GroupCallServiceImpl implements GroupCallService {
             
             room.endCall();
             groupCallRoomRepo.save(room);
+            callRoomRegistry.update(room);
             
             // Notify all participants
             notifyGroupCallRoomEnded(room);
@@ -224,6 +257,7 @@ public class GroupCallServiceImpl implements GroupCallService {
         if (!room.isParticipant(user)) {
             room.addParticipant(user);
             groupCallRoomRepo.save(room);
+            callRoomRegistry.update(room);
             notifyUserJoinedGroupCallRoom(room, user);
         }
     }
@@ -235,6 +269,7 @@ public class GroupCallServiceImpl implements GroupCallService {
         if (room.isParticipant(user)) {
             room.removeParticipant(user);
             groupCallRoomRepo.save(room);
+            callRoomRegistry.update(room);
             notifyUserLeftGroupCallRoom(room, user);
         }
     }
@@ -307,12 +342,44 @@ public class GroupCallServiceImpl implements GroupCallService {
         
         room.startCall();
         GroupCallRoom savedRoom = groupCallRoomRepo.save(room);
+        callRoomRegistry.update(savedRoom);
         
         notifyGroupCallRoomStarted(savedRoom);
         
         return savedRoom;
     }
     
+    @Override
+    public GroupCallRoom startScheduledGroupCallRoom(String roomId) throws UserException {
+        GroupCallRoom room = getGroupCallRoomById(roomId);
+        if (!room.getIsActive() || room.getStatus() != GroupCallRoom.CallStatus.SCHEDULED) {
+            return room;
+        }
+        
+        room.setStatus(GroupCallRoom.CallStatus.WAITING);
+        room.setIsScheduled(false);
+        GroupCallRoom savedRoom = groupCallRoomRepo.save(room);
+        callRoomRegistry.update(savedRoom);
+        
+        notifyGroupCallRoomCreated(savedRoom);
+        
+        return savedRoom;
+    }
+    
+    @Override
+    public void closeGroupCallRoom(String roomId) throws UserException {
+        GroupCallRoom room = getGroupCallRoomById(roomId);
+        if (!room.getIsActive()) {
+            return;
+        }
+        
+        room.endCall();
+        groupCallRoomRepo.save(room);
+        callRoomRegistry.update(room);
+        
+        notifyGroupCallRoomEnded(room);
+    }
+    
     @Override
     public GroupCallRoom pauseGroupCall(String roomId, User user) throws UserException {
         // Implementation for pausing group call
@@ -353,66 +420,41 @@ public class GroupCallServiceImpl implements GroupCallService {
             System.out.println("Created By: " + room.getCreatedBy().getFname() + " " + room.getCreatedBy().getLname());
             System.out.println("Created By ID: " + room.getCreatedBy().getId());
             
-            // Send notification to all group members
-            System.out.println("🔍 Fetching group members for Group ID: " + room.getGroup().getId());
-            List<GroupMember> groupMembers = groupMemberRepo.findActiveMembersByGroupId(room.getGroup().getId());
-            System.out.println("Total group members found: " + groupMembers.size());
+            // Invitation for every active member except the creator, serialized once
+            Map<String, Object> invitationData = new HashMap<>();
+            invitationData.put("groupId", room.getGroup().getId());
+            invitationData.put("roomId", room.getRoomId());
+            invitationData.put("roomName", room.getRoomName());
+            invitationData.put("callType", room.getCallType().toString());
+            invitationData.put("from", room.getCreatedBy().getId());
+            invitationData.put("fromName", room.getCreatedBy().getFname() + " " + room.getCreatedBy().getLname());
+            invitationData.put("fromProfileImage", room.getCreatedBy().getProfileImage() != null ? room.getCreatedBy().getProfileImage() : "");
+            invitationData.put("messageType", "GROUP_CALL_INVITATION");
             
-            if (groupMembers.isEmpty()) {
-                System.out.println("⚠️ No group members found! This might be the issue.");
-                return;
-            }
+            Map<String, Object> invitationMessage = new HashMap<>();
+            invitationMessage.put("type", "GROUP_CALL_INVITATION");
+            invitationMessage.put("relatedEntityType", "GROUP_CALL");
+            invitationMessage.put("data", invitationData);
+            invitationMessage.put("timestamp", System.currentTimeMillis());
             
-            for (GroupMember member : groupMembers) {
-                System.out.println("🔍 Processing member: " + member.getUser().getFname() + " " + member.getUser().getLname() + " (ID: " + member.getUser().getId() + ")");
-                System.out.println("🔍 Creator ID: " + room.getCreatedBy().getId() + ", Member ID: " + member.getUser().getId());
-                
-                if (!member.getUser().getId().equals(room.getCreatedBy().getId())) {
-                    System.out.println("✅ Sending notification to user: " + member.getUser().getFname() + " " + member.getUser().getLname() + " (ID: " + member.getUser().getId() + ")");
-                    
-                    // Send to call-invitations queue (same as one-to-one calls)
-                    String destination = "/user/" + member.getUser().getId() + "/queue/call-invitations";
-                    
-                    // Create invitation data
-                    Map<String, Object> invitationData = new HashMap<>();
-                    invitationData.put("groupId", room.getGroup().getId());
-                    invitationData.put("roomId", room.getRoomId());
-                    invitationData.put("roomName", room.getRoomName());
-                    invitationData.put("callType", room.getCallType().toString());
-                    invitationData.put("from", room.getCreatedBy().getId());
-                    invitationData.put("fromName", room.getCreatedBy().getFname() + " " + room.getCreatedBy().getLname());
-                    invitationData.put("fromProfileImage", room.getCreatedBy().getProfileImage() != null ? room.getCreatedBy().getProfileImage() : "");
-                    invitationData.put("messageType", "GROUP_CALL_INVITATION");
-                    
-                    // Create invitation message
-                    Map<String, Object> invitationMessage = new HashMap<>();
-                    invitationMessage.put("type", "GROUP_CALL_INVITATION");
-                    invitationMessage.put("relatedEntityType", "GROUP_CALL");
-                    invitationMessage.put("data", invitationData);
-                    invitationMessage.put("timestamp", System.currentTimeMillis());
-                    
-                    messagingTemplate.convertAndSend(destination, invitationMessage);
-                    System.out.println("✅ Group call invitation sent to: " + destination);
-                    
-                    // Also send to group messaging for visibility
-                    String groupDestination = "/group/" + room.getGroup().getId();
-                    Map<String, Object> groupNotification = new HashMap<>();
-                    groupNotification.put("type", "group-call-notification");
-                    groupNotification.put("roomId", room.getRoomId());
-                    groupNotification.put("roomName", room.getRoomName());
-                    groupNotification.put("callType", room.getCallType());
-                    groupNotification.put("createdBy", room.getCreatedBy().getFname() + " " + room.getCreatedBy().getLname());
-                    groupNotification.put("createdById", room.getCreatedBy().getId());
-                    groupNotification.put("groupId", room.getGroup().getId());
-                    groupNotification.put("timestamp", System.currentTimeMillis());
-                    groupNotification.put("message", room.getCreatedBy().getFname() + " started a " + room.getCallType() + " call");
-                    
-                    messagingTemplate.convertAndSend(groupDestination, groupNotification);
-                    System.out.println("✅ Group notification sent to: " + groupDestination);
-                } else {
-                    System.out.println("⏭️ Skipping creator: " + member.getUser().getFname() + " " + member.getUser().getLname() + " (ID: " + member.getUser().getId() + ")");
-                }
-            }
+            // Send to call-invitations queue (same as one-to-one calls)
+            fanoutEngine.sendToGroup(room.getGroup().getId(), room.getCreatedBy().getId(), "/queue/call-invitations", invitationMessage);
+            
+            // Also send to group messaging for visibility, once for the whole group
+            String groupDestination = "/group/" + room.getGroup().getId();
+            Map<String, Object> groupNotification = new HashMap<>();
+            groupNotification.put("type", "group-call-notification");
+            groupNotification.put("roomId", room.getRoomId());
+            groupNotification.put("roomName", room.getRoomName());
+            groupNotification.put("callType", room.getCallType());
+            groupNotification.put("createdBy", room.getCreatedBy().getFname() + " " + room.getCreatedBy().getLname());
+            groupNotification.put("createdById", room.getCreatedBy().getId());
+            groupNotification.put("groupId", room.getGroup().getId());
+            groupNotification.put("timestamp", System.currentTimeMillis());
+            groupNotification.put("message", room.getCreatedBy().getFname() + " started a " + room.getCallType() + " call");
+            
+            messagingTemplate.convertAndSend(groupDestination, groupNotification);
+            System.out.println("✅ Group notification sent to: " + groupDestination);
             
             System.out.println("=== ✅ GROUP CALL NOTIFICATIONS SENT ===");
             
@@ -1,11 +1,14 @@
 package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.entity.GroupMessage;
+import com.bharat.springbootsocial.entity.ReadWatermark;
 import com.bharat.springbootsocial.entity.User;
 import java.util.UUID;
 import com.bharat.springbootsocial.response.PaginatedResponse;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface GroupMessageService {
     
@@ -13,6 +16,10 @@ public interface GroupMessageService {
     GroupMessage sendMessage(UUID groupId, User sender, String content, GroupMessage.MessageType messageType);
     GroupMessage sendMessageWithMedia(UUID groupId, User sender, String content, String mediaUrl, GroupMessage.MessageType messageType);
     GroupMessage sendReplyMessage(UUID groupId, User sender, String content, UUID replyToMessageId);
+    // Validate and queue the message; complete once it is saved (or queued, with app.message-pipeline.ack=enqueue)
+    CompletableFuture<GroupMessage> submitMessage(UUID groupId, User sender, String content, GroupMessage.MessageType messageType);
+    CompletableFuture<GroupMessage> submitMessageWithMedia(UUID groupId, User sender, String content, String mediaUrl, GroupMessage.MessageType messageType);
+    CompletableFuture<GroupMessage> submitReplyMessage(UUID groupId, User sender, String content, UUID replyToMessageId);
     GroupMessage editMessage(UUID messageId, User user, String newContent);
     void deleteMessage(UUID messageId, User user);
     GroupMessage getMessageById(UUID messageId);
@@ -20,6 +27,7 @@ public interface GroupMessageService {
     // Message queries
     List<GroupMessage> getGroupMessages(UUID groupId);
     PaginatedResponse<GroupMessage> getGroupMessagesPaginated(UUID groupId, int page, int size);
+    PaginatedResponse<GroupMessage> getGroupMessagesByCursor(UUID groupId, String cursor, int size);
     List<GroupMessage> getGroupMessagesByType(UUID groupId, GroupMessage.MessageType messageType);
     PaginatedResponse<GroupMessage> getGroupMessagesByTypePaginated(UUID groupId, GroupMessage.MessageType messageType, int page, int size);
     List<GroupMessage> getGroupMediaMessages(UUID groupId);
@@ -30,6 +38,7 @@ public interface GroupMessageService {
     // Message search
     List<GroupMessage> searchMessagesInGroup(UUID groupId, String query);
     PaginatedResponse<GroupMessage> searchMessagesInGroupPaginated(UUID groupId, String query, int page, int size);
+    PaginatedResponse<GroupMessage> searchMessagesInGroupByCursor(UUID groupId, String query, String cursor, int size);
     
     // Message reactions
     GroupMessage addReaction(UUID messageId, User user, String emoji);
@@ -47,6 +56,8 @@ public interface GroupMessageService {
     List<GroupMessage> getUnreadMessages(UUID groupId, User user);
     int getUnreadMessageCount(UUID groupId, User user);
     boolean hasUserReadMessage(UUID messageId, UUID userId);
+    // Who has seen each message, from read watermarks; empty when detailed receipts are on
+    Map<UUID, List<ReadWatermark>> getSeenBy(UUID groupId, List<GroupMessage> messages);
     
     // System messages
     GroupMessage createSystemMessage(UUID groupId, String content, GroupMessage.MessageType messageType);
@@ -1,26 +1,41 @@
 package com.bharat.springbootsocial.services;
 
+import com.bharat.springbootsocial.entity.ConversationType;
 import com.bharat.springbootsocial.entity.Group;
 import com.bharat.springbootsocial.entity.GroupMember;
 import com.bharat.springbootsocial.entity.GroupMessage;
 import com.bharat.springbootsocial.entity.GroupMessageReaction;
 import com.bharat.springbootsocial.entity.GroupMessageRead;
+import com.bharat.springbootsocial.entity.ReadWatermark;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.MessageChangedEvent;
+import com.bharat.springbootsocial.pagination.KeysetCursor;
+import com.bharat.springbootsocial.pagination.KeysetPager;
 import com.bharat.springbootsocial.repository.GroupMessageReactionRepo;
 import com.bharat.springbootsocial.repository.GroupMessageReadRepo;
 import com.bharat.springbootsocial.repository.GroupMessageRepo;
 import com.bharat.springbootsocial.repository.GroupRepo;
 import com.bharat.springbootsocial.response.PaginatedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class GroupMessageServiceImpl implements GroupMessageService {
@@ -41,53 +56,45 @@ public class GroupMessageServiceImpl implements GroupMessageService {
     @Autowired
     private GroupService groupService;
     
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ReadWatermarks readWatermarks;
+    
+    @Autowired
+    private MessageWritePipeline messageWritePipeline;
+    
     @Override
     public GroupMessage sendMessage(UUID groupId, User sender, String content, GroupMessage.MessageType messageType) {
-        Group group = groupRepo.findById(groupId)
-                .orElseThrow(() -> new IllegalArgumentException("Group not found"));
-        
-        if (!canUserSendMessage(groupId, sender.getId())) {
-            throw new IllegalArgumentException("You cannot send messages to this group");
-        }
-        
-        if (isUserMutedInGroup(groupId, sender.getId())) {
-            throw new IllegalArgumentException("You are muted in this group");
-        }
-        
-        GroupMessage message = new GroupMessage();
-        message.setContent(content);
-        message.setMessageType(messageType != null ? messageType : GroupMessage.MessageType.TEXT);
-        message.setSender(sender);
-        message.setGroup(group);
-        message.setCreatedAt(LocalDateTime.now());
-        
-        GroupMessage savedMessage = groupMessageRepo.save(message);
-        
-        // Update group last activity
-        groupService.updateGroupLastActivity(groupId);
-        
-        return savedMessage;
+        return MessageWritePipeline.await(submitMessage(groupId, sender, content, messageType));
     }
     
     @Override
     public GroupMessage sendMessageWithMedia(UUID groupId, User sender, String content, String mediaUrl, GroupMessage.MessageType messageType) {
-        Group group = groupRepo.findById(groupId)
-                .orElseThrow(() -> new IllegalArgumentException("Group not found"));
-        
-        if (!canUserSendMessage(groupId, sender.getId())) {
-            throw new IllegalArgumentException("You cannot send messages to this group");
-        }
-        
-        if (isUserMutedInGroup(groupId, sender.getId())) {
-            throw new IllegalArgumentException("You are muted in this group");
-        }
-        
-        GroupMessage message = new GroupMessage();
-        message.setContent(content);
+        return MessageWritePipeline.await(submitMessageWithMedia(groupId, sender, content, mediaUrl, messageType));
+    }
+    
+    @Override
+    public GroupMessage sendReplyMessage(UUID groupId, User sender, String content, UUID replyToMessageId) {
+        return MessageWritePipeline.await(submitReplyMessage(groupId, sender, content, replyToMessageId));
+    }
+    
+    // Saved in a batch with other senders' messages; see MessageWritePipeline
+    @Override
+    public CompletableFuture<GroupMessage> submitMessage(UUID groupId, User sender, String content, GroupMessage.MessageType messageType) {
+        GroupMessage message = newMessage(groupId, sender, content);
+        message.setMessageType(messageType != null ? messageType : GroupMessage.MessageType.TEXT);
+        return messageWritePipeline.submit(message);
+    }
+    
+    @Override
+    public CompletableFuture<GroupMessage> submitMessageWithMedia(UUID groupId, User sender, String content, String mediaUrl, GroupMessage.MessageType messageType) {
+        GroupMessage message = newMessage(groupId, sender, content);
         message.setMessageType(messageType);
-        message.setSender(sender);
-        message.setGroup(group);
-        message.setCreatedAt(LocalDateTime.now());
         
         // Set media URL based on message type
         switch (messageType) {
@@ -105,36 +112,42 @@ public class GroupMessageServiceImpl implements GroupMessageService {
                 throw new IllegalArgumentException("Invalid message type for media");
         }
         
-        GroupMessage savedMessage = groupMessageRepo.save(message);
-        
-        // Update group last activity
-        groupService.updateGroupLastActivity(groupId);
-        
-        return savedMessage;
+        return messageWritePipeline.submit(message);
     }
     
     @Override
-    public GroupMessage sendReplyMessage(UUID groupId, User sender, String content, UUID replyToMessageId) {
+    public CompletableFuture<GroupMessage> submitReplyMessage(UUID groupId, User sender, String content, UUID replyToMessageId) {
         GroupMessage replyToMessage = getMessageById(replyToMessageId);
         
         if (!replyToMessage.getGroup().getId().equals(groupId)) {
             throw new IllegalArgumentException("Reply message must be from the same group");
         }
         
-        GroupMessage message = new GroupMessage();
-        message.setContent(content);
+        GroupMessage message = newMessage(groupId, sender, content);
         message.setMessageType(GroupMessage.MessageType.TEXT);
-        message.setSender(sender);
-        message.setGroup(replyToMessage.getGroup());
         message.setReplyTo(replyToMessage);
-        message.setCreatedAt(LocalDateTime.now());
+        return messageWritePipeline.submit(message);
+    }
+    
+    // An unsaved message from a sender who may post in the group
+    private GroupMessage newMessage(UUID groupId, User sender, String content) {
+        Group group = groupRepo.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found"));
         
-        GroupMessage savedMessage = groupMessageRepo.save(message);
+        if (!canUserSendMessage(groupId, sender.getId())) {
+            throw new IllegalArgumentException("You cannot send messages to this group");
+        }
         
-        // Update group last activity
-        groupService.updateGroupLastActivity(groupId);
+        if (isUserMutedInGroup(groupId, sender.getId())) {
+            throw new IllegalArgumentException("You are muted in this group");
+        }
         
-        return savedMessage;
+        GroupMessage message = new GroupMessage();
+        message.setContent(content);
+        message.setSender(sender);
+        message.setGroup(group);
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
     }
     
     @Override
@@ -146,7 +159,9 @@ public class GroupMessageServiceImpl implements GroupMessageService {
         }
         
         message.editMessage(newContent);
-        return groupMessageRepo.save(message);
+        GroupMessage savedMessage = groupMessageRepo.save(message);
+        publishChange(savedMessage);
+        return savedMessage;
     }
     
     @Override
@@ -158,7 +173,7 @@ public class GroupMessageServiceImpl implements GroupMessageService {
         }
         
         message.deleteMessage();
-        groupMessageRepo.save(message);
+        publishChange(groupMessageRepo.save(message));
     }
     
     @Override
@@ -190,6 +205,14 @@ public class GroupMessageServiceImpl implements GroupMessageService {
         );
     }
     
+    @Override
+    public PaginatedResponse<GroupMessage> getGroupMessagesByCursor(UUID groupId, String cursor, int size) {
+        return KeysetPager.page(cursor, size,
+                (createdAt, id, limit) -> groupMessageRepo.findGroupPageBefore(groupId, createdAt, id, limit),
+                (createdAt, id, limit) -> groupMessageRepo.findGroupPageAfter(groupId, createdAt, id, limit),
+                GroupMessage::getCreatedAt, GroupMessage::getId);
+    }
+    
     @Override
     public List<GroupMessage> getGroupMessagesByType(UUID groupId, GroupMessage.MessageType messageType) {
         return groupMessageRepo.findMessagesByGroupIdAndType(groupId, messageType);
@@ -259,27 +282,72 @@ public class GroupMessageServiceImpl implements GroupMessageService {
     
     @Override
     public List<GroupMessage> searchMessagesInGroup(UUID groupId, String query) {
-        return groupMessageRepo.searchMessagesByContent(groupId, query);
+        MessageSearchIndex.Result result = messageSearchIndex.search(ConversationType.GROUP,
+                groupId, query, KeysetCursor.first(), Integer.MAX_VALUE);
+        return loadSearchHits(result.hits());
     }
     
     @Override
     public PaginatedResponse<GroupMessage> searchMessagesInGroupPaginated(UUID groupId, String query, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<GroupMessage> messagesPage = groupMessageRepo.searchMessagesByContentPaginated(groupId, query, pageable);
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page must be at least 0 and size at least 1");
+        }
+        // The index ranks newest first, so page N is the tail of the first (N + 1) * size hits
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) (page + 1) * size);
+        MessageSearchIndex.Result result = messageSearchIndex.search(ConversationType.GROUP,
+                groupId, query, KeysetCursor.first(), wanted);
+        List<MessageSearchIndex.Hit> hits = result.hits();
+        List<GroupMessage> messages = loadSearchHits(hits.subList(Math.min(page * size, hits.size()), hits.size()));
+        int totalPages = (int) Math.ceil((double) result.total() / size);
         
         return new PaginatedResponse<>(
-                messagesPage.getContent(),
-                messagesPage.getNumber(),
-                messagesPage.getSize(),
-                messagesPage.getTotalElements(),
-                messagesPage.getTotalPages(),
-                messagesPage.hasNext(),
-                messagesPage.hasPrevious(),
-                messagesPage.isFirst(),
-                messagesPage.isLast()
+                messages,
+                page,
+                size,
+                result.total(),
+                totalPages,
+                page < totalPages - 1,
+                page > 0,
+                page == 0,
+                page >= totalPages - 1
         );
     }
     
+    @Override
+    public PaginatedResponse<GroupMessage> searchMessagesInGroupByCursor(UUID groupId, String query, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        MessageSearchIndex.Result result = messageSearchIndex.search(ConversationType.GROUP,
+                groupId, query, position, size + 1);
+        PaginatedResponse<MessageSearchIndex.Hit> hits = KeysetPager.toResponse(result.hits(), position, size,
+                MessageSearchIndex.Hit::createdAt, MessageSearchIndex.Hit::messageId);
+        return hits.withContent(loadSearchHits(hits.getContent()));
+    }
+    
+    // Messages in hit order; ones deleted since they were indexed are left out
+    private List<GroupMessage> loadSearchHits(List<MessageSearchIndex.Hit> hits) {
+        Map<UUID, GroupMessage> byId = groupMessageRepo.findAllById(hits.stream().map(MessageSearchIndex.Hit::messageId).toList())
+                .stream()
+                .collect(Collectors.toMap(GroupMessage::getId, Function.identity()));
+        List<GroupMessage> messages = new ArrayList<>(hits.size());
+        for (MessageSearchIndex.Hit hit : hits) {
+            GroupMessage message = byId.get(hit.messageId());
+            if (message != null && !Boolean.TRUE.equals(message.getIsDeleted())) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+    
+    // Keeps message search up to date once the change commits
+    private void publishChange(GroupMessage message) {
+        eventPublisher.publishEvent(new MessageChangedEvent(ConversationType.GROUP,
+                message.getGroup().getId(), message.getId(), message.getCreatedAt(),
+                Boolean.TRUE.equals(message.getIsDeleted()) ? null : message.getContent()));
+    }
+    
     @Override
     public GroupMessage addReaction(UUID messageId, User user, String emoji) {
         GroupMessage message = getMessageById(messageId);
@@ -353,10 +421,15 @@ public class GroupMessageServiceImpl implements GroupMessageService {
     }
     
     @Override
+    @Transactional
     public void markMessageAsRead(UUID messageId, User user) {
-        if (!hasUserReadMessage(messageId, user.getId())) {
+        GroupMessage message = getMessageById(messageId);
+        // Reading a message reads everything before it
+        readWatermarks.advance(user.getId(), ConversationType.GROUP, message.getGroup().getId(), message.getSeq());
+        
+        if (readWatermarks.isDetailed() && !groupMessageReadRepo.hasUserReadMessage(messageId, user.getId())) {
             GroupMessageRead read = new GroupMessageRead();
-            read.setMessage(getMessageById(messageId));
+            read.setMessage(message);
             read.setUser(user);
             read.setReadAt(LocalDateTime.now());
             groupMessageReadRepo.save(read);
@@ -364,29 +437,59 @@ public class GroupMessageServiceImpl implements GroupMessageService {
     }
     
     @Override
+    @Transactional
     public void markAllMessagesAsRead(UUID groupId, User user) {
-        List<GroupMessage> unreadMessages = getUnreadMessages(groupId, user);
-        for (GroupMessage message : unreadMessages) {
-            markMessageAsRead(message.getId(), user);
+        if (readWatermarks.isDetailed()) {
+            for (GroupMessage message : getUnreadMessages(groupId, user)) {
+                markMessageAsRead(message.getId(), user);
+            }
         }
+        readWatermarks.advance(user.getId(), ConversationType.GROUP, groupId,
+                readWatermarks.headSequence(ConversationType.GROUP, groupId));
     }
     
     @Override
     public List<GroupMessage> getUnreadMessages(UUID groupId, User user) {
-        return groupMessageReadRepo.findUnreadMessagesForUserInGroup(groupId, user.getId());
+        long lastReadSeq = readWatermarks.lastReadSequence(user.getId(), ConversationType.GROUP, groupId);
+        return groupMessageRepo.findMessagesAfterSeq(groupId, lastReadSeq);
     }
     
     @Override
     public int getUnreadMessageCount(UUID groupId, User user) {
-        return groupMessageReadRepo.countUnreadMessagesForUserInGroup(groupId, user.getId()).intValue();
+        return (int) readWatermarks.unreadCount(user.getId(), ConversationType.GROUP, groupId);
     }
     
     @Override
     public boolean hasUserReadMessage(UUID messageId, UUID userId) {
-        return groupMessageReadRepo.hasUserReadMessage(messageId, userId);
+        if (readWatermarks.isDetailed()) {
+            return groupMessageReadRepo.hasUserReadMessage(messageId, userId);
+        }
+        GroupMessage message = getMessageById(messageId);
+        return message.getSeq() != null && readWatermarks.lastReadSequence(userId,
+                ConversationType.GROUP, message.getGroup().getId()) >= message.getSeq();
     }
     
     @Override
+    public Map<UUID, List<ReadWatermark>> getSeenBy(UUID groupId, List<GroupMessage> messages) {
+        Map<UUID, List<ReadWatermark>> seenBy = new HashMap<>();
+        OptionalLong minSeq = messages.stream()
+                .map(GroupMessage::getSeq)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .min();
+        if (readWatermarks.isDetailed() || minSeq.isEmpty()) {
+            return seenBy;
+        }
+        List<ReadWatermark> readers = readWatermarks.readersFrom(ConversationType.GROUP, groupId, minSeq.getAsLong());
+        for (GroupMessage message : messages) {
+            UUID senderId = message.getSender() != null ? message.getSender().getId() : null;
+            seenBy.put(message.getId(), ReadWatermarks.seenBy(readers, message.getSeq(), senderId));
+        }
+        return seenBy;
+    }
+    
+    @Override
+    @Transactional
     public GroupMessage createSystemMessage(UUID groupId, String content, GroupMessage.MessageType messageType) {
         Group group = groupRepo.findById(groupId)
                 .orElseThrow(() -> new IllegalArgumentException("Group not found"));
@@ -397,8 +500,11 @@ public class GroupMessageServiceImpl implements GroupMessageService {
         message.setSender(null); // System messages don't have a sender
         message.setGroup(group);
         message.setCreatedAt(LocalDateTime.now());
+        message.setSeq(readWatermarks.nextSequence(ConversationType.GROUP, groupId));
         
-        return groupMessageRepo.save(message);
+        GroupMessage savedMessage = groupMessageRepo.save(message);
+        publishChange(savedMessage);
+        return savedMessage;
     }
     
     @Override
@@ -1,14 +1,17 @@
 package com.bharat.springbootsocial.services;
 
+import com.bharat.springbootsocial.entity.ConversationType;
 import com.bharat.springbootsocial.entity.Group;
 import com.bharat.springbootsocial.entity.GroupMember;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.ConversationRemovedEvent;
 import com.bharat.springbootsocial.repository.GroupMemberRepo;
 import com.bharat.springbootsocial.repository.GroupRepo;
 import com.bharat.springbootsocial.repository.GroupMessageRepo;
 import com.bharat.springbootsocial.repository.GroupCallRoomRepo;
 import com.bharat.springbootsocial.response.PaginatedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -40,6 +43,12 @@ public class GroupServiceImpl implements GroupService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private FanoutEngine fanoutEngine;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public Group createGroup(User creator, String name, String description, Group.GroupType groupType, Boolean isPublic, List<UUID> memberIds) {
         // Check if group name already exists
@@ -64,7 +73,7 @@ public class GroupServiceImpl implements GroupService {
         creatorMember.setUser(creator);
         creatorMember.setRole(GroupMember.MemberRole.ADMIN);
         creatorMember.setStatus(GroupMember.MemberStatus.ACTIVE);
-        groupMemberRepo.save(creatorMember);
+        saveMembership(creatorMember);
         
         // Add other members if provided
         if (memberIds != null && !memberIds.isEmpty()) {
@@ -87,7 +96,7 @@ public class GroupServiceImpl implements GroupService {
                 groupMember.setUser(member);
                 groupMember.setRole(GroupMember.MemberRole.MEMBER);
                 groupMember.setStatus(GroupMember.MemberStatus.ACTIVE);
-                groupMemberRepo.save(groupMember);
+                saveMembership(groupMember);
                 
                 // Send notification
                 notificationService.sendGroupInvitationNotification(member, creator, savedGroup);
@@ -139,6 +148,8 @@ public class GroupServiceImpl implements GroupService {
         
         // Hard delete - completely remove from database
         groupRepo.delete(group);
+        fanoutEngine.invalidateMembers(groupId);
+        eventPublisher.publishEvent(new ConversationRemovedEvent(ConversationType.GROUP, groupId));
         
         // Note: This will cascade delete related entities if properly configured
         // Alternative: Soft delete (commented out below)
@@ -196,7 +207,7 @@ public class GroupServiceImpl implements GroupService {
                 member.setLeftAt(null);
                 group.updateLastActivity();
                 groupRepo.save(group);
-                return groupMemberRepo.save(member);
+                return saveMembership(member);
             }
         }
         
@@ -210,7 +221,7 @@ public class GroupServiceImpl implements GroupService {
         group.updateLastActivity();
         groupRepo.save(group);
         
-        return groupMemberRepo.save(groupMember);
+        return saveMembership(groupMember);
     }
     
     @Override
@@ -229,7 +240,7 @@ public class GroupServiceImpl implements GroupService {
                 .orElseThrow(() -> new IllegalArgumentException("Member not found"));
         
         member.leaveGroup();
-        groupMemberRepo.save(member);
+        saveMembership(member);
         
         group.updateLastActivity();
         groupRepo.save(group);
@@ -261,7 +272,7 @@ public class GroupServiceImpl implements GroupService {
                 member.setLeftAt(null);
                 group.updateLastActivity();
                 groupRepo.save(group);
-                return groupMemberRepo.save(member);
+                return saveMembership(member);
             } else if (member.getStatus() == GroupMember.MemberStatus.REMOVED) {
                 // User was removed, allow re-adding them (admin's choice to re-invite)
                 member.setStatus(GroupMember.MemberStatus.ACTIVE);
@@ -274,7 +285,7 @@ public class GroupServiceImpl implements GroupService {
                 // Send notification for re-invitation
                 notificationService.sendGroupInvitationNotification(member.getUser(), admin, group);
                 
-                return groupMemberRepo.save(member);
+                return saveMembership(member);
             } else {
                 // Other statuses (INACTIVE, PENDING) - reactivate
                 member.setStatus(GroupMember.MemberStatus.ACTIVE);
@@ -284,7 +295,7 @@ public class GroupServiceImpl implements GroupService {
                 member.setLeftAt(null);
                 group.updateLastActivity();
                 groupRepo.save(group);
-                return groupMemberRepo.save(member);
+                return saveMembership(member);
             }
         }
         
@@ -306,7 +317,7 @@ public class GroupServiceImpl implements GroupService {
         // Send notification
         notificationService.sendGroupInvitationNotification(member, admin, group);
         
-        return groupMemberRepo.save(groupMember);
+        return saveMembership(groupMember);
     }
     
     @Override
@@ -321,7 +332,7 @@ public class GroupServiceImpl implements GroupService {
                 .orElseThrow(() -> new IllegalArgumentException("Member not found"));
         
         member.removeFromGroup();
-        groupMemberRepo.save(member);
+        saveMembership(member);
         
         group.updateLastActivity();
         groupRepo.save(group);
@@ -372,6 +383,13 @@ public class GroupServiceImpl implements GroupService {
         groupMemberRepo.save(member);
     }
     
+    // Saves a change to who is an active member and drops the cached member ids
+    private GroupMember saveMembership(GroupMember member) {
+        GroupMember saved = groupMemberRepo.save(member);
+        fanoutEngine.invalidateMembers(member.getGroup().getId());
+        return saved;
+    }
+    
     @Override
     public List<GroupMember> getGroupMembers(UUID groupId) {
         return groupMemberRepo.findActiveMembersByGroupId(groupId);
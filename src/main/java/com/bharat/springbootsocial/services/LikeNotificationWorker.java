@@ -0,0 +1,47 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.ContentLikedEvent;
+import com.bharat.springbootsocial.repository.UserRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Sends like notifications off the request thread, once the like has committed.
+ */
+@Component
+public class LikeNotificationWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeNotificationWorker.class);
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Async("notificationExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onContentLiked(ContentLikedEvent event) {
+        // Reel likes have never raised notifications
+        if (event.getTarget() == LikeService.Target.REEL || event.getLikerId().equals(event.getAuthorId())) {
+            return;
+        }
+        try {
+            User author = userRepo.findById(event.getAuthorId()).orElse(null);
+            User liker = userRepo.findById(event.getLikerId()).orElse(null);
+            if (author != null && liker != null) {
+                notificationService.sendLikeNotification(author, liker, event.getTarget().name(), event.getTargetId());
+            }
+        } catch (Exception e) {
+            logger.error("Like notification failed for {} {}", event.getTarget(), event.getTargetId(), e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.response.LikeResponse;
+
+import java.util.UUID;
+
+public interface LikeService {
+
+    enum Target {
+        POST, REEL, COMMENT
+    }
+
+    // Idempotent: liking twice leaves one like
+    LikeResponse like(Target target, UUID targetId, UUID userId) throws Exception;
+
+    // Idempotent: unliking something not liked is a no-op
+    LikeResponse unlike(Target target, UUID targetId, UUID userId) throws Exception;
+
+    LikeResponse toggle(Target target, UUID targetId, UUID userId) throws Exception;
+
+    boolean isLiked(Target target, UUID targetId, UUID userId);
+}
@@ -0,0 +1,138 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.event.ContentLikedEvent;
+import com.bharat.springbootsocial.repository.CommentRepo;
+import com.bharat.springbootsocial.repository.PostRepo;
+import com.bharat.springbootsocial.repository.ReelsRepo;
+import com.bharat.springbootsocial.response.LikeResponse;
+import com.bharat.springbootsocial.services.EngagementCounters.Counter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Likes as set membership on the like join tables: an indexed existence check
+ * and a single-row insert or delete, never loading the liker collection.
+ * Concurrent double-taps are safe because the insert is INSERT IGNORE against
+ * the (item, user) unique key and the affected row count decides whether the
+ * counter moves.
+ */
+@Service
+public class LikeServiceImpl implements LikeService {
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private ReelsRepo reelsRepo;
+
+    @Autowired
+    private CommentRepo commentRepo;
+
+    @Autowired
+    private EngagementCounters engagementCounters;
+
+    @Autowired
+    private LikedItemsCache likedItemsCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public LikeResponse like(Target target, UUID targetId, UUID userId) throws Exception {
+        Integer persisted = findLikeCount(target, targetId);
+        long readAt = System.nanoTime();
+        boolean inserted = switch (target) {
+            case POST -> postRepo.insertLike(targetId, userId) > 0;
+            case REEL -> reelsRepo.insertLike(targetId, userId) > 0;
+            case COMMENT -> commentRepo.insertLike(targetId, userId) > 0;
+        };
+        if (inserted) {
+            engagementCounters.increment(counterOf(target), targetId);
+            likedItemsCache.onLiked(userId, targetId);
+            eventPublisher.publishEvent(new ContentLikedEvent(target, targetId, findAuthorId(target, targetId), userId));
+        }
+        return response(target, targetId, true, persisted, readAt, inserted ? 1 : 0);
+    }
+
+    @Override
+    @Transactional
+    public LikeResponse unlike(Target target, UUID targetId, UUID userId) throws Exception {
+        Integer persisted = findLikeCount(target, targetId);
+        long readAt = System.nanoTime();
+        boolean deleted = switch (target) {
+            case POST -> postRepo.deleteLike(targetId, userId) > 0;
+            case REEL -> reelsRepo.deleteLike(targetId, userId) > 0;
+            case COMMENT -> commentRepo.deleteLike(targetId, userId) > 0;
+        };
+        if (deleted) {
+            engagementCounters.decrement(counterOf(target), targetId);
+            likedItemsCache.onUnliked(userId, targetId);
+        }
+        return response(target, targetId, false, persisted, readAt, deleted ? -1 : 0);
+    }
+
+    @Override
+    @Transactional
+    public LikeResponse toggle(Target target, UUID targetId, UUID userId) throws Exception {
+        return isLiked(target, targetId, userId)
+                ? unlike(target, targetId, userId)
+                : like(target, targetId, userId);
+    }
+
+    // Read straight from the like table: toggling must not act on a cached answer
+    @Override
+    public boolean isLiked(Target target, UUID targetId, UUID userId) {
+        return switch (target) {
+            case POST -> postRepo.existsLike(targetId, userId);
+            case REEL -> reelsRepo.existsLike(targetId, userId);
+            case COMMENT -> commentRepo.existsLike(targetId, userId);
+        };
+    }
+
+    private Integer findLikeCount(Target target, UUID targetId) throws Exception {
+        Integer count = switch (target) {
+            case POST -> postRepo.findLikeCount(targetId);
+            case REEL -> reelsRepo.findLikeCount(targetId);
+            case COMMENT -> commentRepo.findLikeCount(targetId);
+        };
+        if (count == null) {
+            throw new Exception(label(target) + " not found with id: " + targetId);
+        }
+        return count;
+    }
+
+    private UUID findAuthorId(Target target, UUID targetId) {
+        return switch (target) {
+            case POST -> postRepo.findAuthorId(targetId);
+            case REEL -> reelsRepo.findAuthorId(targetId);
+            case COMMENT -> commentRepo.findAuthorId(targetId);
+        };
+    }
+
+    // The counter change is only buffered on commit, so this request's own delta is added here
+    private LikeResponse response(Target target, UUID targetId, boolean liked, Integer persisted, long readAt, int delta) {
+        int total = engagementCounters.current(counterOf(target), targetId, persisted, readAt) + delta;
+        return new LikeResponse(targetId, liked, Math.max(0, total));
+    }
+
+    private static Counter counterOf(Target target) {
+        return switch (target) {
+            case POST -> Counter.POST_LIKES;
+            case REEL -> Counter.REEL_LIKES;
+            case COMMENT -> Counter.COMMENT_LIKES;
+        };
+    }
+
+    private static String label(Target target) {
+        return switch (target) {
+            case POST -> "Post";
+            case REEL -> "Reel";
+            case COMMENT -> "Comment";
+        };
+    }
+}
@@ -0,0 +1,260 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers "which of these posts, reels or comments has this user liked?" for a
+ * whole page, mostly from memory. Each cached user has a Bloom filter over
+ * every item id they like, built from the like tables on first use. Items the
+ * filter rules out are not liked. Items it lets through are settled by one
+ * grouped query, and the answer is remembered, so a repeat render needs no
+ * database read. Likes and unlikes update the entry when they commit.
+ */
+@Component
+public class LikedItemsCache {
+
+    private static final String LIKED_ITEMS_SQL =
+            "SELECT posts_id FROM posts_liked_by WHERE liked_by_id = :userId " +
+            "UNION ALL SELECT reels_id FROM reels_liked_by WHERE liked_by_id = :userId " +
+            "UNION ALL SELECT comments_id FROM comments_liked_by WHERE liked_by_id = :userId";
+
+    private static final String LIKED_AMONG_SQL =
+            "SELECT posts_id FROM posts_liked_by WHERE liked_by_id = :userId AND posts_id IN (:ids) " +
+            "UNION ALL SELECT reels_id FROM reels_liked_by WHERE liked_by_id = :userId AND reels_id IN (:ids) " +
+            "UNION ALL SELECT comments_id FROM comments_liked_by WHERE liked_by_id = :userId AND comments_id IN (:ids)";
+
+    // Filters start with room for this many ids and twice the user's current likes
+    private static final int MIN_CAPACITY = 64;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Value("${app.likes.cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${app.likes.cache.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.likes.cache.max-known-per-user:2048}")
+    private int maxKnownPerUser;
+
+    // Least recently used users are evicted first
+    private final Map<UUID, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // Items answered without a query, and items that had to be checked in the database
+    private final LongAdder itemHits = new LongAdder();
+    private final LongAdder itemMisses = new LongAdder();
+
+    public record Stats(long itemHits, long itemMisses, long cachedUsers) {
+    }
+
+    public boolean isLiked(UUID userId, UUID itemId) {
+        return !likedAmong(userId, List.of(itemId)).isEmpty();
+    }
+
+    /**
+     * The subset of itemIds the user has liked. Ids of posts, reels and comments
+     * may be mixed.
+     */
+    public Set<UUID> likedAmong(UUID userId, Collection<UUID> itemIds) {
+        Set<UUID> liked = new HashSet<>();
+        if (userId == null || itemIds.isEmpty()) {
+            return liked;
+        }
+        Entry entry = entryFor(userId);
+
+        List<UUID> unknown = new ArrayList<>();
+        for (UUID itemId : itemIds) {
+            Boolean known = entry.known.get(itemId);
+            if (known != null) {
+                if (known) {
+                    liked.add(itemId);
+                }
+            } else if (entry.filter == null || entry.filter.mightContain(itemId)) {
+                unknown.add(itemId);
+            }
+        }
+        itemHits.add(itemIds.size() - unknown.size());
+        itemMisses.add(unknown.size());
+        if (unknown.isEmpty()) {
+            return liked;
+        }
+
+        Set<UUID> confirmed = new HashSet<>();
+        namedJdbcTemplate.query(LIKED_AMONG_SQL,
+                Map.of("userId", BinaryUuids.toBytes(userId), "ids", unknown.stream().map(BinaryUuids::toBytes).toList()),
+                rs -> {
+                    confirmed.add(BinaryUuids.fromBytes(rs.getBytes(1)));
+                });
+        for (UUID itemId : unknown) {
+            // A like or unlike that committed meanwhile has already recorded the newer answer
+            entry.known.putIfAbsent(itemId, confirmed.contains(itemId));
+        }
+        liked.addAll(confirmed);
+        trim(userId, entry);
+        return liked;
+    }
+
+    public void onLiked(UUID userId, UUID itemId) {
+        AfterCommit.run(() -> {
+            Entry entry = cachedEntry(userId);
+            if (entry != null) {
+                entry.known.put(itemId, true);
+                if (entry.filter != null) {
+                    entry.filter.add(itemId);
+                }
+                trim(userId, entry);
+            }
+        });
+    }
+
+    public void onUnliked(UUID userId, UUID itemId) {
+        // Bloom filters cannot forget, so the negative answer is kept next to the filter
+        AfterCommit.run(() -> {
+            Entry entry = cachedEntry(userId);
+            if (entry != null) {
+                entry.known.put(itemId, false);
+                trim(userId, entry);
+            }
+        });
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(itemHits.sum(), itemMisses.sum(), entries.size());
+        }
+    }
+
+    private Entry entryFor(UUID userId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+            if (entry != null) {
+                return entry;
+            }
+            // Registered before loading so likes committed during the load are not lost
+            entry = new Entry();
+            entries.put(userId, entry);
+        }
+
+        List<UUID> likedIds = new ArrayList<>();
+        try {
+            namedJdbcTemplate.query(LIKED_ITEMS_SQL, Map.of("userId", BinaryUuids.toBytes(userId)),
+                    rs -> {
+                        likedIds.add(BinaryUuids.fromBytes(rs.getBytes(1)));
+                    });
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(userId, entry);
+            }
+            throw e;
+        }
+        BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, likedIds.size() * 2), falsePositiveRate);
+        likedIds.forEach(filter::add);
+        entry.known.forEach((itemId, liked) -> {
+            if (liked) {
+                filter.add(itemId);
+            }
+        });
+        entry.filter = filter;
+        return entry;
+    }
+
+    private Entry cachedEntry(UUID userId) {
+        synchronized (entries) {
+            return entries.get(userId);
+        }
+    }
+
+    // Past these limits the filter is too full or too stale to help, so it is rebuilt on next use
+    private void trim(UUID userId, Entry entry) {
+        BloomFilter filter = entry.filter;
+        if (entry.known.size() > maxKnownPerUser || (filter != null && filter.isFull())) {
+            synchronized (entries) {
+                entries.remove(userId, entry);
+            }
+        }
+    }
+
+    private static class Entry {
+        // Null while the user's likes are being loaded
+        private volatile BloomFilter filter;
+        // Exact answers: checked false positives, and likes/unlikes seen since loading
+        private final Map<UUID, Boolean> known = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Fixed-size Bloom filter over UUIDs using double hashing of the two halves.
+     */
+    private static class BloomFilter {
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashCount;
+        private final int capacity;
+        private final AtomicInteger added = new AtomicInteger();
+
+        private BloomFilter(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            double ln2 = Math.log(2);
+            this.bitCount = Math.max(64, (int) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2)));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        private void add(UUID id) {
+            long h1 = mix(id.getMostSignificantBits());
+            long h2 = mix(id.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                int bit = (int) Math.floorMod(h1 + i * h2, (long) bitCount);
+                long mask = 1L << (bit & 63);
+                bits.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+            }
+            added.incrementAndGet();
+        }
+
+        private boolean mightContain(UUID id) {
+            long h1 = mix(id.getMostSignificantBits());
+            long h2 = mix(id.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                int bit = (int) Math.floorMod(h1 + i * h2, (long) bitCount);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isFull() {
+            return added.get() > capacity;
+        }
+
+        // SplitMix64 finalizer
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
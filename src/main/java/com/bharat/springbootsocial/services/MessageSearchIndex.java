@@ -0,0 +1,435 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.ConversationType;
+import com.bharat.springbootsocial.event.ConversationRemovedEvent;
+import com.bharat.springbootsocial.event.MessageChangedEvent;
+import com.bharat.springbootsocial.pagination.KeysetCursor;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over group and direct messages, one
+ * {@link ConversationIndex} per conversation. Kept up to date from
+ * {@link MessageChangedEvent}s. Changed conversations are snapshotted to
+ * segment files on a schedule, so a restart reads the segments and only
+ * replays rows updated since the last one instead of re-reading every message.
+ * A deleted chat or group is dropped at once, and the next flush rewrites the
+ * segments without it.
+ */
+@Component
+public class MessageSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchIndex.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int SEGMENT_MAGIC = 0x4D534958;
+    private static final int SEGMENT_VERSION = 1;
+
+    // Rows committed by slow transactions can carry an updated_at older than the snapshot
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.message-search.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    @Value("${app.message-search.load-batch-size:5000}")
+    private int loadBatchSize;
+
+    @Value("${app.message-search.dir:message-index}")
+    private String directory;
+
+    // A flush rewrites everything into one segment once there are this many
+    @Value("${app.message-search.max-segments:8}")
+    private int maxSegments;
+
+    public record Hit(UUID messageId, LocalDateTime createdAt) {
+    }
+
+    // Up to the requested number of hits and how many messages matched on the cursor's side
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private record ConversationKey(ConversationType type, UUID id) {
+    }
+
+    private static class Conversation {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private ConversationIndex index = new ConversationIndex();
+    }
+
+    private final Map<ConversationKey, Conversation> conversations = new ConcurrentHashMap<>();
+    private volatile Set<ConversationKey> dirty = ConcurrentHashMap.newKeySet();
+    // A conversation was dropped whose snapshots are still in the segment files
+    private volatile boolean removedSinceFlush;
+    private volatile boolean ready;
+
+    private final Object flushLock = new Object();
+    private final List<Path> segments = new ArrayList<>();
+    private long nextSegment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (loadOnStartup) {
+            load();
+        }
+    }
+
+    /**
+     * Restores the index from the segment files and catches up on rows
+     * changed since the newest one, or builds it from the message tables when
+     * there are no usable segments. Writes a fresh segment afterwards.
+     */
+    public void load() {
+        long started = System.currentTimeMillis();
+        synchronized (flushLock) {
+            ready = false;
+            conversations.clear();
+            Instant watermark = readSegments();
+            if (watermark != null) {
+                int replayed = replay(ConversationType.GROUP, watermark) + replay(ConversationType.CHAT, watermark);
+                int pruned = prune(ConversationType.GROUP) + prune(ConversationType.CHAT);
+                logger.info("Message search index restored from {} segments, replayed {} changed messages, "
+                        + "dropped {} deleted conversations", segments.size(), replayed, pruned);
+            } else {
+                // Changes committed during the scan are applied by their events as well; putting a message twice is harmless
+                dirty = ConcurrentHashMap.newKeySet();
+                int indexed = replay(ConversationType.GROUP, null) + replay(ConversationType.CHAT, null);
+                // Messages can outlive their group or chat
+                prune(ConversationType.GROUP);
+                prune(ConversationType.CHAT);
+                dirty.addAll(conversations.keySet());
+                logger.info("Message search index built from {} messages", indexed);
+            }
+            ready = true;
+        }
+        flush();
+        logger.info("Message search index loaded: {} conversations in {} ms", conversations.size(),
+                System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageChanged(MessageChangedEvent event) {
+        apply(event.getConversationType(), event.getConversationId(), event.getMessageId(),
+                event.getCreatedAt(), event.getContent());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConversationRemoved(ConversationRemovedEvent event) {
+        ConversationKey key = new ConversationKey(event.getConversationType(), event.getConversationId());
+        if (conversations.remove(key) != null) {
+            dirty.remove(key);
+            removedSinceFlush = true;
+        }
+    }
+
+    /**
+     * Messages of the conversation matching the query, on the cursor's side of
+     * it: older ones newest first, or newer ones oldest first for a cursor
+     * from {@link KeysetCursor#newerThan}. Every word must occur in a message;
+     * words in double quotes must occur next to each other in that order.
+     */
+    public Result search(ConversationType type, UUID conversationId, String query, KeysetCursor cursor, int limit) {
+        if (!ready) {
+            throw new IllegalStateException("Message search is still loading, try again shortly");
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        List<List<String>> phrases = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = SearchTokens.of(parts[i]);
+            terms.addAll(tokens);
+            // Odd parts were inside quotes
+            if (i % 2 == 1 && tokens.size() > 1) {
+                phrases.add(tokens);
+            }
+        }
+        Conversation conversation = conversations.get(new ConversationKey(type, conversationId));
+        if (terms.isEmpty() || conversation == null || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+        conversation.lock.readLock().lock();
+        try {
+            return conversation.index.search(new ArrayList<>(terms), phrases, cursor, limit);
+        } finally {
+            conversation.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the conversations changed since the last flush to a new segment,
+     * or all of them into a single one when the segments have piled up or a
+     * conversation was removed, so its postings leave the disk as well.
+     */
+    @Scheduled(fixedDelayString = "${app.message-search.flush-interval-ms:60000}")
+    @PreDestroy
+    public void flush() {
+        if (!ready) {
+            return;
+        }
+        synchronized (flushLock) {
+            // Taken before the snapshots, so the next restart replays anything the snapshots might miss
+            Instant watermark = Instant.now();
+            Set<ConversationKey> changed = dirty;
+            dirty = ConcurrentHashMap.newKeySet();
+            boolean purge = removedSinceFlush;
+            removedSinceFlush = false;
+            boolean merge = segments.size() >= maxSegments || purge;
+            List<ConversationKey> keys = new ArrayList<>(merge ? conversations.keySet() : changed);
+            if (keys.isEmpty() && !segments.isEmpty()) {
+                return;
+            }
+            try {
+                Path segment = writeSegment(keys, watermark);
+                if (merge) {
+                    for (Path old : segments) {
+                        Files.deleteIfExists(old);
+                    }
+                    segments.clear();
+                }
+                segments.add(segment);
+            } catch (IOException e) {
+                logger.warn("Writing message search segment failed, retrying with the next flush: {}", e.getMessage());
+                dirty.addAll(changed);
+                removedSinceFlush |= purge;
+            }
+        }
+    }
+
+    private void apply(ConversationType type, UUID conversationId, UUID messageId, LocalDateTime createdAt, String content) {
+        if (conversationId == null || messageId == null || createdAt == null) {
+            return;
+        }
+        List<String> terms = content != null ? SearchTokens.of(content) : null;
+        ConversationKey key = new ConversationKey(type, conversationId);
+        Conversation conversation = conversations.computeIfAbsent(key, k -> new Conversation());
+        boolean changed;
+        conversation.lock.writeLock().lock();
+        try {
+            changed = terms != null
+                    ? conversation.index.put(messageId, createdAt, terms)
+                    : conversation.index.remove(messageId);
+        } finally {
+            conversation.lock.writeLock().unlock();
+        }
+        if (changed) {
+            dirty.add(key);
+        }
+    }
+
+    /**
+     * Drops the type's conversations that no longer exist, such as ones
+     * deleted after the newest segment was written. Returns how many.
+     */
+    private int prune(ConversationType type) {
+        String table = type == ConversationType.GROUP ? "user_groups" : "chats";
+        Set<UUID> existing = new HashSet<>();
+        jdbcTemplate.query("SELECT id FROM " + table, rs -> {
+            existing.add(BinaryUuids.fromBytes(rs.getBytes(1)));
+        });
+        int pruned = 0;
+        for (ConversationKey key : new ArrayList<>(conversations.keySet())) {
+            if (key.type() == type && !existing.contains(key.id())) {
+                conversations.remove(key);
+                pruned++;
+            }
+        }
+        if (pruned > 0) {
+            removedSinceFlush = true;
+        }
+        return pruned;
+    }
+
+    /**
+     * Applies the type's messages in id-ordered batches: all of them, or only
+     * rows updated since the watermark. Returns how many rows were read.
+     */
+    private int replay(ConversationType type, Instant watermark) {
+        String table = type == ConversationType.GROUP ? "user_group_messages" : "messages";
+        String conversationColumn = type == ConversationType.GROUP ? "group_id" : "chat_id";
+        String pageSql = "SELECT id, " + conversationColumn + ", created_at, content, is_deleted FROM " + table
+                + " WHERE id > ?" + (watermark != null ? " AND updated_at >= ?" : "") + " ORDER BY id LIMIT ?";
+        Object since = null;
+        if (watermark != null) {
+            // Group messages stamp updated_at in server local time, direct messages in UTC
+            ZoneId zone = type == ConversationType.GROUP ? ZoneId.systemDefault() : ZoneOffset.UTC;
+            since = Timestamp.valueOf(LocalDateTime.ofInstant(watermark.minus(CATCH_UP_MARGIN), zone));
+        }
+
+        int total = 0;
+        byte[] after = new byte[16];
+        while (true) {
+            List<byte[]> lastId = new ArrayList<>(1);
+            Object[] args = watermark != null ? new Object[]{after, since, loadBatchSize} : new Object[]{after, loadBatchSize};
+            int count = jdbcTemplate.query(pageSql, rs -> {
+                int rows = 0;
+                while (rs.next()) {
+                    byte[] id = rs.getBytes(1);
+                    Timestamp createdAt = rs.getTimestamp(3);
+                    apply(type, BinaryUuids.fromBytes(rs.getBytes(2)), BinaryUuids.fromBytes(id),
+                            createdAt != null ? createdAt.toLocalDateTime() : null,
+                            rs.getBoolean(5) ? null : rs.getString(4));
+                    lastId.clear();
+                    lastId.add(id);
+                    rows++;
+                }
+                return rows;
+            }, args);
+            total += count;
+            if (count < loadBatchSize) {
+                return total;
+            }
+            after = lastId.get(0);
+        }
+    }
+
+    // Segment layout: magic, version, watermark millis, conversation count, then per conversation its type, id and snapshot
+    private Path writeSegment(List<ConversationKey> keys, Instant watermark) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        Path segment = dir.resolve(SEGMENT_PREFIX + nextSegment++ + SEGMENT_SUFFIX);
+        Path temp = dir.resolve(segment.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(SEGMENT_VERSION);
+            out.writeLong(watermark.toEpochMilli());
+            out.writeInt(keys.size());
+            ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+            for (ConversationKey key : keys) {
+                Conversation conversation = conversations.get(key);
+                if (conversation == null) {
+                    // Removed since the keys were taken; the next flush rewrites the segments without it
+                    conversation = new Conversation();
+                }
+                snapshot.reset();
+                // Serialized under the read lock, written to disk outside it
+                conversation.lock.readLock().lock();
+                try {
+                    conversation.index.writeTo(new DataOutputStream(snapshot));
+                } finally {
+                    conversation.lock.readLock().unlock();
+                }
+                out.writeByte(key.type().ordinal());
+                out.writeLong(key.id().getMostSignificantBits());
+                out.writeLong(key.id().getLeastSignificantBits());
+                out.writeInt(snapshot.size());
+                snapshot.writeTo(out);
+            }
+        }
+        // A crash mid-write leaves only a .tmp file, which is never read
+        Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return segment;
+    }
+
+    /**
+     * Loads every segment, oldest first, so newer snapshots of a conversation
+     * replace older ones. Returns the newest segment's watermark, or null
+     * when there is none or one cannot be read.
+     */
+    private Instant readSegments() {
+        segments.clear();
+        nextSegment = 0;
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        List<Path> found;
+        try (Stream<Path> files = Files.list(dir)) {
+            found = files.filter(path -> segmentNumber(path) >= 0)
+                    .sorted(Comparator.comparingLong(MessageSearchIndex::segmentNumber))
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("Listing message search segments failed, rebuilding: {}", e.getMessage());
+            return null;
+        }
+        Instant watermark = null;
+        for (Path segment : found) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+                if (in.readInt() != SEGMENT_MAGIC || in.readInt() != SEGMENT_VERSION) {
+                    throw new IOException("unknown segment format");
+                }
+                watermark = Instant.ofEpochMilli(in.readLong());
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    ConversationType type = ConversationType.values()[in.readByte()];
+                    UUID id = new UUID(in.readLong(), in.readLong());
+                    in.readInt();
+                    Conversation conversation = new Conversation();
+                    conversation.index = ConversationIndex.readFrom(in);
+                    conversations.put(new ConversationKey(type, id), conversation);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Reading message search segment {} failed, rebuilding: {}", segment, e.toString());
+                conversations.clear();
+                segments.clear();
+                nextSegment = segmentNumber(found.get(found.size() - 1)) + 1;
+                // The rebuild writes a complete segment; unreadable ones must not be read again
+                for (Path stale : found) {
+                    try {
+                        Files.deleteIfExists(stale);
+                    } catch (IOException deleteFailed) {
+                        logger.warn("Deleting message search segment {} failed: {}", stale, deleteFailed.getMessage());
+                    }
+                }
+                return null;
+            }
+            segments.add(segment);
+            nextSegment = segmentNumber(segment) + 1;
+        }
+        return watermark;
+    }
+
+    // -1 for files that are not complete segments
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.entity.Chat;
+import com.bharat.springbootsocial.entity.ConversationType;
 import com.bharat.springbootsocial.entity.Message;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.MessageChangedEvent;
 import com.bharat.springbootsocial.repository.ChatRepo;
 import com.bharat.springbootsocial.repository.MessageRepo;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -23,7 +27,12 @@ public class MessageServiceImpl implements MessageServices{
     private ChatService chatServices;
     @Autowired
     private ChatRepo chatRepo;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ReadWatermarks readWatermarks;
     @Override
+    @Transactional
     public Message createMessage(User reqUser, UUID chatId, Message req) throws Exception {
 
         Chat chat = chatServices.getChatById(chatId);
@@ -35,9 +44,13 @@ public class MessageServiceImpl implements MessageServices{
         message.setChat(chat);
         // Use UTC to ensure consistent timezone handling across all users
         message.setTimestamp(LocalDateTime.now(ZoneOffset.UTC));
+        message.setSeq(readWatermarks.nextSequence(ConversationType.CHAT, chatId));
         Message savedMessage = messageRepo.save(message);
+        readWatermarks.advance(reqUser.getId(), ConversationType.CHAT, chatId, savedMessage.getSeq());
         chat.getMessages().add(savedMessage);
         chatRepo.save(chat);
+        eventPublisher.publishEvent(new MessageChangedEvent(ConversationType.CHAT,
+                chatId, savedMessage.getId(), savedMessage.getTimestamp(), savedMessage.getContent()));
         return savedMessage;
     }
 
@@ -0,0 +1,528 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.ConversationType;
+import com.bharat.springbootsocial.entity.GroupMessage;
+import com.bharat.springbootsocial.entity.Message;
+import com.bharat.springbootsocial.event.MessageChangedEvent;
+import com.bharat.springbootsocial.ids.Ids;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists new chat and group messages in batches. Senders enqueue a validated,
+ * unsaved message and get a future; writer threads drain their queue, reserve
+ * sequence numbers, insert the whole batch with multi-row INSERTs, move the
+ * senders' read watermarks and commit once. The futures are completed on an
+ * ack thread of the writer's own, so whatever callers chain on them, such as
+ * broadcasting the message, never holds up the writer's next batch.
+ *
+ * Each conversation always maps to the same writer, so its messages are
+ * numbered in the order they were enqueued and two writers never contend for
+ * the same conversation row.
+ *
+ * With app.message-pipeline.ack=commit (the default) a future completes after
+ * the commit. With ack=enqueue it completes as soon as the message is queued;
+ * the sender hears back sooner, but messages still queued when the node dies
+ * are lost, and a failed write is only logged.
+ */
+@Component
+public class MessageWritePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWritePipeline.class);
+
+    // Keeps each INSERT well under max_allowed_packet and the driver's placeholder limit
+    private static final int ROWS_PER_INSERT = 200;
+
+    private static final String CHAT_COLUMNS = "(id, content, image_url, message_type, video_url, file_url, file_name, "
+            + "file_size, user_id, chat_id, reply_to_id, is_edited, is_deleted, created_at, updated_at, seq)";
+
+    private static final String GROUP_COLUMNS = "(id, content, message_type, image_url, video_url, file_url, file_name, "
+            + "file_size, sender_id, group_id, reply_to_id, is_edited, is_deleted, created_at, updated_at, seq)";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ReadWatermarks readWatermarks;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.message-pipeline.writers:2}")
+    private int writerCount;
+
+    @Value("${app.message-pipeline.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.message-pipeline.max-batch:256}")
+    private int maxBatch;
+
+    @Value("${app.message-pipeline.linger-ms:2}")
+    private long lingerMillis;
+
+    @Value("${app.message-pipeline.enqueue-timeout-ms:1000}")
+    private long enqueueTimeoutMillis;
+
+    @Value("${app.message-pipeline.ack:commit}")
+    private String ack;
+
+    // Writers have connections of their own: request threads waiting on an ack
+    // hold pooled connections, and must not be able to starve the writers
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    private Writer[] writers;
+    private Timer latencyTimer;
+    private DistributionSummary batchSizes;
+    private boolean ackAfterCommit;
+    private volatile boolean running;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+
+    public record Stats(long submitted, long written, long failed, long rejected, long batches, long queued,
+                        double meanBatchSize, double meanLatencyMillis) {
+    }
+
+    // A message waiting to be written, and who to tell once it is
+    private record Pending(ConversationType type, UUID conversationId, UUID senderId, Object message,
+                           CompletableFuture<Object> written, long enqueuedAt) {
+    }
+
+    @PostConstruct
+    void startWriters() {
+        if (!ack.equalsIgnoreCase("commit") && !ack.equalsIgnoreCase("enqueue")) {
+            throw new IllegalStateException("app.message-pipeline.ack must be commit or enqueue, not " + ack);
+        }
+        ackAfterCommit = ack.equalsIgnoreCase("commit");
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // Same settings as the main pool (spring.datasource.hikari.*), one connection per writer,
+        // then anything set under app.message-pipeline.pool.* for the writers alone
+        Binder binder = Binder.get(environment);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName("message-writers");
+        dataSource.setMaximumPoolSize(writerCount);
+        binder.bind("app.message-pipeline.pool", Bindable.ofInstance(dataSource));
+        if (meterRegistry != null) {
+            dataSource.setMetricRegistry(meterRegistry);
+            latencyTimer = Timer.builder("message.pipeline.latency")
+                    .description("Time from enqueue until the message's batch committed")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            batchSizes = DistributionSummary.builder("message.pipeline.batch.size")
+                    .description("Messages written per commit")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate = namedJdbcTemplate.getJdbcTemplate();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        running = true;
+        writers = new Writer[writerCount];
+        for (int i = 0; i < writerCount; i++) {
+            writers[i] = new Writer("message-writer-" + i, new ArrayBlockingQueue<>(queueCapacity));
+            writers[i].start();
+        }
+    }
+
+    // Stops taking messages and writes out what is already queued
+    @PreDestroy
+    void stopWriters() throws InterruptedException {
+        running = false;
+        for (Writer writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        for (Writer writer : writers) {
+            writer.acks.shutdown();
+            writer.acks.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        dataSource.close();
+    }
+
+    /**
+     * Queues a new direct message. The message must be validated and unsaved;
+     * its id, timestamps and defaults are filled in here, its seq when written.
+     */
+    public CompletableFuture<Message> submit(Message message) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        if (message.getId() == null) {
+            message.setId(Ids.next());
+        }
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(now);
+        }
+        message.setUpdatedAt(now);
+        if (message.getMessageType() == null) {
+            message.setMessageType(Message.MessageType.TEXT);
+        }
+        return enqueue(ConversationType.CHAT, message.getChat().getId(), message.getUser().getId(), message);
+    }
+
+    /**
+     * Queues a new group message; as for direct messages. System messages,
+     * which have no sender, are written directly by GroupMessageService.
+     */
+    public CompletableFuture<GroupMessage> submit(GroupMessage message) {
+        LocalDateTime now = LocalDateTime.now();
+        if (message.getId() == null) {
+            message.setId(Ids.next());
+        }
+        if (message.getCreatedAt() == null) {
+            message.setCreatedAt(now);
+        }
+        message.setUpdatedAt(now);
+        if (message.getMessageType() == null) {
+            message.setMessageType(GroupMessage.MessageType.TEXT);
+        }
+        return enqueue(ConversationType.GROUP, message.getGroup().getId(), message.getSender().getId(), message);
+    }
+
+    // Waits for a submitted message, rethrowing the write's own exception
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public Stats stats() {
+        long queued = 0;
+        for (Writer writer : writers) {
+            queued += writer.queue.size();
+        }
+        long batchCount = batches.sum();
+        long writtenCount = written.sum();
+        return new Stats(submitted.sum(), writtenCount, failed.sum(), rejected.sum(), batchCount, queued,
+                batchCount == 0 ? 0 : (double) (writtenCount + failed.sum()) / batchCount,
+                writtenCount == 0 ? 0 : latencyNanos.sum() / 1e6 / writtenCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> enqueue(ConversationType type, UUID conversationId, UUID senderId, T message) {
+        if (!running) {
+            throw new IllegalStateException("Message pipeline is shut down");
+        }
+        CompletableFuture<Object> writtenFuture = new CompletableFuture<>();
+        Pending pending = new Pending(type, conversationId, senderId, message, writtenFuture, System.nanoTime());
+        Writer writer = writers[Math.floorMod(conversationId.hashCode(), writers.length)];
+        boolean queued;
+        try {
+            queued = writer.queue.offer(pending, enqueueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            rejected.increment();
+            throw new IllegalStateException("Too many messages are waiting to be saved, try again");
+        }
+        submitted.increment();
+        if (ackAfterCommit) {
+            return (CompletableFuture<T>) writtenFuture;
+        }
+        writtenFuture.exceptionally(e -> {
+            logger.error("Lost {} message {} after acknowledging it: {}", type, idOf(message), e.toString());
+            return null;
+        });
+        return CompletableFuture.completedFuture(message);
+    }
+
+    private final class Writer extends Thread {
+
+        private final BlockingQueue<Pending> queue;
+        // One thread, so acks keep the order their conversation's messages were written in
+        private final ExecutorService acks;
+
+        Writer(String name, BlockingQueue<Pending> queue) {
+            super(name);
+            this.queue = queue;
+            this.acks = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name + "-acks");
+                thread.setDaemon(true);
+                return thread;
+            });
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Pending> batch = new ArrayList<>(maxBatch);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    fill(batch);
+                    write(batch, acks);
+                } catch (InterruptedException e) {
+                    // Shutdown is signalled through running; keep draining
+                } catch (RuntimeException e) {
+                    logger.error("Message writer failed", e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        // Takes what is already queued, then waits up to the linger time for more
+        private void fill(List<Pending> batch) throws InterruptedException {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+            while (batch.size() < maxBatch) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                queue.drainTo(batch, maxBatch - batch.size());
+            }
+        }
+    }
+
+    private void write(List<Pending> batch, Executor acks) {
+        List<Pending> accepted = new ArrayList<>(batch.size());
+        List<Pending> missing = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                accepted.clear();
+                missing.clear();
+                for (ConversationType type : ConversationType.values()) {
+                    List<Pending> ofType = batch.stream().filter(pending -> pending.type() == type).toList();
+                    if (!ofType.isEmpty()) {
+                        writeConversations(type, ofType, accepted, missing);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // One bad row (say an over-long content) must not fail everyone else's message
+                logger.warn("Batch of {} messages failed, writing them one by one: {}", batch.size(), e.toString());
+                for (Pending pending : batch) {
+                    write(List.of(pending), acks);
+                }
+                return;
+            }
+            failed.increment();
+            batches.increment();
+            logger.error("Failed to write {} message {}", batch.get(0).type(), idOf(batch.get(0).message()), e);
+            acks.execute(() -> batch.get(0).written().completeExceptionally(e));
+            return;
+        }
+
+        batches.increment();
+        if (batchSizes != null) {
+            batchSizes.record(batch.size());
+        }
+        long now = System.nanoTime();
+        for (Pending pending : accepted) {
+            written.increment();
+            latencyNanos.add(now - pending.enqueuedAt());
+            if (latencyTimer != null) {
+                latencyTimer.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+            }
+            publishChange(pending);
+        }
+        failed.add(missing.size());
+        // Copied, since the writer reuses the batch list once this returns
+        List<Pending> acked = List.copyOf(accepted);
+        List<Pending> rejectedMissing = List.copyOf(missing);
+        acks.execute(() -> {
+            for (Pending pending : rejectedMissing) {
+                pending.written().completeExceptionally(new IllegalArgumentException(
+                        (pending.type() == ConversationType.GROUP ? "Group" : "Chat") + " not found"));
+            }
+            for (Pending pending : acked) {
+                pending.written().complete(pending.message());
+            }
+        });
+    }
+
+    // Writes one type's messages: sequence numbers, rows, senders' watermarks and, for groups, last activity
+    private void writeConversations(ConversationType type, List<Pending> batch,
+                                    List<Pending> accepted, List<Pending> missing) {
+        Map<UUID, Integer> counts = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            counts.merge(pending.conversationId(), 1, Integer::sum);
+        }
+        Map<UUID, Long> nextSeq = new HashMap<>(readWatermarks.reserveSequences(namedJdbcTemplate, type, counts));
+
+        List<Pending> rows = new ArrayList<>(batch.size());
+        Map<List<UUID>, Long> senderSeq = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            Long seq = nextSeq.get(pending.conversationId());
+            if (seq == null) {
+                missing.add(pending);
+                continue;
+            }
+            nextSeq.put(pending.conversationId(), seq + 1);
+            setSeq(pending.message(), seq);
+            rows.add(pending);
+            senderSeq.put(List.of(pending.senderId(), pending.conversationId()), seq);
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        String table = type == ConversationType.GROUP ? "user_group_messages" : "messages";
+        String columns = type == ConversationType.GROUP ? GROUP_COLUMNS : CHAT_COLUMNS;
+        for (int from = 0; from < rows.size(); from += ROWS_PER_INSERT) {
+            List<Pending> chunk = rows.subList(from, Math.min(from + ROWS_PER_INSERT, rows.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 16);
+            for (Pending pending : chunk) {
+                if (type == ConversationType.GROUP) {
+                    addGroupRow(args, (GroupMessage) pending.message());
+                } else {
+                    addChatRow(args, (Message) pending.message());
+                }
+            }
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDERS));
+            jdbcTemplate.update("INSERT INTO " + table + " " + columns + " VALUES " + placeholders, args.toArray());
+        }
+
+        // A sender has read everything up to their own message
+        List<ReadWatermarks.Advance> advances = new ArrayList<>(senderSeq.size());
+        senderSeq.forEach((key, seq) -> advances.add(new ReadWatermarks.Advance(key.get(0), key.get(1), seq)));
+        readWatermarks.advanceAll(namedJdbcTemplate, type, advances);
+
+        if (type == ConversationType.GROUP) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> activity = new ArrayList<>();
+            for (UUID groupId : counts.keySet()) {
+                if (nextSeq.containsKey(groupId)) {
+                    activity.add(new Object[]{now, BinaryUuids.toBytes(groupId)});
+                }
+            }
+            jdbcTemplate.batchUpdate("UPDATE user_groups SET last_activity = ? WHERE id = ?", activity);
+        }
+        accepted.addAll(rows);
+    }
+
+    private static void addChatRow(List<Object> args, Message message) {
+        args.add(BinaryUuids.toBytes(message.getId()));
+        args.add(message.getContent());
+        args.add(message.getImage());
+        args.add(message.getMessageType().name());
+        args.add(message.getVideoUrl());
+        args.add(message.getFileUrl());
+        args.add(message.getFileName());
+        args.add(message.getFileSize());
+        args.add(BinaryUuids.toBytes(message.getUser().getId()));
+        args.add(BinaryUuids.toBytes(message.getChat().getId()));
+        args.add(message.getReplyTo() != null ? BinaryUuids.toBytes(message.getReplyTo().getId()) : null);
+        args.add(Boolean.TRUE.equals(message.getIsEdited()));
+        args.add(Boolean.TRUE.equals(message.getIsDeleted()));
+        args.add(Timestamp.valueOf(message.getTimestamp()));
+        args.add(Timestamp.valueOf(message.getUpdatedAt()));
+        args.add(message.getSeq());
+    }
+
+    private static void addGroupRow(List<Object> args, GroupMessage message) {
+        args.add(BinaryUuids.toBytes(message.getId()));
+        args.add(message.getContent());
+        args.add(message.getMessageType().name());
+        args.add(message.getImageUrl());
+        args.add(message.getVideoUrl());
+        args.add(message.getFileUrl());
+        args.add(message.getFileName());
+        args.add(message.getFileSize());
+        args.add(BinaryUuids.toBytes(message.getSender().getId()));
+        args.add(BinaryUuids.toBytes(message.getGroup().getId()));
+        args.add(message.getReplyTo() != null ? BinaryUuids.toBytes(message.getReplyTo().getId()) : null);
+        args.add(Boolean.TRUE.equals(message.getIsEdited()));
+        args.add(Boolean.TRUE.equals(message.getIsDeleted()));
+        args.add(Timestamp.valueOf(message.getCreatedAt()));
+        args.add(Timestamp.valueOf(message.getUpdatedAt()));
+        args.add(message.getSeq());
+    }
+
+    private static void setSeq(Object message, long seq) {
+        if (message instanceof GroupMessage groupMessage) {
+            groupMessage.setSeq(seq);
+        } else {
+            ((Message) message).setSeq(seq);
+        }
+    }
+
+    private static UUID idOf(Object message) {
+        return message instanceof GroupMessage groupMessage ? groupMessage.getId() : ((Message) message).getId();
+    }
+
+    // Keeps message search up to date; there is no surrounding transaction, so it is delivered right away
+    private void publishChange(Pending pending) {
+        LocalDateTime createdAt;
+        String content;
+        if (pending.message() instanceof GroupMessage groupMessage) {
+            createdAt = groupMessage.getCreatedAt();
+            content = groupMessage.getContent();
+        } else {
+            Message message = (Message) pending.message();
+            createdAt = message.getTimestamp();
+            content = message.getContent();
+        }
+        eventPublisher.publishEvent(new MessageChangedEvent(pending.type(), pending.conversationId(),
+                idOf(pending.message()), createdAt, content));
+    }
+}
@@ -3,6 +3,7 @@ package com.bharat.springbootsocial.services;
 import com.bharat.springbootsocial.entity.Notification;
 import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.exception.UserException;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -21,6 +22,9 @@ public interface NotificationService {
     // Get paginated notifications for user
     Page<Notification> getNotificationsByUserIdPaginated(UUID userId, Pageable pageable);
     
+    // Get notifications for user by keyset cursor, without a count query
+    PaginatedResponse<Notification> getNotificationsByUserIdCursor(UUID userId, String cursor, int size);
+    
     // Get unread notifications for user
     List<Notification> getUnreadNotificationsByUserId(UUID userId);
     
@@ -3,7 +3,9 @@ package com.bharat.springbootsocial.services;
 import com.bharat.springbootsocial.entity.Notification;
 import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.exception.UserException;
+import com.bharat.springbootsocial.pagination.KeysetPager;
 import com.bharat.springbootsocial.repository.NotificationRepo;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -71,6 +73,14 @@ public class NotificationServiceImpl implements NotificationService {
         return notificationRepo.findByRecipientIdOrderByCreatedAtDesc(userId, pageable);
     }
     
+    @Override
+    public PaginatedResponse<Notification> getNotificationsByUserIdCursor(UUID userId, String cursor, int size) {
+        return KeysetPager.page(cursor, size,
+                (createdAt, id, limit) -> notificationRepo.findRecipientPageBefore(userId, createdAt, id, limit),
+                (createdAt, id, limit) -> notificationRepo.findRecipientPageAfter(userId, createdAt, id, limit),
+                Notification::getCreatedAt, Notification::getId);
+    }
+    
     @Override
     public List<Notification> getUnreadNotificationsByUserId(UUID userId) {
         return notificationRepo.findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(userId);
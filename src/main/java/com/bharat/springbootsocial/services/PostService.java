@@ -6,6 +6,7 @@ import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.PostResponse;
 import com.bharat.springbootsocial.response.CommentResponse;
 import com.bharat.springbootsocial.response.ContentResponse;
+import com.bharat.springbootsocial.response.LikeResponse;
 
 import java.util.List;
 import java.util.UUID;
@@ -23,12 +24,13 @@ public interface PostService {
 
     Post savedPost(UUID postId, UUID userId) throws Exception;
 
-    Post likedPost(UUID postId, UUID userId) throws Exception;
+    LikeResponse likedPost(UUID postId, UUID userId) throws Exception;
 
     List<Post> findSavedPostsByUserId(UUID userId) throws Exception;
     
     // Paginated methods for infinite scroll
     PaginatedResponse<Post> findAllPostsPaginated(int page, int size) throws Exception;
+    PaginatedResponse<Post> findAllPostsByCursor(String cursor, int size) throws Exception;
     
     PaginatedResponse<Post> findPostsByUserIdPaginated(UUID userId, int page, int size) throws Exception;
     
@@ -45,6 +47,7 @@ public interface PostService {
     List<PostResponse> findAllPostsOptimized(UUID currentUserId) throws Exception;
     
     PaginatedResponse<PostResponse> findAllPostsOptimizedPaginated(UUID currentUserId, int page, int size) throws Exception;
+    PaginatedResponse<PostResponse> findAllPostsOptimizedByCursor(UUID currentUserId, String cursor, int size) throws Exception;
     
     List<PostResponse> findPostsByUserIdOptimized(UUID userId, UUID currentUserId) throws Exception;
     
@@ -62,6 +65,10 @@ public interface PostService {
     
     // Get optimized combined posts and reels feed
     PaginatedResponse<ContentResponse> findAllPostsAndReelsOptimizedPaginated(UUID currentUserId, int page, int size) throws Exception;
+    PaginatedResponse<ContentResponse> findAllPostsAndReelsOptimizedByCursor(UUID currentUserId, String cursor, int size) throws Exception;
+    
+    // Personalized home timeline (posts + reels), cursor paginated
+    PaginatedResponse<ContentResponse> findTimeline(UUID currentUserId, String cursor, int size) throws Exception;
     
     // Get combined posts and reels for a specific user with type information
     List<ContentResponse> findPostsAndReelsByUserIdWithType(UUID userId, UUID currentUserId) throws Exception;
@@ -4,14 +4,20 @@ import com.bharat.springbootsocial.entity.Post;
 import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.entity.Comment;
 import com.bharat.springbootsocial.entity.Reels;
+import com.bharat.springbootsocial.entity.TimelineEntry;
+import com.bharat.springbootsocial.event.ContentPublishedEvent;
+import com.bharat.springbootsocial.pagination.KeysetCursor;
+import com.bharat.springbootsocial.pagination.KeysetPager;
 import com.bharat.springbootsocial.repository.PostRepo;
+import com.bharat.springbootsocial.repository.ReelsRepo;
 import com.bharat.springbootsocial.repository.UserRepo;
 import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.PostResponse;
 import com.bharat.springbootsocial.response.CommentResponse;
 import com.bharat.springbootsocial.response.ContentResponse;
-import com.bharat.springbootsocial.response.ReelsResponse;
+import com.bharat.springbootsocial.response.LikeResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,24 +26,50 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class PostServiceImp implements PostService {
+    // Newest first across posts and reels
+    private static final Comparator<Object> NEWEST_FIRST =
+            Comparator.comparing(PostServiceImp::createdAtOf, Comparator.nullsLast(Comparator.reverseOrder()));
+    
     @Autowired
     private PostRepo postRepo;
     @Autowired
     private ServiceInt userService;
     @Autowired
     private UserRepo userRepo;
+    @Autowired
+    private FeedAssembler feedAssembler;
+    @Autowired
+    private LikeService likeService;
+    @Autowired
+    private LikedItemsCache likedItemsCache;
+    @Autowired
+    private EngagementCounters engagementCounters;
     
     @Autowired
     private ReelsService reelsService;
     
     @Autowired
-    private NotificationService notificationService;
+    private ReelsRepo reelsRepo;
+    
+    @Autowired
+    private TimelineService timelineService;
+    
+    @Autowired
+    private FeedJsonCache feedJsonCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
     public Post createPost(Post post, UUID userId) throws Exception {
@@ -50,6 +82,8 @@ public class PostServiceImp implements PostService {
         newPost.setUser(user);
 
         postRepo.save(newPost);
+        eventPublisher.publishEvent(new ContentPublishedEvent(
+                newPost.getId(), TimelineEntry.ItemType.POST, userId, newPost.getCreatedAt()));
         return newPost;
     }
 
@@ -58,6 +92,8 @@ public class PostServiceImp implements PostService {
         Post post = findPostById(postId);
         if (post.getUser().getId().equals(userId)) {
             postRepo.deleteById(postId);
+            timelineService.removeItem(postId);
+            feedJsonCache.invalidate(postId);
             return "Post deleted successfully";
         } else {
             throw new Exception("You are not authorized to delete this post");
@@ -112,27 +148,9 @@ public class PostServiceImp implements PostService {
 
     @Override
     @Transactional
-    public Post likedPost(UUID postId, UUID userId) throws Exception {
-        Post post = findPostById(postId); // fetch post from DB
-        User user = userService.getUserById(userId); // fetch user from DB
-    
-        // Check if the user already liked the post
-        boolean isLiked = post.getLikedBy().stream()
-                .anyMatch(likedUser -> likedUser.getId().equals(userId));
-    
-        if (isLiked) {
-            // Unlike (remove from likedBy list)
-            post.getLikedBy().removeIf(likedUser -> likedUser.getId().equals(userId));
-        } else {
-            // Like (add user to likedBy list)
-            post.getLikedBy().add(user);
-            
-            // Send like notification
-            notificationService.sendLikeNotification(post.getUser(), user, "POST", post.getId());
-        }
-    
-        // Save changes
-        return postRepo.save(post);
+    public LikeResponse likedPost(UUID postId, UUID userId) throws Exception {
+        // Single-row toggle on the like table; the likers list is not loaded or rewritten
+        return likeService.toggle(LikeService.Target.POST, postId, userId);
     }
     
 
@@ -229,6 +247,19 @@ public class PostServiceImp implements PostService {
         return response;
     }
     
+    @Override
+    public PaginatedResponse<Post> findAllPostsByCursor(String cursor, int size) throws Exception {
+        PaginatedResponse<Post> response = KeysetPager.page(cursor, size,
+                postRepo::findAllBefore, postRepo::findAllAfter, Post::getCreatedAt, Post::getId);
+        
+        // Initialize lazy collections for each post
+        for (Post post : response.getContent()) {
+            post.getLikedBy().size(); // Trigger lazy loading
+        }
+        
+        return response;
+    }
+    
     private PaginatedResponse<Post> createPaginatedResponse(Page<Post> postPage) {
         PaginatedResponse<Post> response = new PaginatedResponse<>();
         response.setContent(postPage.getContent());
@@ -274,6 +305,47 @@ public class PostServiceImp implements PostService {
         }
     }
     
+    @Override
+    public PaginatedResponse<PostResponse> findAllPostsOptimizedByCursor(UUID currentUserId, String cursor, int size) throws Exception {
+        PaginatedResponse<Post> postPage = KeysetPager.page(cursor, size,
+                postRepo::findAllBefore, postRepo::findAllAfter, Post::getCreatedAt, Post::getId);
+        return postPage.withContent(convertToOptimizedResponse(postPage.getContent(), currentUserId));
+    }
+    
+    @Override
+    public PaginatedResponse<ContentResponse> findTimeline(UUID currentUserId, String cursor, int size) throws Exception {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        
+        // Read one extra entry to know whether there is another page
+        List<TimelineEntry> entries = timelineService.readTimeline(currentUserId, position, size + 1);
+        PaginatedResponse<TimelineEntry> page = KeysetPager.toResponse(entries, position, size,
+                TimelineEntry::getCreatedAt, TimelineEntry::getItemId);
+        List<TimelineEntry> pageEntries = page.getContent();
+        
+        List<UUID> postIds = new ArrayList<>();
+        List<UUID> reelIds = new ArrayList<>();
+        for (TimelineEntry entry : pageEntries) {
+            if (entry.getItemType() == TimelineEntry.ItemType.POST) {
+                postIds.add(entry.getItemId());
+            } else {
+                reelIds.add(entry.getItemId());
+            }
+        }
+        Map<UUID, Object> itemsById = new HashMap<>();
+        postRepo.findAllById(postIds).forEach(post -> itemsById.put(post.getId(), post));
+        reelsRepo.findAllById(reelIds).forEach(reel -> itemsById.put(reel.getId(), reel));
+        
+        // Keep timeline order; items deleted since they were pushed are skipped
+        List<Object> items = pageEntries.stream()
+                .map(entry -> itemsById.get(entry.getItemId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return page.withContent(feedAssembler.toContentResponses(items, currentUserId));
+    }
+    
     @Override
     public List<PostResponse> findPostsByUserIdOptimized(UUID userId, UUID currentUserId) throws Exception {
         List<Post> posts = postRepo.findPostByUserId(userId);
@@ -305,20 +377,8 @@ public class PostServiceImp implements PostService {
         User user = userService.getUserById(userId);
         List<Post> allSavedPosts = user.getSavedPosts();
         
-        // Initialize lazy collections for all posts to avoid LazyInitializationException
-        for (Post post : allSavedPosts) {
-            post.getLikedBy().size(); // Trigger lazy loading
-            post.getComments().size(); // Trigger lazy loading
-            if (post.getUser() != null) {
-                post.getUser().getFname(); // Trigger lazy loading
-            }
-        }
-        
-        // Convert to optimized response
-        List<PostResponse> optimizedPosts = convertToOptimizedResponse(allSavedPosts, userId);
-        
         // Manual pagination for saved posts
-        int totalElements = optimizedPosts.size();
+        int totalElements = allSavedPosts.size();
         int totalPages = (int) Math.ceil((double) totalElements / size);
         int startIndex = page * size;
         int endIndex = Math.min(startIndex + size, totalElements);
@@ -328,7 +388,8 @@ public class PostServiceImp implements PostService {
             startIndex = totalElements;
         }
         
-        List<PostResponse> paginatedPosts = optimizedPosts.subList(startIndex, endIndex);
+        // Only the requested page is hydrated
+        List<PostResponse> paginatedPosts = convertToOptimizedResponse(allSavedPosts.subList(startIndex, endIndex), userId);
         
         PaginatedResponse<PostResponse> response = new PaginatedResponse<>();
         response.setContent(paginatedPosts);
@@ -345,90 +406,7 @@ public class PostServiceImp implements PostService {
     }
     
     private List<PostResponse> convertToOptimizedResponse(List<Post> posts, UUID currentUserId) {
-        User currentUser = null;
-        if (currentUserId != null) {
-            try {
-                currentUser = userService.getUserById(currentUserId);
-            } catch (Exception e) {
-                // If user not found, continue without current user context
-            }
-        }
-        
-        final User finalCurrentUser = currentUser;
-        
-        return posts.stream().map(post -> {
-            PostResponse response = new PostResponse();
-            response.setId(post.getId());
-            response.setCaption(post.getCaption());
-            response.setImage(post.getImage());
-            response.setVideo(post.getVideo());
-            response.setUser(post.getUser());
-            response.setCreatedAt(post.getCreatedAt());
-            
-            // Initialize lazy collections
-            post.getLikedBy().size();
-            post.getComments().size();
-            
-            // Set total counts
-            response.setTotalLikes(post.getLikedBy().size());
-            response.setTotalComments(post.getComments().size());
-            
-            // Get recent 3 likes from following/followers
-            List<User> recentLikedBy = getRecentLikedBy(post.getLikedBy(), finalCurrentUser);
-            response.setRecentLikedBy(recentLikedBy);
-            
-            // Get recent 3 comments
-            List<PostResponse.CommentResponse> recentComments = getRecentComments(post.getComments(), currentUserId);
-            response.setRecentComments(recentComments);
-            
-            return response;
-        }).collect(Collectors.toList());
-    }
-    
-    private List<User> getRecentLikedBy(List<User> allLikedBy, User currentUser) {
-        if (currentUser == null || currentUser.getFollowing() == null) {
-            // If no current user or following list, return latest 3
-            return allLikedBy.stream()
-                    .limit(3)
-                    .collect(Collectors.toList());
-        }
-        
-        // First priority: Current user if they liked the post
-        User currentUserLike = allLikedBy.stream()
-                .filter(user -> user.getId().equals(currentUser.getId()))
-                .findFirst()
-                .orElse(null);
-        
-        // Second priority: Likes from following/followers (excluding current user)
-        List<User> followingFollowersLikes = allLikedBy.stream()
-                .filter(user -> !user.getId().equals(currentUser.getId()) && 
-                               (currentUser.getFollowing().contains(user.getId()) || 
-                                currentUser.getFollowers().contains(user.getId())))
-                .limit(currentUserLike != null ? 2 : 3) // Reserve 1 spot for current user if they liked
-                .collect(Collectors.toList());
-        
-        // Combine current user (if they liked) with following/followers likes
-        List<User> result = new ArrayList<>();
-        if (currentUserLike != null) {
-            result.add(currentUserLike);
-        }
-        result.addAll(followingFollowersLikes);
-        
-        // Third priority: Other users to make it 3 total (excluding already added users)
-        if (result.size() < 3) {
-            List<UUID> alreadyAddedIds = result.stream()
-                    .map(User::getId)
-                    .collect(Collectors.toList());
-            
-            List<User> additionalLikes = allLikedBy.stream()
-                    .filter(user -> !alreadyAddedIds.contains(user.getId()))
-                    .limit(3 - result.size())
-                    .collect(Collectors.toList());
-            
-            result.addAll(additionalLikes);
-        }
-        
-        return result;
+        return feedAssembler.toPostResponses(posts, currentUserId);
     }
     
     @Override
@@ -491,11 +469,12 @@ public class PostServiceImp implements PostService {
         }
         
         List<Comment> paginatedComments = allComments.subList(startIndex, endIndex);
+        Set<UUID> likedByViewer = likedItemsCache.likedAmong(currentUserId,
+                paginatedComments.stream().map(Comment::getId).toList());
         
         // Convert to CommentResponse with totalLikes and isLiked
         List<CommentResponse> commentResponses = paginatedComments.stream().map(comment -> {
             // Initialize lazy collections
-            comment.getLikedBy().size(); // Trigger lazy loading
             if (comment.getUser() != null) {
                 comment.getUser().getFname(); // Trigger lazy loading
             }
@@ -506,13 +485,10 @@ public class PostServiceImp implements PostService {
             response.setUser(comment.getUser());
             response.setCreatedAt(comment.getCreatedAt());
             
-            // Set total likes count
-            response.setTotalLikes(comment.getLikedBy().size());
-            
-            // Check if current user liked this comment
-            boolean isLiked = currentUserId != null && comment.getLikedBy().stream()
-                    .anyMatch(user -> user.getId().equals(currentUserId));
-            response.setIsLiked(isLiked);
+            // Counter column plus unflushed likes, instead of loading every liker
+            response.setTotalLikes(engagementCounters.current(EngagementCounters.Counter.COMMENT_LIKES,
+                    comment.getId(), comment.getLikeCount(), comment.getCountersLoadedAt()));
+            response.setIsLiked(likedByViewer.contains(comment.getId()));
             
             return response;
         }).collect(Collectors.toList());
@@ -531,31 +507,6 @@ public class PostServiceImp implements PostService {
         return response;
     }
     
-    private List<PostResponse.CommentResponse> getRecentComments(List<Comment> allComments, UUID currentUserId) {
-        return allComments.stream()
-                .sorted((c1, c2) -> c2.getCreatedAt().compareTo(c1.getCreatedAt())) // Latest first
-                .limit(3)
-                .map(comment -> {
-                    PostResponse.CommentResponse commentResponse = new PostResponse.CommentResponse();
-                    commentResponse.setId(comment.getId());
-                    commentResponse.setContent(comment.getContent());
-                    commentResponse.setUser(comment.getUser());
-                    commentResponse.setCreatedAt(comment.getCreatedAt());
-                    
-                    // Initialize lazy collection for comment likes
-                    comment.getLikedBy().size();
-                    commentResponse.setTotalLikes(comment.getLikedBy().size());
-                    
-                    // Check if current user liked this comment
-                    boolean isLiked = currentUserId != null && comment.getLikedBy().stream()
-                            .anyMatch(user -> user.getId().equals(currentUserId));
-                    commentResponse.setIsLiked(isLiked);
-                    
-                    return commentResponse;
-                })
-                .collect(Collectors.toList());
-    }
-    
     @Override
     public List<Object> findPostsAndReelsByUserId(UUID userId) throws Exception {
         // Get posts for the user
@@ -590,59 +541,19 @@ public class PostServiceImp implements PostService {
     
     @Override
     public PaginatedResponse<ContentResponse> findAllPostsAndReelsOptimizedPaginated(UUID currentUserId, int page, int size) throws Exception {
-        // Get posts with pagination
+        // Get posts and reels with pagination
         Pageable pageable = PageRequest.of(page, size);
         Page<Post> postPage = postRepo.findAllPostsPaginated(pageable);
+        Page<Reels> reelsPage = reelsRepo.findAllReelsPaginated(pageable);
         
-        // Get reels with pagination
-        PaginatedResponse<ReelsResponse> reelsPaginated = reelsService.getAllReelsPaginatedWithCounts(page, size);
-        
-        // Convert posts to ContentResponse
-        List<ContentResponse> postResponses = postPage.getContent().stream()
-                .map(post -> {
-                    // Initialize lazy collections
-                    post.getLikedBy().size();
-                    post.getComments().size();
-                    
-                    // Get recent liked by and comments (similar to existing logic)
-                    List<User> recentLikedBy = getRecentLikedBy(post.getLikedBy(), userService.getUserById(currentUserId));
-                    List<ContentResponse.CommentResponse> recentComments = getRecentCommentsForContent(post.getComments(), currentUserId);
-                    
-                    return new ContentResponse(post, recentLikedBy, recentComments);
-                })
-                .collect(Collectors.toList());
-        
-        // Convert reels to ContentResponse
-        List<ContentResponse> reelResponses = reelsPaginated.getContent().stream()
-                .map(reelsResponse -> {
-                    // We need to get the actual Reels entity to access lazy collections
-                    // For now, we'll create a basic ContentResponse from ReelsResponse
-                    ContentResponse contentResponse = new ContentResponse();
-                    contentResponse.setId(reelsResponse.getId());
-                    contentResponse.setType("reel");
-                    contentResponse.setTitle(reelsResponse.getTitle());
-                    contentResponse.setVideo(reelsResponse.getVideo());
-                    contentResponse.setUser(reelsResponse.getUser());
-                    contentResponse.setTotalLikes(reelsResponse.getTotalLikes());
-                    contentResponse.setTotalComments(reelsResponse.getTotalComments());
-                    contentResponse.setCreatedAt(reelsResponse.getCreatedAt());
-                    contentResponse.setRecentLikedBy(new ArrayList<>()); // Empty for now
-                    contentResponse.setRecentComments(new ArrayList<>()); // Empty for now
-                    
-                    return contentResponse;
-                })
-                .collect(Collectors.toList());
-        
-        // Combine and sort by creation date
-        List<ContentResponse> combinedContent = new ArrayList<>();
-        combinedContent.addAll(postResponses);
-        combinedContent.addAll(reelResponses);
-        
-        // Sort by creation date (newest first)
-        combinedContent.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        // Combine and sort by creation date (newest first)
+        List<Object> combinedContent = new ArrayList<>();
+        combinedContent.addAll(postPage.getContent());
+        combinedContent.addAll(reelsPage.getContent());
+        combinedContent.sort(NEWEST_FIRST);
         
         // Calculate pagination info
-        int totalElements = (int) (postPage.getTotalElements() + reelsPaginated.getTotalElements());
+        int totalElements = (int) (postPage.getTotalElements() + reelsPage.getTotalElements());
         int totalPages = (int) Math.ceil((double) totalElements / size);
         
         // Apply pagination to combined content
@@ -653,7 +564,9 @@ public class PostServiceImp implements PostService {
             startIndex = combinedContent.size();
         }
         
-        List<ContentResponse> paginatedContent = combinedContent.subList(startIndex, endIndex);
+        // Only the items on this page are hydrated
+        List<ContentResponse> paginatedContent = feedAssembler.toContentResponses(
+                combinedContent.subList(startIndex, endIndex), currentUserId);
         
         // Create paginated response
         PaginatedResponse<ContentResponse> response = new PaginatedResponse<>();
@@ -670,165 +583,53 @@ public class PostServiceImp implements PostService {
         return response;
     }
     
-    private List<ContentResponse.CommentResponse> getRecentCommentsForContent(List<Comment> allComments, UUID currentUserId) {
-        return allComments.stream()
-                .sorted((c1, c2) -> c2.getCreatedAt().compareTo(c1.getCreatedAt())) // Latest first
-                .limit(3)
-                .map(comment -> {
-                    ContentResponse.CommentResponse commentResponse = new ContentResponse.CommentResponse();
-                    commentResponse.setId(comment.getId());
-                    commentResponse.setContent(comment.getContent());
-                    commentResponse.setUser(comment.getUser());
-                    commentResponse.setCreatedAt(comment.getCreatedAt());
-                    
-                    // Initialize lazy collection for comment likes
-                    comment.getLikedBy().size();
-                    commentResponse.setTotalLikes(comment.getLikedBy().size());
-                    
-                    // Check if current user liked this comment
-                    boolean isLiked = currentUserId != null && comment.getLikedBy().stream()
-                            .anyMatch(user -> user.getId().equals(currentUserId));
-                    commentResponse.setIsLiked(isLiked);
-                    
-                    return commentResponse;
-                })
-                .collect(Collectors.toList());
+    @Override
+    public PaginatedResponse<ContentResponse> findAllPostsAndReelsOptimizedByCursor(UUID currentUserId, String cursor, int size) throws Exception {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        
+        // size + 1 from each source past the cursor is enough for a merged page and the has-more row
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Object> combinedContent = new ArrayList<>();
+        Comparator<Object> newestFirst = KeysetCursor.newestFirst(PostServiceImp::createdAtOf, PostServiceImp::idOf);
+        if (position.isNewer()) {
+            combinedContent.addAll(postRepo.findAllAfter(position.getCreatedAt(), position.getId(), limit));
+            combinedContent.addAll(reelsRepo.findAllAfter(position.getCreatedAt(), position.getId(), limit));
+            combinedContent.sort(newestFirst.reversed());
+        } else {
+            combinedContent.addAll(postRepo.findAllBefore(position.getCreatedAt(), position.getId(), limit));
+            combinedContent.addAll(reelsRepo.findAllBefore(position.getCreatedAt(), position.getId(), limit));
+            combinedContent.sort(newestFirst);
+        }
+        List<Object> rows = combinedContent.size() > size + 1 ? combinedContent.subList(0, size + 1) : combinedContent;
+        
+        PaginatedResponse<Object> page = KeysetPager.toResponse(rows, position, size,
+                PostServiceImp::createdAtOf, PostServiceImp::idOf);
+        return page.withContent(feedAssembler.toContentResponses(page.getContent(), currentUserId));
     }
     
     @Override
     public List<ContentResponse> findPostsAndReelsByUserIdWithType(UUID userId, UUID currentUserId) throws Exception {
-        // Get posts for the user
-        List<Post> posts = findPostsByUserId(userId);
-        
-        // Get reels for the user
-        List<Reels> reels = reelsService.findReelsByUserId(userId);
-        
-        // Convert posts to ContentResponse
-        List<ContentResponse> postResponses = posts.stream()
-                .map(post -> {
-                    // Initialize lazy collections
-                    post.getLikedBy().size();
-                    post.getComments().size();
-                    
-                    // Get recent liked by and comments
-                    User currentUser = null;
-                    if (currentUserId != null) {
-                        try {
-                            currentUser = userService.getUserById(currentUserId);
-                        } catch (Exception e) {
-                            // If user not found, continue without current user context
-                        }
-                    }
-                    
-                    List<User> recentLikedBy = getRecentLikedBy(post.getLikedBy(), currentUser);
-                    List<ContentResponse.CommentResponse> recentComments = getRecentCommentsForContent(post.getComments(), currentUserId);
-                    
-                    return new ContentResponse(post, recentLikedBy, recentComments);
-                })
-                .collect(Collectors.toList());
-        
-        // Convert reels to ContentResponse
-        List<ContentResponse> reelResponses = reels.stream()
-                .map(reel -> {
-                    // Initialize lazy collections
-                    reel.getLikedBy().size();
-                    reel.getComments().size();
-                    
-                    // Get recent liked by and comments
-                    User currentUser = null;
-                    if (currentUserId != null) {
-                        try {
-                            currentUser = userService.getUserById(currentUserId);
-                        } catch (Exception e) {
-                            // If user not found, continue without current user context
-                        }
-                    }
-                    
-                    List<User> recentLikedBy = getRecentLikedBy(reel.getLikedBy(), currentUser);
-                    List<ContentResponse.CommentResponse> recentComments = getRecentCommentsForContent(reel.getComments(), currentUserId);
-                    
-                    return new ContentResponse(reel, recentLikedBy, recentComments);
-                })
-                .collect(Collectors.toList());
-        
-        // Combine posts and reels
-        List<ContentResponse> combinedContent = new ArrayList<>();
-        combinedContent.addAll(postResponses);
-        combinedContent.addAll(reelResponses);
-        
-        // Sort by creation date (newest first)
-        combinedContent.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        // Combine the user's posts and reels, newest first
+        List<Object> combinedContent = new ArrayList<>();
+        combinedContent.addAll(postRepo.findPostByUserId(userId));
+        combinedContent.addAll(reelsService.findReelsByUserId(userId));
+        combinedContent.sort(NEWEST_FIRST);
         
-        return combinedContent;
+        return feedAssembler.toContentResponses(combinedContent, currentUserId);
     }
     
     @Override
     public List<ContentResponse> findCombinedSavedContentByUserId(UUID userId) throws Exception {
-        // Get saved posts for the user
-        List<Post> savedPosts = findSavedPostsByUserId(userId);
-        
-        // Get saved reels for the user
-        List<Reels> savedReels = reelsService.findSavedReelsByUserId(userId);
-        
-        // Convert saved posts to ContentResponse
-        List<ContentResponse> postResponses = savedPosts.stream()
-                .map(post -> {
-                    // Initialize lazy collections
-                    post.getLikedBy().size();
-                    post.getComments().size();
-                    
-                    // Get recent liked by and comments
-                    User currentUser = null;
-                    try {
-                        currentUser = userService.getUserById(userId);
-                    } catch (Exception e) {
-                        // If user not found, continue without current user context
-                    }
-                    
-                    List<User> recentLikedBy = getRecentLikedBy(post.getLikedBy(), currentUser);
-                    List<ContentResponse.CommentResponse> recentComments = getRecentCommentsForContent(post.getComments(), userId);
-                    
-                    return new ContentResponse(post, recentLikedBy, recentComments);
-                })
-                .collect(Collectors.toList());
-        
-        // Convert saved reels to ContentResponse
-        List<ContentResponse> reelResponses = savedReels.stream()
-                .map(reel -> {
-                    // Initialize lazy collections
-                    reel.getLikedBy().size();
-                    reel.getComments().size();
-                    
-                    // Get recent liked by and comments
-                    User currentUser = null;
-                    try {
-                        currentUser = userService.getUserById(userId);
-                    } catch (Exception e) {
-                        // If user not found, continue without current user context
-                    }
-                    
-                    List<User> recentLikedBy = getRecentLikedBy(reel.getLikedBy(), currentUser);
-                    List<ContentResponse.CommentResponse> recentComments = getRecentCommentsForContent(reel.getComments(), userId);
-                    
-                    return new ContentResponse(reel, recentLikedBy, recentComments);
-                })
-                .collect(Collectors.toList());
-        
-        // Combine saved posts and reels
-        List<ContentResponse> combinedContent = new ArrayList<>();
-        combinedContent.addAll(postResponses);
-        combinedContent.addAll(reelResponses);
-        
-        // Sort by creation date (newest first)
-        combinedContent.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-        
-        return combinedContent;
+        return feedAssembler.toContentResponses(findCombinedSavedItems(userId), userId);
     }
     
     @Override
     public PaginatedResponse<ContentResponse> findCombinedSavedContentByUserIdPaginated(UUID userId, int page, int size) throws Exception {
-        // Get all combined saved content
-        List<ContentResponse> allContent = findCombinedSavedContentByUserId(userId);
+        // Get all combined saved items; only the requested page is hydrated
+        List<Object> allContent = findCombinedSavedItems(userId);
         
         // Calculate pagination
         int totalElements = allContent.size();
@@ -843,7 +644,7 @@ public class PostServiceImp implements PostService {
             startIndex = totalElements;
         }
         
-        List<ContentResponse> pageContent = allContent.subList(startIndex, endIndex);
+        List<ContentResponse> pageContent = feedAssembler.toContentResponses(allContent.subList(startIndex, endIndex), userId);
         
         PaginatedResponse<ContentResponse> response = new PaginatedResponse<>();
         response.setContent(pageContent);
@@ -858,4 +659,22 @@ public class PostServiceImp implements PostService {
         
         return response;
     }
+    
+    // Saved posts and reels of a user, newest first
+    private List<Object> findCombinedSavedItems(UUID userId) {
+        User user = userService.getUserById(userId);
+        List<Object> combinedContent = new ArrayList<>();
+        combinedContent.addAll(user.getSavedPosts());
+        combinedContent.addAll(user.getSavedReels());
+        combinedContent.sort(NEWEST_FIRST);
+        return combinedContent;
+    }
+    
+    private static LocalDateTime createdAtOf(Object item) {
+        return item instanceof Post ? ((Post) item).getCreatedAt() : ((Reels) item).getCreatedAt();
+    }
+    
+    private static UUID idOf(Object item) {
+        return item instanceof Post ? ((Post) item).getId() : ((Reels) item).getId();
+    }
 }
@@ -0,0 +1,148 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.config.JwtProvider;
+import com.bharat.springbootsocial.repository.UserRepo;
+import com.bharat.springbootsocial.response.UserSummary;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves the user behind a JWT without parsing the token or reading the
+ * users table on every request and STOMP frame. A token is remembered until it
+ * expires, and each user's {@link UserSummary} until the user is edited or
+ * deleted. Both are {@link BoundedCache}s, so lookups take no lock. A cached
+ * token only resolves while its email is still the user's, so a token whose
+ * user changed email meanwhile is resolved afresh and fails.
+ */
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Value("${app.principal-cache.max-tokens:50000}")
+    private int maxTokens;
+
+    @Value("${app.principal-cache.max-users:20000}")
+    private int maxUsers;
+
+    private BoundedCache<String, TokenEntry> tokens;
+
+    private BoundedCache<UUID, UserSummary> users;
+
+    // Lets a new token for an already known user skip the email lookup
+    private BoundedCache<String, UUID> emailIds;
+
+    // Each user's cached tokens, so invalidating a user does not scan them all
+    private final Map<UUID, Set<String>> userTokens = new ConcurrentHashMap<>();
+
+    private final LongAdder tokenHits = new LongAdder();
+    private final LongAdder tokenMisses = new LongAdder();
+    private final LongAdder userHits = new LongAdder();
+    private final LongAdder userMisses = new LongAdder();
+
+    private record TokenEntry(UUID userId, String email, long expiresAt) {
+    }
+
+    public record Stats(long tokenHits, long tokenMisses, long cachedTokens,
+                        long userHits, long userMisses, long cachedUsers) {
+    }
+
+    @PostConstruct
+    void createCaches() {
+        tokens = new BoundedCache<>(maxTokens, (jwt, entry) -> forgetToken(entry.userId(), jwt));
+        users = new BoundedCache<>(maxUsers);
+        emailIds = new BoundedCache<>(maxUsers);
+    }
+
+    /**
+     * The user a "Bearer ..." token belongs to. Throws for invalid or expired
+     * tokens and for users that no longer exist.
+     */
+    public UserSummary resolve(String jwt) {
+        TokenEntry entry = tokens.get(jwt);
+        if (entry != null) {
+            if (entry.expiresAt() > System.currentTimeMillis()) {
+                UserSummary user = summary(entry.userId());
+                if (entry.email().equalsIgnoreCase(user.getEmail())) {
+                    tokenHits.increment();
+                    return user;
+                }
+            }
+            tokens.remove(jwt);
+            forgetToken(entry.userId(), jwt);
+        }
+        tokenMisses.increment();
+
+        Claims claims = JwtProvider.getClaimsFromJwtToken(jwt);
+        String email = (String) claims.get("email");
+        UUID knownId = emailIds.get(email);
+        UserSummary user = knownId != null ? summary(knownId) : null;
+        if (user == null || !email.equalsIgnoreCase(user.getEmail())) {
+            // Unknown, or the address has moved on from the user it was cached for
+            user = userRepo.findSummaryByEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found for email: " + email));
+            emailIds.put(email, user.getId());
+        }
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        // Indexed before it is cached; one that slips past a racing invalidation still has its email checked
+        userTokens.computeIfAbsent(user.getId(), id -> ConcurrentHashMap.newKeySet()).add(jwt);
+        tokens.put(jwt, new TokenEntry(user.getId(), email, expiresAt));
+        return user;
+    }
+
+    public UserSummary summary(UUID userId) {
+        UserSummary user = users.get(userId);
+        if (user != null) {
+            userHits.increment();
+            return user;
+        }
+        userMisses.increment();
+        long stamp = users.stamp(userId);
+        user = userRepo.findSummaryById(userId)
+                .orElseThrow(() -> new IllegalStateException("User Id " + userId + " does not exist"));
+        users.putIfUnchanged(userId, user, stamp);
+        return user;
+    }
+
+    public Stats stats() {
+        return new Stats(tokenHits.sum(), tokenMisses.sum(), tokens.size(),
+                userHits.sum(), userMisses.sum(), users.size());
+    }
+
+    /**
+     * Forgets the user and every token resolved to them. Call after changing
+     * or deleting a user; inside a transaction it is repeated after commit so
+     * reads made meanwhile do not bring back the old row.
+     */
+    public void invalidate(UUID userId) {
+        AfterCommit.nowAndAfterCommit(() -> evict(userId));
+    }
+
+    private void evict(UUID userId) {
+        users.invalidate(userId);
+        // Stale email aliases are caught by the email check in resolve
+        Set<String> jwts = userTokens.remove(userId);
+        if (jwts != null) {
+            for (String jwt : jwts) {
+                tokens.remove(jwt);
+            }
+        }
+    }
+
+    private void forgetToken(UUID userId, String jwt) {
+        userTokens.computeIfPresent(userId, (id, jwts) -> {
+            jwts.remove(jwt);
+            return jwts.isEmpty() ? null : jwts;
+        });
+    }
+}
@@ -0,0 +1,333 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.UserChangedEvent;
+import com.bharat.springbootsocial.response.GroupFrame;
+import com.bharat.springbootsocial.response.ProfileSyncFrame;
+import com.bharat.springbootsocial.response.UserSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends group frames in the slim form to sessions that subscribed to
+ * /user/queue/group-frames, and the full legacy form to the rest on
+ * /user/queue/group-messages while app.websocket.legacy-group-frames is on.
+ * Slim frames refer to users by id, so before a frame goes out every recipient
+ * is sent the profiles it mentions that the recipient has not been sent at
+ * their current version, on /user/queue/profiles. Both go through the same
+ * fan-out lane per user, so the profile always arrives first. A user's new
+ * slim subscription resets what they have been sent, since the new session
+ * has seen nothing yet.
+ */
+@Component
+public class ProfileSync {
+
+    public static final String LEGACY_QUEUE = "/queue/group-messages";
+    public static final String FRAMES_QUEUE = "/queue/group-frames";
+    public static final String PROFILES_QUEUE = "/queue/profiles";
+
+    @Autowired
+    private FanoutEngine fanoutEngine;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Value("${app.websocket.legacy-group-frames:true}")
+    private boolean legacyFrames;
+
+    @Value("${app.websocket.max-synced-profiles:50000}")
+    private int maxProfiles;
+
+    private record Profile(UserSummary user, long version) {
+    }
+
+    public record Stats(long slimFrames, long legacyFrames, long profilesPushed, long slimUsers) {
+    }
+
+    // Current profile and version of users mentioned in slim frames, least recently used evicted first
+    private final Map<UUID, Profile> profiles = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Profile> eldest) {
+            return size() > maxProfiles;
+        }
+    };
+
+    // Versions only need to differ between states of a profile; time based so they also rise across restarts
+    private final AtomicLong versionClock = new AtomicLong();
+
+    private final Map<String, SessionSubscriptions> sessions = new ConcurrentHashMap<>();
+    private final Map<UUID, Recipient> recipients = new ConcurrentHashMap<>();
+
+    private final LongAdder slimFramesSent = new LongAdder();
+    private final LongAdder legacyFramesSent = new LongAdder();
+    private final LongAdder profilesPushed = new LongAdder();
+
+    /**
+     * Sends a group frame to every active member of the group except
+     * exceptUserId, in whichever form each member's sessions subscribed to.
+     */
+    public void sendToGroup(UUID groupId, UUID exceptUserId, Object legacyFrame, GroupFrame frame) {
+        List<UUID> slim = new ArrayList<>();
+        List<UUID> legacy = new ArrayList<>();
+        for (UUID memberId : fanoutEngine.activeMemberIds(groupId)) {
+            if (memberId.equals(exceptUserId)) {
+                continue;
+            }
+            Recipient recipient = recipients.get(memberId);
+            boolean slimSession;
+            boolean onlySlim;
+            if (recipient == null) {
+                slimSession = false;
+                onlySlim = false;
+            } else {
+                synchronized (recipient) {
+                    slimSession = recipient.slimSubscriptions > 0;
+                    onlySlim = slimSession && recipient.legacySubscriptions == 0;
+                }
+            }
+            if (slimSession) {
+                slim.add(memberId);
+            }
+            // Sessions this class has not seen subscribe still get what they always got
+            if (legacyFrames && !onlySlim) {
+                legacy.add(memberId);
+            }
+        }
+
+        if (!legacy.isEmpty()) {
+            fanoutEngine.sendToUsers(legacy, LEGACY_QUEUE, legacyFrame);
+            legacyFramesSent.add(legacy.size());
+        }
+        if (!slim.isEmpty()) {
+            Map<UUID, Profile> mentioned = new LinkedHashMap<>();
+            for (UUID userId : frame.userIds()) {
+                Profile profile = profile(userId);
+                if (profile != null) {
+                    mentioned.put(userId, profile);
+                }
+            }
+            Profile sender = frame.getSenderId() != null ? mentioned.get(frame.getSenderId()) : null;
+            frame.setSenderVersion(sender != null ? sender.version() : null);
+            pushMissingProfiles(slim, mentioned);
+            fanoutEngine.sendToUsers(slim, FRAMES_QUEUE, frame);
+            slimFramesSent.add(slim.size());
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Boolean slim = kind(accessor.getDestination());
+        UUID userId = userId(event);
+        if (slim == null || userId == null || accessor.getSessionId() == null) {
+            return;
+        }
+        SessionSubscriptions session = sessions.computeIfAbsent(accessor.getSessionId(),
+                id -> new SessionSubscriptions(userId));
+        synchronized (session) {
+            if (session.subscriptions.put(accessor.getSubscriptionId(), slim) != null) {
+                return;
+            }
+        }
+        recipients.compute(userId, (id, recipient) -> {
+            Recipient updated = recipient != null ? recipient : new Recipient();
+            synchronized (updated) {
+                if (slim) {
+                    updated.slimSubscriptions++;
+                    updated.synced.clear();
+                } else {
+                    updated.legacySubscriptions++;
+                }
+            }
+            return updated;
+        });
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        SessionSubscriptions session = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (session == null) {
+            return;
+        }
+        Boolean slim;
+        synchronized (session) {
+            slim = session.subscriptions.remove(accessor.getSubscriptionId());
+        }
+        if (slim != null) {
+            release(session.userId, Map.of(accessor.getSubscriptionId(), slim));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        SessionSubscriptions session = sessions.remove(event.getSessionId());
+        if (session != null) {
+            Map<String, Boolean> subscriptions;
+            synchronized (session) {
+                subscriptions = new HashMap<>(session.subscriptions);
+                session.subscriptions.clear();
+            }
+            release(session.userId, subscriptions);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        synchronized (profiles) {
+            if (user == null) {
+                profiles.remove(event.getUserId());
+            } else {
+                profiles.put(user.getId(), new Profile(new UserSummary(user.getId(), user.getFname(),
+                        user.getLname(), user.getEmail(), user.getProfileImage()), nextVersion()));
+            }
+        }
+    }
+
+    public Stats stats() {
+        long slimUsers = recipients.values().stream().filter(recipient -> {
+            synchronized (recipient) {
+                return recipient.slimSubscriptions > 0;
+            }
+        }).count();
+        return new Stats(slimFramesSent.sum(), legacyFramesSent.sum(), profilesPushed.sum(), slimUsers);
+    }
+
+    // Recipients missing the same profiles get one serialized push between them
+    private void pushMissingProfiles(List<UUID> slim, Map<UUID, Profile> mentioned) {
+        Map<Set<UUID>, List<UUID>> byMissing = new HashMap<>();
+        for (UUID userId : slim) {
+            Recipient recipient = recipients.get(userId);
+            if (recipient == null) {
+                continue;
+            }
+            Set<UUID> missing = null;
+            synchronized (recipient) {
+                for (Profile profile : mentioned.values()) {
+                    Long synced = recipient.synced.put(profile.user().getId(), profile.version());
+                    if (synced == null || synced != profile.version()) {
+                        if (missing == null) {
+                            missing = new LinkedHashSet<>();
+                        }
+                        missing.add(profile.user().getId());
+                    }
+                }
+            }
+            if (missing != null) {
+                byMissing.computeIfAbsent(missing, ids -> new ArrayList<>()).add(userId);
+            }
+        }
+        byMissing.forEach((missing, users) -> {
+            List<ProfileSyncFrame.SyncedProfile> pushed = new ArrayList<>(missing.size());
+            for (UUID id : missing) {
+                Profile profile = mentioned.get(id);
+                pushed.add(new ProfileSyncFrame.SyncedProfile(profile.user(), profile.version()));
+            }
+            fanoutEngine.sendToUsers(users, PROFILES_QUEUE, new ProfileSyncFrame(pushed));
+            profilesPushed.add((long) pushed.size() * users.size());
+        });
+    }
+
+    private Profile profile(UUID userId) {
+        synchronized (profiles) {
+            Profile profile = profiles.get(userId);
+            if (profile != null) {
+                return profile;
+            }
+        }
+        UserSummary user;
+        try {
+            user = principalCache.summary(userId);
+        } catch (RuntimeException e) {
+            // Deleted users are left to the client to render as unknown
+            return null;
+        }
+        synchronized (profiles) {
+            // A change that committed meanwhile has already stored the newer profile
+            return profiles.computeIfAbsent(userId, id -> new Profile(user, nextVersion()));
+        }
+    }
+
+    private long nextVersion() {
+        long now = System.currentTimeMillis();
+        return versionClock.accumulateAndGet(now, (previous, millis) -> Math.max(previous + 1, millis));
+    }
+
+    private void release(UUID userId, Map<String, Boolean> subscriptions) {
+        recipients.computeIfPresent(userId, (id, recipient) -> {
+            synchronized (recipient) {
+                for (boolean slim : subscriptions.values()) {
+                    if (slim) {
+                        recipient.slimSubscriptions--;
+                    } else {
+                        recipient.legacySubscriptions--;
+                    }
+                }
+                return recipient.slimSubscriptions <= 0 && recipient.legacySubscriptions <= 0 ? null : recipient;
+            }
+        });
+    }
+
+    // True for the slim queue, false for the legacy one, null for anything else
+    private static Boolean kind(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        if (destination.contains(FRAMES_QUEUE)) {
+            return true;
+        }
+        return destination.contains(LEGACY_QUEUE) ? false : null;
+    }
+
+    // The principal is named after the user id by StompAuthInterceptor
+    private static UUID userId(AbstractSubProtocolEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(user.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class SessionSubscriptions {
+        private final UUID userId;
+        // Subscription id to whether it is to the slim queue
+        private final Map<String, Boolean> subscriptions = new HashMap<>();
+
+        private SessionSubscriptions(UUID userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static class Recipient {
+        private int slimSubscriptions;
+        private int legacySubscriptions;
+        // Profile versions already pushed to this user's slim sessions
+        private final Map<UUID, Long> synced = new HashMap<>();
+    }
+}
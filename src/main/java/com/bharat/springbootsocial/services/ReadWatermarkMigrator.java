@@ -0,0 +1,158 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.ConversationType;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.bharat.springbootsocial.repository.ReadWatermarkRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Moves existing conversations onto read watermarks.
+ *
+ * Every start numbers the messages saved before sequences existed, so they
+ * count towards unread totals. They get the next sequences of their
+ * conversation in created_at order, reserved the way a sender reserves them:
+ * the head row stays locked until the numbering commits, so live sends wait
+ * rather than interleave, and sequences already handed out never change.
+ *
+ * With app.read-receipts.migrate-legacy=true (for the first start of this
+ * version, then switched off again) watermarks are also built from the legacy
+ * message_reads / user_group_message_reads rows (the furthest message each
+ * user read) and from each user's own newest message. Watermarks only move
+ * forward, so a re-run is harmless.
+ */
+@Component
+public class ReadWatermarkMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWatermarkMigrator.class);
+
+    // Table layout of each conversation type
+    private record Tables(ConversationType type, String conversations, String messages,
+                          String conversationColumn, String senderColumn, String createdColumn,
+                          String reads) {
+    }
+
+    private static final List<Tables> TABLES = List.of(
+            new Tables(ConversationType.CHAT, "chats", "messages", "chat_id", "user_id", "created_at", "message_reads"),
+            new Tables(ConversationType.GROUP, "user_groups", "user_group_messages", "group_id", "sender_id", "created_at",
+                    "user_group_message_reads"));
+
+    // One watermark to write
+    private record Mark(UUID userId, UUID conversationId, long seq, LocalDateTime readAt) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReadWatermarkRepo readWatermarkRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private ReadWatermarks readWatermarks;
+
+    @Value("${app.read-receipts.migrate-legacy:false}")
+    private boolean migrateLegacy;
+
+    @Value("${app.read-receipts.migration-batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        for (Tables tables : TABLES) {
+            long numbered = numberMessages(tables);
+            if (numbered > 0) {
+                logger.info("Numbered unsequenced {} messages in {} conversations", tables.type(), numbered);
+            }
+            if (migrateLegacy) {
+                logger.info("Migrating {} read receipts to watermarks", tables.type());
+                long marks = buildWatermarks(tables);
+                logger.info("{} read receipt migration finished: {} watermarks written", tables.type(), marks);
+            }
+        }
+    }
+
+    private long numberMessages(Tables tables) {
+        List<byte[]> conversationIds = jdbcTemplate.query(
+                "SELECT DISTINCT " + tables.conversationColumn() + " FROM " + tables.messages() + " WHERE seq IS NULL",
+                (rs, rowNum) -> rs.getBytes(1));
+        for (byte[] conversationId : conversationIds) {
+            UUID id = BinaryUuids.fromBytes(conversationId);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<byte[]> messageIds = jdbcTemplate.query(
+                        "SELECT id FROM " + tables.messages() + " WHERE " + tables.conversationColumn() + " = ? " +
+                        "AND seq IS NULL ORDER BY " + tables.createdColumn() + ", id",
+                        (rs, rowNum) -> rs.getBytes(1), (Object) conversationId);
+                if (messageIds.isEmpty()) {
+                    return;
+                }
+                // Starts after the head and locks the head row until commit, as a send does
+                Long first = readWatermarks.reserveSequences(namedJdbcTemplate, tables.type(),
+                        Map.of(id, messageIds.size())).get(id);
+                if (first == null) {
+                    return;
+                }
+                List<Object[]> rows = new ArrayList<>(messageIds.size());
+                for (int i = 0; i < messageIds.size(); i++) {
+                    rows.add(new Object[]{first + i, messageIds.get(i)});
+                }
+                jdbcTemplate.batchUpdate("UPDATE " + tables.messages() + " SET seq = ? WHERE id = ? AND seq IS NULL",
+                        rows);
+            });
+        }
+        return conversationIds.size();
+    }
+
+    private long buildWatermarks(Tables tables) {
+        List<Mark> marks = new ArrayList<>();
+        // Furthest message each user has a read receipt for
+        marks.addAll(jdbcTemplate.query(
+                "SELECT r.user_id, m." + tables.conversationColumn() + ", MAX(m.seq), MAX(r.read_at) " +
+                "FROM " + tables.reads() + " r JOIN " + tables.messages() + " m ON m.id = r.message_id " +
+                "WHERE m.seq IS NOT NULL GROUP BY r.user_id, m." + tables.conversationColumn(),
+                (rs, rowNum) -> mark(rs.getBytes(1), rs.getBytes(2), rs.getLong(3), rs.getTimestamp(4))));
+        // Nobody has unread messages of their own
+        marks.addAll(jdbcTemplate.query(
+                "SELECT " + tables.senderColumn() + ", " + tables.conversationColumn() + ", MAX(seq), " +
+                "MAX(" + tables.createdColumn() + ") FROM " + tables.messages() + " " +
+                "WHERE seq IS NOT NULL AND " + tables.senderColumn() + " IS NOT NULL " +
+                "GROUP BY " + tables.senderColumn() + ", " + tables.conversationColumn(),
+                (rs, rowNum) -> mark(rs.getBytes(1), rs.getBytes(2), rs.getLong(3), rs.getTimestamp(4))));
+
+        for (int from = 0; from < marks.size(); from += batchSize) {
+            List<Mark> batch = marks.subList(from, Math.min(from + batchSize, marks.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Mark mark : batch) {
+                    readWatermarkRepo.advance(mark.userId(), tables.type().name(), mark.conversationId(),
+                            mark.seq(), mark.readAt());
+                }
+            });
+        }
+        return marks.size();
+    }
+
+    private static Mark mark(byte[] userId, byte[] conversationId, long seq, Timestamp readAt) {
+        return new Mark(BinaryUuids.fromBytes(userId), BinaryUuids.fromBytes(conversationId), seq,
+                readAt != null ? readAt.toLocalDateTime() : LocalDateTime.now());
+    }
+}
@@ -0,0 +1,163 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.ConversationType;
+import com.bharat.springbootsocial.entity.ReadWatermark;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.bharat.springbootsocial.repository.ChatRepo;
+import com.bharat.springbootsocial.repository.GroupRepo;
+import com.bharat.springbootsocial.repository.ReadWatermarkRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read state for groups and chats as one watermark per (user, conversation).
+ *
+ * Every message gets the next sequence number of its conversation when it is
+ * sent, and the conversation row keeps the newest one. A user has read every
+ * message up to their watermark, so an unread count is a subtraction and
+ * "seen by" for a message is the set of watermarks at or past its sequence.
+ *
+ * The per-message read rows are still written when
+ * app.read-receipts.detailed=true, for deployments that want exact receipts
+ * rather than "read up to here".
+ */
+@Service
+public class ReadWatermarks {
+
+    @Autowired
+    private ReadWatermarkRepo readWatermarkRepo;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private ChatRepo chatRepo;
+
+    @Autowired
+    private GroupRepo groupRepo;
+
+    @Value("${app.read-receipts.detailed:false}")
+    private boolean detailed;
+
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    // One watermark move, for advanceAll
+    public record Advance(UUID userId, UUID conversationId, long seq) {
+    }
+
+    // Sequence number for a new message. Call inside the transaction that saves
+    // the message so a rolled-back send does not leave a gap in the count.
+    @Transactional
+    public long nextSequence(ConversationType type, UUID conversationId) {
+        Long first = reserveSequences(namedJdbcTemplate, type, Map.of(conversationId, 1)).get(conversationId);
+        if (first == null) {
+            throw new IllegalArgumentException("Conversation not found: " + conversationId);
+        }
+        return first;
+    }
+
+    // Reserves count consecutive sequence numbers in each conversation and returns
+    // the first of each range; missing conversations are left out. Runs on jdbc's
+    // current transaction, and the head rows stay locked until it commits, which
+    // orders concurrent senders.
+    Map<UUID, Long> reserveSequences(NamedParameterJdbcTemplate jdbc, ConversationType type,
+                                     Map<UUID, Integer> counts) {
+        String table = type == ConversationType.GROUP ? "user_groups" : "chats";
+        List<Object[]> increments = new ArrayList<>(counts.size());
+        counts.forEach((id, count) -> increments.add(new Object[]{count, BinaryUuids.toBytes(id)}));
+        jdbc.getJdbcTemplate().batchUpdate(
+                "UPDATE " + table + " SET message_seq = COALESCE(message_seq, 0) + ? WHERE id = ?", increments);
+
+        Map<UUID, Long> first = new HashMap<>();
+        List<byte[]> ids = counts.keySet().stream().map(BinaryUuids::toBytes).toList();
+        jdbc.query("SELECT id, message_seq FROM " + table + " WHERE id IN (:ids)", Map.of("ids", ids),
+                rs -> {
+                    UUID id = BinaryUuids.fromBytes(rs.getBytes(1));
+                    first.put(id, rs.getLong(2) - counts.get(id) + 1);
+                });
+        return first;
+    }
+
+    // Sequence of the newest message in a conversation
+    public long headSequence(ConversationType type, UUID conversationId) {
+        return (type == ConversationType.GROUP
+                ? groupRepo.findMessageSeq(conversationId)
+                : chatRepo.findMessageSeq(conversationId))
+                .orElse(0L);
+    }
+
+    // Marks everything up to seq as read; a lower seq than the current watermark is a no-op
+    @Transactional
+    public void advance(UUID userId, ConversationType type, UUID conversationId, Long seq) {
+        if (seq == null || seq <= 0) {
+            return;
+        }
+        readWatermarkRepo.advance(userId, type.name(), conversationId, seq, LocalDateTime.now());
+    }
+
+    // Several watermark moves in one batch on jdbc's current transaction, e.g. the
+    // senders of a batch of messages
+    void advanceAll(NamedParameterJdbcTemplate jdbc, ConversationType type, Collection<Advance> advances) {
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] rows = advances.stream()
+                .map(advance -> new MapSqlParameterSource()
+                        .addValue("userId", BinaryUuids.toBytes(advance.userId()))
+                        .addValue("conversationType", type.name())
+                        .addValue("conversationId", BinaryUuids.toBytes(advance.conversationId()))
+                        .addValue("seq", advance.seq())
+                        .addValue("readAt", now))
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate(ReadWatermarkRepo.ADVANCE_SQL, rows);
+    }
+
+    public long lastReadSequence(UUID userId, ConversationType type, UUID conversationId) {
+        return readWatermarkRepo.findLastReadSeq(userId, type, conversationId).orElse(0L);
+    }
+
+    public long unreadCount(UUID userId, ConversationType type, UUID conversationId) {
+        long unread = (type == ConversationType.GROUP
+                ? readWatermarkRepo.countUnreadInGroup(userId, conversationId)
+                : readWatermarkRepo.countUnreadInChat(userId, conversationId))
+                .orElse(0L);
+        return Math.max(unread, 0);
+    }
+
+    // Readers who have reached at least minSeq, furthest first. Load once for a
+    // page of messages, then pick each message's readers with seenBy.
+    public List<ReadWatermark> readersFrom(ConversationType type, UUID conversationId, long minSeq) {
+        return readWatermarkRepo.findReadersFrom(type, conversationId, minSeq);
+    }
+
+    // The readers of one message, leaving out its sender
+    public static List<ReadWatermark> seenBy(List<ReadWatermark> readers, Long seq, UUID senderId) {
+        List<ReadWatermark> seen = new ArrayList<>();
+        if (seq == null) {
+            return seen;
+        }
+        for (ReadWatermark reader : readers) {
+            // Sorted furthest first, so the rest are behind this message too
+            if (reader.getLastReadSeq() < seq) {
+                break;
+            }
+            if (!reader.getId().getUserId().equals(senderId)) {
+                seen.add(reader);
+            }
+        }
+        return seen;
+    }
+}
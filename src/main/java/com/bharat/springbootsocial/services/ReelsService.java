@@ -6,6 +6,7 @@ import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.ReelsResponse;
 import com.bharat.springbootsocial.response.CommentResponse;
+import com.bharat.springbootsocial.response.LikeResponse;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,7 +21,7 @@ public interface ReelsService {
     PaginatedResponse<Reels> findReelsByUserIdPaginated(UUID userId, int page, int size);
     
     // Like/Unlike methods
-    Reels likeReel(UUID reelId, UUID userId) throws Exception;
+    LikeResponse likeReel(UUID reelId, UUID userId) throws Exception;
     Reels findReelById(UUID reelId) throws Exception;
     
     // Delete method
@@ -30,8 +31,8 @@ public interface ReelsService {
     Comment addCommentToReel(UUID reelId, String content, UUID userId) throws Exception;
     Comment updateCommentOnReel(UUID reelId, UUID commentId, String content, UUID userId) throws Exception;
     Reels deleteCommentFromReel(UUID reelId, UUID commentId, UUID userId) throws Exception;
-    Comment likeCommentOnReel(UUID reelId, UUID commentId, UUID userId) throws Exception;
-    Comment likeCommentOnReelById(UUID commentId, UUID userId) throws Exception;
+    LikeResponse likeCommentOnReel(UUID reelId, UUID commentId, UUID userId) throws Exception;
+    LikeResponse likeCommentOnReelById(UUID commentId, UUID userId) throws Exception;
     
     // Paginated comment methods
     PaginatedResponse<CommentResponse> getCommentsByReelIdPaginated(UUID reelId, UUID currentUserId, int page, int size) throws Exception;
@@ -48,5 +49,6 @@ public interface ReelsService {
     List<ReelsResponse> getAllReelsWithCounts();
     List<ReelsResponse> getReelsByUserIdWithCounts(UUID userId);
     PaginatedResponse<ReelsResponse> getAllReelsPaginatedWithCounts(int page, int size);
+    PaginatedResponse<ReelsResponse> getAllReelsByCursorWithCounts(String cursor, int size);
     PaginatedResponse<ReelsResponse> getReelsByUserIdPaginatedWithCounts(UUID userId, int page, int size);
 }
@@ -2,20 +2,26 @@ package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.entity.Comment;
 import com.bharat.springbootsocial.entity.Reels;
+import com.bharat.springbootsocial.entity.TimelineEntry;
+import com.bharat.springbootsocial.event.ContentPublishedEvent;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.pagination.KeysetPager;
 import com.bharat.springbootsocial.repository.CommentRepo;
 import com.bharat.springbootsocial.repository.ReelsRepo;
 import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.ReelsResponse;
 import com.bharat.springbootsocial.response.CommentResponse;
+import com.bharat.springbootsocial.response.LikeResponse;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -28,7 +34,19 @@ public class ReelsServiceImpl implements ReelsService{
     @Autowired
     private ServiceInt userService;
     @Autowired
-    private NotificationService notificationService;
+    private TimelineService timelineService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private FeedAssembler feedAssembler;
+    @Autowired
+    private EngagementCounters engagementCounters;
+    @Autowired
+    private LikeService likeService;
+    @Autowired
+    private LikedItemsCache likedItemsCache;
+    @Autowired
+    private FeedJsonCache feedJsonCache;
 
     @Override
     public Reels createReel(Reels reels, User user) {
@@ -37,7 +55,10 @@ public class ReelsServiceImpl implements ReelsService{
         createdReel.setVideo(reels.getVideo());
         createdReel.setUser(user);
         createdReel.setCreatedAt(java.time.LocalDateTime.now());
-        return reelsRepo.save(createdReel);
+        Reels savedReel = reelsRepo.save(createdReel);
+        eventPublisher.publishEvent(new ContentPublishedEvent(
+                savedReel.getId(), TimelineEntry.ItemType.REEL, user.getId(), savedReel.getCreatedAt()));
+        return savedReel;
     }
 
     @Override
@@ -106,24 +127,9 @@ public class ReelsServiceImpl implements ReelsService{
     
     @Override
     @org.springframework.transaction.annotation.Transactional
-    public Reels likeReel(UUID reelId, UUID userId) throws Exception {
-        Reels reel = findReelById(reelId); // fetch reel from DB
-        User user = userService.getUserById(userId); // fetch user from DB
-    
-        // Check if the user already liked the reel
-        boolean isLiked = reel.getLikedBy().stream()
-                .anyMatch(likedUser -> likedUser.getId().equals(userId));
-    
-        if (isLiked) {
-            // Unlike (remove from likedBy list)
-            reel.getLikedBy().removeIf(likedUser -> likedUser.getId().equals(userId));
-        } else {
-            // Like (add user to likedBy list)
-            reel.getLikedBy().add(user);
-        }
-    
-        // Save changes
-        return reelsRepo.save(reel);
+    public LikeResponse likeReel(UUID reelId, UUID userId) throws Exception {
+        // Single-row toggle on the like table; the likers list is not loaded or rewritten
+        return likeService.toggle(LikeService.Target.REEL, reelId, userId);
     }
     
     @Override
@@ -138,6 +144,8 @@ public class ReelsServiceImpl implements ReelsService{
         
         // Delete the reel
         reelsRepo.delete(reel);
+        timelineService.removeItem(reelId);
+        feedJsonCache.invalidate(reelId);
         
         return "Reel deleted successfully";
     }
@@ -165,6 +173,7 @@ public class ReelsServiceImpl implements ReelsService{
         // Add the saved comment to the reel
         reel.getComments().add(savedComment);
         reelsRepo.save(reel);
+        engagementCounters.increment(EngagementCounters.Counter.REEL_COMMENTS, reelId);
         
         // Return the saved comment with ID
         return savedComment;
@@ -198,6 +207,7 @@ public class ReelsServiceImpl implements ReelsService{
         
         // Save the reel (which will save the updated comment)
         reelsRepo.save(reel);
+        feedJsonCache.invalidate(commentId);
         
         // Return the updated comment
         return commentToUpdate;
@@ -223,49 +233,28 @@ public class ReelsServiceImpl implements ReelsService{
         }
         
         reel.getComments().remove(commentToDelete);
-        return reelsRepo.save(reel);
+        Reels savedReel = reelsRepo.save(reel);
+        feedJsonCache.invalidate(commentId);
+        engagementCounters.decrement(EngagementCounters.Counter.REEL_COMMENTS, reelId);
+        return savedReel;
     }
     
     @Override
-    public Comment likeCommentOnReel(UUID reelId, UUID commentId, UUID userId) throws Exception {
-        Reels reel = findReelById(reelId);
-        User user = userService.getUserById(userId);
-        
-        // Find the comment in the reel's comments
-        Comment comment = reel.getComments().stream()
-                .filter(c -> c.getId().equals(commentId))
-                .findFirst()
+    public LikeResponse likeCommentOnReel(UUID reelId, UUID commentId, UUID userId) throws Exception {
+        commentRepo.findById(commentId)
+                .filter(c -> c.getReel() != null && c.getReel().getId().equals(reelId))
                 .orElseThrow(() -> new Exception("Comment not found in this reel"));
         
-        // Check if user has already liked the comment using ID comparison
-        boolean isLiked = comment.getLikedBy().stream()
-                .anyMatch(likedUser -> likedUser.getId().equals(userId));
-        
-        if (isLiked) {
-            // Remove like
-            comment.getLikedBy().removeIf(likedUser -> likedUser.getId().equals(userId));
-        } else {
-            // Add like
-            comment.getLikedBy().add(user);
-            
-            // Send like notification
-            notificationService.sendLikeNotification(comment.getUser(), user, "COMMENT", comment.getId());
-        }
-        
-        return commentRepo.save(comment);
+        return likeService.toggle(LikeService.Target.COMMENT, commentId, userId);
     }
     
     @Override
-    public Comment likeCommentOnReelById(UUID commentId, UUID userId) throws Exception {
-        // Find the reel that contains this comment
-        Reels reel = reelsRepo.findAll().stream()
-                .filter(r -> r.getComments().stream()
-                        .anyMatch(c -> c.getId().equals(commentId)))
-                .findFirst()
+    public LikeResponse likeCommentOnReelById(UUID commentId, UUID userId) throws Exception {
+        commentRepo.findById(commentId)
+                .filter(c -> c.getReel() != null)
                 .orElseThrow(() -> new Exception("Reel containing this comment not found"));
         
-        // Use the existing method with the found reel ID
-        return likeCommentOnReel(reel.getId(), commentId, userId);
+        return likeService.toggle(LikeService.Target.COMMENT, commentId, userId);
     }
     
     // Paginated comment methods implementation
@@ -276,11 +265,12 @@ public class ReelsServiceImpl implements ReelsService{
         
         Pageable pageable = PageRequest.of(page, size);
         Page<Comment> commentsPage = commentRepo.findCommentsByReelIdPaginated(reelId, pageable);
+        Set<UUID> likedByViewer = likedItemsCache.likedAmong(currentUserId,
+                commentsPage.getContent().stream().map(Comment::getId).toList());
         
         // Convert to CommentResponse with totalLikes and isLiked
         List<CommentResponse> commentResponses = commentsPage.getContent().stream().map(comment -> {
             // Initialize lazy collections
-            comment.getLikedBy().size(); // Trigger lazy loading
             if (comment.getUser() != null) {
                 comment.getUser().getFname(); // Trigger lazy loading
             }
@@ -291,13 +281,10 @@ public class ReelsServiceImpl implements ReelsService{
             response.setUser(comment.getUser());
             response.setCreatedAt(comment.getCreatedAt());
             
-            // Set total likes count
-            response.setTotalLikes(comment.getLikedBy().size());
-            
-            // Check if current user liked this comment
-            boolean isLiked = currentUserId != null && comment.getLikedBy().stream()
-                    .anyMatch(user -> user.getId().equals(currentUserId));
-            response.setIsLiked(isLiked);
+            // Counter column plus unflushed likes, instead of loading every liker
+            response.setTotalLikes(engagementCounters.current(EngagementCounters.Counter.COMMENT_LIKES,
+                    comment.getId(), comment.getLikeCount(), comment.getCountersLoadedAt()));
+            response.setIsLiked(likedByViewer.contains(comment.getId()));
             
             return response;
         }).collect(java.util.stream.Collectors.toList());
@@ -339,18 +326,12 @@ public class ReelsServiceImpl implements ReelsService{
     
     @Override
     public List<ReelsResponse> getAllReelsWithCounts() {
-        List<Reels> reels = findAllReels();
-        return reels.stream()
-                .map(ReelsResponse::new)
-                .toList();
+        return feedAssembler.toReelsResponses(findAllReels());
     }
     
     @Override
     public List<ReelsResponse> getReelsByUserIdWithCounts(UUID userId) {
-        List<Reels> reels = findReelsByUserId(userId);
-        return reels.stream()
-                .map(ReelsResponse::new)
-                .toList();
+        return feedAssembler.toReelsResponses(findReelsByUserId(userId));
     }
     
     @Override
@@ -358,16 +339,8 @@ public class ReelsServiceImpl implements ReelsService{
         Pageable pageable = PageRequest.of(page, size);
         Page<Reels> reelsPage = reelsRepo.findAllReelsPaginated(pageable);
         
-        // Initialize lazy collections for each reel (only likedBy, not comments)
-        for (Reels reel : reelsPage.getContent()) {
-            reel.getLikedBy().size(); // Trigger lazy loading for likes
-            // Don't load comments since we're not sending them
-        }
-        
-        // Convert to ReelsResponse
-        List<ReelsResponse> reelsResponses = reelsPage.getContent().stream()
-                .map(ReelsResponse::new)
-                .toList();
+        // Convert to ReelsResponse with grouped lookups for the page
+        List<ReelsResponse> reelsResponses = feedAssembler.toReelsResponses(reelsPage.getContent());
         
         PaginatedResponse<ReelsResponse> response = new PaginatedResponse<>();
         response.setContent(reelsResponses);
@@ -382,22 +355,22 @@ public class ReelsServiceImpl implements ReelsService{
         return response;
     }
     
+    @Override
+    public PaginatedResponse<ReelsResponse> getAllReelsByCursorWithCounts(String cursor, int size) {
+        PaginatedResponse<Reels> reelsPage = KeysetPager.page(cursor, size,
+                reelsRepo::findAllBefore, reelsRepo::findAllAfter, Reels::getCreatedAt, Reels::getId);
+        
+        return reelsPage.withContent(feedAssembler.toReelsResponses(reelsPage.getContent()));
+    }
+    
     @Override
     public PaginatedResponse<ReelsResponse> getReelsByUserIdPaginatedWithCounts(UUID userId, int page, int size) {
         userService.getUserById(userId); // Validate user exists
         Pageable pageable = PageRequest.of(page, size);
         Page<Reels> reelsPage = reelsRepo.findReelsByUserIdPaginated(userId, pageable);
         
-        // Initialize lazy collections for each reel (only likedBy, not comments)
-        for (Reels reel : reelsPage.getContent()) {
-            reel.getLikedBy().size(); // Trigger lazy loading for likes
-            // Don't load comments since we're not sending them
-        }
-        
-        // Convert to ReelsResponse
-        List<ReelsResponse> reelsResponses = reelsPage.getContent().stream()
-                .map(ReelsResponse::new)
-                .toList();
+        // Convert to ReelsResponse with grouped lookups for the page
+        List<ReelsResponse> reelsResponses = feedAssembler.toReelsResponses(reelsPage.getContent());
         
         PaginatedResponse<ReelsResponse> response = new PaginatedResponse<>();
         response.setContent(reelsResponses);
@@ -491,25 +464,14 @@ public class ReelsServiceImpl implements ReelsService{
         User user = userService.getUserById(userId);
         List<Reels> allSavedReels = user.getSavedReels();
         
-        // Initialize lazy collections for all reels to avoid LazyInitializationException
-        for (Reels reel : allSavedReels) {
-            reel.getLikedBy().size(); // Trigger lazy loading
-            reel.getComments().size(); // Trigger lazy loading
-            if (reel.getUser() != null) {
-                reel.getUser().getFname(); // Trigger lazy loading
-            }
-        }
-        
         // Manual pagination
         int start = page * size;
         int end = Math.min(start + size, allSavedReels.size());
         
         List<Reels> paginatedReels = allSavedReels.subList(start, end);
         
-        // Convert to ReelsResponse
-        List<ReelsResponse> reelsResponses = paginatedReels.stream()
-                .map(ReelsResponse::new)
-                .toList();
+        // Convert to ReelsResponse; only the requested page is hydrated
+        List<ReelsResponse> reelsResponses = feedAssembler.toReelsResponses(paginatedReels);
         
         PaginatedResponse<ReelsResponse> response = new PaginatedResponse<>();
         response.setContent(reelsResponses);
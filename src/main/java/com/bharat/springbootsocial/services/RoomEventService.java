@@ -3,18 +3,22 @@ package com.bharat.springbootsocial.services;
 import com.bharat.springbootsocial.entity.CallRoom;
 import com.bharat.springbootsocial.entity.User;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 public class RoomEventService {
     
+    private static final String ROOM_EVENTS_QUEUE = "/queue/room-events";
+    
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private FanoutEngine fanoutEngine;
     
     // Send user joined room event
     public void sendUserJoinedEvent(CallRoom room, User user) {
@@ -29,13 +33,7 @@ public class RoomEventService {
             event.put("maxParticipants", room.getMaxParticipants());
             
             // Send to all room participants except the one who joined
-            room.getParticipants().forEach(participant -> {
-                if (!participant.getId().equals(user.getId())) {
-                    String destination = "/user/" + participant.getId() + "/queue/room-events";
-                    messagingTemplate.convertAndSend(destination, event);
-                    System.out.println("📢 Room event sent to user " + participant.getId() + ": user-joined");
-                }
-            });
+            fanoutEngine.sendToUsers(participantIds(room, user.getId()), ROOM_EVENTS_QUEUE, event);
             
             System.out.println("✅ User joined room event sent successfully");
             
@@ -58,11 +56,7 @@ public class RoomEventService {
             event.put("maxParticipants", room.getMaxParticipants());
             
             // Send to all remaining room participants
-            room.getParticipants().forEach(participant -> {
-                String destination = "/user/" + participant.getId() + "/queue/room-events";
-                messagingTemplate.convertAndSend(destination, event);
-                System.out.println("📢 Room event sent to user " + participant.getId() + ": user-left");
-            });
+            fanoutEngine.sendToUsers(participantIds(room, null), ROOM_EVENTS_QUEUE, event);
             
             System.out.println("✅ User left room event sent successfully");
             
@@ -85,11 +79,7 @@ public class RoomEventService {
             event.put("maxParticipants", room.getMaxParticipants());
             
             // Send to all room participants
-            room.getParticipants().forEach(participant -> {
-                String destination = "/user/" + participant.getId() + "/queue/room-events";
-                messagingTemplate.convertAndSend(destination, event);
-                System.out.println("📢 Room event sent to user " + participant.getId() + ": room-status-changed");
-            });
+            fanoutEngine.sendToUsers(participantIds(room, null), ROOM_EVENTS_QUEUE, event);
             
             System.out.println("✅ Room status changed event sent successfully");
             
@@ -112,11 +102,7 @@ public class RoomEventService {
             event.put("maxParticipants", room.getMaxParticipants());
             
             // Send to all room participants
-            room.getParticipants().forEach(participant -> {
-                String destination = "/user/" + participant.getId() + "/queue/room-events";
-                messagingTemplate.convertAndSend(destination, event);
-                System.out.println("📢 Room event sent to user " + participant.getId() + ": room-capacity-changed");
-            });
+            fanoutEngine.sendToUsers(participantIds(room, null), ROOM_EVENTS_QUEUE, event);
             
             System.out.println("✅ Room capacity changed event sent successfully");
             
@@ -138,11 +124,7 @@ public class RoomEventService {
             event.put("participantCount", room.getParticipants().size());
             
             // Send to all room participants
-            room.getParticipants().forEach(participant -> {
-                String destination = "/user/" + participant.getId() + "/queue/room-events";
-                messagingTemplate.convertAndSend(destination, event);
-                System.out.println("📢 Room event sent to user " + participant.getId() + ": room-ended");
-            });
+            fanoutEngine.sendToUsers(participantIds(room, null), ROOM_EVENTS_QUEUE, event);
             
             System.out.println("✅ Room ended event sent successfully");
             
@@ -174,11 +156,7 @@ public class RoomEventService {
             event.put("participants", participants);
             
             // Send to all room participants
-            room.getParticipants().forEach(participant -> {
-                String destination = "/user/" + participant.getId() + "/queue/room-events";
-                messagingTemplate.convertAndSend(destination, event);
-                System.out.println("📢 Room event sent to user " + participant.getId() + ": participant-list-update");
-            });
+            fanoutEngine.sendToUsers(participantIds(room, null), ROOM_EVENTS_QUEUE, event);
             
             System.out.println("✅ Participant list update sent successfully");
             
@@ -198,11 +176,7 @@ public class RoomEventService {
             event.putAll(eventData);
             
             // Send to all room participants
-            room.getParticipants().forEach(participant -> {
-                String destination = "/user/" + participant.getId() + "/queue/room-events";
-                messagingTemplate.convertAndSend(destination, event);
-                System.out.println("📢 Room event sent to user " + participant.getId() + ": " + eventType);
-            });
+            fanoutEngine.sendToUsers(participantIds(room, null), ROOM_EVENTS_QUEUE, event);
             
             System.out.println("✅ Custom room event sent successfully: " + eventType);
             
@@ -211,4 +185,15 @@ public class RoomEventService {
             e.printStackTrace();
         }
     }
+    
+    // Ids of the room's participants, leaving out exceptUserId when given
+    private List<UUID> participantIds(CallRoom room, UUID exceptUserId) {
+        List<UUID> ids = new ArrayList<>(room.getParticipants().size());
+        room.getParticipants().forEach(participant -> {
+            if (!participant.getId().equals(exceptUserId)) {
+                ids.add(participant.getId());
+            }
+        });
+        return ids;
+    }
 }
@@ -2,7 +2,9 @@ package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.entity.User;
 import com.bharat.springbootsocial.exception.UserException;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.ProfileResponse;
+import com.bharat.springbootsocial.response.UserSummary;
 
 import java.util.List;
 import java.util.UUID;
@@ -28,12 +30,27 @@ public interface ServiceInt {
 
     List<User> getFollowing(UUID userId);
 
+    PaginatedResponse<User> getFollowersPaginated(UUID userId, int page, int size);
+
+    PaginatedResponse<User> getFollowingPaginated(UUID userId, int page, int size);
+
+    long getFollowersCount(UUID userId);
+
+    long getFollowingCount(UUID userId);
+
     User findUserByEmail(String email);
 
-    List<User> searchUser(String query);
+    List<UserSummary> searchUser(String query, UUID searcherId, int limit);
 
     User getUserFromToken(String jwt);
 
+    // Cached token resolution for callers that only need the user's id and name
+    UserSummary getUserSummaryFromToken(String jwt);
+
+    UUID getUserIdFromToken(String jwt);
+
+    UserSummary getUserSummary(UUID userId);
+
     ProfileResponse getUserProfile(UUID userId) throws Exception;
 
     User updateCoverImage(UUID userId, String coverImageUrl) throws Exception;
@@ -0,0 +1,303 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.response.UserSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Relays ICE candidates to their peer, coalescing the candidates one user
+ * trickles to the same peer (or room) within app.signaling.ice-batch-window-ms
+ * into a single frame. A window that collected one candidate goes out as the
+ * usual "ice-candidate" frame; one that collected more goes out as an
+ * "ice-candidates" frame with a "candidates" list in arrival order. Offers and
+ * answers are not delayed: before one is sent, the candidates waiting for the
+ * same peer are flushed, so the peer sees everything in the order it was sent.
+ *
+ * Only clients that subscribed to call signaling with the "ice-batching: true"
+ * header understand "ice-candidates" frames, so candidates are coalesced for a
+ * user only while every signaling subscription they hold carries it, and for
+ * a room only while every subscription to the room's topic does. Everyone else
+ * gets one "ice-candidate" frame per candidate, as before.
+ */
+@Component
+public class SignalingRelay {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.signaling.ice-batch-window-ms:15}")
+    private long windowMillis;
+
+    public record Stats(long candidates, long frames, long pendingBatches) {
+    }
+
+    // toUserId is null for candidates broadcast to the room
+    private record Key(String roomId, UUID fromUserId, UUID toUserId) {
+    }
+
+    public static final String BATCHING_HEADER = "ice-batching";
+
+    private static final String USER_QUEUE = "/queue/call-signaling";
+    private static final String ROOM_TOPIC_SUFFIX = "/call-signaling";
+
+    private final Map<Key, Batch> pending = new ConcurrentHashMap<>();
+
+    // Session id to its signaling subscriptions
+    private final Map<String, SessionSubscriptions> sessions = new ConcurrentHashMap<>();
+    // User id, or room topic, to the signaling subscriptions it is reached through
+    private final Map<String, Audience> audiences = new ConcurrentHashMap<>();
+
+    private ScheduledThreadPoolExecutor flusher;
+
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+
+    @PostConstruct
+    void startFlusher() {
+        flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "signaling-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.setRemoveOnCancelPolicy(true);
+    }
+
+    // Batches already waiting still go out
+    @PreDestroy
+    void stopFlusher() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues a candidate for "/user/{toUserId}/queue/call-signaling", or for
+     * "/room/{roomId}/call-signaling" when toUserId is null.
+     */
+    public void candidate(String roomId, UserSummary fromUser, UUID toUserId, Map<String, Object> candidate) {
+        candidates.increment();
+        Key key = new Key(roomId, fromUser.getId(), toUserId);
+        if (windowMillis <= 0 || !acceptsBatches(roomId, toUserId)) {
+            // Anything queued while the recipient still accepted batches goes first
+            flush(roomId, fromUser.getId(), toUserId);
+            send(roomId, fromUser, toUserId, List.of(candidate));
+            return;
+        }
+        while (true) {
+            Batch batch = pending.computeIfAbsent(key, k -> {
+                Batch created = new Batch(fromUser);
+                flusher.schedule(() -> flush(k, created), windowMillis, TimeUnit.MILLISECONDS);
+                return created;
+            });
+            synchronized (batch) {
+                if (!batch.sent) {
+                    batch.candidates.add(candidate);
+                    return;
+                }
+            }
+            // Flushed between the lookup and the lock; start the next window
+            pending.remove(key, batch);
+        }
+    }
+
+    /**
+     * Sends the candidates waiting from fromUserId to toUserId (or the room,
+     * when null) now. Call before sending them an offer or answer.
+     */
+    public void flush(String roomId, UUID fromUserId, UUID toUserId) {
+        Key key = new Key(roomId, fromUserId, toUserId);
+        Batch batch = pending.get(key);
+        if (batch != null) {
+            flush(key, batch);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(candidates.sum(), frames.sum(), pending.size());
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String audience = audience(accessor.getDestination(), userId(event));
+        if (audience == null || accessor.getSessionId() == null) {
+            return;
+        }
+        Subscription subscription = new Subscription(audience,
+                "true".equalsIgnoreCase(accessor.getFirstNativeHeader(BATCHING_HEADER)));
+        SessionSubscriptions session = sessions.computeIfAbsent(accessor.getSessionId(),
+                id -> new SessionSubscriptions());
+        synchronized (session) {
+            if (session.subscriptions.put(accessor.getSubscriptionId(), subscription) != null) {
+                return;
+            }
+        }
+        audiences.compute(audience, (id, existing) -> {
+            Audience updated = existing != null ? existing : new Audience();
+            if (subscription.batched()) {
+                updated.batched++;
+            } else {
+                updated.legacy++;
+            }
+            return updated;
+        });
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        SessionSubscriptions session = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (session == null) {
+            return;
+        }
+        Subscription subscription;
+        synchronized (session) {
+            subscription = session.subscriptions.remove(accessor.getSubscriptionId());
+        }
+        if (subscription != null) {
+            release(List.of(subscription));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        SessionSubscriptions session = sessions.remove(event.getSessionId());
+        if (session != null) {
+            List<Subscription> subscriptions;
+            synchronized (session) {
+                subscriptions = new ArrayList<>(session.subscriptions.values());
+                session.subscriptions.clear();
+            }
+            release(subscriptions);
+        }
+    }
+
+    private boolean acceptsBatches(String roomId, UUID toUserId) {
+        Audience audience = audiences.get(toUserId != null ? toUserId.toString() : roomTopic(roomId));
+        // Read without the map's lock; a stale answer only costs batching one window early or late
+        return audience != null && audience.batched > 0 && audience.legacy == 0;
+    }
+
+    private void release(List<Subscription> subscriptions) {
+        for (Subscription subscription : subscriptions) {
+            audiences.computeIfPresent(subscription.audience(), (id, audience) -> {
+                if (subscription.batched()) {
+                    audience.batched--;
+                } else {
+                    audience.legacy--;
+                }
+                return audience.batched <= 0 && audience.legacy <= 0 ? null : audience;
+            });
+        }
+    }
+
+    // Sent under the batch's lock, so a flush racing with the timer waits for it rather than overtaking it
+    private void flush(Key key, Batch batch) {
+        synchronized (batch) {
+            if (!batch.sent) {
+                batch.sent = true;
+                if (!batch.candidates.isEmpty()) {
+                    send(key.roomId(), batch.fromUser, key.toUserId(), batch.candidates);
+                }
+            }
+        }
+        pending.remove(key, batch);
+    }
+
+    private void send(String roomId, UserSummary fromUser, UUID toUserId, List<Map<String, Object>> batch) {
+        if (batch.size() > 1 && !acceptsBatches(roomId, toUserId)) {
+            // A session without the header subscribed while the window was open
+            for (Map<String, Object> candidate : batch) {
+                send(roomId, fromUser, toUserId, List.of(candidate));
+            }
+            return;
+        }
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", batch.size() == 1 ? "ice-candidate" : "ice-candidates");
+        message.put("from", fromUser.getId());
+        message.put("fromName", fromUser.getFname() + " " + fromUser.getLname());
+        message.put("roomId", roomId);
+        if (batch.size() == 1) {
+            message.put("candidate", batch.get(0));
+        } else {
+            message.put("candidates", batch);
+        }
+        message.put("timestamp", System.currentTimeMillis());
+
+        String destination = toUserId != null ? "/user/" + toUserId + USER_QUEUE : roomTopic(roomId);
+        messagingTemplate.convertAndSend(destination, message);
+        frames.increment();
+    }
+
+    private static String roomTopic(String roomId) {
+        return "/room/" + roomId + ROOM_TOPIC_SUFFIX;
+    }
+
+    // The subscriber's user id for their signaling queue, the topic itself for a room's, null for anything else
+    private static String audience(String destination, UUID userId) {
+        if (destination == null) {
+            return null;
+        }
+        if (destination.endsWith(USER_QUEUE)) {
+            return userId != null ? userId.toString() : null;
+        }
+        return destination.startsWith("/room/") && destination.endsWith(ROOM_TOPIC_SUFFIX) ? destination : null;
+    }
+
+    // The principal is named after the user id by StompAuthInterceptor
+    private static UUID userId(AbstractSubProtocolEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(user.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record Subscription(String audience, boolean batched) {
+    }
+
+    private static class SessionSubscriptions {
+        private final Map<String, Subscription> subscriptions = new HashMap<>();
+    }
+
+    // Only changed inside audiences.compute
+    private static class Audience {
+        private volatile int batched;
+        private volatile int legacy;
+    }
+
+    private static class Batch {
+        private final UserSummary fromUser;
+        private final List<Map<String, Object>> candidates = new ArrayList<>(4);
+        private boolean sent;
+
+        private Batch(UserSummary fromUser) {
+            this.fromUser = fromUser;
+        }
+    }
+}
@@ -0,0 +1,985 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.FollowChangedEvent;
+import com.bharat.springbootsocial.event.UserChangedEvent;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+
+/**
+ * The follow graph and the profile fields used to rank friend suggestions,
+ * held in memory. User UUIDs are interned to dense int node ids; each node
+ * keeps sorted int arrays of the nodes it follows and the nodes following it,
+ * so mutual counts are merges of two contiguous arrays and friends-of-friends
+ * walks touch no objects. A follow or unfollow goes into small sorted
+ * overlays next to those arrays, which are folded back in once they grow.
+ * Loaded from the database at startup and kept current from follow and user
+ * change events.
+ */
+@Component
+public class SocialGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(SocialGraph.class);
+
+    // Candidate feature bits passed to scorers
+    public static final int SAME_GENDER = 1;
+    public static final int SAME_INITIAL = 2;
+    public static final int SAME_LAST_NAME = 4;
+    public static final int HAS_PROFILE_IMAGE = 8;
+    public static final int HAS_BIO = 16;
+
+    // Node flags
+    private static final byte PRESENT = 1;
+    private static final byte PROFILE_IMAGE = 2;
+    private static final byte BIO = 4;
+
+    // Marks an unused IntCounts slot
+    private static final int FREE = -1;
+
+    private static final int[] NONE = new int[0];
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.social-graph.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    @Value("${app.social-graph.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    // Users scored per suggestion query; the initial value serves graphs built outside Spring
+    @Value("${app.social-graph.max-candidates:2000}")
+    private int maxCandidates = 2000;
+
+    public record Profile(UUID id, String gender, String fname, String lname, boolean hasProfileImage,
+                          boolean hasBio) {
+
+        public static Profile of(User user) {
+            return new Profile(user.getId(), user.getGender(), user.getFname(), user.getLname(),
+                    user.getProfileImage() != null && !user.getProfileImage().isEmpty(),
+                    user.getUserBio() != null && !user.getUserBio().isEmpty());
+        }
+    }
+
+    /**
+     * A ranked candidate. mutualCount is what the query counted: shared
+     * followings for {@link #topCandidates}, followed users following the
+     * candidate for {@link #friendsOfFriends}.
+     */
+    public record Candidate(UUID userId, int score, int mutualCount, int features) {
+    }
+
+    // A follow or unfollow applied while a load was running
+    private record FollowChange(UUID followerId, UUID followeeId, boolean following) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Graph graph = new Graph(16);
+    // Changes applied while a load builds its own graph, replayed onto it before the swap
+    private List<Object> changesDuringLoad;
+    private final Object loadLock = new Object();
+
+    private static class Graph {
+        private final Map<UUID, Integer> nodeIds = new HashMap<>();
+        private final Map<String, Integer> genderCodes = new HashMap<>();
+        private final Map<String, Integer> lastNameCodes = new HashMap<>();
+
+        private int size;
+        private UUID[] uuids;
+        private Adjacency[] following;
+        private Adjacency[] followers;
+        private byte[] flags;
+        private int[] gender;
+        private char[] initial;
+        private int[] lastName;
+        // Nodes by gender code, in node order
+        private IntList[] genderMembers = new IntList[0];
+
+        private Graph(int capacity) {
+            uuids = new UUID[capacity];
+            following = new Adjacency[capacity];
+            followers = new Adjacency[capacity];
+            flags = new byte[capacity];
+            gender = new int[capacity];
+            initial = new char[capacity];
+            lastName = new int[capacity];
+        }
+
+        private void follow(UUID followerId, UUID followeeId) {
+            int follower = internPresent(followerId);
+            int followee = internPresent(followeeId);
+            if (follower != followee) {
+                following[follower].add(followee);
+                followers[followee].add(follower);
+            }
+        }
+
+        private void unfollow(UUID followerId, UUID followeeId) {
+            Integer follower = nodeIds.get(followerId);
+            Integer followee = nodeIds.get(followeeId);
+            if (follower != null && followee != null) {
+                following[follower].remove(followee);
+                followers[followee].remove(follower);
+            }
+        }
+
+        private void putUser(Profile profile) {
+            setProfile(intern(profile.id()), profile);
+        }
+
+        private void removeUser(UUID userId) {
+            Integer node = nodeIds.get(userId);
+            if (node == null) {
+                return;
+            }
+            // The node id stays interned but is never returned again
+            following[node].forEach(followee -> {
+                followers[followee].remove(node);
+                return true;
+            });
+            followers[node].forEach(follower -> {
+                following[follower].remove(node);
+                return true;
+            });
+            following[node] = new Adjacency(NONE);
+            followers[node] = new Adjacency(NONE);
+            flags[node] = 0;
+        }
+
+        private int features(int node, int candidate) {
+            int features = 0;
+            if (gender[node] != 0 && gender[node] == gender[candidate]) {
+                features |= SAME_GENDER;
+            }
+            if (initial[node] != 0 && initial[node] == initial[candidate]) {
+                features |= SAME_INITIAL;
+            }
+            if (lastName[node] != 0 && lastName[node] == lastName[candidate]) {
+                features |= SAME_LAST_NAME;
+            }
+            if ((flags[candidate] & PROFILE_IMAGE) != 0) {
+                features |= HAS_PROFILE_IMAGE;
+            }
+            if ((flags[candidate] & BIO) != 0) {
+                features |= HAS_BIO;
+            }
+            return features;
+        }
+
+        private int internPresent(UUID id) {
+            int node = intern(id);
+            // Users seen only through a follow exist, even if their profile was never loaded
+            flags[node] |= PRESENT;
+            return node;
+        }
+
+        private int intern(UUID id) {
+            Integer existing = nodeIds.get(id);
+            if (existing != null) {
+                return existing;
+            }
+            if (size == uuids.length) {
+                allocate(Math.max(16, size * 2));
+            }
+            int node = size++;
+            nodeIds.put(id, node);
+            uuids[node] = id;
+            following[node] = new Adjacency(NONE);
+            followers[node] = new Adjacency(NONE);
+            return node;
+        }
+
+        private void setProfile(int node, Profile profile) {
+            int genderCode = code(genderCodes, profile.gender());
+            if (genderCode != gender[node]) {
+                if (gender[node] != 0) {
+                    genderMembers[gender[node]].removeSorted(node);
+                }
+                if (genderCode != 0) {
+                    if (genderCode >= genderMembers.length) {
+                        genderMembers = Arrays.copyOf(genderMembers, genderCode + 1);
+                        genderMembers[genderCode] = new IntList();
+                    }
+                    genderMembers[genderCode].insertSorted(node);
+                }
+                gender[node] = genderCode;
+            }
+            initial[node] = profile.fname() != null && !profile.fname().isEmpty()
+                    ? Character.toLowerCase(profile.fname().charAt(0)) : 0;
+            lastName[node] = code(lastNameCodes, profile.lname());
+            flags[node] = (byte) (PRESENT | (profile.hasProfileImage() ? PROFILE_IMAGE : 0) | (profile.hasBio() ? BIO : 0));
+        }
+
+        private void allocate(int capacity) {
+            uuids = Arrays.copyOf(uuids, capacity);
+            following = Arrays.copyOf(following, capacity);
+            followers = Arrays.copyOf(followers, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            gender = Arrays.copyOf(gender, capacity);
+            initial = Arrays.copyOf(initial, capacity);
+            lastName = Arrays.copyOf(lastName, capacity);
+        }
+    }
+
+    /**
+     * A node's neighbours as a sorted array, with the ids added and removed
+     * since it was built kept in two small sorted arrays beside it. A change
+     * shifts only those; once they hold more than a sixteenth of the array
+     * they are merged into a new one, so a change costs amortized constant
+     * copying and most intersections merge plain sorted arrays.
+     */
+    private static final class Adjacency {
+        private int[] sorted;
+        // Not in sorted, kept sorted
+        private int[] added = NONE;
+        private int addedCount;
+        // A subset of sorted, kept sorted
+        private int[] removed = NONE;
+        private int removedCount;
+
+        private Adjacency(int[] sorted) {
+            this.sorted = sorted;
+        }
+
+        private int size() {
+            return sorted.length - removedCount + addedCount;
+        }
+
+        private boolean merged() {
+            return addedCount == 0 && removedCount == 0;
+        }
+
+        private boolean contains(int value) {
+            if (Arrays.binarySearch(sorted, value) >= 0) {
+                return removedCount == 0 || Arrays.binarySearch(removed, 0, removedCount, value) < 0;
+            }
+            return addedCount > 0 && Arrays.binarySearch(added, 0, addedCount, value) >= 0;
+        }
+
+        private void add(int value) {
+            if (Arrays.binarySearch(sorted, value) >= 0) {
+                int at = Arrays.binarySearch(removed, 0, removedCount, value);
+                if (at >= 0) {
+                    System.arraycopy(removed, at + 1, removed, at, --removedCount - at);
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(added, 0, addedCount, value);
+            if (at < 0) {
+                added = insertAt(added, addedCount++, -at - 1, value);
+                mergeIfLarge();
+            }
+        }
+
+        private void remove(int value) {
+            int at = Arrays.binarySearch(added, 0, addedCount, value);
+            if (at >= 0) {
+                System.arraycopy(added, at + 1, added, at, --addedCount - at);
+                return;
+            }
+            if (Arrays.binarySearch(sorted, value) < 0) {
+                return;
+            }
+            at = Arrays.binarySearch(removed, 0, removedCount, value);
+            if (at < 0) {
+                removed = insertAt(removed, removedCount++, -at - 1, value);
+                mergeIfLarge();
+            }
+        }
+
+        /**
+         * Passes each neighbour to action, the merged array first, until it
+         * returns false. Returns false if it was stopped.
+         */
+        private boolean forEach(IntPredicate action) {
+            int r = 0;
+            for (int value : sorted) {
+                if (r < removedCount && removed[r] == value) {
+                    r++;
+                } else if (!action.test(value)) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < addedCount; i++) {
+                if (!action.test(added[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void mergeIfLarge() {
+            if (addedCount + removedCount <= 8 + (sorted.length >> 4)) {
+                return;
+            }
+            int[] merged = new int[size()];
+            int count = 0;
+            int r = 0;
+            int a = 0;
+            for (int value : sorted) {
+                if (r < removedCount && removed[r] == value) {
+                    r++;
+                    continue;
+                }
+                while (a < addedCount && added[a] < value) {
+                    merged[count++] = added[a++];
+                }
+                merged[count++] = value;
+            }
+            while (a < addedCount) {
+                merged[count++] = added[a++];
+            }
+            sorted = merged;
+            added = NONE;
+            addedCount = 0;
+            removed = NONE;
+            removedCount = 0;
+        }
+
+        private static int[] insertAt(int[] values, int count, int at, int value) {
+            int[] target = count < values.length ? values : Arrays.copyOf(values, Math.max(4, count * 2));
+            System.arraycopy(values, at, target, at + 1, count - at);
+            target[at] = value;
+            return target;
+        }
+    }
+
+    /**
+     * Counts per node in a linear-probing table at most half full, sized to
+     * the nodes a query reaches rather than to the graph.
+     */
+    private static final class IntCounts {
+        private int[] keys;
+        private int[] counts;
+        private int size;
+
+        private IntCounts(int expected) {
+            int length = Integer.highestOneBit(Math.max(8, expected) * 2 - 1) << 1;
+            keys = new int[length];
+            Arrays.fill(keys, FREE);
+            counts = new int[length];
+        }
+
+        private boolean contains(int key) {
+            int mask = keys.length - 1;
+            for (int i = home(key, mask); keys[i] != FREE; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void increment(int key) {
+            if ((size + 1) * 2 > keys.length) {
+                int[] oldKeys = keys;
+                int[] oldCounts = counts;
+                keys = new int[oldKeys.length * 2];
+                Arrays.fill(keys, FREE);
+                counts = new int[keys.length];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != FREE) {
+                        counts[slot(oldKeys[i])] = oldCounts[i];
+                    }
+                }
+            }
+            counts[slot(key)]++;
+        }
+
+        // The key's slot, claimed if it was not there yet
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == FREE) {
+                    keys[i] = key;
+                    size++;
+                    break;
+                }
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private static int home(int key, int mask) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (loadOnStartup) {
+            load();
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the users and follows tables. The new graph is
+     * built without the lock while queries keep using the old one; changes
+     * committed meanwhile go to both and are replayed onto the new graph
+     * before it is swapped in.
+     */
+    public void load() {
+        synchronized (loadLock) {
+            long started = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                changesDuringLoad = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Graph fresh;
+            try {
+                List<Profile> users = new ArrayList<>();
+                jdbcTemplate.query("SELECT id, gender, first_name, last_name, "
+                                + "CASE WHEN profile_image IS NOT NULL AND profile_image <> '' THEN 1 ELSE 0 END, "
+                                + "CASE WHEN user_bio IS NOT NULL AND user_bio <> '' THEN 1 ELSE 0 END FROM users",
+                        rs -> {
+                            users.add(new Profile(BinaryUuids.fromBytes(rs.getBytes(1)), rs.getString(2),
+                                    rs.getString(3), rs.getString(4), rs.getInt(5) == 1, rs.getInt(6) == 1));
+                        });
+                Map<UUID, Integer> positions = new HashMap<>(users.size() * 2);
+                for (int i = 0; i < users.size(); i++) {
+                    positions.put(users.get(i).id(), i);
+                }
+
+                // Edges in primary key order, one keyset page at a time
+                IntList sources = new IntList();
+                IntList targets = new IntList();
+                String pageSql = "SELECT follower_id, followee_id FROM follows WHERE follower_id > ? "
+                        + "OR (follower_id = ? AND followee_id > ?) ORDER BY follower_id, followee_id LIMIT ?";
+                byte[] afterFollower = new byte[16];
+                byte[] afterFollowee = new byte[16];
+                while (true) {
+                    List<byte[][]> page = jdbcTemplate.query(pageSql,
+                            (rs, rowNum) -> new byte[][]{rs.getBytes(1), rs.getBytes(2)},
+                            afterFollower, afterFollower, afterFollowee, loadBatchSize);
+                    for (byte[][] edge : page) {
+                        Integer source = positions.get(BinaryUuids.fromBytes(edge[0]));
+                        Integer target = positions.get(BinaryUuids.fromBytes(edge[1]));
+                        if (source != null && target != null) {
+                            sources.add(source);
+                            targets.add(target);
+                        }
+                    }
+                    if (page.size() < loadBatchSize) {
+                        break;
+                    }
+                    afterFollower = page.get(page.size() - 1)[0];
+                    afterFollowee = page.get(page.size() - 1)[1];
+                }
+
+                fresh = build(users, sources.values, targets.values, sources.size);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringLoad = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                // Replayed in commit order, so a follow read from the table and undone since ends up undone
+                for (Object change : changesDuringLoad) {
+                    if (change instanceof FollowChange follow) {
+                        if (follow.following()) {
+                            fresh.follow(follow.followerId(), follow.followeeId());
+                        } else {
+                            fresh.unfollow(follow.followerId(), follow.followeeId());
+                        }
+                    } else if (change instanceof Profile profile) {
+                        fresh.putUser(profile);
+                    } else {
+                        fresh.removeUser((UUID) change);
+                    }
+                }
+                changesDuringLoad = null;
+                graph = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Social graph loaded: {} users, {} follows in {} ms", fresh.size, edgeCount(),
+                    System.currentTimeMillis() - started);
+        }
+    }
+
+    /**
+     * Replaces the graph. Edge i goes from users[sources[i]] to
+     * users[targets[i]]; duplicates and self-follows are dropped.
+     */
+    public void rebuild(List<Profile> users, int[] sources, int[] targets, int edgeCount) {
+        Graph fresh = build(users, sources, targets, edgeCount);
+        lock.writeLock().lock();
+        try {
+            graph = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Graph build(List<Profile> users, int[] sources, int[] targets, int edgeCount) {
+        Graph graph = new Graph(Math.max(16, users.size()));
+        int[] nodeOf = new int[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            nodeOf[i] = graph.intern(users.get(i).id());
+            graph.setProfile(nodeOf[i], users.get(i));
+        }
+
+        // Count degrees so each array is allocated once, then fill, sort and drop duplicates
+        int[] outDegree = new int[graph.size];
+        int[] inDegree = new int[graph.size];
+        for (int i = 0; i < edgeCount; i++) {
+            int source = nodeOf[sources[i]];
+            int target = nodeOf[targets[i]];
+            if (source != target) {
+                outDegree[source]++;
+                inDegree[target]++;
+            }
+        }
+        int[][] out = new int[graph.size][];
+        int[][] in = new int[graph.size][];
+        for (int node = 0; node < graph.size; node++) {
+            out[node] = outDegree[node] == 0 ? NONE : new int[outDegree[node]];
+            in[node] = inDegree[node] == 0 ? NONE : new int[inDegree[node]];
+        }
+        Arrays.fill(outDegree, 0);
+        Arrays.fill(inDegree, 0);
+        for (int i = 0; i < edgeCount; i++) {
+            int source = nodeOf[sources[i]];
+            int target = nodeOf[targets[i]];
+            if (source != target) {
+                out[source][outDegree[source]++] = target;
+                in[target][inDegree[target]++] = source;
+            }
+        }
+        for (int node = 0; node < graph.size; node++) {
+            graph.following[node] = new Adjacency(sortedDistinct(out[node]));
+            graph.followers[node] = new Adjacency(sortedDistinct(in[node]));
+        }
+        return graph;
+    }
+
+    private static int[] sortedDistinct(int[] values) {
+        Arrays.sort(values);
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[count++] = values[i];
+            }
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    @TransactionalEventListener
+    public void onFollowChanged(FollowChangedEvent event) {
+        if (event.isFollowing()) {
+            follow(event.getFollowerId(), event.getFolloweeId());
+        } else {
+            unfollow(event.getFollowerId(), event.getFolloweeId());
+        }
+    }
+
+    public void follow(UUID followerId, UUID followeeId) {
+        lock.writeLock().lock();
+        try {
+            graph.follow(followerId, followeeId);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(new FollowChange(followerId, followeeId, true));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void unfollow(UUID followerId, UUID followeeId) {
+        lock.writeLock().lock();
+        try {
+            graph.unfollow(followerId, followeeId);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(new FollowChange(followerId, followeeId, false));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUser() != null) {
+            putUser(Profile.of(event.getUser()));
+        } else {
+            removeUser(event.getUserId());
+        }
+    }
+
+    /**
+     * Adds or updates a user's profile fields.
+     */
+    public void putUser(Profile profile) {
+        lock.writeLock().lock();
+        try {
+            graph.putUser(profile);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(profile);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops a deleted user and all their edges.
+     */
+    public void removeUser(UUID userId) {
+        lock.writeLock().lock();
+        try {
+            graph.removeUser(userId);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the users a user follows.
+     */
+    public List<UUID> following(UUID userId) {
+        lock.readLock().lock();
+        try {
+            Integer node = graph.nodeIds.get(userId);
+            List<UUID> ids = new ArrayList<>();
+            if (node != null) {
+                graph.following[node].forEach(followee -> ids.add(graph.uuids[followee]));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * For each target, how many of the users userId follows also follow it.
+     */
+    public int[] followedFollowerCounts(UUID userId, List<UUID> targets) {
+        lock.readLock().lock();
+        try {
+            int[] counts = new int[targets.size()];
+            Integer node = graph.nodeIds.get(userId);
+            if (node == null) {
+                return counts;
+            }
+            for (int i = 0; i < targets.size(); i++) {
+                Integer target = graph.nodeIds.get(targets.get(i));
+                if (target != null) {
+                    counts[i] = intersectionSize(graph.following[node], graph.followers[target]);
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of users both a and b follow.
+     */
+    public int mutualFollowingCount(UUID a, UUID b) {
+        lock.readLock().lock();
+        try {
+            Integer nodeA = graph.nodeIds.get(a);
+            Integer nodeB = graph.nodeIds.get(b);
+            if (nodeA == null || nodeB == null) {
+                return 0;
+            }
+            return intersectionSize(graph.following[nodeA], graph.following[nodeB]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best scoring users the user does not follow yet; scorer gets the
+     * number of users both follow and the candidate's feature bits
+     * ({@link #SAME_GENDER} etc.). At most max-candidates users are scored:
+     * first those two hops out, reached through the least followed of the
+     * user's followings first, then for the rest of the budget users sharing
+     * no followings, read from a random node onwards.
+     */
+    public List<Candidate> topCandidates(UUID userId, int limit, IntBinaryOperator scorer) {
+        lock.readLock().lock();
+        try {
+            Graph graph = this.graph;
+            Integer node = graph.nodeIds.get(userId);
+            if (node == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+            Adjacency followed = graph.following[node];
+            int budget = Math.max(maxCandidates, limit);
+
+            // Follower count in the high half, so sorting orders followings by how many users they reach
+            long[] byReach = new long[followed.size()];
+            int[] count = {0};
+            followed.forEach(followee -> {
+                byReach[count[0]++] = (long) graph.followers[followee].size() << 32 | followee;
+                return true;
+            });
+            Arrays.sort(byReach);
+
+            // Everyone following a followed user shares at least that one with this user
+            IntCounts reached = new IntCounts(Math.min(budget, 1024));
+            for (long entry : byReach) {
+                boolean open = graph.followers[(int) entry].forEach(candidate -> {
+                    if (candidate == node || followed.contains(candidate) || reached.contains(candidate)) {
+                        return true;
+                    }
+                    if (reached.size == budget) {
+                        return false;
+                    }
+                    reached.increment(candidate);
+                    return true;
+                });
+                if (!open) {
+                    break;
+                }
+            }
+
+            PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, SocialGraph::compareRanked);
+            for (int candidate : reached.keys) {
+                if (candidate != FREE && (graph.flags[candidate] & PRESENT) != 0) {
+                    rank(graph, best, limit, scorer, node, candidate,
+                            intersectionSize(followed, graph.following[candidate]));
+                }
+            }
+            int sample = Math.min(budget - reached.size, graph.size);
+            int start = ThreadLocalRandom.current().nextInt(graph.size);
+            for (int i = 0; i < sample; i++) {
+                int candidate = (start + i) % graph.size;
+                if (candidate != node && (graph.flags[candidate] & PRESENT) != 0 && !followed.contains(candidate)
+                        && !reached.contains(candidate)) {
+                    rank(graph, best, limit, scorer, node, candidate, 0);
+                }
+            }
+            return drain(graph, best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users followed by the users this user follows, ranked by how many of
+     * them follow the candidate. Score is that count times weight.
+     */
+    public List<Candidate> friendsOfFriends(UUID userId, int limit, int weight) {
+        lock.readLock().lock();
+        try {
+            Graph graph = this.graph;
+            Integer node = graph.nodeIds.get(userId);
+            if (node == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+            Adjacency followed = graph.following[node];
+            // Sized to the nodes reached, not the graph
+            IntCounts paths = new IntCounts(64);
+            followed.forEach(followee -> graph.following[followee].forEach(candidate -> {
+                paths.increment(candidate);
+                return true;
+            }));
+
+            PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, SocialGraph::compareRanked);
+            for (int i = 0; i < paths.keys.length; i++) {
+                int candidate = paths.keys[i];
+                if (candidate == FREE || candidate == node || (graph.flags[candidate] & PRESENT) == 0
+                        || followed.contains(candidate)) {
+                    continue;
+                }
+                offer(best, limit, paths.counts[i] * weight, candidate, paths.counts[i],
+                        graph.features(node, candidate));
+            }
+            return drain(graph, best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit users of the same gender the user does not follow yet, in
+     * node order. Empty when the user's gender is unknown.
+     */
+    public List<UUID> sameGender(UUID userId, int limit) {
+        lock.readLock().lock();
+        try {
+            Graph graph = this.graph;
+            Integer node = graph.nodeIds.get(userId);
+            List<UUID> matches = new ArrayList<>();
+            if (node == null || graph.gender[node] == 0) {
+                return matches;
+            }
+            Adjacency followed = graph.following[node];
+            IntList members = graph.genderMembers[graph.gender[node]];
+            for (int i = 0; i < members.size && matches.size() < limit; i++) {
+                int candidate = members.values[i];
+                if (candidate != node && (graph.flags[candidate] & PRESENT) != 0 && !followed.contains(candidate)) {
+                    matches.add(graph.uuids[candidate]);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long edgeCount() {
+        lock.readLock().lock();
+        try {
+            long edges = 0;
+            for (int node = 0; node < graph.size; node++) {
+                edges += graph.following[node].size();
+            }
+            return edges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void rank(Graph graph, PriorityQueue<long[]> best, int limit, IntBinaryOperator scorer, int node,
+                             int candidate, int mutual) {
+        int features = graph.features(node, candidate);
+        int score = scorer.applyAsInt(mutual, features);
+        if (score > 0) {
+            offer(best, limit, score, candidate, mutual, features);
+        }
+    }
+
+    // Keeps the limit highest {score, node, mutual, features}; the head is the lowest kept
+    private static void offer(PriorityQueue<long[]> best, int limit, int score, int node, int mutual, int features) {
+        if (best.size() < limit) {
+            best.add(new long[]{score, node, mutual, features});
+        } else if (score > best.peek()[0]) {
+            best.poll();
+            best.add(new long[]{score, node, mutual, features});
+        }
+    }
+
+    private static int compareRanked(long[] a, long[] b) {
+        // Lower score first; among equal scores the later node is dropped first
+        return a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]);
+    }
+
+    private static List<Candidate> drain(Graph graph, PriorityQueue<long[]> best) {
+        List<Candidate> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            long[] entry = best.poll();
+            ranked.add(new Candidate(graph.uuids[(int) entry[1]], (int) entry[0], (int) entry[2], (int) entry[3]));
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    // Case-insensitive code for a string, 0 for null or empty
+    private static int code(Map<String, Integer> codes, String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        return codes.computeIfAbsent(value.toLowerCase(Locale.ROOT), key -> codes.size() + 1);
+    }
+
+    /**
+     * Merges the two sorted arrays when neither has pending changes and their
+     * sizes are within a factor of 32; otherwise looks up the members of the
+     * smaller in the larger by binary search.
+     */
+    private static int intersectionSize(Adjacency a, Adjacency b) {
+        Adjacency smaller = a.size() <= b.size() ? a : b;
+        Adjacency larger = smaller == a ? b : a;
+        if (smaller.size() == 0) {
+            return 0;
+        }
+        if (a.merged() && b.merged() && larger.size() / smaller.size() < 32) {
+            int[] x = a.sorted;
+            int[] y = b.sorted;
+            int count = 0;
+            for (int i = 0, j = 0; i < x.length && j < y.length; ) {
+                if (x[i] < y[j]) {
+                    i++;
+                } else if (x[i] > y[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+        int[] count = {0};
+        smaller.forEach(member -> {
+            if (larger.contains(member)) {
+                count[0]++;
+            }
+            return true;
+        });
+        return count[0];
+    }
+
+    // Growable int array for edge lists and gender members
+    private static class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void insertSorted(int value) {
+            int at = Arrays.binarySearch(values, 0, size, value);
+            if (at < 0) {
+                int insertion = -at - 1;
+                add(value);
+                System.arraycopy(values, insertion, values, insertion + 1, size - 1 - insertion);
+                values[insertion] = value;
+            }
+        }
+
+        private void removeSorted(int value) {
+            int at = Arrays.binarySearch(values, 0, size, value);
+            if (at >= 0) {
+                System.arraycopy(values, at + 1, values, at, --size - at);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.config.JwtConstants;
+import com.bharat.springbootsocial.config.StompAuthInterceptor;
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.response.UserSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Finds the sender of a STOMP frame for @MessageMapping handlers. Sessions
+ * authenticated at CONNECT answer from the session attributes; older clients
+ * still send a token with each frame, either in the payload or in the
+ * Authorization header.
+ */
+@Component
+public class SocketUserResolver {
+
+    @Autowired
+    private ServiceInt userService;
+
+    public UUID userId(SimpMessageHeaderAccessor accessor, String token) {
+        UUID sessionUserId = StompAuthInterceptor.sessionUserId(accessor);
+        return sessionUserId != null ? sessionUserId : userService.getUserIdFromToken(frameToken(accessor, token));
+    }
+
+    public UserSummary summary(SimpMessageHeaderAccessor accessor, String token) {
+        UUID sessionUserId = StompAuthInterceptor.sessionUserId(accessor);
+        return sessionUserId != null ? userService.getUserSummary(sessionUserId)
+                : userService.getUserSummaryFromToken(frameToken(accessor, token));
+    }
+
+    // For handlers that hand the sender to JPA
+    public User user(SimpMessageHeaderAccessor accessor, String token) {
+        return userService.getUserById(userId(accessor, token));
+    }
+
+    private static String frameToken(SimpMessageHeaderAccessor accessor, String token) {
+        if (token == null && accessor != null) {
+            token = accessor.getFirstNativeHeader(JwtConstants.JWT_HEADER);
+        }
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT token is required");
+        }
+        return token.startsWith("Bearer ") ? token : "Bearer " + token;
+    }
+}
@@ -7,6 +7,7 @@ import com.bharat.springbootsocial.request.CreateStoryRequest;
 import com.bharat.springbootsocial.request.StoryReplyRequest;
 import com.bharat.springbootsocial.response.PaginatedStoryResponse;
 import com.bharat.springbootsocial.response.StoryResponse;
+import com.bharat.springbootsocial.response.StoryRingResponse;
 import com.bharat.springbootsocial.response.UserStoryResponse;
 import org.springframework.data.domain.Pageable;
 
@@ -20,6 +21,7 @@ public interface StoryService {
     List<StoryResponse> getActiveStoriesByUserId(UUID userId, User currentUser);
     List<UserStoryResponse> getStoriesFromFollowing(User currentUser);
     PaginatedStoryResponse getStoriesFromFollowingPaginated(User currentUser, Pageable pageable);
+    List<StoryRingResponse> getStoryTray(User currentUser);
     void deleteStory(UUID storyId, User user) throws UserException;
     
     // Story interactions
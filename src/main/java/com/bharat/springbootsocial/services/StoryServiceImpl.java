@@ -10,6 +10,7 @@ import com.bharat.springbootsocial.request.CreateStoryRequest;
 import com.bharat.springbootsocial.request.StoryReplyRequest;
 import com.bharat.springbootsocial.response.PaginatedStoryResponse;
 import com.bharat.springbootsocial.response.StoryResponse;
+import com.bharat.springbootsocial.response.StoryRingResponse;
 import com.bharat.springbootsocial.response.UserStoryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -41,6 +42,18 @@ public class StoryServiceImpl implements StoryService {
     
     @Autowired
     private NotificationService notificationService;
+
+    @Autowired
+    private EngagementCounters engagementCounters;
+
+    @Autowired
+    private StoryTray storyTray;
+
+    @Autowired
+    private SocialGraph socialGraph;
+
+    @Autowired
+    private PrincipalCache principalCache;
     
     private static final int STORY_EXPIRY_HOURS = 24;
     
@@ -59,6 +72,7 @@ public class StoryServiceImpl implements StoryService {
         story.setViewCount(0);
         
         Story savedStory = storyRepo.save(story);
+        storyTray.onCreated(savedStory, user.getId());
         return convertToStoryResponse(savedStory, user);
     }
     
@@ -86,13 +100,11 @@ public class StoryServiceImpl implements StoryService {
     
     @Override
     public List<UserStoryResponse> getStoriesFromFollowing(User currentUser) {
-        List<String> followingIds = currentUser.getFollowing();
-        if (followingIds.isEmpty()) {
+        List<Story> stories = storyRepo.findActiveStoriesFromFollowing(currentUser.getId(), LocalDateTime.now());
+        if (stories.isEmpty()) {
             return new ArrayList<>();
         }
         
-        List<Story> stories = storyRepo.findActiveStoriesFromFollowing(followingIds, LocalDateTime.now());
-        
         // Group stories by user
         Map<UUID, List<Story>> storiesByUser = stories.stream()
                 .collect(Collectors.groupingBy(story -> story.getUser().getId()));
@@ -100,7 +112,6 @@ public class StoryServiceImpl implements StoryService {
         List<UserStoryResponse> userStoryResponses = new ArrayList<>();
         
         for (Map.Entry<UUID, List<Story>> entry : storiesByUser.entrySet()) {
-            UUID userId = entry.getKey();
             List<Story> userStories = entry.getValue();
             
             User storyUser = userStories.get(0).getUser();
@@ -108,9 +119,8 @@ public class StoryServiceImpl implements StoryService {
                     .map(story -> convertToStoryResponse(story, currentUser))
                     .collect(Collectors.toList());
             
-            // Check if user has unviewed stories
-            Integer unviewedCount = storyRepo.countUnviewedStoriesByUserId(userId, currentUser, LocalDateTime.now());
-            Boolean hasUnviewedStories = unviewedCount > 0;
+            // isViewed was settled from the loaded viewedBy lists, so no count query per author
+            Boolean hasUnviewedStories = storyResponses.stream().anyMatch(response -> !response.getIsViewed());
             
             UserStoryResponse userStoryResponse = new UserStoryResponse();
             userStoryResponse.setUser(storyUser);
@@ -126,13 +136,8 @@ public class StoryServiceImpl implements StoryService {
     
     @Override
     public PaginatedStoryResponse getStoriesFromFollowingPaginated(User currentUser, Pageable pageable) {
-        List<String> followingIds = currentUser.getFollowing();
-        if (followingIds.isEmpty()) {
-            return new PaginatedStoryResponse();
-        }
-        
         // Get paginated stories from following users
-        Page<Story> storyPage = storyRepo.findActiveStoriesFromFollowingPaginated(followingIds, LocalDateTime.now(), pageable);
+        Page<Story> storyPage = storyRepo.findActiveStoriesFromFollowingPaginated(currentUser.getId(), LocalDateTime.now(), pageable);
         
         // Group stories by user
         Map<UUID, List<Story>> storiesByUser = storyPage.getContent().stream()
@@ -141,7 +146,6 @@ public class StoryServiceImpl implements StoryService {
         List<UserStoryResponse> userStoryResponses = new ArrayList<>();
         
         for (Map.Entry<UUID, List<Story>> entry : storiesByUser.entrySet()) {
-            UUID userId = entry.getKey();
             List<Story> userStories = entry.getValue();
             
             User storyUser = userStories.get(0).getUser();
@@ -149,9 +153,8 @@ public class StoryServiceImpl implements StoryService {
                     .map(story -> convertToStoryResponse(story, currentUser))
                     .collect(Collectors.toList());
             
-            // Check if user has unviewed stories
-            Integer unviewedCount = storyRepo.countUnviewedStoriesByUserId(userId, currentUser, LocalDateTime.now());
-            Boolean hasUnviewedStories = unviewedCount > 0;
+            // isViewed was settled from the loaded viewedBy lists, so no count query per author
+            Boolean hasUnviewedStories = storyResponses.stream().anyMatch(response -> !response.getIsViewed());
             
             UserStoryResponse userStoryResponse = new UserStoryResponse();
             userStoryResponse.setUser(storyUser);
@@ -177,6 +180,22 @@ public class StoryServiceImpl implements StoryService {
         return paginatedResponse;
     }
     
+    @Override
+    public List<StoryRingResponse> getStoryTray(User currentUser) {
+        List<StoryRingResponse> tray = new ArrayList<>();
+        for (StoryTray.Ring ring : storyTray.trayFor(currentUser.getId(), socialGraph.following(currentUser.getId()))) {
+            List<StoryRingResponse.StoryThumbnail> thumbnails = new ArrayList<>(ring.stories().size());
+            for (int i = 0; i < ring.stories().size(); i++) {
+                StoryTray.Item item = ring.stories().get(i);
+                thumbnails.add(new StoryRingResponse.StoryThumbnail(item.id(), item.imageUrl(), item.videoUrl(),
+                        item.storyType(), item.createdAt(), item.expiresAt(), ring.seen()[i]));
+            }
+            tray.add(new StoryRingResponse(principalCache.summary(ring.authorId()), thumbnails, ring.hasUnseen(),
+                    thumbnails.size(), ring.latestAt()));
+        }
+        return tray;
+    }
+    
     @Override
     @Transactional
     public void deleteStory(UUID storyId, User user) throws UserException {
@@ -188,6 +207,7 @@ public class StoryServiceImpl implements StoryService {
         }
         
         storyRepo.delete(story);
+        storyTray.onDeleted(storyId);
     }
     
     @Override
@@ -203,8 +223,9 @@ public class StoryServiceImpl implements StoryService {
         // Add user to viewedBy list if not already viewed
         if (!story.getViewedBy().contains(user)) {
             story.getViewedBy().add(user);
-            story.setViewCount(story.getViewCount() + 1);
             storyRepo.save(story);
+            engagementCounters.increment(EngagementCounters.Counter.STORY_VIEWS, storyId);
+            storyTray.onViewed(storyId, user.getId());
             
             // Story view notification removed as per user request
         }
@@ -225,6 +246,7 @@ public class StoryServiceImpl implements StoryService {
         if (!story.getLikedBy().contains(user)) {
             story.getLikedBy().add(user);
             storyRepo.save(story);
+            engagementCounters.increment(EngagementCounters.Counter.STORY_LIKES, storyId);
             
             // Send like notification
             notificationService.sendLikeNotification(story.getUser(), user, "STORY", story.getId());
@@ -239,8 +261,10 @@ public class StoryServiceImpl implements StoryService {
         Story story = storyRepo.findById(storyId)
                 .orElseThrow(() -> new UserException("Story not found"));
         
-        story.getLikedBy().remove(user);
-        storyRepo.save(story);
+        if (story.getLikedBy().remove(user)) {
+            storyRepo.save(story);
+            engagementCounters.decrement(EngagementCounters.Counter.STORY_LIKES, storyId);
+        }
         
         return convertToStoryResponse(story, user);
     }
@@ -309,14 +333,16 @@ public class StoryServiceImpl implements StoryService {
     public Integer getStoryViewCount(UUID storyId) throws UserException {
         Story story = storyRepo.findById(storyId)
                 .orElseThrow(() -> new UserException("Story not found"));
-        return story.getViewCount();
+        return engagementCounters.current(EngagementCounters.Counter.STORY_VIEWS, storyId, story.getViewCount(),
+                story.getCountersLoadedAt());
     }
     
     @Override
     public Integer getStoryLikeCount(UUID storyId) throws UserException {
         Story story = storyRepo.findById(storyId)
                 .orElseThrow(() -> new UserException("Story not found"));
-        return story.getLikedBy().size();
+        return engagementCounters.current(EngagementCounters.Counter.STORY_LIKES, storyId, story.getLikeCount(),
+                story.getCountersLoadedAt());
     }
     
     @Override
@@ -334,7 +360,8 @@ public class StoryServiceImpl implements StoryService {
         response.setExpiresAt(story.getExpiresAt());
         response.setIsActive(story.getIsActive());
         response.setStoryType(story.getStoryType());
-        response.setViewCount(story.getViewCount());
+        // Both lists are loaded for isViewed / isLiked, so their sizes are exact here
+        response.setViewCount(story.getViewedBy().size());
         response.setLikeCount(story.getLikedBy().size());
         response.setReplyCount(story.getReplies().size());
         response.setIsViewed(story.getViewedBy().contains(currentUser));
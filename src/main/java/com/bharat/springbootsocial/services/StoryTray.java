@@ -0,0 +1,327 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.Story;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The active stories of every author and what each viewer has already seen,
+ * held in memory so the story tray is one pass over the viewer's followings
+ * with no query. Every indexed story gets a sequence number; a viewer's seen
+ * state is a sorted long[] of the sequence numbers they opened, so "seen" is a
+ * binary search and the set never holds an object per view. Stories leave the
+ * index when they expire or are deleted, and the seen entries older than the
+ * oldest active story are dropped with them. Loaded from the database at
+ * startup and kept current by the story service after each commit.
+ *
+ * The stories are guarded by a read-write lock. Seen state is per viewer in a
+ * concurrent map, so recording a view only takes the read lock and views by
+ * different viewers never wait for each other.
+ */
+@Component
+public class StoryTray {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoryTray.class);
+
+    private static final Item[] NO_ITEMS = new Item[0];
+    private static final long[] NOTHING_SEEN = new long[0];
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.story-tray.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    /**
+     * What the tray shows of a story; the rest is loaded when it is opened.
+     */
+    public record Item(UUID id, UUID authorId, long seq, String imageUrl, String videoUrl, Story.StoryType storyType,
+                       LocalDateTime createdAt, LocalDateTime expiresAt) {
+    }
+
+    /**
+     * One author's ring: their active stories oldest first, and which of them
+     * the viewer has seen.
+     */
+    public record Ring(UUID authorId, List<Item> stories, boolean[] seen, boolean hasUnseen,
+                       LocalDateTime latestAt) {
+    }
+
+    public record Stats(long traysServed, long activeStories, long authors, long viewers) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Per author, sorted by creation time
+    private final Map<UUID, Item[]> byAuthor = new HashMap<>();
+    private final Map<UUID, Item> byId = new HashMap<>();
+    // Per viewer, sorted sequence numbers of the stories they have seen; replaced whole, never changed in place
+    private final Map<UUID, long[]> seenBy = new ConcurrentHashMap<>();
+
+    private long nextSeq;
+    // Seen entries below this can no longer match an active story
+    private volatile long oldestSeq;
+
+    private final LongAdder traysServed = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (loadOnStartup) {
+            load();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the stories and story_views tables. Changes
+     * committed meanwhile wait for the lock and are applied afterwards.
+     */
+    public void load() {
+        long started = System.currentTimeMillis();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        lock.writeLock().lock();
+        try {
+            byAuthor.clear();
+            byId.clear();
+            seenBy.clear();
+            oldestSeq = nextSeq;
+
+            jdbcTemplate.query("SELECT id, user_id, image_url, video_url, story_type, created_at, expires_at "
+                            + "FROM stories WHERE is_active = TRUE AND expires_at > ? ORDER BY created_at",
+                    rs -> {
+                        Story story = new Story();
+                        story.setId(BinaryUuids.fromBytes(rs.getBytes(1)));
+                        story.setImageUrl(rs.getString(3));
+                        story.setVideoUrl(rs.getString(4));
+                        String type = rs.getString(5);
+                        story.setStoryType(type != null ? Story.StoryType.valueOf(type) : Story.StoryType.IMAGE);
+                        story.setCreatedAt(rs.getTimestamp(6).toLocalDateTime());
+                        story.setExpiresAt(rs.getTimestamp(7).toLocalDateTime());
+                        index(story, BinaryUuids.fromBytes(rs.getBytes(2)));
+                    }, now);
+
+            jdbcTemplate.query("SELECT v.user_id, v.story_id FROM story_views v JOIN stories s ON s.id = v.story_id "
+                            + "WHERE s.is_active = TRUE AND s.expires_at > ?",
+                    rs -> {
+                        Item item = byId.get(BinaryUuids.fromBytes(rs.getBytes(2)));
+                        if (item != null) {
+                            markSeen(BinaryUuids.fromBytes(rs.getBytes(1)), item.seq());
+                        }
+                    }, now);
+            logger.info("Story tray loaded: {} active stories by {} authors, seen state for {} viewers in {} ms",
+                    byId.size(), byAuthor.size(), seenBy.size(), System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onCreated(Story story, UUID authorId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                if (!byId.containsKey(story.getId())) {
+                    index(story, authorId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void onViewed(UUID storyId, UUID viewerId) {
+        AfterCommit.run(() -> {
+            lock.readLock().lock();
+            try {
+                Item item = byId.get(storyId);
+                if (item != null) {
+                    markSeen(viewerId, item.seq());
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    public void onDeleted(UUID storyId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                Item item = byId.remove(storyId);
+                if (item != null) {
+                    Item[] remaining = Arrays.stream(byAuthor.get(item.authorId()))
+                            .filter(other -> other != item)
+                            .toArray(Item[]::new);
+                    putAuthor(item.authorId(), remaining);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Rings for the given authors that have active stories, those with stories
+     * the viewer has not seen first, then by their latest story, newest first.
+     */
+    public List<Ring> trayFor(UUID viewerId, Collection<UUID> authorIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Ring> rings = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long[] seen = seenBy.getOrDefault(viewerId, NOTHING_SEEN);
+            for (UUID authorId : authorIds) {
+                Item[] items = byAuthor.getOrDefault(authorId, NO_ITEMS);
+                List<Item> active = new ArrayList<>(items.length);
+                for (Item item : items) {
+                    // Expired but not swept yet
+                    if (item.expiresAt().isAfter(now)) {
+                        active.add(item);
+                    }
+                }
+                if (active.isEmpty()) {
+                    continue;
+                }
+                boolean[] seenFlags = new boolean[active.size()];
+                boolean hasUnseen = false;
+                for (int i = 0; i < seenFlags.length; i++) {
+                    seenFlags[i] = Arrays.binarySearch(seen, active.get(i).seq()) >= 0;
+                    hasUnseen |= !seenFlags[i];
+                }
+                rings.add(new Ring(authorId, active, seenFlags, hasUnseen,
+                        active.get(active.size() - 1).createdAt()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        traysServed.increment();
+        rings.sort(Comparator.comparing(Ring::hasUnseen).reversed()
+                .thenComparing(Ring::latestAt, Comparator.reverseOrder()));
+        return rings;
+    }
+
+    /**
+     * Drops expired stories and the seen entries that only referred to them.
+     */
+    @Scheduled(fixedDelayString = "${app.story-tray.sweep-interval-ms:60000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        lock.writeLock().lock();
+        try {
+            long oldest = nextSeq;
+            Iterator<Map.Entry<UUID, Item[]>> authors = byAuthor.entrySet().iterator();
+            while (authors.hasNext()) {
+                Map.Entry<UUID, Item[]> entry = authors.next();
+                Item[] items = entry.getValue();
+                int expired = 0;
+                while (expired < items.length && !items[expired].expiresAt().isAfter(now)) {
+                    byId.remove(items[expired].id());
+                    expired++;
+                }
+                if (expired == items.length) {
+                    authors.remove();
+                    continue;
+                }
+                if (expired > 0) {
+                    items = Arrays.copyOfRange(items, expired, items.length);
+                    entry.setValue(items);
+                }
+                for (Item item : items) {
+                    oldest = Math.min(oldest, item.seq());
+                }
+            }
+            if (oldest > oldestSeq) {
+                oldestSeq = oldest;
+                seenBy.replaceAll((viewerId, seen) -> withoutBelow(seen, oldestSeq));
+                seenBy.values().removeIf(seen -> seen.length == 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(traysServed.sum(), byId.size(), byAuthor.size(), seenBy.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void index(Story story, UUID authorId) {
+        Item item = new Item(story.getId(), authorId, nextSeq++, story.getImageUrl(), story.getVideoUrl(),
+                story.getStoryType(), story.getCreatedAt(), story.getExpiresAt());
+        byId.put(item.id(), item);
+        Item[] items = byAuthor.getOrDefault(authorId, NO_ITEMS);
+        // Every story expires the same time after creation, so creation order is also expiry order
+        int at = items.length;
+        while (at > 0 && items[at - 1].expiresAt().isAfter(item.expiresAt())) {
+            at--;
+        }
+        Item[] grown = new Item[items.length + 1];
+        System.arraycopy(items, 0, grown, 0, at);
+        grown[at] = item;
+        System.arraycopy(items, at, grown, at + 1, items.length - at);
+        byAuthor.put(authorId, grown);
+    }
+
+    private void putAuthor(UUID authorId, Item[] items) {
+        if (items.length == 0) {
+            byAuthor.remove(authorId);
+        } else {
+            byAuthor.put(authorId, items);
+        }
+    }
+
+    // Callers hold the read or the write lock; views by the same viewer are serialized by the map
+    private void markSeen(UUID viewerId, long seq) {
+        seenBy.compute(viewerId, (id, seen) -> {
+            if (seen == null) {
+                seen = NOTHING_SEEN;
+            }
+            int at = Arrays.binarySearch(seen, seq);
+            if (at >= 0) {
+                return seen;
+            }
+            at = -at - 1;
+            long[] grown = new long[seen.length + 1];
+            System.arraycopy(seen, 0, grown, 0, at);
+            grown[at] = seq;
+            System.arraycopy(seen, at, grown, at + 1, seen.length - at);
+            return withoutBelow(grown, oldestSeq);
+        });
+    }
+
+    private static long[] withoutBelow(long[] sorted, long floor) {
+        int from = 0;
+        while (from < sorted.length && sorted[from] < floor) {
+            from++;
+        }
+        return from == 0 ? sorted : Arrays.copyOfRange(sorted, from, sorted.length);
+    }
+
+}
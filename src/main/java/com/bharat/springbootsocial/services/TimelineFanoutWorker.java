@@ -0,0 +1,47 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.event.ContentPublishedEvent;
+import com.bharat.springbootsocial.event.FollowChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Applies timeline updates off the request thread, once the write that
+ * triggered them has committed.
+ */
+@Component
+public class TimelineFanoutWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineFanoutWorker.class);
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Async("timelineFanoutExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentPublished(ContentPublishedEvent event) {
+        try {
+            timelineService.fanOut(event.getItemId(), event.getItemType(), event.getAuthorId(), event.getCreatedAt());
+        } catch (Exception e) {
+            logger.error("Timeline fan-out failed for {} {}", event.getItemType(), event.getItemId(), e);
+        }
+    }
+
+    @Async("timelineFanoutExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        try {
+            if (event.isFollowing()) {
+                timelineService.backfill(event.getFollowerId(), event.getFolloweeId());
+            } else {
+                timelineService.removeAuthorFromTimeline(event.getFollowerId(), event.getFolloweeId());
+            }
+        } catch (Exception e) {
+            logger.error("Timeline update failed for follow change {} -> {}", event.getFollowerId(), event.getFolloweeId(), e);
+        }
+    }
+}
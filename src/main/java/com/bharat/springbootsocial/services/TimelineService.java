@@ -0,0 +1,311 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.Post;
+import com.bharat.springbootsocial.entity.Reels;
+import com.bharat.springbootsocial.entity.TimelineEntry;
+import com.bharat.springbootsocial.entity.TimelineEntryId;
+import com.bharat.springbootsocial.pagination.KeysetCursor;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.bharat.springbootsocial.repository.FollowRepo;
+import com.bharat.springbootsocial.repository.PostRepo;
+import com.bharat.springbootsocial.repository.ReelsRepo;
+import com.bharat.springbootsocial.repository.TimelineEntryRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user home timelines. Content from regular authors is pushed into each
+ * follower's timeline when it is published (fan-out on write); content from
+ * authors with more than app.timeline.fanout-follower-threshold followers is
+ * not pushed and is pulled from posts/reels at read time instead. When an
+ * author drops back under the threshold, the items they published while
+ * pulled are pushed to their followers before reads stop pulling them.
+ */
+@Service
+public class TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT IGNORE INTO timeline_entries (owner_id, item_id, item_type, author_id, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private TimelineEntryRepo timelineEntryRepo;
+
+    @Autowired
+    private FollowRepo followRepo;
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private ReelsRepo reelsRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.timeline.max-entries:800}")
+    private int maxEntries;
+
+    @Value("${app.timeline.fanout-follower-threshold:10000}")
+    private long fanoutFollowerThreshold;
+
+    @Value("${app.timeline.fanout-batch-size:1000}")
+    private int fanoutBatchSize;
+
+    @Value("${app.timeline.backfill-size:20}")
+    private int backfillSize;
+
+    // Stands for "since before this instance started" in pullAuthors
+    private static final LocalDateTime PULLED_SINCE_UNKNOWN = LocalDateTime.MIN;
+
+    // Authors whose content is pulled at read time instead of pushed, with when they switched to pulling
+    private volatile Map<UUID, LocalDateTime> pullAuthors = new ConcurrentHashMap<>();
+    private final Object pullAuthorsLock = new Object();
+    private boolean pullAuthorsLoaded;
+
+    // Timelines that received entries since the last trim
+    private final Set<UUID> dirtyOwners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Appends a newly published item to the author's own timeline and to the
+     * timelines of all followers, in batches.
+     */
+    public void fanOut(UUID itemId, TimelineEntry.ItemType itemType, UUID authorId, LocalDateTime createdAt) {
+        insertEntries(List.of(authorId), itemId, itemType, authorId, createdAt);
+
+        long followers = followRepo.countFollowers(authorId);
+        if (followers >= fanoutFollowerThreshold) {
+            // Too many followers to push to; readers pull this author's content instead
+            synchronized (pullAuthorsLock) {
+                pullAuthors.putIfAbsent(authorId, createdAt);
+            }
+            return;
+        }
+
+        int page = 0;
+        Slice<UUID> batch;
+        do {
+            batch = followRepo.findFollowerIdsSlice(authorId, PageRequest.of(page++, fanoutBatchSize));
+            insertEntries(batch.getContent(), itemId, itemType, authorId, createdAt);
+        } while (batch.hasNext());
+
+        logger.debug("Fanned out {} {} to {} followers", itemType, itemId, followers);
+    }
+
+    /**
+     * Pushes the items an author published while pulled to all their
+     * followers: those since the switch to pulling, or when that is not known
+     * the newest max-entries, since no timeline keeps more.
+     */
+    private void pushPulledItems(UUID authorId, LocalDateTime since) {
+        KeysetCursor first = KeysetCursor.first();
+        Pageable limit = PageRequest.of(0, maxEntries);
+        List<Post> posts = new ArrayList<>(postRepo.findByAuthorsBefore(
+                List.of(authorId), first.getCreatedAt(), first.getId(), limit));
+        List<Reels> reels = new ArrayList<>(reelsRepo.findByAuthorsBefore(
+                List.of(authorId), first.getCreatedAt(), first.getId(), limit));
+        posts.removeIf(post -> post.getCreatedAt().isBefore(since));
+        reels.removeIf(reel -> reel.getCreatedAt().isBefore(since));
+        if (posts.isEmpty() && reels.isEmpty()) {
+            return;
+        }
+
+        int page = 0;
+        Slice<UUID> batch;
+        do {
+            batch = followRepo.findFollowerIdsSlice(authorId, PageRequest.of(page++, fanoutBatchSize));
+            for (Post post : posts) {
+                insertEntries(batch.getContent(), post.getId(), TimelineEntry.ItemType.POST, authorId, post.getCreatedAt());
+            }
+            for (Reels reel : reels) {
+                insertEntries(batch.getContent(), reel.getId(), TimelineEntry.ItemType.REEL, authorId, reel.getCreatedAt());
+            }
+        } while (batch.hasNext());
+
+        logger.info("Pushed {} items of {} to their followers after leaving pull mode", posts.size() + reels.size(), authorId);
+    }
+
+    /**
+     * Copies the followee's most recent items into a new follower's timeline so
+     * the home feed is not empty until the followee posts again.
+     */
+    public void backfill(UUID followerId, UUID followeeId) {
+        if (pullAuthors.containsKey(followeeId)) {
+            return;
+        }
+        KeysetCursor first = KeysetCursor.first();
+        Pageable limit = PageRequest.of(0, backfillSize);
+        List<UUID> owner = List.of(followerId);
+        for (Post post : postRepo.findByAuthorsBefore(List.of(followeeId), first.getCreatedAt(), first.getId(), limit)) {
+            insertEntries(owner, post.getId(), TimelineEntry.ItemType.POST, followeeId, post.getCreatedAt());
+        }
+        for (Reels reel : reelsRepo.findByAuthorsBefore(List.of(followeeId), first.getCreatedAt(), first.getId(), limit)) {
+            insertEntries(owner, reel.getId(), TimelineEntry.ItemType.REEL, followeeId, reel.getCreatedAt());
+        }
+    }
+
+    @Transactional
+    public void removeAuthorFromTimeline(UUID ownerId, UUID authorId) {
+        timelineEntryRepo.deleteByOwnerAndAuthor(ownerId, authorId);
+    }
+
+    @Transactional
+    public void removeItem(UUID itemId) {
+        timelineEntryRepo.deleteByItemId(itemId);
+    }
+
+    /**
+     * Reads up to {@code limit} timeline entries on the cursor's side of it,
+     * merging pushed entries with items pulled from followed high-follower
+     * authors: older entries newest first, or for cursors towards newer
+     * entries, newer ones oldest first.
+     */
+    public List<TimelineEntry> readTimeline(UUID ownerId, KeysetCursor cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        boolean newer = cursor.isNewer();
+        List<TimelineEntry> entries = new ArrayList<>(newer
+                ? timelineEntryRepo.findPageAfter(ownerId, cursor.getCreatedAt(), cursor.getId(), pageable)
+                : timelineEntryRepo.findPageBefore(ownerId, cursor.getCreatedAt(), cursor.getId(), pageable));
+
+        Set<UUID> pulled = pullAuthors.keySet();
+        if (!pulled.isEmpty()) {
+            List<UUID> followedPullAuthors = followRepo.findFollowingAmong(ownerId, pulled);
+            if (!followedPullAuthors.isEmpty()) {
+                Set<UUID> seen = new HashSet<>();
+                entries.forEach(entry -> seen.add(entry.getItemId()));
+                List<Post> posts = newer
+                        ? postRepo.findByAuthorsAfter(followedPullAuthors, cursor.getCreatedAt(), cursor.getId(), pageable)
+                        : postRepo.findByAuthorsBefore(followedPullAuthors, cursor.getCreatedAt(), cursor.getId(), pageable);
+                for (Post post : posts) {
+                    if (seen.add(post.getId())) {
+                        entries.add(pulledEntry(ownerId, post.getId(), TimelineEntry.ItemType.POST, post.getUser().getId(), post.getCreatedAt()));
+                    }
+                }
+                List<Reels> reels = newer
+                        ? reelsRepo.findByAuthorsAfter(followedPullAuthors, cursor.getCreatedAt(), cursor.getId(), pageable)
+                        : reelsRepo.findByAuthorsBefore(followedPullAuthors, cursor.getCreatedAt(), cursor.getId(), pageable);
+                for (Reels reel : reels) {
+                    if (seen.add(reel.getId())) {
+                        entries.add(pulledEntry(ownerId, reel.getId(), TimelineEntry.ItemType.REEL, reel.getUser().getId(), reel.getCreatedAt()));
+                    }
+                }
+                Comparator<TimelineEntry> newestFirst = KeysetCursor.newestFirst(TimelineEntry::getCreatedAt, TimelineEntry::getItemId);
+                entries.sort(newer ? newestFirst.reversed() : newestFirst);
+            }
+        }
+
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * Keeps every timeline that was written to since the last run at most
+     * app.timeline.max-entries long. Each timeline is trimmed in its own
+     * transaction, deleting the entries behind its max-entries-th newest.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void trimTimelines() {
+        List<UUID> owners = new ArrayList<>(dirtyOwners);
+        dirtyOwners.removeAll(owners);
+        for (UUID ownerId : owners) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<TimelineEntry> last = timelineEntryRepo.findNewestFirst(ownerId, PageRequest.of(maxEntries - 1, 1));
+                    if (!last.isEmpty()) {
+                        timelineEntryRepo.deleteBefore(ownerId, last.get(0).getCreatedAt(), last.get(0).getItemId());
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Tried again on the next run
+                dirtyOwners.add(ownerId);
+                logger.warn("Trimming the timeline of {} failed", ownerId, e);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the set of authors that are pulled rather than pushed. Authors
+     * who dropped under the threshold get what they published while pulled
+     * pushed first, so no read falls between the two modes.
+     */
+    @Scheduled(fixedRate = 300000)
+    public void refreshPullAuthors() {
+        LocalDateTime started = LocalDateTime.now();
+        Map<UUID, LocalDateTime> previous = pullAuthors;
+        // Pulled authors found on the first run may have switched before this instance started
+        LocalDateTime since = pullAuthorsLoaded ? started : PULLED_SINCE_UNKNOWN;
+        Map<UUID, LocalDateTime> refreshed = new ConcurrentHashMap<>();
+        for (UUID authorId : followRepo.findUsersWithFollowersAtLeast(fanoutFollowerThreshold)) {
+            refreshed.put(authorId, previous.getOrDefault(authorId, since));
+        }
+
+        for (Map.Entry<UUID, LocalDateTime> author : previous.entrySet()) {
+            if (!refreshed.containsKey(author.getKey())) {
+                try {
+                    pushPulledItems(author.getKey(), author.getValue());
+                } catch (RuntimeException e) {
+                    // Still pulled; pushed on the next run
+                    refreshed.put(author.getKey(), author.getValue());
+                    logger.error("Pushing the pulled items of {} failed", author.getKey(), e);
+                }
+            }
+        }
+
+        synchronized (pullAuthorsLock) {
+            // Authors fan-out switched to pulling while this ran
+            pullAuthors.forEach((authorId, switchedAt) -> {
+                if (!previous.containsKey(authorId)) {
+                    refreshed.putIfAbsent(authorId, switchedAt);
+                }
+            });
+            pullAuthors = refreshed;
+            pullAuthorsLoaded = true;
+        }
+    }
+
+    private void insertEntries(Collection<UUID> ownerIds, UUID itemId, TimelineEntry.ItemType itemType,
+                               UUID authorId, LocalDateTime createdAt) {
+        if (ownerIds.isEmpty()) {
+            return;
+        }
+        byte[] item = BinaryUuids.toBytes(itemId);
+        byte[] author = BinaryUuids.toBytes(authorId);
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        List<Object[]> rows = new ArrayList<>(ownerIds.size());
+        for (UUID ownerId : ownerIds) {
+            rows.add(new Object[]{BinaryUuids.toBytes(ownerId), item, itemType.name(), author, timestamp});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, rows);
+        dirtyOwners.addAll(ownerIds);
+    }
+
+    private TimelineEntry pulledEntry(UUID ownerId, UUID itemId, TimelineEntry.ItemType itemType,
+                                      UUID authorId, LocalDateTime createdAt) {
+        return new TimelineEntry(new TimelineEntryId(ownerId, itemId), itemType, authorId, createdAt);
+    }
+}
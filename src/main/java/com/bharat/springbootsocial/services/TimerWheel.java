@@ -0,0 +1,176 @@
+package com.bharat.springbootsocial.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel: a ring of buckets, one per tick, each holding the
+ * timers whose deadline falls on that slot in some revolution. Scheduling and
+ * cancelling a timer link or unlink it in one bucket, so both are O(1)
+ * whatever the number of timers; a single thread advances the wheel one
+ * bucket per tick and runs the timers that are due, in deadline order to
+ * within a tick. Timers are named by a key, and scheduling a key that is
+ * already pending replaces its timer. Tasks run on the wheel's thread, so
+ * they should hand anything slow elsewhere; a tick that falls behind is
+ * caught up without sleeping.
+ */
+public final class TimerWheel<K> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final long tickNanos;
+    private final Timer<K>[] buckets;
+    private final int mask;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private final Thread worker;
+    private final long startedAt = System.nanoTime();
+
+    // Last tick whose bucket has been processed; guarded by this
+    private long tick;
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        // A power of two, so a tick maps to its bucket with a mask
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.buckets = new Timer[Math.max(size, 1)];
+        this.mask = buckets.length - 1;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Runs task once delay has passed, unless the key is cancelled or
+     * scheduled again first.
+     */
+    public void schedule(K key, long delay, TimeUnit unit, Runnable task) {
+        long due = System.nanoTime() - startedAt + unit.toNanos(Math.max(0, delay));
+        // Rounded up, so a timer never fires early
+        long deadline = (due + tickNanos - 1) / tickNanos;
+        synchronized (this) {
+            Timer<K> previous = timers.remove(key);
+            if (previous != null) {
+                unlink(previous);
+            }
+            Timer<K> timer = new Timer<>(key, task, Math.max(deadline, tick + 1));
+            link(timer);
+            timers.put(key, timer);
+        }
+    }
+
+    /**
+     * Returns whether a pending timer was cancelled.
+     */
+    public synchronized boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public synchronized boolean isScheduled(K key) {
+        return timers.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Stops the wheel; pending timers never fire.
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run() {
+        while (running) {
+            long next;
+            synchronized (this) {
+                next = tick + 1;
+            }
+            long wait = startedAt + next * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            for (Timer<K> timer : expire(next)) {
+                try {
+                    timer.task.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Timer {} failed: {}", timer.key, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    // Unlinks the timers of the tick's bucket that are due; the rest belong to a later revolution
+    private synchronized List<Timer<K>> expire(long next) {
+        tick = next;
+        List<Timer<K>> expired = new ArrayList<>();
+        Timer<K> timer = buckets[(int) (next & mask)];
+        while (timer != null) {
+            Timer<K> following = timer.next;
+            if (timer.deadline <= next) {
+                unlink(timer);
+                timers.remove(timer.key);
+                expired.add(timer);
+            }
+            timer = following;
+        }
+        return expired;
+    }
+
+    private void link(Timer<K> timer) {
+        int bucket = (int) (timer.deadline & mask);
+        timer.next = buckets[bucket];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        buckets[bucket] = timer;
+    }
+
+    private void unlink(Timer<K> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            buckets[(int) (timer.deadline & mask)] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private static final class Timer<K> {
+        private final K key;
+        private final Runnable task;
+        // Absolute tick the timer is due at
+        private final long deadline;
+        private Timer<K> prev;
+        private Timer<K> next;
+
+        private Timer(K key, Runnable task, long deadline) {
+            this.key = key;
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
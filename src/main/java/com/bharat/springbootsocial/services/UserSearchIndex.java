@@ -0,0 +1,574 @@
+package com.bharat.springbootsocial.services;
+
+import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.UserChangedEvent;
+import com.bharat.springbootsocial.repository.BinaryUuids;
+import com.bharat.springbootsocial.response.UserSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory user search over first name, last name and the email's local
+ * part. Those are lower-cased, stripped of accents and split into tokens,
+ * which go into a character trie. A query token matches any token it is a
+ * prefix of, allowing one typo in tokens of four or more characters (an
+ * edit-distance walk over the trie). Hits are ranked by match quality and by
+ * how close the searcher is to them in the follow graph.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    // Shorter query tokens must match exactly
+    private static final int TYPO_MIN_LENGTH = 4;
+
+    private static final int[] NONE = new int[0];
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SocialGraph socialGraph;
+
+    @Value("${app.user-search.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    @Value("${app.user-search.load-batch-size:5000}")
+    private int loadBatchSize;
+
+    // Matching users ranked per query, at least the requested limit
+    @Value("${app.user-search.max-candidates:500}")
+    private int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+    // Changes applied while a load builds its own index, replayed onto it before the swap
+    private List<Object> changesDuringLoad;
+    private final Object loadLock = new Object();
+
+    private static class Index {
+        private final TrieNode root = new TrieNode();
+        private final Map<UUID, Integer> docIds = new HashMap<>();
+        private final List<UserSummary> summaries = new ArrayList<>();
+        // Name tokens first, then email tokens
+        private final List<String[]> docTokens = new ArrayList<>();
+        private final List<Integer> nameTokenCounts = new ArrayList<>();
+        // Set while load() builds this index, before anyone can search it
+        private boolean loading;
+    }
+
+    private static class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        // Sorted ids of documents with a token ending here
+        private int[] docs = NONE;
+        // While loading, docs has spare room and only this many are used
+        private int docCount;
+        // Document tokens ending here or below, to tell how selective a prefix is
+        private int subtreeDocs;
+
+        private TrieNode child(char key) {
+            int at = Arrays.binarySearch(keys, key);
+            return at >= 0 ? children[at] : null;
+        }
+
+        private TrieNode childOrCreate(char key) {
+            int at = Arrays.binarySearch(keys, key);
+            if (at >= 0) {
+                return children[at];
+            }
+            int insertAt = -at - 1;
+            TrieNode child = new TrieNode();
+            char[] newKeys = new char[keys.length + 1];
+            TrieNode[] newChildren = new TrieNode[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    // A trie node whose tokens all match the query token with the given number of edits
+    private record Match(TrieNode node, int edits, int depth) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (loadOnStartup) {
+            load();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the users table in id-ordered batches. The new
+     * index is built without the lock while searches keep using the old one;
+     * changes committed meanwhile go to both and are replayed onto the new
+     * index before it is swapped in.
+     */
+    public void load() {
+        synchronized (loadLock) {
+            long started = System.currentTimeMillis();
+            String pageSql = "SELECT id, first_name, last_name, email, profile_image FROM users WHERE id > ? ORDER BY id LIMIT ?";
+            lock.writeLock().lock();
+            try {
+                changesDuringLoad = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index fresh = new Index();
+            fresh.loading = true;
+            try {
+                byte[] after = new byte[16];
+                while (true) {
+                    List<byte[]> lastId = new ArrayList<>(1);
+                    int count = jdbcTemplate.query(pageSql, rs -> {
+                        int rows = 0;
+                        while (rs.next()) {
+                            byte[] id = rs.getBytes(1);
+                            index(fresh, new UserSummary(BinaryUuids.fromBytes(id), rs.getString(2), rs.getString(3),
+                                    rs.getString(4), rs.getString(5)));
+                            lastId.clear();
+                            lastId.add(id);
+                            rows++;
+                        }
+                        return rows;
+                    }, after, loadBatchSize);
+                    if (count < loadBatchSize) {
+                        break;
+                    }
+                    after = lastId.get(0);
+                }
+                finishLoading(fresh);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringLoad = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                // A change may also be in the page it was read from; replaying it again is harmless
+                for (Object change : changesDuringLoad) {
+                    if (change instanceof UserSummary user) {
+                        index(fresh, user);
+                    } else {
+                        remove(fresh, (UUID) change);
+                    }
+                }
+                changesDuringLoad = null;
+                index = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("User search index loaded: {} users in {} ms", fresh.docIds.size(),
+                    System.currentTimeMillis() - started);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        if (user != null) {
+            put(new UserSummary(user.getId(), user.getFname(), user.getLname(), user.getEmail(), user.getProfileImage()));
+        } else {
+            remove(event.getUserId());
+        }
+    }
+
+    public void put(UserSummary user) {
+        lock.writeLock().lock();
+        try {
+            index(index, user);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(user);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID userId) {
+        lock.writeLock().lock();
+        try {
+            remove(index, userId);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit users matching every token of the query, best first. With a
+     * searcher, users they follow and users followed by people they follow
+     * rank higher.
+     */
+    public List<UserSummary> search(String query, UUID searcherId, int limit) {
+        List<String> queryTokens = SearchTokens.of(query);
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        // The searcher's followees take part even when the query is too short to reach them otherwise
+        Set<UUID> followed = searcherId != null ? new HashSet<>(socialGraph.following(searcherId)) : Set.of();
+
+        List<Integer> candidates = new ArrayList<>();
+        List<Integer> matchScores = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Index index = this.index;
+            Set<Integer> seen = new HashSet<>();
+            for (UUID followee : followed) {
+                Integer doc = index.docIds.get(followee);
+                if (doc != null && seen.add(doc)) {
+                    score(index, doc, queryTokens, candidates, matchScores);
+                }
+            }
+
+            // Documents come from the token matching the fewest, and only those matching every token count
+            List<Match> seed = null;
+            long seedDocs = Long.MAX_VALUE;
+            for (String token : queryTokens) {
+                List<Match> matches = matches(index, token);
+                long docs = 0;
+                for (Match match : matches) {
+                    docs += match.node().subtreeDocs;
+                }
+                if (docs < seedDocs) {
+                    seed = matches;
+                    seedDocs = docs;
+                }
+            }
+            int wanted = Math.max(limit, maxCandidates);
+            collect(seed, doc -> {
+                if (seen.add(doc)) {
+                    score(index, doc, queryTokens, candidates, matchScores);
+                }
+                return candidates.size() < wanted;
+            });
+            if (candidates.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            List<UUID> ids = new ArrayList<>(candidates.size());
+            for (int doc : candidates) {
+                ids.add(index.summaries.get(doc).getId());
+            }
+            int[] mutual = searcherId != null ? socialGraph.followedFollowerCounts(searcherId, ids) : new int[ids.size()];
+
+            Integer[] order = new Integer[candidates.size()];
+            long[] ranks = new long[candidates.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+                UUID id = ids.get(i);
+                int proximity = id.equals(searcherId) ? 0
+                        : followed.contains(id) ? 30 : Math.min(mutual[i], 5) * 4;
+                ranks[i] = matchScores.get(i) * 10L + proximity;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(ranks[b], ranks[a]));
+
+            List<UserSummary> hits = new ArrayList<>(Math.min(limit, order.length));
+            for (int i = 0; i < order.length && hits.size() < limit; i++) {
+                hits.add(index.summaries.get(candidates.get(order[i])));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void score(Index index, int doc, List<String> queryTokens, List<Integer> candidates, List<Integer> matchScores) {
+        int score = matchScore(index, doc, queryTokens);
+        if (score > 0) {
+            candidates.add(doc);
+            matchScores.add(score);
+        }
+    }
+
+    // Trie nodes whose tokens match the query token, closest matches first
+    private List<Match> matches(Index index, String token) {
+        TrieNode root = index.root;
+        List<Match> matches = new ArrayList<>();
+        TrieNode exact = root;
+        for (int i = 0; i < token.length() && exact != null; i++) {
+            exact = exact.child(token.charAt(i));
+        }
+        if (exact != null) {
+            matches.add(new Match(exact, 0, token.length()));
+        }
+        if (token.length() >= TYPO_MIN_LENGTH) {
+            int[] firstRow = new int[token.length() + 1];
+            for (int i = 0; i <= token.length(); i++) {
+                firstRow[i] = i;
+            }
+            walk(root, token, firstRow, 1, 0, matches);
+        }
+        matches.sort(Comparator.comparingInt(Match::edits).thenComparingInt(Match::depth));
+        return matches;
+    }
+
+    // Hands the documents under the matches to the consumer until it returns false
+    private static void collect(List<Match> matches, IntPredicate consumer) {
+        for (Match match : matches) {
+            // Depth first in key order, so completions come alphabetically and only their own paths are visited
+            ArrayDeque<TrieNode> stack = new ArrayDeque<>();
+            stack.push(match.node());
+            while (!stack.isEmpty()) {
+                TrieNode node = stack.pop();
+                for (int doc : node.docs) {
+                    if (!consumer.test(doc)) {
+                        return;
+                    }
+                }
+                for (int k = node.children.length - 1; k >= 0; k--) {
+                    stack.push(node.children[k]);
+                }
+            }
+        }
+    }
+
+    // Levenshtein rows along the trie; a node matches once the whole query token is within maxEdits
+    private void walk(TrieNode node, String token, int[] previous, int maxEdits, int depth, List<Match> matches) {
+        for (int k = 0; k < node.keys.length; k++) {
+            char key = node.keys[k];
+            int[] row = new int[previous.length];
+            row[0] = previous[0] + 1;
+            int best = row[0];
+            for (int i = 1; i < row.length; i++) {
+                int substitute = previous[i - 1] + (token.charAt(i - 1) == key ? 0 : 1);
+                row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), substitute);
+                best = Math.min(best, row[i]);
+            }
+            if (row[row.length - 1] <= maxEdits) {
+                matches.add(new Match(node.children[k], row[row.length - 1], depth + 1));
+            } else if (best <= maxEdits) {
+                walk(node.children[k], token, row, maxEdits, depth + 1, matches);
+            }
+        }
+    }
+
+    // 0 when some query token matches none of the document's tokens
+    private static int matchScore(Index index, int doc, List<String> queryTokens) {
+        String[] tokens = index.docTokens.get(doc);
+        int nameTokens = index.nameTokenCounts.get(doc);
+        int total = 0;
+        for (String queryToken : queryTokens) {
+            int best = 0;
+            for (int i = 0; i < tokens.length; i++) {
+                int quality = quality(queryToken, tokens[i]);
+                if (quality > 0) {
+                    // Name matches count more than email matches
+                    best = Math.max(best, i < nameTokens ? quality * 2 : quality);
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // 3 exact, 2 prefix, 1 prefix with one typo, 0 no match
+    private static int quality(String queryToken, String token) {
+        if (token.equals(queryToken)) {
+            return 3;
+        }
+        if (token.startsWith(queryToken)) {
+            return 2;
+        }
+        if (queryToken.length() >= TYPO_MIN_LENGTH && prefixEdits(queryToken, token) <= 1) {
+            return 1;
+        }
+        return 0;
+    }
+
+    // Fewest edits turning query into some prefix of token, exact up to 1
+    private static int prefixEdits(String query, String token) {
+        int[] previous = new int[query.length() + 1];
+        for (int i = 0; i < previous.length; i++) {
+            previous[i] = i;
+        }
+        int best = previous[query.length()];
+        for (int j = 1; j <= token.length(); j++) {
+            int[] row = new int[previous.length];
+            row[0] = j;
+            int rowMin = row[0];
+            for (int i = 1; i < row.length; i++) {
+                int substitute = previous[i - 1] + (query.charAt(i - 1) == token.charAt(j - 1) ? 0 : 1);
+                row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), substitute);
+                rowMin = Math.min(rowMin, row[i]);
+            }
+            best = Math.min(best, row[query.length()]);
+            // Later rows never go below this one's minimum
+            if (rowMin > 1) {
+                break;
+            }
+            previous = row;
+        }
+        return best;
+    }
+
+    private static void index(Index index, UserSummary user) {
+        Integer existing = index.docIds.get(user.getId());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unindex(index, doc);
+        } else {
+            doc = index.summaries.size();
+            index.docIds.put(user.getId(), doc);
+            index.summaries.add(null);
+            index.docTokens.add(null);
+            index.nameTokenCounts.add(0);
+        }
+
+        LinkedHashSet<String> tokens = new LinkedHashSet<>(SearchTokens.of(user.getFname()));
+        tokens.addAll(SearchTokens.of(user.getLname()));
+        int nameTokens = tokens.size();
+        String email = user.getEmail();
+        if (email != null) {
+            tokens.addAll(SearchTokens.of(email.contains("@") ? email.substring(0, email.indexOf('@')) : email));
+        }
+        index.summaries.set(doc, user);
+        index.docTokens.set(doc, tokens.toArray(new String[0]));
+        index.nameTokenCounts.set(doc, nameTokens);
+
+        for (String token : tokens) {
+            TrieNode[] path = new TrieNode[token.length() + 1];
+            path[0] = index.root;
+            for (int i = 0; i < token.length(); i++) {
+                path[i + 1] = path[i].childOrCreate(token.charAt(i));
+            }
+            TrieNode node = path[token.length()];
+            boolean added;
+            if (index.loading) {
+                // A load reads each user once, in id order, so appending keeps docs sorted
+                added = node.docCount == 0 || node.docs[node.docCount - 1] < doc;
+                if (added) {
+                    if (node.docCount == node.docs.length) {
+                        node.docs = Arrays.copyOf(node.docs, Math.max(4, node.docCount * 2));
+                    }
+                    node.docs[node.docCount++] = doc;
+                }
+            } else {
+                int before = node.docs.length;
+                node.docs = withValue(node.docs, doc);
+                added = node.docs.length != before;
+            }
+            if (added) {
+                for (TrieNode onPath : path) {
+                    onPath.subtreeDocs++;
+                }
+            }
+        }
+    }
+
+    // Trims the arrays a load appended to; changes from then on copy them
+    private static void finishLoading(Index index) {
+        ArrayDeque<TrieNode> stack = new ArrayDeque<>();
+        stack.push(index.root);
+        while (!stack.isEmpty()) {
+            TrieNode node = stack.pop();
+            node.docs = node.docCount == 0 ? NONE
+                    : node.docCount == node.docs.length ? node.docs : Arrays.copyOf(node.docs, node.docCount);
+            node.docCount = 0;
+            for (TrieNode child : node.children) {
+                stack.push(child);
+            }
+        }
+        index.loading = false;
+    }
+
+    private static void remove(Index index, UUID userId) {
+        Integer doc = index.docIds.remove(userId);
+        if (doc != null) {
+            unindex(index, doc);
+            // The document id is not reused; its slot stays empty
+            index.summaries.set(doc, null);
+            index.docTokens.set(doc, new String[0]);
+            index.nameTokenCounts.set(doc, 0);
+        }
+    }
+
+    private static void unindex(Index index, int doc) {
+        for (String token : index.docTokens.get(doc)) {
+            TrieNode[] path = new TrieNode[token.length() + 1];
+            path[0] = index.root;
+            for (int i = 0; i < token.length() && path[i] != null; i++) {
+                path[i + 1] = path[i].child(token.charAt(i));
+            }
+            TrieNode node = path[token.length()];
+            if (node != null) {
+                int before = node.docs.length;
+                node.docs = withoutValue(node.docs, doc);
+                if (node.docs.length != before) {
+                    for (TrieNode onPath : path) {
+                        onPath.subtreeDocs--;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] withValue(int[] sorted, int value) {
+        int at = Arrays.binarySearch(sorted, value);
+        if (at >= 0) {
+            return sorted;
+        }
+        int insertAt = -at - 1;
+        int[] copy = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, insertAt);
+        copy[insertAt] = value;
+        System.arraycopy(sorted, insertAt, copy, insertAt + 1, sorted.length - insertAt);
+        return copy;
+    }
+
+    private static int[] withoutValue(int[] sorted, int value) {
+        int at = Arrays.binarySearch(sorted, value);
+        if (at < 0) {
+            return sorted;
+        }
+        if (sorted.length == 1) {
+            return NONE;
+        }
+        int[] copy = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, at);
+        System.arraycopy(sorted, at + 1, copy, at, sorted.length - at - 1);
+        return copy;
+    }
+}
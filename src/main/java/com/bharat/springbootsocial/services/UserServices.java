@@ -2,15 +2,25 @@ package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.config.JwtProvider;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.FollowChangedEvent;
+import com.bharat.springbootsocial.event.UserChangedEvent;
 import com.bharat.springbootsocial.exception.UserException;
+import com.bharat.springbootsocial.repository.FollowRepo;
 import com.bharat.springbootsocial.repository.UserRepo;
 import com.bharat.springbootsocial.repository.PostRepo;
 import com.bharat.springbootsocial.repository.ReelsRepo;
+import com.bharat.springbootsocial.response.PaginatedResponse;
 import com.bharat.springbootsocial.response.ProfileResponse;
+import com.bharat.springbootsocial.response.UserSummary;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,8 +37,20 @@ public class UserServices implements ServiceInt {
     @Autowired
     private ReelsRepo reelsRepo;
     
+    @Autowired
+    private FollowRepo followRepo;
+    
     @Autowired
     private NotificationService notificationService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private UserSearchIndex userSearchIndex;
 
     @Override
     public User createUser(User user) {
@@ -36,7 +58,9 @@ public class UserServices implements ServiceInt {
         if (userOptional.isPresent()) {
             throw new IllegalStateException("email is already present");
         }
-        return userRepo.save(user);
+        User savedUser = userRepo.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser));
+        return savedUser;
     }
 
     @Override
@@ -77,33 +101,40 @@ public class UserServices implements ServiceInt {
             existingUser.setUserBio(user.getUserBio());
 
         userRepo.save(existingUser);
+        principalCache.invalidate(id);
+        eventPublisher.publishEvent(new UserChangedEvent(id, existingUser));
 
         return existingUser;
     }
 
     @Override
+    @Transactional
     public void deleteUser(UUID id) {
         Optional<User> userOptional = Optional
                 .ofNullable(userRepo.findById(id).orElseThrow(() -> new IllegalStateException("User id not found")));
 
         if (userOptional.isPresent()) {
             User user = userOptional.get();
+            followRepo.deleteAllEdgesOfUser(user.getId());
             userRepo.delete(user);
+            principalCache.invalidate(id);
+            eventPublisher.publishEvent(new UserChangedEvent(id, null));
         }
     }
 
     @Override
+    @Transactional
     public User followUser(UUID reqUserId, UUID id2) throws UserException {
+        if (reqUserId.equals(id2)) {
+            throw new UserException("You cannot follow yourself");
+        }
         User reqUser = getUserById(reqUserId);
         User user2 = getUserById(id2);
 
-        if (!reqUser.getFollowing().contains(id2.toString())) {
-            user2.getFollowers().add(reqUser.getId().toString());
-            reqUser.getFollowing().add(user2.getId().toString());
-
-            userRepo.save(reqUser);
-            userRepo.save(user2);
-            
+        // Single-row insert; 0 means the edge already existed
+        int inserted = followRepo.insertIfAbsent(reqUserId, id2, LocalDateTime.now());
+        if (inserted > 0) {
+            eventPublisher.publishEvent(new FollowChangedEvent(reqUserId, id2, true));
             // Send follow notification
             notificationService.sendFollowNotification(user2, reqUser);
         }
@@ -112,41 +143,69 @@ public class UserServices implements ServiceInt {
     }
 
     @Override
+    @Transactional
     public User unfollowUser(UUID reqUserId, UUID id2) throws UserException {
         User reqUser = getUserById(reqUserId);
-        User user2 = getUserById(id2);
-
-        if (reqUser.getFollowing().contains(id2.toString())) {
-            user2.getFollowers().remove(reqUser.getId().toString());
-            reqUser.getFollowing().remove(user2.getId().toString());
-
-            userRepo.save(reqUser);
-            userRepo.save(user2);
+        if (!userRepo.existsById(id2)) {
+            throw new UserException("User Id " + id2 + " does not exist");
+        }
+        if (followRepo.deleteEdge(reqUserId, id2) > 0) {
+            eventPublisher.publishEvent(new FollowChangedEvent(reqUserId, id2, false));
         }
-
         return reqUser;
     }
 
     @Override
     public boolean isFollowing(UUID id1, UUID id2) throws UserException {
-        User user1 = getUserById(id1);
-        return user1.getFollowing().contains(id2.toString());
+        return followRepo.existsEdge(id1, id2);
     }
 
     @Override
     public List<User> getFollowers(UUID userId) {
-        User user = getUserById(userId);
-        return user.getFollowers().stream()
-                .map(id -> getUserById(UUID.fromString(id)))
-                .toList();
+        getUserById(userId); // Validate user exists
+        return followRepo.findFollowers(userId);
     }
 
     @Override
     public List<User> getFollowing(UUID userId) {
-        User user = getUserById(userId);
-        return user.getFollowing().stream()
-                .map(id -> getUserById(UUID.fromString(id)))
-                .toList();
+        getUserById(userId); // Validate user exists
+        return followRepo.findFollowing(userId);
+    }
+
+    @Override
+    public PaginatedResponse<User> getFollowersPaginated(UUID userId, int page, int size) {
+        getUserById(userId); // Validate user exists
+        return createPaginatedResponse(followRepo.findFollowersPaginated(userId, PageRequest.of(page, size)));
+    }
+
+    @Override
+    public PaginatedResponse<User> getFollowingPaginated(UUID userId, int page, int size) {
+        getUserById(userId); // Validate user exists
+        return createPaginatedResponse(followRepo.findFollowingPaginated(userId, PageRequest.of(page, size)));
+    }
+
+    @Override
+    public long getFollowersCount(UUID userId) {
+        return followRepo.countFollowers(userId);
+    }
+
+    @Override
+    public long getFollowingCount(UUID userId) {
+        return followRepo.countFollowing(userId);
+    }
+
+    private PaginatedResponse<User> createPaginatedResponse(Page<User> userPage) {
+        PaginatedResponse<User> response = new PaginatedResponse<>();
+        response.setContent(userPage.getContent());
+        response.setPage(userPage.getNumber());
+        response.setSize(userPage.getSize());
+        response.setTotalElements(userPage.getTotalElements());
+        response.setTotalPages(userPage.getTotalPages());
+        response.setHasNext(userPage.hasNext());
+        response.setHasPrevious(userPage.hasPrevious());
+        response.setFirst(userPage.isFirst());
+        response.setLast(userPage.isLast());
+        return response;
     }
 
     @Override
@@ -160,24 +219,40 @@ public class UserServices implements ServiceInt {
     }
 
     @Override
-    public List<User> searchUser(String query) {
-        return userRepo.searchUser(query);
+    public List<UserSummary> searchUser(String query, UUID searcherId, int limit) {
+        return userSearchIndex.search(query, searcherId, limit);
     }
 
     @Override
     public User getUserFromToken(String jwt) {
+        // The token resolves to an id from memory; the entity is then read by primary key
+        UUID userId = getUserIdFromToken(jwt);
+        try {
+            return getUserById(userId);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid JWT token: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public UserSummary getUserSummaryFromToken(String jwt) {
         try {
-            String email = JwtProvider.getEmailFromJwtToken(jwt);
-            User user = findUserByEmail(email);
-            if (user == null) {
-                throw new IllegalArgumentException("User not found for email: " + email);
-            }
-            return user;
+            return principalCache.resolve(jwt);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid JWT token: " + e.getMessage());
         }
     }
 
+    @Override
+    public UUID getUserIdFromToken(String jwt) {
+        return getUserSummaryFromToken(jwt).getId();
+    }
+
+    @Override
+    public UserSummary getUserSummary(UUID userId) {
+        return principalCache.summary(userId);
+    }
+
     @Override
     public ProfileResponse getUserProfile(UUID userId) throws Exception {
         User user = getUserById(userId);
@@ -198,15 +273,18 @@ public class UserServices implements ServiceInt {
                 totalPostsCount, // postsCount - includes both posts and reels
                 0, // savedPostsCount - will be calculated by frontend
                 0, // reelsCount - will be calculated by frontend
-                user.getFollowers().size(),
-                user.getFollowing().size());
+                (int) followRepo.countFollowers(userId),
+                (int) followRepo.countFollowing(userId));
     }
 
     @Override
     public User updateCoverImage(UUID userId, String coverImageUrl) throws Exception {
         User user = getUserById(userId);
         user.setCoverImage(coverImageUrl);
-        return userRepo.save(user);
+        User savedUser = userRepo.save(user);
+        // The cover image is part of the user JSON cached for feeds
+        eventPublisher.publishEvent(new UserChangedEvent(userId, savedUser));
+        return savedUser;
     }
 
 }
@@ -2,21 +2,27 @@ package com.bharat.springbootsocial.services;
 
 import com.bharat.springbootsocial.entity.CallRoom;
 import com.bharat.springbootsocial.entity.CallSession;
-import com.bharat.springbootsocial.entity.GroupCallRoom;
 import com.bharat.springbootsocial.entity.User;
+import com.bharat.springbootsocial.event.CallRingEvent;
 import com.bharat.springbootsocial.exception.UserException;
 import com.bharat.springbootsocial.repository.CallSessionRepo;
+import com.bharat.springbootsocial.response.UserSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class WebRTCSignalingService {
     
+    private static final Logger logger = LoggerFactory.getLogger(WebRTCSignalingService.class);
+    
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
     
@@ -29,6 +35,15 @@ public class WebRTCSignalingService {
     @Autowired
     private CallSessionRepo callSessionRepo;
     
+    @Autowired
+    private CallRoomRegistry callRoomRegistry;
+    
+    @Autowired
+    private SignalingRelay signalingRelay;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     // Helper method to determine if room ID is for a group call
     private boolean isGroupCallRoom(String roomId) {
         return roomId != null && roomId.startsWith("group_call_");
@@ -39,31 +54,20 @@ public class WebRTCSignalingService {
         return roomId != null && roomId.startsWith("room_");
     }
     
-    // Helper method to validate room exists (works for both regular and group calls)
+    // Helper method to validate room exists (works for both regular and group calls), from the registry
     private void validateRoomExists(String roomId) throws UserException {
-        if (isGroupCallRoom(roomId)) {
-            groupCallService.getGroupCallRoomById(roomId);
-        } else {
-            callRoomService.getCallRoomById(roomId);
-        }
+        callRoomRegistry.require(roomId);
     }
     
     // Send WebRTC offer to specific user
-    public void sendOffer(String roomId, User fromUser, User toUser, Map<String, Object> offer) throws UserException {
+    public void sendOffer(String roomId, UserSummary fromUser, UserSummary toUser, Map<String, Object> offer) throws UserException {
         try {
             // Validate room exists (works for both regular and group calls)
             validateRoomExists(roomId);
             // Note: Skipping participant validation to avoid LazyInitializationException
             // Participants are already validated when they join the room
             
-            // Log offer details
-            System.out.println("=== 🎯 WebRTC OFFER DEBUG ===");
-            System.out.println("📤 Sending offer from User " + fromUser.getId() + " (" + fromUser.getFname() + " " + fromUser.getLname() + ")");
-            System.out.println("📥 To User " + toUser.getId() + " (" + toUser.getFname() + " " + toUser.getLname() + ")");
-            System.out.println("🏠 Room ID: " + roomId);
-            System.out.println("📋 Offer Type: " + offer.get("type"));
-            System.out.println("📋 Offer SDP Length: " + (offer.get("sdp") != null ? offer.get("sdp").toString().length() : "null"));
-            System.out.println("⏰ Timestamp: " + System.currentTimeMillis());
+            logger.debug("Offer in room {} from {} to {}", roomId, fromUser.getId(), toUser.getId());
             
             // Create signaling message
             Map<String, Object> signalingMessage = Map.of(
@@ -75,37 +79,26 @@ public class WebRTCSignalingService {
                 "timestamp", System.currentTimeMillis()
             );
             
-            // Send to specific user
+            // Send to specific user, after the candidates still waiting for them
+            signalingRelay.flush(roomId, fromUser.getId(), toUser.getId());
             String destination = "/user/" + toUser.getId() + "/queue/call-signaling";
-            System.out.println("📡 WebSocket Destination: " + destination);
             messagingTemplate.convertAndSend(destination, signalingMessage);
             
-            System.out.println("✅ WebRTC offer sent successfully!");
-            System.out.println("================================");
-            
         } catch (Exception e) {
-            System.err.println("❌ Failed to send WebRTC offer: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to send WebRTC offer in room {}: {}", roomId, e.getMessage());
             throw new UserException("Failed to send WebRTC offer: " + e.getMessage());
         }
     }
     
     // Send WebRTC answer to specific user
-    public void sendAnswer(String roomId, User fromUser, User toUser, Map<String, Object> answer) throws UserException {
+    public void sendAnswer(String roomId, UserSummary fromUser, UserSummary toUser, Map<String, Object> answer) throws UserException {
         try {
             // Validate room exists (works for both regular and group calls)
             validateRoomExists(roomId);
             // Note: Skipping participant validation to avoid LazyInitializationException
             // Participants are already validated when they join the room
             
-            // Log answer details
-            System.out.println("=== 🎯 WebRTC ANSWER DEBUG ===");
-            System.out.println("📤 Sending answer from User " + fromUser.getId() + " (" + fromUser.getFname() + " " + fromUser.getLname() + ")");
-            System.out.println("📥 To User " + toUser.getId() + " (" + toUser.getFname() + " " + toUser.getLname() + ")");
-            System.out.println("🏠 Room ID: " + roomId);
-            System.out.println("📋 Answer Type: " + answer.get("type"));
-            System.out.println("📋 Answer SDP Length: " + (answer.get("sdp") != null ? answer.get("sdp").toString().length() : "null"));
-            System.out.println("⏰ Timestamp: " + System.currentTimeMillis());
+            logger.debug("Answer in room {} from {} to {}", roomId, fromUser.getId(), toUser.getId());
             
             // Create signaling message
             Map<String, Object> signalingMessage = Map.of(
@@ -117,76 +110,43 @@ public class WebRTCSignalingService {
                 "timestamp", System.currentTimeMillis()
             );
             
-            // Send to specific user
+            // Send to specific user, after the candidates still waiting for them
+            signalingRelay.flush(roomId, fromUser.getId(), toUser.getId());
             String destination = "/user/" + toUser.getId() + "/queue/call-signaling";
-            System.out.println("📡 WebSocket Destination: " + destination);
             messagingTemplate.convertAndSend(destination, signalingMessage);
             
-            System.out.println("✅ WebRTC answer sent successfully!");
-            System.out.println("================================");
-            
         } catch (Exception e) {
-            System.err.println("❌ Failed to send WebRTC answer: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to send WebRTC answer in room {}: {}", roomId, e.getMessage());
             throw new UserException("Failed to send WebRTC answer: " + e.getMessage());
         }
     }
     
     // Send ICE candidate to specific user
-    public void sendIceCandidate(String roomId, User fromUser, User toUser, Map<String, Object> iceCandidate) throws UserException {
+    public void sendIceCandidate(String roomId, UserSummary fromUser, UserSummary toUser, Map<String, Object> iceCandidate) throws UserException {
         try {
             // Validate room exists (works for both regular and group calls)
             validateRoomExists(roomId);
             // Note: Skipping participant validation to avoid LazyInitializationException
             // Participants are already validated when they join the room
             
-            // Log ICE candidate details
-            System.out.println("=== 🧊 ICE CANDIDATE DEBUG ===");
-            System.out.println("📤 Sending ICE candidate from User " + fromUser.getId() + " (" + fromUser.getFname() + " " + fromUser.getLname() + ")");
-            System.out.println("📥 To User " + toUser.getId() + " (" + toUser.getFname() + " " + toUser.getLname() + ")");
-            System.out.println("🏠 Room ID: " + roomId);
-            System.out.println("🧊 Candidate: " + iceCandidate.get("candidate"));
-            System.out.println("🧊 SDP MLine Index: " + iceCandidate.get("sdpMLineIndex"));
-            System.out.println("🧊 SDP Mid: " + iceCandidate.get("sdpMid"));
-            System.out.println("⏰ Timestamp: " + System.currentTimeMillis());
+            logger.debug("ICE candidate in room {} from {} to {}", roomId, fromUser.getId(), toUser.getId());
             
-            // Create signaling message
-            Map<String, Object> signalingMessage = Map.of(
-                "type", "ice-candidate",
-                "from", fromUser.getId(),
-                "fromName", fromUser.getFname() + " " + fromUser.getLname(),
-                "roomId", roomId,
-                "candidate", iceCandidate,
-                "timestamp", System.currentTimeMillis()
-            );
-            
-            // Send to specific user
-            String destination = "/user/" + toUser.getId() + "/queue/call-signaling";
-            System.out.println("📡 WebSocket Destination: " + destination);
-            messagingTemplate.convertAndSend(destination, signalingMessage);
-            
-            System.out.println("✅ ICE candidate sent successfully!");
-            System.out.println("================================");
+            // Coalesced with the sender's other candidates for this user
+            signalingRelay.candidate(roomId, fromUser, toUser.getId(), iceCandidate);
             
         } catch (Exception e) {
-            System.err.println("❌ Failed to send ICE candidate: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to send ICE candidate in room {}: {}", roomId, e.getMessage());
             throw new UserException("Failed to send ICE candidate: " + e.getMessage());
         }
     }
     
     // Broadcast answer to all participants in room (except sender)
-    public void broadcastAnswer(String roomId, User fromUser, Map<String, Object> answer) throws UserException {
+    public void broadcastAnswer(String roomId, UserSummary fromUser, Map<String, Object> answer) throws UserException {
         try {
             // Validate room exists (works for both regular and group calls)
             validateRoomExists(roomId);
             
-            // Log broadcast details
-            System.out.println("=== 📡 BROADCAST ANSWER DEBUG ===");
-            System.out.println("📤 Broadcasting answer from User " + fromUser.getId() + " (" + fromUser.getFname() + " " + fromUser.getLname() + ")");
-            System.out.println("🏠 Room ID: " + roomId);
-            System.out.println("📋 Answer Type: " + answer.get("type"));
-            System.out.println("⏰ Timestamp: " + System.currentTimeMillis());
+            logger.debug("Answer broadcast in room {} from {}", roomId, fromUser.getId());
             
             // Create signaling message
             Map<String, Object> signalingMessage = Map.of(
@@ -198,55 +158,30 @@ public class WebRTCSignalingService {
                 "timestamp", System.currentTimeMillis()
             );
             
-            // Broadcast to all participants in room (except sender)
+            // Broadcast to all participants in room (except sender), after the candidates still waiting
+            signalingRelay.flush(roomId, fromUser.getId(), null);
             String destination = "/room/" + roomId + "/call-signaling";
-            System.out.println("📡 WebSocket Destination: " + destination);
             messagingTemplate.convertAndSend(destination, signalingMessage);
             
-            System.out.println("✅ Answer broadcasted successfully!");
-            System.out.println("================================");
-            
         } catch (Exception e) {
-            System.err.println("❌ Failed to broadcast answer: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to broadcast answer in room {}: {}", roomId, e.getMessage());
             throw new UserException("Failed to broadcast answer: " + e.getMessage());
         }
     }
     
     // Broadcast ICE candidate to all participants in room (except sender)
-    public void broadcastIceCandidate(String roomId, User fromUser, Map<String, Object> iceCandidate) throws UserException {
+    public void broadcastIceCandidate(String roomId, UserSummary fromUser, Map<String, Object> iceCandidate) throws UserException {
         try {
             // Validate room exists (works for both regular and group calls)
             validateRoomExists(roomId);
             
-            // Log broadcast details
-            System.out.println("=== 📡 BROADCAST ICE CANDIDATE DEBUG ===");
-            System.out.println("📤 Broadcasting ICE candidate from User " + fromUser.getId() + " (" + fromUser.getFname() + " " + fromUser.getLname() + ")");
-            System.out.println("🏠 Room ID: " + roomId);
-            System.out.println("🧊 Candidate: " + iceCandidate.get("candidate"));
-            System.out.println("⏰ Timestamp: " + System.currentTimeMillis());
-            
-            // Create signaling message
-            Map<String, Object> signalingMessage = Map.of(
-                "type", "ice-candidate",
-                "from", fromUser.getId(),
-                "fromName", fromUser.getFname() + " " + fromUser.getLname(),
-                "roomId", roomId,
-                "candidate", iceCandidate,
-                "timestamp", System.currentTimeMillis()
-            );
-            
-            // Broadcast to all participants in room (except sender)
-            String destination = "/room/" + roomId + "/call-signaling";
-            System.out.println("📡 WebSocket Destination: " + destination);
-            messagingTemplate.convertAndSend(destination, signalingMessage);
+            logger.debug("ICE candidate broadcast in room {} from {}", roomId, fromUser.getId());
             
-            System.out.println("✅ ICE candidate broadcasted successfully!");
-            System.out.println("================================");
+            // Coalesced with the sender's other candidates for the room
+            signalingRelay.candidate(roomId, fromUser, null, iceCandidate);
             
         } catch (Exception e) {
-            System.err.println("❌ Failed to broadcast ICE candidate: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to broadcast ICE candidate in room {}: {}", roomId, e.getMessage());
             throw new UserException("Failed to broadcast ICE candidate: " + e.getMessage());
         }
     }
@@ -254,20 +189,9 @@ public class WebRTCSignalingService {
     // Broadcast message to all room participants
     public void broadcastToRoom(String roomId, User fromUser, String messageType, Map<String, Object> data) throws UserException {
         try {
-            List<User> participants;
-            
-            if (isGroupCallRoom(roomId)) {
-                GroupCallRoom groupRoom = groupCallService.getGroupCallRoomById(roomId);
-                if (!groupRoom.isParticipant(fromUser)) {
-                    throw new UserException("User not authorized for this room");
-                }
-                participants = groupRoom.getParticipants();
-            } else {
-                CallRoom room = callRoomService.getCallRoomById(roomId);
-                if (!room.isParticipant(fromUser)) {
-                    throw new UserException("User not authorized for this room");
-                }
-                participants = room.getParticipants();
+            CallRoomRegistry.Room room = callRoomRegistry.require(roomId);
+            if (!room.isParticipant(fromUser.getId())) {
+                throw new UserException("User not authorized for this room");
             }
             
             // Create broadcast message
@@ -281,14 +205,14 @@ public class WebRTCSignalingService {
             );
             
             // Send to all participants except sender
-            for (User participant : participants) {
-                if (!participant.getId().equals(fromUser.getId())) {
-                    String destination = "/user/" + participant.getId() + "/queue/call-signaling";
+            for (UUID participantId : room.participants()) {
+                if (!participantId.equals(fromUser.getId())) {
+                    String destination = "/user/" + participantId + "/queue/call-signaling";
                     messagingTemplate.convertAndSend(destination, broadcastMessage);
                 }
             }
             
-            System.out.println("Broadcast message sent to room " + roomId + " from user " + fromUser.getId());
+            logger.debug("Broadcast {} to room {} from {}", messageType, roomId, fromUser.getId());
             
         } catch (Exception e) {
             throw new UserException("Failed to broadcast message: " + e.getMessage());
@@ -296,7 +220,7 @@ public class WebRTCSignalingService {
     }
     
     // Send call invitation
-    public void sendCallInvitation(String roomId, User fromUser, User toUser, CallRoom.CallType callType) throws UserException {
+    public void sendCallInvitation(String roomId, UserSummary fromUser, UserSummary toUser, CallRoom.CallType callType) throws UserException {
         try {
             // For call invitations, we only support regular call rooms
             CallRoom room = callRoomService.getCallRoomById(roomId);
@@ -328,6 +252,7 @@ public class WebRTCSignalingService {
             System.out.println("Sending call invitation to destination: " + destination);
             System.out.println("Call invitation message: " + invitationMessage);
             messagingTemplate.convertAndSend(destination, invitationMessage);
+            eventPublisher.publishEvent(new CallRingEvent(room.getRoomId(), fromUser.getId(), toUser.getId(), true));
             
             System.out.println("Call invitation sent to user " + toUser.getId() + " from user " + fromUser.getId() + " via WebSocket");
             
@@ -337,7 +262,7 @@ public class WebRTCSignalingService {
     }
     
     // Send call response (accept/decline)
-    public void sendCallResponse(String roomId, User fromUser, User toUser, boolean accepted) throws UserException {
+    public void sendCallResponse(String roomId, UserSummary fromUser, UserSummary toUser, boolean accepted) throws UserException {
         try {
             Map<String, Object> responseData = Map.of(
                 "roomId", roomId,
@@ -354,6 +279,7 @@ public class WebRTCSignalingService {
             
             String destination = "/user/" + toUser.getId() + "/queue/call-invitations";
             messagingTemplate.convertAndSend(destination, responseMessage);
+            eventPublisher.publishEvent(new CallRingEvent(roomId, toUser.getId(), fromUser.getId(), false));
             
             System.out.println("Call response sent to user " + toUser.getId() + " from user " + fromUser.getId() + ": " + (accepted ? "accepted" : "declined"));
             